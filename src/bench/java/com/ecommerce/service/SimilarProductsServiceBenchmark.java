@@ -0,0 +1,199 @@
+package com.ecommerce.service;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ecommerce.dao.OrderItemDAO;
+import com.ecommerce.dao.ProductDAO;
+import com.ecommerce.dao.WishlistDAO;
+import com.ecommerce.model.Product;
+import com.ecommerce.util.Baskets;
+
+/**
+ * A full rebuild of the similar-products lists from a synthetic order history and wishlists,
+ * and the lookups a product page and the cart make once they are built. The DAOs answer from
+ * memory, so the numbers leave out the database.
+ *
+ * Run with {@code mvn -Pbench test-compile exec:exec -Djmh.args=SimilarProductsService}.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SimilarProductsServiceBenchmark
+{
+    private static final int LIMIT = 8;
+    private static final int CART_SIZE = 5;
+    private static final long NEVER_MS = Long.MAX_VALUE / 2;
+
+    @Param({"20000"})
+    int products;
+
+    @Param({"200000"})
+    int orders;
+
+    @Param({"20000"})
+    int users;
+
+    @Param({"200"})
+    int maxPairsPerProduct;
+
+    private ProductDAO productDAO;
+    private OrderItemDAO orderItemDAO;
+    private WishlistDAO wishlistDAO;
+    private SimilarProductsService built;
+    private int[] lookupIds;
+    private List<List<Integer>> carts;
+    private int next;
+
+    @Setup
+    public void setUp()
+    {
+        Map<Integer, Product> catalog = new LinkedHashMap<>();
+        for (int id = 1; id <= products; id++) {
+            Product product = new Product("Product " + id, "", 10, 10, 1 + id % 200, null);
+            product.setId(id);
+            catalog.put(id, product);
+        }
+        int[][] baskets = Baskets.generate(products, orders, 42);
+        Map<Integer, List<Integer>> wishlists = new HashMap<>();
+        int[][] wished = Baskets.generate(products, users, 43);
+        for (int userId = 1; userId <= users; userId++) {
+            List<Integer> productIds = new ArrayList<>();
+            for (int productId : wished[userId - 1]) {
+                productIds.add(productId);
+            }
+            wishlists.put(userId, productIds);
+        }
+
+        productDAO = proxy(ProductDAO.class, (method, args) -> {
+            switch (method) {
+                case "getAllProduct":
+                    return new ArrayList<>(catalog.values());
+                case "getProductsByIds":
+                    Map<Integer, Product> found = new HashMap<>();
+                    for (Object id : (Collection<?>) args[0]) {
+                        found.put((Integer) id, catalog.get(id));
+                    }
+                    return found;
+                default:
+                    throw new UnsupportedOperationException(method);
+            }
+        });
+        orderItemDAO = proxy(OrderItemDAO.class, (method, args) -> {
+            if (!method.equals("getProductIdsByOrderAfter")) {
+                throw new UnsupportedOperationException(method);
+            }
+            // Order ids are 1 to orders; whole orders up to about maxRows rows, like the real query
+            int afterOrderId = (Integer) args[0];
+            int maxRows = (Integer) args[1];
+            Map<Integer, List<Integer>> chunk = new LinkedHashMap<>();
+            int rows = 0;
+            for (int orderId = afterOrderId + 1; orderId <= orders && rows < maxRows; orderId++) {
+                List<Integer> productIds = new ArrayList<>();
+                for (int productId : baskets[orderId - 1]) {
+                    productIds.add(productId);
+                }
+                chunk.put(orderId, productIds);
+                rows += productIds.size();
+            }
+            return chunk;
+        });
+        wishlistDAO = proxy(WishlistDAO.class, (method, args) -> {
+            if (!method.equals("getProductIdsByUser")) {
+                throw new UnsupportedOperationException(method);
+            }
+            return new HashMap<>(wishlists);
+        });
+
+        built = buildAndWait();
+        Random random = new Random(7);
+        lookupIds = new int[1 << 12];
+        carts = new ArrayList<>(lookupIds.length);
+        for (int i = 0; i < lookupIds.length; i++) {
+            lookupIds[i] = Baskets.pick(random, products);
+            List<Integer> cart = new ArrayList<>(CART_SIZE);
+            for (int j = 0; j < CART_SIZE; j++) {
+                cart.add(Baskets.pick(random, products));
+            }
+            carts.add(cart);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public SimilarProductsService fullRebuild()
+    {
+        return buildAndWait();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<Product> similarProducts()
+    {
+        return built.getSimilarProducts(lookupIds[next++ & (lookupIds.length - 1)], LIMIT);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<Product> alsoBought()
+    {
+        return built.getAlsoBought(lookupIds[next++ & (lookupIds.length - 1)], LIMIT);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<Product> alsoBoughtForCart()
+    {
+        return built.getAlsoBought(carts.get(next++ & (lookupIds.length - 1)), LIMIT);
+    }
+
+    // The service builds on its own thread; the best seller has neighbours once the first build is in
+    private SimilarProductsService buildAndWait()
+    {
+        SimilarProductsService service = new SimilarProductsService(productDAO, orderItemDAO, wishlistDAO,
+                maxPairsPerProduct, 0, NEVER_MS);
+        while (service.getAlsoBought(1, 1).isEmpty()) {
+            LockSupport.parkNanos(100_000);
+        }
+        return service;
+    }
+
+    private interface Answer
+    {
+        Object answer(String method, Object[] args);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Answer answer)
+    {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type},
+                (proxy, method, args) -> answer.answer(method.getName(), args));
+    }
+}
@@ -0,0 +1,52 @@
+package com.ecommerce.util;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Synthetic orders for the benchmarks: one to eight distinct products each, skewed so a few
+ * products turn up in most orders, like a real catalog's best sellers.
+ */
+public final class Baskets {
+
+    private Baskets() {
+    }
+
+    /**
+     * Product ids (1 to products) of each order, sorted
+     */
+    public static int[][] generate(int products, int orders, long seed) {
+        Random random = new Random(seed);
+        int[][] baskets = new int[orders][];
+        for (int i = 0; i < orders; i++) {
+            int[] basket = new int[1 + random.nextInt(8)];
+            int size = 0;
+            while (size < basket.length) {
+                int productId = pick(random, products);
+                if (!contains(basket, size, productId)) {
+                    basket[size++] = productId;
+                }
+            }
+            Arrays.sort(basket);
+            baskets[i] = basket;
+        }
+        return baskets;
+    }
+
+    /**
+     * A product id from 1 to products, low ids far more likely than high ones
+     */
+    public static int pick(Random random, int products) {
+        double r = random.nextDouble();
+        return 1 + (int) (products * r * r * r);
+    }
+
+    private static boolean contains(int[] values, int length, int value) {
+        for (int i = 0; i < length; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,103 @@
+package com.ecommerce.util;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Counting every pair of a synthetic order history into a matrix, and reading rows back the
+ * way the similar-products ranking does.
+ *
+ * Run with {@code mvn -Pbench test-compile exec:exec -Djmh.args=SparseCountMatrix}.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SparseCountMatrixBenchmark {
+
+    private static final int TOP_N = 24;
+
+    @Param({"20000"})
+    int products;
+
+    @Param({"200000"})
+    int orders;
+
+    @Param({"200"})
+    int maxColumnsPerRow;
+
+    private int[][] baskets;
+    private SparseCountMatrix built;
+    private int[] lookupRows;
+    private int next;
+    private final int[] topColumns = new int[TOP_N];
+    private final int[] topCounts = new int[TOP_N];
+
+    @Setup
+    public void setUp() {
+        baskets = Baskets.generate(products, orders, 42);
+        built = build();
+        // Mostly popular products, the ones whose pages are viewed most
+        Random random = new Random(7);
+        lookupRows = new int[1 << 12];
+        for (int i = 0; i < lookupRows.length; i++) {
+            lookupRows[i] = Baskets.pick(random, products);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 10)
+    public SparseCountMatrix build() {
+        SparseCountMatrix matrix = new SparseCountMatrix(maxColumnsPerRow);
+        for (int[] basket : baskets) {
+            for (int a : basket) {
+                for (int b : basket) {
+                    if (a != b) {
+                        matrix.add(a, b, 1);
+                    }
+                }
+            }
+        }
+        return matrix;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int top() {
+        int row = lookupRows[next++ & (lookupRows.length - 1)];
+        return built.top(row, TOP_N, topColumns, topCounts);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int get() {
+        int i = next++ & (lookupRows.length - 1);
+        return built.get(lookupRows[i], lookupRows[(i + 1) & (lookupRows.length - 1)]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long forEach() {
+        long[] sum = new long[1];
+        built.forEach(lookupRows[next++ & (lookupRows.length - 1)], (column, count) -> sum[0] += count);
+        return sum[0];
+    }
+}
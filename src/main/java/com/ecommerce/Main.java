@@ -18,13 +18,19 @@ import javax.swing.UIManager;
 
 import com.ecommerce.config.AppConfig;
 import com.ecommerce.config.DBConnection;
+import com.ecommerce.dao.RatingSummaries;
 import com.ecommerce.scheduler.OrderStatusScheduler;
 import com.ecommerce.scheduler.SaleNotificationScheduler;
 import com.ecommerce.scheduler.SaleStatusScheduler;
 import com.ecommerce.scheduler.StockCheckScheduler;
+import com.ecommerce.service.CartService;
+import com.ecommerce.service.SimilarProductsService;
 import com.ecommerce.util.FontManager;
+import com.ecommerce.util.ImageCache;
+import com.ecommerce.util.IndexMigration;
 import com.ecommerce.util.NotificationDAOMigration;
 import com.ecommerce.util.ThemeManager;
+import com.ecommerce.utils.EmailDispatcher;
 import com.ecommerce.view.LoginForm;
 
 public class Main {
@@ -51,6 +57,9 @@ public class Main {
             // Run notification table migration
             NotificationDAOMigration.addCreatedAtColumn();
             
+            // Create indexes used by the schedulers and reports
+            IndexMigration.createIndexes();
+            
             // Ensure receipt directory exists
             File receiptDir = new File("OrderReceipts");
             if (!receiptDir.exists()) {
@@ -129,6 +138,12 @@ public class Main {
             Runtime.getRuntime().addShutdownHook(new Thread(() -> {
                 System.out.println("Application shutting down. Stopping schedulers...");
                 stopSchedulers();
+                System.out.println("Saving carts...");
+                CartService.getInstance().flushAll();
+                System.out.println("Saving thumbnail index...");
+                ImageCache.flushInstance();
+                System.out.println("Sending queued emails...");
+                EmailDispatcher.shutdownInstance(10_000);
                 System.out.println("Closing database connections...");
                 DBConnection.closeAllConnections();
                 System.out.println("All database connections closed.");
@@ -160,6 +175,11 @@ public class Main {
             saleStatusScheduler.start();
             // Removed stockCheckScheduler.start();
             
+            // Start building the "You May Also Like" lists in the background
+            SimilarProductsService.getInstance();
+            // Load rating averages and counts before the first product page asks for them
+            RatingSummaries.getInstance();
+            
             System.out.println("Schedulers started successfully");
         } catch (Exception e) {
             System.err.println("Error starting schedulers: " + e.getMessage());
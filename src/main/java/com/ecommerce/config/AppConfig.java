@@ -17,8 +17,45 @@ public class AppConfig {
     public static final String EMAIL_FROM = getEmailUsername();
     public static final String EMAIL_PASSWORD = getEmailPassword();
     
+    // Outgoing mail queue config
+    public static final int MAIL_QUEUE_CAPACITY_DEFAULT = 500;
+    public static final int MAIL_WORKERS_DEFAULT = 2;
+    public static final int MAIL_MAX_ATTEMPTS_DEFAULT = 3;
+    public static final long MAIL_RETRY_DELAY_MS_DEFAULT = 2_000;
+    public static final String MAIL_DEAD_LETTER_FILE_DEFAULT = "mail-dead-letters.log";
+    
     // Product config
     public static final int LOW_STOCK_THRESHOLD = 5;
+    public static final int PRODUCT_CACHE_MAX_ENTRIES_DEFAULT = 10_000;
+    public static final int PRODUCT_CACHE_MAX_SNAPSHOTS_DEFAULT = 64;
+    public static final long PRODUCT_CACHE_TTL_MS_DEFAULT = 300_000;
+    public static final long CATEGORY_CACHE_TTL_MS_DEFAULT = 300_000;
+    
+    // Image cache config
+    public static final long IMAGE_CACHE_MAX_BYTES_DEFAULT = 64L * 1024 * 1024;
+    public static final long IMAGE_CACHE_MISSING_TTL_MS_DEFAULT = 60_000;
+    public static final String IMAGE_THUMBNAIL_DIR_DEFAULT = "thumbnail-cache";
+    
+    // Similar products config
+    public static final long SIMILAR_REFRESH_INTERVAL_MS_DEFAULT = 600_000;
+    public static final long SIMILAR_FULL_REBUILD_INTERVAL_MS_DEFAULT = 21_600_000;
+    public static final int SIMILAR_MAX_PAIRS_PER_PRODUCT_DEFAULT = 200;
+    
+    // Rating summaries config
+    public static final long RATING_SUMMARY_REFRESH_INTERVAL_MS_DEFAULT = 600_000;
+    
+    // Cart config
+    public static final long CART_WRITE_DELAY_MS_DEFAULT = 2_000;
+    
+    // Report config
+    public static final int REPORT_CACHE_MAX_ENTRIES_DEFAULT = 32;
+    public static final long REPORT_CACHE_TTL_MS_DEFAULT = 60_000;
+    
+    // Notification config
+    public static final long NOTIFICATION_RECONCILE_INTERVAL_MS_DEFAULT = 300_000;
+    
+    // Scheduler config
+    public static final long ORDER_STATUS_INTERVAL_MINUTES_DEFAULT = 60;
     
     // Database config
     public static final String DB_URL_DEFAULT = "jdbc:mysql://localhost:3306/ecommerce_db";
@@ -26,6 +63,15 @@ public class AppConfig {
     public static final String DB_PASS_DEFAULT = "";
     public static final String DB_DRIVER_DEFAULT = "com.mysql.cj.jdbc.Driver";
     
+    // Connection pool config
+    public static final int DB_POOL_MIN_SIZE_DEFAULT = 2;
+    public static final int DB_POOL_MAX_SIZE_DEFAULT = 10;
+    public static final long DB_POOL_ACQUIRE_TIMEOUT_MS_DEFAULT = 10_000;
+    public static final long DB_POOL_IDLE_TIMEOUT_MS_DEFAULT = 300_000;
+    public static final long DB_POOL_MAX_LIFETIME_MS_DEFAULT = 1_800_000;
+    public static final long DB_POOL_VALIDATION_INTERVAL_MS_DEFAULT = 30_000;
+    public static final long DB_POOL_LEAK_DETECTION_MS_DEFAULT = 60_000;
+    
     /**
      * Initialize configuration from properties file
      */
@@ -84,6 +130,38 @@ public class AppConfig {
         return properties.getProperty(key);
     }
     
+    /**
+     * Get an integer property, falling back to the default if missing or malformed
+     */
+    public static int getIntProperty(String key, int defaultValue) {
+        String value = getProperty(key);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid integer for " + key + ": " + value + ". Using default " + defaultValue);
+            return defaultValue;
+        }
+    }
+    
+    /**
+     * Get a long property, falling back to the default if missing or malformed
+     */
+    public static long getLongProperty(String key, long defaultValue) {
+        String value = getProperty(key);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid number for " + key + ": " + value + ". Using default " + defaultValue);
+            return defaultValue;
+        }
+    }
+    
     /**
      * Get database URL
      */
@@ -112,6 +190,169 @@ public class AppConfig {
         return getProperty("db.driver", DB_DRIVER_DEFAULT);
     }
     
+    /**
+     * Minimum number of connections the pool keeps open
+     */
+    public static int getDbPoolMinSize() {
+        return getIntProperty("db.pool.minSize", DB_POOL_MIN_SIZE_DEFAULT);
+    }
+    
+    /**
+     * Maximum number of connections the pool will ever open
+     */
+    public static int getDbPoolMaxSize() {
+        return getIntProperty("db.pool.maxSize", DB_POOL_MAX_SIZE_DEFAULT);
+    }
+    
+    /**
+     * How long a caller waits for a free connection before failing
+     */
+    public static long getDbPoolAcquireTimeoutMs() {
+        return getLongProperty("db.pool.acquireTimeoutMs", DB_POOL_ACQUIRE_TIMEOUT_MS_DEFAULT);
+    }
+    
+    /**
+     * How long a connection may sit idle above the minimum before it is closed
+     */
+    public static long getDbPoolIdleTimeoutMs() {
+        return getLongProperty("db.pool.idleTimeoutMs", DB_POOL_IDLE_TIMEOUT_MS_DEFAULT);
+    }
+    
+    /**
+     * Maximum age of a connection before it is recycled
+     */
+    public static long getDbPoolMaxLifetimeMs() {
+        return getLongProperty("db.pool.maxLifetimeMs", DB_POOL_MAX_LIFETIME_MS_DEFAULT);
+    }
+    
+    /**
+     * How often idle connections are validated and evicted
+     */
+    public static long getDbPoolValidationIntervalMs() {
+        return getLongProperty("db.pool.validationIntervalMs", DB_POOL_VALIDATION_INTERVAL_MS_DEFAULT);
+    }
+    
+    /**
+     * How long a connection may be held before it is reported as a possible leak (0 disables)
+     */
+    public static long getDbPoolLeakDetectionMs() {
+        return getLongProperty("db.pool.leakDetectionMs", DB_POOL_LEAK_DETECTION_MS_DEFAULT);
+    }
+    
+    /**
+     * Maximum number of products held in the product cache
+     */
+    public static int getProductCacheMaxEntries() {
+        return getIntProperty("product.cache.maxEntries", PRODUCT_CACHE_MAX_ENTRIES_DEFAULT);
+    }
+    
+    /**
+     * Maximum number of cached product lists (catalog, category, search, sort results)
+     */
+    public static int getProductCacheMaxSnapshots() {
+        return getIntProperty("product.cache.maxSnapshots", PRODUCT_CACHE_MAX_SNAPSHOTS_DEFAULT);
+    }
+    
+    /**
+     * How long a cached product or product list stays valid
+     */
+    public static long getProductCacheTtlMs() {
+        return getLongProperty("product.cache.ttlMs", PRODUCT_CACHE_TTL_MS_DEFAULT);
+    }
+    
+    /**
+     * How long the cached category tree stays valid before it is reloaded
+     */
+    public static long getCategoryCacheTtlMs() {
+        return getLongProperty("category.cache.ttlMs", CATEGORY_CACHE_TTL_MS_DEFAULT);
+    }
+    
+    /**
+     * Maximum memory, in pixel bytes, used by cached product thumbnails and icons
+     */
+    public static long getImageCacheMaxBytes() {
+        return getLongProperty("image.cache.maxBytes", IMAGE_CACHE_MAX_BYTES_DEFAULT);
+    }
+    
+    /**
+     * How long an image that was not found is remembered before looking for it again
+     */
+    public static long getImageCacheMissingTtlMs() {
+        return getLongProperty("image.cache.missingTtlMs", IMAGE_CACHE_MISSING_TTL_MS_DEFAULT);
+    }
+    
+    /**
+     * Directory product thumbnails are kept in between runs (empty disables it)
+     */
+    public static String getImageThumbnailDir() {
+        return getProperty("image.thumbnailDir", IMAGE_THUMBNAIL_DIR_DEFAULT).trim();
+    }
+    
+    /**
+     * How often new orders and wishlist changes are folded into the similar product lists
+     */
+    public static long getSimilarRefreshIntervalMs() {
+        return getLongProperty("similar.refreshIntervalMs", SIMILAR_REFRESH_INTERVAL_MS_DEFAULT);
+    }
+    
+    /**
+     * How often the similar product lists are rebuilt from scratch, dropping deleted orders
+     */
+    public static long getSimilarFullRebuildIntervalMs() {
+        return getLongProperty("similar.fullRebuildIntervalMs", SIMILAR_FULL_REBUILD_INTERVAL_MS_DEFAULT);
+    }
+    
+    /**
+     * How many co-purchased or co-wishlisted products are counted per product; the rarest
+     * pairs are dropped beyond this
+     */
+    public static int getSimilarMaxPairsPerProduct() {
+        return getIntProperty("similar.maxPairsPerProduct", SIMILAR_MAX_PAIRS_PER_PRODUCT_DEFAULT);
+    }
+    
+    /**
+     * How often rating averages and counts are reloaded, picking up ratings made by other instances (0 disables)
+     */
+    public static long getRatingSummaryRefreshIntervalMs() {
+        return getLongProperty("ratings.summaryRefreshIntervalMs", RATING_SUMMARY_REFRESH_INTERVAL_MS_DEFAULT);
+    }
+    
+    /**
+     * How long cart changes are held before being written, so quick successive edits become one write
+     */
+    public static long getCartWriteDelayMs() {
+        return getLongProperty("cart.writeDelayMs", CART_WRITE_DELAY_MS_DEFAULT);
+    }
+    
+    /**
+     * Maximum number of cached sales reports (0 disables report caching)
+     */
+    public static int getReportCacheMaxEntries() {
+        return getIntProperty("report.cache.maxEntries", REPORT_CACHE_MAX_ENTRIES_DEFAULT);
+    }
+    
+    /**
+     * How long a cached sales report stays valid
+     */
+    public static long getReportCacheTtlMs() {
+        return getLongProperty("report.cache.ttlMs", REPORT_CACHE_TTL_MS_DEFAULT);
+    }
+    
+    /**
+     * How often open sessions re-read their unread notification count from the database,
+     * to pick up notifications added by other processes (0 disables)
+     */
+    public static long getNotificationReconcileIntervalMs() {
+        return getLongProperty("notification.reconcileIntervalMs", NOTIFICATION_RECONCILE_INTERVAL_MS_DEFAULT);
+    }
+    
+    /**
+     * Minutes between order status scheduler runs
+     */
+    public static long getOrderStatusIntervalMinutes() {
+        return getLongProperty("scheduler.orderStatus.intervalMinutes", ORDER_STATUS_INTERVAL_MINUTES_DEFAULT);
+    }
+    
     /**
      * Get email host
      */
@@ -140,6 +381,41 @@ public class AppConfig {
         return getProperty("mail.password", "");
     }
     
+    /**
+     * Maximum number of emails waiting to be sent; further emails are dead-lettered
+     */
+    public static int getMailQueueCapacity() {
+        return getIntProperty("mail.queue.capacity", MAIL_QUEUE_CAPACITY_DEFAULT);
+    }
+    
+    /**
+     * Number of threads sending queued emails, each with its own SMTP connection
+     */
+    public static int getMailWorkers() {
+        return getIntProperty("mail.queue.workers", MAIL_WORKERS_DEFAULT);
+    }
+    
+    /**
+     * Attempts per email before it is dead-lettered
+     */
+    public static int getMailMaxAttempts() {
+        return getIntProperty("mail.queue.maxAttempts", MAIL_MAX_ATTEMPTS_DEFAULT);
+    }
+    
+    /**
+     * Base delay before retrying a failed email; doubles per attempt, with jitter
+     */
+    public static long getMailRetryDelayMs() {
+        return getLongProperty("mail.queue.retryDelayMs", MAIL_RETRY_DELAY_MS_DEFAULT);
+    }
+    
+    /**
+     * File that emails which could not be delivered are appended to
+     */
+    public static String getMailDeadLetterFile() {
+        return getProperty("mail.queue.deadLetterFile", MAIL_DEAD_LETTER_FILE_DEFAULT);
+    }
+    
     /**
      * Check if email is configured
      */
@@ -0,0 +1,495 @@
+package com.ecommerce.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded JDBC connection pool.
+ *
+ * At most {@code maxSize} physical connections exist at any time. Callers block up to
+ * {@code acquireTimeoutMs} for a free slot instead of opening overflow connections.
+ * A background housekeeper evicts idle and expired connections, validates idle ones,
+ * tops the pool back up to {@code minSize} and reports connections held longer than
+ * the leak detection threshold together with the stack that acquired them.
+ *
+ * Connections handed out are proxies: {@code close()} returns them to the pool.
+ */
+public class ConnectionPool
+{
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    // Connections used this recently are handed out without an isValid() round-trip
+    private static final long ALIVE_BYPASS_WINDOW_MS = 500;
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long acquireTimeoutMs;
+    private final long idleTimeoutMs;
+    private final long maxLifetimeMs;
+    private final long leakDetectionThresholdMs;
+
+    private final LinkedBlockingDeque<PooledConnection> idleConnections = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> leasedConnections = ConcurrentHashMap.newKeySet();
+    private final Semaphore leasePermits;
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean shutdown = false;
+
+    // Statistics
+    private final AtomicLong acquireCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong closedCount = new AtomicLong();
+    private final AtomicLong leakCount = new AtomicLong();
+
+    public ConnectionPool(String url, String username, String password,
+                          int minSize, int maxSize, long acquireTimeoutMs, long idleTimeoutMs,
+                          long maxLifetimeMs, long validationIntervalMs, long leakDetectionThresholdMs)
+    {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Pool max size must be positive: " + maxSize);
+        }
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.minSize = Math.max(0, Math.min(minSize, maxSize));
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.maxLifetimeMs = maxLifetimeMs;
+        this.leakDetectionThresholdMs = leakDetectionThresholdMs;
+        this.leasePermits = new Semaphore(maxSize, true);
+
+        fillToMinimum();
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "db-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1000, validationIntervalMs);
+        housekeeper.scheduleWithFixedDelay(this::runHousekeeping, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrow a connection, waiting up to the acquire timeout for one to become available.
+     */
+    public Connection getConnection() throws SQLException
+    {
+        if (shutdown) {
+            throw new SQLException("Connection pool has been shut down");
+        }
+
+        long start = System.nanoTime();
+        try {
+            if (!leasePermits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                timeoutCount.incrementAndGet();
+                throw new SQLException("Timed out after " + acquireTimeoutMs + "ms waiting for a database connection ("
+                        + getStats() + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        recordWait(System.nanoTime() - start);
+
+        try {
+            PooledConnection pooled = takeIdleOrCreate();
+            pooled.leasedAt = System.currentTimeMillis();
+            pooled.leakReported = false;
+            pooled.acquiredBy = leakDetectionThresholdMs > 0
+                    ? new Exception("Connection acquired by thread " + Thread.currentThread().getName())
+                    : null;
+            leasedConnections.add(pooled);
+            return pooled.newProxy();
+        } catch (SQLException | RuntimeException e) {
+            leasePermits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Return a connection obtained from {@link #getConnection()}. Calling close() on it does the same.
+     */
+    public void release(Connection connection)
+    {
+        if (connection == null) {
+            return;
+        }
+        if (Proxy.isProxyClass(connection.getClass())
+                && Proxy.getInvocationHandler(connection) instanceof LeaseHandler) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                System.err.println("Error releasing connection back to pool: " + e.getMessage());
+            }
+        } else {
+            // Not one of ours - just close it
+            closeQuietly(connection);
+        }
+    }
+
+    /**
+     * Close every idle connection and refuse further acquisitions. Leased connections are
+     * closed as they are returned.
+     */
+    public void shutdown()
+    {
+        shutdown = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idleConnections.pollFirst()) != null) {
+            destroy(pooled);
+        }
+    }
+
+    public Stats getStats()
+    {
+        long acquires = acquireCount.get();
+        return new Stats(
+                totalConnections.get(),
+                leasedConnections.size(),
+                idleConnections.size(),
+                leasePermits.getQueueLength(),
+                minSize,
+                maxSize,
+                acquires,
+                timeoutCount.get(),
+                acquires == 0 ? 0.0 : totalWaitNanos.get() / (double) acquires / 1_000_000.0,
+                maxWaitNanos.get() / 1_000_000.0,
+                createdCount.get(),
+                closedCount.get(),
+                leakCount.get());
+    }
+
+    private PooledConnection takeIdleOrCreate() throws SQLException
+    {
+        while (true) {
+            PooledConnection pooled = idleConnections.pollFirst();
+            if (pooled != null) {
+                if (isUsable(pooled)) {
+                    return pooled;
+                }
+                destroy(pooled);
+                continue;
+            }
+            if (reserveSlot()) {
+                return create();
+            }
+            // The housekeeper raced us to the last slot; its connection lands in the idle deque shortly
+            LockSupport.parkNanos(100_000);
+        }
+    }
+
+    private boolean isUsable(PooledConnection pooled)
+    {
+        long now = System.currentTimeMillis();
+        if (isExpired(pooled, now)) {
+            return false;
+        }
+        if (now - pooled.lastUsedAt < ALIVE_BYPASS_WINDOW_MS) {
+            return true;
+        }
+        return isValid(pooled);
+    }
+
+    private boolean reserveSlot()
+    {
+        while (true) {
+            int current = totalConnections.get();
+            if (current >= maxSize) {
+                return false;
+            }
+            if (totalConnections.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private PooledConnection create() throws SQLException
+    {
+        try {
+            Connection physical = DriverManager.getConnection(url, username, password);
+            createdCount.incrementAndGet();
+            return new PooledConnection(physical);
+        } catch (SQLException | RuntimeException e) {
+            totalConnections.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void returnToPool(PooledConnection pooled)
+    {
+        leasedConnections.remove(pooled);
+        try {
+            if (shutdown || pooled.physical.isClosed() || isExpired(pooled, System.currentTimeMillis())) {
+                destroy(pooled);
+                return;
+            }
+            // Don't let one borrower's transaction state leak into the next
+            if (!pooled.physical.getAutoCommit()) {
+                pooled.physical.rollback();
+                pooled.physical.setAutoCommit(true);
+            }
+            pooled.lastUsedAt = System.currentTimeMillis();
+            pooled.acquiredBy = null;
+            idleConnections.offerFirst(pooled);
+        } catch (SQLException e) {
+            System.err.println("Discarding connection that failed to reset: " + e.getMessage());
+            destroy(pooled);
+        } finally {
+            leasePermits.release();
+        }
+    }
+
+    private void runHousekeeping()
+    {
+        try {
+            long now = System.currentTimeMillis();
+
+            List<PooledConnection> snapshot = new ArrayList<>(idleConnections);
+            for (PooledConnection pooled : snapshot) {
+                // Only act on connections we manage to pull out of the deque, so we never race a borrower
+                boolean idleTooLong = idleTimeoutMs > 0 && now - pooled.lastUsedAt > idleTimeoutMs
+                        && totalConnections.get() > minSize;
+                if (idleTooLong || isExpired(pooled, now)) {
+                    if (idleConnections.remove(pooled)) {
+                        destroy(pooled);
+                    }
+                } else if (idleConnections.remove(pooled)) {
+                    if (isValid(pooled)) {
+                        idleConnections.offerLast(pooled);
+                    } else {
+                        destroy(pooled);
+                    }
+                }
+            }
+
+            if (leakDetectionThresholdMs > 0) {
+                for (PooledConnection pooled : leasedConnections) {
+                    if (!pooled.leakReported && now - pooled.leasedAt > leakDetectionThresholdMs) {
+                        pooled.leakReported = true;
+                        leakCount.incrementAndGet();
+                        System.err.println("Possible connection leak: connection held for "
+                                + (now - pooled.leasedAt) + "ms");
+                        if (pooled.acquiredBy != null) {
+                            pooled.acquiredBy.printStackTrace();
+                        }
+                    }
+                }
+            }
+
+            fillToMinimum();
+        } catch (Exception e) {
+            System.err.println("Connection pool housekeeping failed: " + e.getMessage());
+        }
+    }
+
+    private void fillToMinimum()
+    {
+        while (!shutdown && totalConnections.get() < minSize && reserveSlot()) {
+            try {
+                idleConnections.offerLast(create());
+            } catch (SQLException e) {
+                System.err.println("Failed to open pooled connection: " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private boolean isExpired(PooledConnection pooled, long now)
+    {
+        return maxLifetimeMs > 0 && now - pooled.createdAt > maxLifetimeMs;
+    }
+
+    private boolean isValid(PooledConnection pooled)
+    {
+        try {
+            return pooled.physical.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void destroy(PooledConnection pooled)
+    {
+        totalConnections.decrementAndGet();
+        closedCount.incrementAndGet();
+        closeQuietly(pooled.physical);
+    }
+
+    private void recordWait(long waitNanos)
+    {
+        acquireCount.incrementAndGet();
+        totalWaitNanos.addAndGet(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    private static void closeQuietly(Connection connection)
+    {
+        try {
+            if (!connection.isClosed()) {
+                connection.close();
+            }
+        } catch (SQLException e) {
+            System.err.println("Error closing connection: " + e.getMessage());
+        }
+    }
+
+    /**
+     * A physical connection plus the bookkeeping the pool needs for it.
+     */
+    private final class PooledConnection
+    {
+        private final Connection physical;
+        private final long createdAt = System.currentTimeMillis();
+        private volatile long lastUsedAt = createdAt;
+        private volatile long leasedAt;
+        private volatile boolean leakReported;
+        private volatile Exception acquiredBy;
+
+        private PooledConnection(Connection physical)
+        {
+            this.physical = physical;
+        }
+
+        private Connection newProxy()
+        {
+            return (Connection) Proxy.newProxyInstance(
+                    ConnectionPool.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new LeaseHandler(this));
+        }
+    }
+
+    /**
+     * One lease of a pooled connection. close() hands the connection back exactly once; any
+     * other call after that fails like it would on a closed connection.
+     */
+    private final class LeaseHandler implements InvocationHandler
+    {
+        private final PooledConnection pooled;
+        private boolean closed = false;
+
+        private LeaseHandler(PooledConnection pooled)
+        {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+        {
+            switch (method.getName()) {
+                case "close":
+                    synchronized (this) {
+                        if (!closed) {
+                            closed = true;
+                            returnToPool(pooled);
+                        }
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pooled.physical + (closed ? ", returned" : "") + "]";
+                default:
+                    if (closed) {
+                        throw new SQLException("Connection has already been returned to the pool");
+                    }
+                    try {
+                        return method.invoke(pooled.physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+
+    /**
+     * Point-in-time snapshot of pool size and wait-time statistics.
+     */
+    public static final class Stats
+    {
+        private final int totalConnections;
+        private final int activeConnections;
+        private final int idleConnections;
+        private final int waitingThreads;
+        private final int minSize;
+        private final int maxSize;
+        private final long acquireCount;
+        private final long timeoutCount;
+        private final double averageWaitMillis;
+        private final double maxWaitMillis;
+        private final long createdCount;
+        private final long closedCount;
+        private final long leakCount;
+
+        private Stats(int totalConnections, int activeConnections, int idleConnections, int waitingThreads,
+                      int minSize, int maxSize, long acquireCount, long timeoutCount,
+                      double averageWaitMillis, double maxWaitMillis,
+                      long createdCount, long closedCount, long leakCount)
+        {
+            this.totalConnections = totalConnections;
+            this.activeConnections = activeConnections;
+            this.idleConnections = idleConnections;
+            this.waitingThreads = waitingThreads;
+            this.minSize = minSize;
+            this.maxSize = maxSize;
+            this.acquireCount = acquireCount;
+            this.timeoutCount = timeoutCount;
+            this.averageWaitMillis = averageWaitMillis;
+            this.maxWaitMillis = maxWaitMillis;
+            this.createdCount = createdCount;
+            this.closedCount = closedCount;
+            this.leakCount = leakCount;
+        }
+
+        public int getTotalConnections() { return totalConnections; }
+        public int getActiveConnections() { return activeConnections; }
+        public int getIdleConnections() { return idleConnections; }
+        public int getWaitingThreads() { return waitingThreads; }
+        public int getMinSize() { return minSize; }
+        public int getMaxSize() { return maxSize; }
+        public long getAcquireCount() { return acquireCount; }
+        public long getTimeoutCount() { return timeoutCount; }
+        public double getAverageWaitMillis() { return averageWaitMillis; }
+        public double getMaxWaitMillis() { return maxWaitMillis; }
+        public long getCreatedCount() { return createdCount; }
+        public long getClosedCount() { return closedCount; }
+        public long getLeakCount() { return leakCount; }
+
+        @Override
+        public String toString()
+        {
+            return String.format("total=%d, active=%d, idle=%d, waiting=%d, min=%d, max=%d, acquires=%d, "
+                            + "timeouts=%d, avgWait=%.2fms, maxWait=%.2fms, created=%d, closed=%d, leaks=%d",
+                    totalConnections, activeConnections, idleConnections, waitingThreads, minSize, maxSize,
+                    acquireCount, timeoutCount, averageWaitMillis, maxWaitMillis, createdCount, closedCount, leakCount);
+        }
+    }
+}
@@ -1,15 +1,11 @@
 package com.ecommerce.config;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
 
 public class DBConnection
 {
-    private static final int POOL_SIZE = 10;
-    private static BlockingQueue<Connection> connectionPool;
+    private static ConnectionPool connectionPool;
     private static boolean driverLoaded = false;
 
     static
@@ -17,16 +13,16 @@ public class DBConnection
         loadDriver();
         initializeConnectionPool();
     }
-    
+
     private static void loadDriver() {
         if (driverLoaded) {
             return;
         }
-        
+
         try {
             // Initialize AppConfig
             AppConfig.initialize();
-            
+
             // Load MySQL JDBC driver
             Class.forName(AppConfig.getDbDriver());
             driverLoaded = true;
@@ -40,66 +36,49 @@ public class DBConnection
     }
 
     private static void initializeConnectionPool() {
-        connectionPool = new ArrayBlockingQueue<>(POOL_SIZE);
-        try {
-            String url = AppConfig.getDbUrl();
-            String username = AppConfig.getDbUsername();
-            String password = AppConfig.getDbPassword();
-            
-            for (int i = 0; i < POOL_SIZE; i++) {
-                Connection conn = DriverManager.getConnection(url, username, password);
-                connectionPool.offer(conn);
-            }
-            System.out.println("Database connection pool initialized with " + POOL_SIZE + " connections");
-        } catch (SQLException e) {
-            System.err.println("Failed to initialize connection pool: " + e.getMessage());
-            e.printStackTrace();
-        }
+        connectionPool = new ConnectionPool(
+                AppConfig.getDbUrl(),
+                AppConfig.getDbUsername(),
+                AppConfig.getDbPassword(),
+                AppConfig.getDbPoolMinSize(),
+                AppConfig.getDbPoolMaxSize(),
+                AppConfig.getDbPoolAcquireTimeoutMs(),
+                AppConfig.getDbPoolIdleTimeoutMs(),
+                AppConfig.getDbPoolMaxLifetimeMs(),
+                AppConfig.getDbPoolValidationIntervalMs(),
+                AppConfig.getDbPoolLeakDetectionMs());
+        System.out.println("Database connection pool initialized: " + connectionPool.getStats());
     }
 
+    /**
+     * Borrow a connection from the pool. Return it with {@link #releaseConnection(Connection)}
+     * or by closing it; both hand it back to the pool rather than closing the socket.
+     */
     public static Connection getConnection() throws SQLException {
         try {
-            Connection conn = connectionPool.poll();
-            if (conn == null || conn.isClosed()) {
-                // Create a new connection if pool is empty or connection is closed
-                String url = AppConfig.getDbUrl();
-                String username = AppConfig.getDbUsername();
-                String password = AppConfig.getDbPassword();
-                conn = DriverManager.getConnection(url, username, password);
-            }
-            return conn;
+            return connectionPool.getConnection();
         } catch (SQLException e) {
             System.err.println("Error getting connection from pool: " + e.getMessage());
             throw e;
         }
     }
-    
+
     public static void releaseConnection(Connection conn) {
-        if (conn != null) {
-            try {
-                if (!conn.isClosed()) {
-                    connectionPool.offer(conn);
-                }
-            } catch (SQLException e) {
-                System.err.println("Error releasing connection back to pool: " + e.getMessage());
-            }
-        }
+        connectionPool.release(conn);
     }
-    
+
     public static void closeAllConnections() {
-        Connection conn;
-        while ((conn = connectionPool.poll()) != null) {
-            try {
-                if (!conn.isClosed()) {
-                    conn.close();
-                }
-            } catch (SQLException e) {
-                System.err.println("Error closing connection: " + e.getMessage());
-            }
-        }
-        System.out.println("All database connections closed.");
+        connectionPool.shutdown();
+        System.out.println("All database connections closed. Final pool stats: " + connectionPool.getStats());
     }
-    
+
+    /**
+     * Current pool size and wait-time statistics
+     */
+    public static ConnectionPool.Stats getPoolStats() {
+        return connectionPool.getStats();
+    }
+
     /**
      * Checks if a valid database connection can be established
      */
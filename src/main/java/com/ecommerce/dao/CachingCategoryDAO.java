@@ -0,0 +1,168 @@
+package com.ecommerce.dao;
+
+import com.ecommerce.config.AppConfig;
+import com.ecommerce.model.Category;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-through cache in front of another CategoryDAO.
+ *
+ * All categories are loaded with one query into a {@link CategoryTree}, which then answers
+ * every read. Writes through this DAO drop the tree, as does its TTL so changes made by other
+ * instances show up; the next read loads it again. Callers always get copies, so editing a
+ * returned Category never corrupts the cache.
+ */
+public class CachingCategoryDAO implements CategoryDAO
+{
+    private static CachingCategoryDAO instance;
+
+    private final CategoryDAO delegate;
+    private final long ttlMs;
+    // Bumped on every write, so a load that raced a write doesn't put a stale tree back
+    private final AtomicLong version = new AtomicLong();
+    private volatile CategoryTree tree;
+    private volatile long loadedAt;
+
+    public CachingCategoryDAO(CategoryDAO delegate, long ttlMs)
+    {
+        this.delegate = delegate;
+        this.ttlMs = ttlMs;
+    }
+
+    /**
+     * The application-wide category cache, backed by {@link CategoryDAOImpl}
+     */
+    public static synchronized CachingCategoryDAO getInstance()
+    {
+        if (instance == null) {
+            instance = new CachingCategoryDAO(new CategoryDAOImpl(), AppConfig.getCategoryCacheTtlMs());
+        }
+        return instance;
+    }
+
+    /**
+     * The current category hierarchy, loaded if it isn't cached
+     */
+    public CategoryTree getCategoryTree()
+    {
+        CategoryTree current = tree;
+        if (current != null && System.currentTimeMillis() - loadedAt < ttlMs) {
+            return current;
+        }
+        long loadVersion = version.get();
+        long loadStarted = System.currentTimeMillis();
+        current = new CategoryTree(delegate.getAllCategories());
+        synchronized (this) {
+            if (version.get() == loadVersion) {
+                tree = current;
+                loadedAt = loadStarted;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Drop the cached tree, e.g. after categories were changed without going through this DAO
+     */
+    public void invalidateAll()
+    {
+        synchronized (this) {
+            version.incrementAndGet();
+            tree = null;
+        }
+    }
+
+    @Override
+    public boolean addCategory(Category category)
+    {
+        boolean added = delegate.addCategory(category);
+        invalidateAll();
+        return added;
+    }
+
+    @Override
+    public boolean deleteCategory(int categoryId)
+    {
+        boolean deleted = delegate.deleteCategory(categoryId);
+        invalidateAll();
+        return deleted;
+    }
+
+    @Override
+    public boolean addSubCategory(String name, int parentId)
+    {
+        boolean added = delegate.addSubCategory(name, parentId);
+        invalidateAll();
+        return added;
+    }
+
+    @Override
+    public boolean deleteSubCategory(int categoryId)
+    {
+        boolean deleted = delegate.deleteSubCategory(categoryId);
+        invalidateAll();
+        return deleted;
+    }
+
+    @Override
+    public boolean updateCategory(Category category)
+    {
+        boolean updated = delegate.updateCategory(category);
+        invalidateAll();
+        return updated;
+    }
+
+    @Override
+    public Category getCategory(int categoryId)
+    {
+        return getCategoryTree().getCategory(categoryId);
+    }
+
+    @Override
+    public Category getCategoryById(int categoryId)
+    {
+        return getCategoryTree().getCategory(categoryId);
+    }
+
+    @Override
+    public Map<Integer, Category> getCategoriesByIds(Collection<Integer> categoryIds)
+    {
+        Map<Integer, Category> categories = new LinkedHashMap<>();
+        if (categoryIds == null || categoryIds.isEmpty()) {
+            return categories;
+        }
+        CategoryTree current = getCategoryTree();
+        for (Integer categoryId : categoryIds) {
+            Category category = categoryId != null ? current.getCategory(categoryId) : null;
+            if (category != null) {
+                categories.put(categoryId, category);
+            }
+        }
+        return categories;
+    }
+
+    @Override
+    public Category getSubCategory(int categoryId, int parentId)
+    {
+        Category category = getCategoryTree().getCategory(categoryId);
+        Integer categoryParentId = category != null ? category.getParentId() : null;
+        return categoryParentId != null && categoryParentId == parentId ? category : null;
+    }
+
+    @Override
+    public List<Category> getAllCategories()
+    {
+        return getCategoryTree().getAllCategories();
+    }
+
+    @Override
+    public List<Category> getAllSubCategories(int parentId)
+    {
+        return getCategoryTree().getChildren(parentId);
+    }
+}
@@ -0,0 +1,538 @@
+package com.ecommerce.dao;
+
+import com.ecommerce.config.AppConfig;
+import com.ecommerce.model.Product;
+import com.ecommerce.util.LruCache;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache in front of another ProductDAO.
+ *
+ * Products are cached per id; list queries (whole catalog, category, price range, sorts)
+ * are cached as snapshots of product ids and rebuilt from the per-id entries. Keyword
+ * searches are answered by a {@link ProductSearchIndex}, search-box completions by a
+ * {@link ProductSuggestIndex}, category membership by a {@link ProductCategoryIndex} and
+ * price ranges and orders by a {@link ProductPriceIndex}; writes keep all of them up to date.
+ * Writes through this DAO invalidate exactly what they can affect: a stock change only
+ * drops that product, while changes that can move a product in or out of a list also drop
+ * the snapshots. Callers always get copies, so mutating a returned Product never corrupts
+ * the cache.
+ *
+ * Transactional (Connection-taking) reads bypass the cache so they see the transaction's view.
+ */
+public class CachingProductDAO implements ProductDAO
+{
+    private static CachingProductDAO instance;
+
+    private final ProductDAO delegate;
+    private final LruCache<Integer, Product> productCache;
+    private final LruCache<String, List<Integer>> snapshotCache;
+    private final ProductSearchIndex searchIndex;
+    private final ProductSuggestIndex suggestIndex;
+    private final ProductCategoryIndex categoryIndex;
+    private final ProductPriceIndex priceIndex;
+    // Bumped on every write, so a load that raced a write doesn't put stale data back
+    private final AtomicLong productVersion = new AtomicLong();
+    private final AtomicLong snapshotVersion = new AtomicLong();
+
+    public CachingProductDAO(ProductDAO delegate, int maxProducts, int maxSnapshots, long ttlMs)
+    {
+        this.delegate = delegate;
+        this.productCache = new LruCache<>(maxProducts, ttlMs);
+        this.snapshotCache = new LruCache<>(maxSnapshots, ttlMs);
+        this.searchIndex = new ProductSearchIndex(delegate, CachingCategoryDAO.getInstance());
+        this.suggestIndex = new ProductSuggestIndex(delegate, CachingCategoryDAO.getInstance());
+        this.categoryIndex = new ProductCategoryIndex(delegate);
+        this.priceIndex = new ProductPriceIndex(delegate);
+    }
+
+    /**
+     * The application-wide product cache, backed by {@link ProductDAOImpl}
+     */
+    public static synchronized CachingProductDAO getInstance()
+    {
+        if (instance == null) {
+            instance = new CachingProductDAO(new ProductDAOImpl(),
+                    AppConfig.getProductCacheMaxEntries(),
+                    AppConfig.getProductCacheMaxSnapshots(),
+                    AppConfig.getProductCacheTtlMs());
+        }
+        return instance;
+    }
+
+    @Override
+    public boolean addProduct(Product product)
+    {
+        boolean added = delegate.addProduct(product);
+        if (added) {
+            invalidateSnapshots();
+            searchIndex.put(product);
+            suggestIndex.put(product);
+            categoryIndex.put(product);
+            priceIndex.put(product);
+        }
+        return added;
+    }
+
+    @Override
+    public boolean deleteProduct(int productId)
+    {
+        boolean deleted = delegate.deleteProduct(productId);
+        invalidate(productId);
+        if (deleted) {
+            invalidateSnapshots();
+            searchIndex.remove(productId);
+            suggestIndex.remove(productId);
+            categoryIndex.remove(productId);
+            priceIndex.remove(productId);
+        }
+        return deleted;
+    }
+
+    @Override
+    public boolean updateProduct(Product product)
+    {
+        boolean updated = delegate.updateProduct(product);
+        invalidate(product.getId());
+        if (updated) {
+            // Name, price or category may have changed, which moves the product between lists
+            invalidateSnapshots();
+            searchIndex.put(product);
+            suggestIndex.put(product);
+            categoryIndex.put(product);
+            priceIndex.put(product);
+        }
+        return updated;
+    }
+
+    @Override
+    public boolean updateStock(int productId, int newStock)
+    {
+        boolean updated = delegate.updateStock(productId, newStock);
+        // Snapshots hold ids only, so a stock change never affects them
+        invalidate(productId);
+        return updated;
+    }
+
+    @Override
+    public Product getProductById(int productId)
+    {
+        Product product = productCache.get(productId);
+        if (product == null) {
+            long version = productVersion.get();
+            product = delegate.getProductById(productId);
+            if (product != null && productVersion.get() == version) {
+                productCache.put(productId, product);
+            }
+        }
+        return copy(product);
+    }
+
+    @Override
+    public Map<Integer, Product> getProductsByIds(Collection<Integer> productIds)
+    {
+        Map<Integer, Product> result = new LinkedHashMap<>();
+        if (productIds == null || productIds.isEmpty()) {
+            return result;
+        }
+        List<Integer> missing = new ArrayList<>();
+        for (Integer productId : productIds) {
+            if (productId == null || result.containsKey(productId)) {
+                continue;
+            }
+            Product cached = productCache.get(productId);
+            if (cached != null) {
+                result.put(productId, copy(cached));
+            } else {
+                missing.add(productId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            long version = productVersion.get();
+            Map<Integer, Product> loaded = delegate.getProductsByIds(missing);
+            boolean cacheable = productVersion.get() == version;
+            for (Product product : loaded.values()) {
+                if (cacheable) {
+                    productCache.put(product.getId(), product);
+                }
+                result.put(product.getId(), copy(product));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Product> getAllProduct()
+    {
+        return snapshot("all", delegate::getAllProduct);
+    }
+
+    @Override
+    public List<Product> getProductsByCategoryId(int categoryId)
+    {
+        if (categoryIndex.isBuilt()) {
+            return inOrder(toList(categoryIndex.productIds(Collections.singletonList(categoryId))));
+        }
+        return snapshot("category:" + categoryId, () -> delegate.getProductsByCategoryId(categoryId));
+    }
+
+    @Override
+    public List<Product> searchProducts(String keyword)
+    {
+        return inOrder(searchIndex.search(keyword, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Ids of the products matching every word of the keyword text, best match first
+     */
+    public List<Integer> searchProductIds(String keyword, int limit)
+    {
+        return searchIndex.search(keyword, limit);
+    }
+
+    public ProductSearchIndex getSearchIndex()
+    {
+        return searchIndex;
+    }
+
+    public ProductSuggestIndex getSuggestIndex()
+    {
+        return suggestIndex;
+    }
+
+    public ProductCategoryIndex getCategoryIndex()
+    {
+        return categoryIndex;
+    }
+
+    public ProductPriceIndex getPriceIndex()
+    {
+        return priceIndex;
+    }
+
+    @Override
+    public List<Product> getProductsByPriceRange(double minPrice, double maxPrice)
+    {
+        if (priceIndex.isBuilt()) {
+            return inOrder(toList(priceIndex.productIds(minPrice, maxPrice, false)));
+        }
+        return snapshot("price:" + minPrice + ":" + maxPrice, () -> delegate.getProductsByPriceRange(minPrice, maxPrice));
+    }
+
+    @Override
+    public List<Product> getProductsSortedByPriceAsc()
+    {
+        if (priceIndex.isBuilt()) {
+            return inOrder(toList(priceIndex.productIds(null, null, false)));
+        }
+        return snapshot("sort:price:asc", delegate::getProductsSortedByPriceAsc);
+    }
+
+    @Override
+    public List<Product> getProductSortedByPriceDesc()
+    {
+        if (priceIndex.isBuilt()) {
+            return inOrder(toList(priceIndex.productIds(null, null, true)));
+        }
+        return snapshot("sort:price:desc", delegate::getProductSortedByPriceDesc);
+    }
+
+    @Override
+    public List<Product> getSimilarProducts(int productId, int limit)
+    {
+        // One entry per product would crowd the list snapshots out of the cache;
+        // SimilarProductsService keeps its own neighbour lists in memory
+        return delegate.getSimilarProducts(productId, limit);
+    }
+
+    /**
+     * Keyword listings are answered from the search index: matches in relevance order are
+     * walked a slice at a time, while other orders sort just the matching products. Listings
+     * in id order are walked the same way over the category index, and listings by price over
+     * the price index, once those are built. Other listings are read a page at a time from
+     * the database.
+     */
+    @Override
+    public ProductPage getProductPage(ProductFilter filter, ProductCursor after, int pageSize)
+    {
+        ProductSort sort = filter.getSort();
+        boolean byPrice = sort == ProductSort.PRICE_ASC || sort == ProductSort.PRICE_DESC;
+        if (byPrice && priceIndex.isBuilt() && (filter.getCategoryIds() == null || categoryIndex.isBuilt())) {
+            // The allowed set stands in for every criterion but price, so the index walk
+            // usually stops at exactly one product past the page
+            BitSet allowed = null;
+            if (filter.getKeyword() != null) {
+                allowed = new BitSet();
+                for (int id : inCategories(searchIndex.search(filter.getKeyword(), Integer.MAX_VALUE), filter)) {
+                    allowed.set(id);
+                }
+            } else if (filter.getCategoryIds() != null) {
+                allowed = categoryIndex.productSet(filter.getCategoryIds());
+            }
+            return pricePage(filter, after, allowed, pageSize);
+        }
+
+        if (filter.getKeyword() == null) {
+            if (sort == ProductSort.ID && categoryIndex.isBuilt()) {
+                int[] ids = categoryIndex.productIds(filter.getCategoryIds());
+                int start = 0;
+                if (after != null) {
+                    int found = Arrays.binarySearch(ids, after.getId());
+                    start = found >= 0 ? found + 1 : -found - 1;
+                }
+                return pageOf(ids, start, filter, pageSize);
+            }
+
+            long version = productVersion.get();
+            ProductPage page = delegate.getProductPage(filter, after, pageSize);
+            List<Product> products = new ArrayList<>(page.getProducts().size());
+            boolean cacheable = productVersion.get() == version;
+            for (Product product : page.getProducts()) {
+                if (cacheable) {
+                    productCache.put(product.getId(), product);
+                }
+                products.add(copy(product));
+            }
+            return new ProductPage(products, page.getNext());
+        }
+
+        int[] matchIds = inCategories(searchIndex.search(filter.getKeyword(), Integer.MAX_VALUE), filter);
+        if (sort == ProductSort.RELEVANCE) {
+            return pageOf(matchIds, after != null ? after.getPosition() + 1 : 0, filter, pageSize);
+        }
+
+        List<Product> matches = new ArrayList<>();
+        for (Product product : inOrder(toList(matchIds))) {
+            if (filter.matches(product)) {
+                matches.add(product);
+            }
+        }
+        matches.sort(sort.comparator());
+        int start = 0;
+        if (after != null) {
+            Product last = new Product(after.getId(), after.getName(), null, after.getPrice(), 0, null, null, 0, 0);
+            int found = Collections.binarySearch(matches, last, sort.comparator());
+            start = found >= 0 ? found + 1 : -found - 1;
+        }
+        int end = Math.min(matches.size(), start + pageSize);
+        List<Product> page = new ArrayList<>(matches.subList(start, end));
+        return new ProductPage(page, end < matches.size() ? sort.cursorAfter(page.get(page.size() - 1), end - 1) : null);
+    }
+
+    // A page walked off the price index. Products that changed or went since they were indexed
+    // can fail the filter, so the walk goes on until it has one matching product past the page.
+    private ProductPage pricePage(ProductFilter filter, ProductCursor after, BitSet allowed, int pageSize)
+    {
+        boolean descending = filter.getSort() == ProductSort.PRICE_DESC;
+        List<Product> found = new ArrayList<>(pageSize + 1);
+        ProductCursor walked = after;
+        while (found.size() <= pageSize) {
+            int wanted = pageSize + 1 - found.size();
+            int[] ids = priceIndex.productIds(filter.getMinPrice(), filter.getMaxPrice(), descending, walked,
+                    allowed, wanted);
+            Map<Integer, Product> products = getProductsByIds(toList(ids));
+            for (int id : ids) {
+                Product product = products.get(id);
+                if (product != null && filter.matches(product)) {
+                    found.add(product);
+                }
+            }
+            if (ids.length < wanted) {
+                // End of the range
+                break;
+            }
+            walked = priceCursor(ids[ids.length - 1], products.get(ids[ids.length - 1]));
+            if (walked == null) {
+                break;
+            }
+        }
+
+        if (found.size() <= pageSize) {
+            return new ProductPage(found, null);
+        }
+        List<Product> page = new ArrayList<>(found.subList(0, pageSize));
+        Product last = page.get(pageSize - 1);
+        return new ProductPage(page, priceCursor(last.getId(), last));
+    }
+
+    // Where a price index walk stands after the product: at its indexed price, or its loaded
+    // one if it has left the index since; null if neither is known
+    private ProductCursor priceCursor(int productId, Product loaded)
+    {
+        ProductCursor cursor = priceIndex.cursorAt(productId);
+        if (cursor == null && loaded != null) {
+            cursor = ProductSort.PRICE_ASC.cursorAfter(loaded, 0);
+        }
+        return cursor;
+    }
+
+    // The ranked ids left after dropping products outside the filter's categories, before any product is loaded
+    private int[] inCategories(List<Integer> ranked, ProductFilter filter)
+    {
+        if (filter.getCategoryIds() == null || !categoryIndex.isBuilt()) {
+            // filter.matches checks the category once the products are loaded
+            return ranked.stream().mapToInt(Integer::intValue).toArray();
+        }
+        BitSet allowed = categoryIndex.productSet(filter.getCategoryIds());
+        return ranked.stream().mapToInt(Integer::intValue).filter(allowed::get).toArray();
+    }
+
+    // A page of the products with the given ids, in that order, starting at ids[start]
+    private ProductPage pageOf(int[] ids, int start, ProductFilter filter, int pageSize)
+    {
+        List<Product> page = new ArrayList<>(pageSize);
+        int position = start;
+        int lastPosition = -1;
+        boolean more = false;
+        // Filtered out products leave gaps, so keep taking slices until the page is full and
+        // one more product shows there is a next page
+        while (!more && position < ids.length) {
+            int end = Math.min(ids.length, position + pageSize);
+            Map<Integer, Product> products = getProductsByIds(toList(Arrays.copyOfRange(ids, position, end)));
+            for (int i = position; i < end && !more; i++) {
+                Product product = products.get(ids[i]);
+                if (product != null && filter.matches(product)) {
+                    if (page.size() < pageSize) {
+                        page.add(product);
+                        lastPosition = i;
+                    } else {
+                        more = true;
+                    }
+                }
+            }
+            position = end;
+        }
+        return new ProductPage(page, more ? filter.getSort().cursorAfter(page.get(pageSize - 1), lastPosition) : null);
+    }
+
+    private static List<Integer> toList(int[] ids)
+    {
+        List<Integer> list = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            list.add(id);
+        }
+        return list;
+    }
+
+    @Override
+    public Map<Integer, Product> getProductsByIds(Connection conn, Collection<Integer> productIds) throws SQLException
+    {
+        return delegate.getProductsByIds(conn, productIds);
+    }
+
+    @Override
+    public Map<Integer, Boolean> reserveStock(Connection conn, Map<Integer, Integer> quantitiesByProductId) throws SQLException
+    {
+        // Not invalidated here: until the caller commits, a reload would cache the old stock again
+        return delegate.reserveStock(conn, quantitiesByProductId);
+    }
+
+    @Override
+    public void stockCommitted(Collection<Integer> productIds)
+    {
+        // Bumps the version too, so a load that read the stock before the commit isn't cached
+        for (Integer productId : productIds) {
+            invalidate(productId);
+        }
+    }
+
+    /**
+     * Drop one product, e.g. after its row was changed outside this DAO
+     */
+    public void invalidate(int productId)
+    {
+        productVersion.incrementAndGet();
+        productCache.invalidate(productId);
+    }
+
+    public void invalidateAll()
+    {
+        productVersion.incrementAndGet();
+        productCache.invalidateAll();
+        invalidateSnapshots();
+        searchIndex.invalidateAll();
+        suggestIndex.invalidateAll();
+        categoryIndex.invalidateAll();
+        priceIndex.invalidateAll();
+    }
+
+    public LruCache.Stats getProductCacheStats()
+    {
+        return productCache.getStats();
+    }
+
+    public LruCache.Stats getSnapshotCacheStats()
+    {
+        return snapshotCache.getStats();
+    }
+
+    private List<Product> snapshot(String key, Supplier<List<Product>> loader)
+    {
+        List<Integer> ids = snapshotCache.get(key);
+        if (ids != null) {
+            return inOrder(ids);
+        }
+
+        long version = snapshotVersion.get();
+        long productsVersion = productVersion.get();
+        List<Product> loaded = loader.get();
+        boolean productsCacheable = productVersion.get() == productsVersion;
+        List<Integer> loadedIds = new ArrayList<>(loaded.size());
+        List<Product> result = new ArrayList<>(loaded.size());
+        for (Product product : loaded) {
+            if (productsCacheable) {
+                productCache.put(product.getId(), product);
+            }
+            loadedIds.add(product.getId());
+            result.add(copy(product));
+        }
+        if (snapshotVersion.get() == version) {
+            snapshotCache.put(key, Collections.unmodifiableList(loadedIds));
+        }
+        return result;
+    }
+
+    // The products with the given ids, in that order; ids whose product is gone are skipped
+    private List<Product> inOrder(List<Integer> ids)
+    {
+        Map<Integer, Product> products = getProductsByIds(ids);
+        List<Product> result = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            Product product = products.get(id);
+            if (product != null) {
+                result.add(product);
+            }
+        }
+        return result;
+    }
+
+    private void invalidateSnapshots()
+    {
+        snapshotVersion.incrementAndGet();
+        snapshotCache.invalidateAll();
+    }
+
+    private static Product copy(Product product)
+    {
+        if (product == null) {
+            return null;
+        }
+        Product copy = new Product(product.getId(), product.getName(), product.getDescription(), product.getPrice(),
+                product.getStock(), product.getCategory_id(), product.getImagePath(), 0.0, 0);
+        // Ratings change without the product being invalidated, so they're never served from the cache
+        RatingSummaries.getInstance().decorate(copy);
+        return copy;
+    }
+}
@@ -3,7 +3,10 @@ package com.ecommerce.dao;
 import com.ecommerce.model.CartItem;
 import com.ecommerce.model.Product;
 
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.List;
+import java.util.Map;
 
 public interface CartItemDAO
 {
@@ -26,4 +29,17 @@ public interface CartItemDAO
      * @return true if successful, false otherwise
      */
     boolean removeCartItem(int cartItemId);
+    
+    /**
+     * Clears the user's cart on the caller's connection, as part of the caller's transaction
+     */
+    boolean clearCartByUserId(Connection conn, int userId) throws SQLException;
+    
+    /**
+     * Sets the user's quantity of each product in one transaction: existing rows are updated,
+     * missing ones inserted, and products set to 0 are removed from the cart
+     * @param quantities product ID to quantity
+     * @return true if every change was written, false if none were
+     */
+    boolean saveQuantities(int userId, Map<Integer, Integer> quantities);
 }
@@ -8,6 +8,7 @@ import com.ecommerce.model.Product;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 public class CartItemDAOImpl implements CartItemDAO {
 
@@ -73,18 +74,23 @@ public class CartItemDAOImpl implements CartItemDAO {
 
     @Override
     public boolean clearCartByUserId(int userId) {
-        String sql = "DELETE FROM cart_items WHERE user_id = ?";
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setInt(1, userId);
-            return stmt.executeUpdate() > 0;
+        try (Connection conn = DBConnection.getConnection()) {
+            return clearCartByUserId(conn, userId);
         } catch (SQLException e) {
             e.printStackTrace();
         }
         return false;
     }
 
+    @Override
+    public boolean clearCartByUserId(Connection conn, int userId) throws SQLException {
+        String sql = "DELETE FROM cart_items WHERE user_id = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, userId);
+            return stmt.executeUpdate() > 0;
+        }
+    }
+
     @Override
     public Product getProduct(CartItem item) {
         String sql = "SELECT * FROM products WHERE id = ?";
@@ -208,4 +214,71 @@ public class CartItemDAOImpl implements CartItemDAO {
             return false;
         }
     }
+
+    @Override
+    public boolean saveQuantities(int userId, Map<Integer, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return true;
+        }
+        String updateSql = "UPDATE cart_items SET quantity = ? WHERE user_id = ? AND product_id = ?";
+        String deleteSql = "DELETE FROM cart_items WHERE user_id = ? AND product_id = ?";
+        String insertSql = "INSERT INTO cart_items (user_id, product_id, quantity) VALUES (?, ?, ?)";
+        try (Connection conn = DBConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement update = conn.prepareStatement(updateSql);
+                 PreparedStatement delete = conn.prepareStatement(deleteSql);
+                 PreparedStatement insert = conn.prepareStatement(insertSql)) {
+
+                List<Integer> updatedProducts = new ArrayList<>();
+                for (Map.Entry<Integer, Integer> line : quantities.entrySet()) {
+                    if (line.getValue() > 0) {
+                        update.setInt(1, line.getValue());
+                        update.setInt(2, userId);
+                        update.setInt(3, line.getKey());
+                        update.addBatch();
+                        updatedProducts.add(line.getKey());
+                    } else {
+                        delete.setInt(1, userId);
+                        delete.setInt(2, line.getKey());
+                        delete.addBatch();
+                    }
+                }
+                int[] updated = update.executeBatch();
+
+                // Products the update found no row for are new to the cart; a product found on
+                // several rows is rewritten as a single row. So is one the driver gave no count
+                // for (a rewritten batch), since deleting and inserting is right however many
+                // rows it had.
+                for (int i = 0; i < updated.length; i++) {
+                    int productId = updatedProducts.get(i);
+                    if (updated[i] > 1 || updated[i] == Statement.SUCCESS_NO_INFO) {
+                        delete.setInt(1, userId);
+                        delete.setInt(2, productId);
+                        delete.addBatch();
+                    }
+                }
+                delete.executeBatch();
+                for (int i = 0; i < updated.length; i++) {
+                    if (updated[i] == 0 || updated[i] > 1 || updated[i] == Statement.SUCCESS_NO_INFO) {
+                        int productId = updatedProducts.get(i);
+                        insert.setInt(1, userId);
+                        insert.setInt(2, productId);
+                        insert.setInt(3, quantities.get(productId));
+                        insert.addBatch();
+                    }
+                }
+                insert.executeBatch();
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
 }
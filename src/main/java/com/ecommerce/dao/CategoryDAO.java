@@ -2,7 +2,9 @@ package com.ecommerce.dao;
 
 import com.ecommerce.model.Category;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface CategoryDAO
 {
@@ -14,6 +16,7 @@ public interface CategoryDAO
 
     Category getCategory(int categoryId);
     Category getCategoryById(int categoryId);
+    Map<Integer, Category> getCategoriesByIds(Collection<Integer> categoryIds);
     Category getSubCategory(int categoryId, int parentId);
 
     List<Category> getAllCategories();
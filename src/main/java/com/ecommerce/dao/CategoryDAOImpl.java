@@ -8,7 +8,10 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class CategoryDAOImpl implements CategoryDAO
 {
@@ -300,6 +303,50 @@ public class CategoryDAOImpl implements CategoryDAO
         return null;
     }
 
+    @Override
+    public Map<Integer, Category> getCategoriesByIds(Collection<Integer> categoryIds)
+    {
+        Map<Integer, Category> categories = new LinkedHashMap<>();
+        if (categoryIds == null || categoryIds.isEmpty()) {
+            return categories;
+        }
+        Connection conn = null;
+        try
+        {
+            conn = DBConnection.getConnection();
+            for (List<Integer> chunk : QueryUtils.chunk(categoryIds))
+            {
+                String query = "SELECT * FROM categories WHERE id IN (" + QueryUtils.placeholders(chunk.size()) + ")";
+                try (PreparedStatement stmt = conn.prepareStatement(query))
+                {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        stmt.setInt(i + 1, chunk.get(i));
+                    }
+                    try (ResultSet rs = stmt.executeQuery())
+                    {
+                        while (rs.next())
+                        {
+                            Category category = extractCategoryFromResultSet(rs);
+                            categories.put(category.getId(), category);
+                        }
+                    }
+                }
+            }
+        }
+        catch (SQLException e)
+        {
+            e.printStackTrace();
+        }
+        finally
+        {
+            if (conn != null)
+            {
+                DBConnection.releaseConnection(conn);
+            }
+        }
+        return categories;
+    }
+
     @Override
     public boolean updateCategory(Category category)
     {
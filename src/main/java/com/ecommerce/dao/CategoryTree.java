@@ -0,0 +1,271 @@
+package com.ecommerce.dao;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.ecommerce.model.Category;
+
+/**
+ * Immutable snapshot of the category hierarchy, built from one list of all categories.
+ *
+ * Categories are numbered 0..n-1 and parents and children are kept as int arrays over those
+ * numbers. A depth-first walk numbers every category on the way in, so a category's subtree
+ * is the contiguous range [enter, exit) of that numbering: "is A under B" is two
+ * comparisons, and listing a subtree is copying a slice.
+ *
+ * A category whose parent is null, 0, -1 or missing is a root. If parent links form a
+ * cycle, the first category of the cycle is made a root so every category is in the tree.
+ */
+public final class CategoryTree
+{
+    private static final int[] NONE = new int[0];
+
+    private final Category[] categories;
+    private final Map<Integer, Integer> indexById;
+    // By index: parent index (-1 for roots) and child indexes, in the order categories were given
+    private final int[] parents;
+    private final int[][] children;
+    private final int[] roots;
+    // By index: position on the depth-first walk, and one past the last position of its subtree
+    private final int[] enter;
+    private final int[] exit;
+    // Category ids in depth-first order
+    private final int[] walk;
+
+    public CategoryTree(List<Category> allCategories)
+    {
+        int n = allCategories.size();
+        categories = new Category[n];
+        indexById = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) {
+            Category category = allCategories.get(i);
+            categories[i] = new Category(category.getId(), category.getName(), category.getParentId());
+            indexById.put(category.getId(), i);
+        }
+
+        parents = new int[n];
+        int[] childCounts = new int[n];
+        for (int i = 0; i < n; i++) {
+            Integer parentId = categories[i].getParentId();
+            Integer parent = parentId == null || parentId == 0 || parentId == -1 ? null : indexById.get(parentId);
+            parents[i] = parent == null || parent == i ? -1 : parent;
+            if (parents[i] >= 0) {
+                childCounts[parents[i]]++;
+            }
+        }
+        children = new int[n][];
+        for (int i = 0; i < n; i++) {
+            children[i] = childCounts[i] == 0 ? NONE : new int[childCounts[i]];
+            childCounts[i] = 0;
+        }
+        for (int i = 0; i < n; i++) {
+            if (parents[i] >= 0) {
+                children[parents[i]][childCounts[parents[i]]++] = i;
+            }
+        }
+
+        enter = new int[n];
+        exit = new int[n];
+        walk = new int[n];
+        Arrays.fill(enter, -1);
+        int[] rootBuffer = new int[n];
+        int rootCount = 0;
+        int position = 0;
+        // Explicit stack of (category, next child to visit), so deep trees can't overflow the call stack
+        int[] stack = new int[n];
+        int[] nextChild = new int[n];
+        for (int i = 0; i < n; i++) {
+            if (parents[i] < 0) {
+                rootBuffer[rootCount++] = i;
+                position = visit(i, position, stack, nextChild);
+            }
+        }
+        // Whatever the roots didn't reach hangs off a cycle
+        for (int i = 0; i < n; i++) {
+            if (enter[i] < 0) {
+                parents[i] = -1;
+                rootBuffer[rootCount++] = i;
+                position = visit(i, position, stack, nextChild);
+            }
+        }
+        roots = Arrays.copyOf(rootBuffer, rootCount);
+    }
+
+    // Number the subtree under root depth-first from position; returns the next free position
+    private int visit(int root, int position, int[] stack, int[] nextChild)
+    {
+        int depth = 0;
+        stack[0] = root;
+        nextChild[0] = 0;
+        enter[root] = position;
+        walk[position++] = categories[root].getId();
+        while (depth >= 0) {
+            int current = stack[depth];
+            if (nextChild[depth] < children[current].length) {
+                int child = children[current][nextChild[depth]++];
+                if (enter[child] >= 0 || parents[child] != current) {
+                    // Made a root to break a cycle
+                    continue;
+                }
+                enter[child] = position;
+                walk[position++] = categories[child].getId();
+                depth++;
+                stack[depth] = child;
+                nextChild[depth] = 0;
+            } else {
+                exit[current] = position;
+                depth--;
+            }
+        }
+        return position;
+    }
+
+    public int size()
+    {
+        return categories.length;
+    }
+
+    public boolean contains(int categoryId)
+    {
+        return indexById.containsKey(categoryId);
+    }
+
+    /**
+     * A copy of the category, or null if there's none with that id
+     */
+    public Category getCategory(int categoryId)
+    {
+        Integer index = indexById.get(categoryId);
+        return index != null ? copy(index) : null;
+    }
+
+    /**
+     * The category's name, or null if there's none with that id
+     */
+    public String getName(int categoryId)
+    {
+        Integer index = indexById.get(categoryId);
+        return index != null ? categories[index].getName() : null;
+    }
+
+    /**
+     * Id of the category's parent in the tree, or -1 for a root or unknown category
+     */
+    public int getParentId(int categoryId)
+    {
+        Integer index = indexById.get(categoryId);
+        return index != null && parents[index] >= 0 ? categories[parents[index]].getId() : -1;
+    }
+
+    /**
+     * Copies of all categories, in the order the tree was built from
+     */
+    public List<Category> getAllCategories()
+    {
+        List<Category> all = new ArrayList<>(categories.length);
+        for (int i = 0; i < categories.length; i++) {
+            all.add(copy(i));
+        }
+        return all;
+    }
+
+    /**
+     * Copies of the top-level categories
+     */
+    public List<Category> getRoots()
+    {
+        return copies(roots);
+    }
+
+    /**
+     * Copies of the category's direct subcategories
+     */
+    public List<Category> getChildren(int categoryId)
+    {
+        List<Category> list = new ArrayList<>();
+        Integer index = indexById.get(categoryId);
+        if (index != null) {
+            for (int child : children[index]) {
+                if (parents[child] == index) {
+                    list.add(copy(child));
+                }
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Whether the category is the ancestor itself or anywhere below it
+     */
+    public boolean isInSubtree(int categoryId, int ancestorId)
+    {
+        Integer index = indexById.get(categoryId);
+        Integer ancestor = indexById.get(ancestorId);
+        return index != null && ancestor != null
+                && enter[ancestor] <= enter[index] && enter[index] < exit[ancestor];
+    }
+
+    /**
+     * Ids of the category and everything below it, parents before children
+     */
+    public List<Integer> getSubtreeIds(int categoryId)
+    {
+        Integer index = indexById.get(categoryId);
+        if (index == null) {
+            return new ArrayList<>();
+        }
+        List<Integer> ids = new ArrayList<>(exit[index] - enter[index]);
+        for (int position = enter[index]; position < exit[index]; position++) {
+            ids.add(walk[position]);
+        }
+        return ids;
+    }
+
+    /**
+     * Id of the first top-level category with that name, or -1
+     */
+    public int findRootByName(String name)
+    {
+        for (int root : roots) {
+            if (name.equals(categories[root].getName())) {
+                return categories[root].getId();
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Id of the first direct subcategory with that name, or -1
+     */
+    public int findChildByName(int parentId, String name)
+    {
+        Integer index = indexById.get(parentId);
+        if (index != null) {
+            for (int child : children[index]) {
+                if (parents[child] == index && name.equals(categories[child].getName())) {
+                    return categories[child].getId();
+                }
+            }
+        }
+        return -1;
+    }
+
+    private List<Category> copies(int[] indexes)
+    {
+        List<Category> list = new ArrayList<>(indexes.length);
+        for (int index : indexes) {
+            list.add(copy(index));
+        }
+        return list;
+    }
+
+    // Callers may edit what they get (e.g. the admin's edit dialog), so the tree hands out copies
+    private Category copy(int index)
+    {
+        Category category = categories[index];
+        return new Category(category.getId(), category.getName(), category.getParentId());
+    }
+}
@@ -2,6 +2,8 @@ package com.ecommerce.dao;
 
 import com.ecommerce.model.Notification;
 
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.List;
 
 public interface NotificationDAO
@@ -14,4 +16,8 @@ public interface NotificationDAO
     List<Notification> getNotificationsByUserId(int userId);
     int countUnreadNotifications(int userId);
     boolean updateNotification(Notification notification);
+    
+    // Runs on the caller's connection so the notification commits with the caller's transaction;
+    // publish it to NotificationBus once that commits
+    boolean addNotification(Connection conn, Notification notification) throws SQLException;
 }
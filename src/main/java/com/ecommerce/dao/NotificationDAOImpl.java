@@ -2,6 +2,7 @@ package com.ecommerce.dao;
 
 import com.ecommerce.config.DBConnection;
 import com.ecommerce.model.Notification;
+import com.ecommerce.service.NotificationBus;
 
 import java.sql.*;
 import java.util.ArrayList;
@@ -12,33 +13,13 @@ public class NotificationDAOImpl implements NotificationDAO
     @Override
     public boolean addNotification(Notification notification)
     {
-        // Check if created_at field exists
-        boolean hasCreatedAt = checkIfColumnExists("notifications", "created_at");
-        
-        String sql;
-        if (hasCreatedAt) {
-            sql = "INSERT INTO notifications (user_id, message, created_at, is_read) VALUES (?, ?, ?, ?)";
-        } else {
-            sql = "INSERT INTO notifications (user_id, message, is_read) VALUES (?, ?, ?)";
-        }
-        
         Connection conn = null;
         try
         {
             conn = DBConnection.getConnection();
-            try (PreparedStatement stmt = conn.prepareStatement(sql))
-            {
-                stmt.setInt(1, notification.getUserId());
-                stmt.setString(2, notification.getMessage());
-                
-                if (hasCreatedAt) {
-                    stmt.setTimestamp(3, notification.getCreatedAt());
-                    stmt.setBoolean(4, notification.isRead());
-                } else {
-                    stmt.setBoolean(3, notification.isRead());
-                }
-                
-                return stmt.executeUpdate() > 0;
+            if (addNotification(conn, notification)) {
+                NotificationBus.getInstance().published(notification);
+                return true;
             }
         }
         catch (SQLException e)
@@ -55,6 +36,35 @@ public class NotificationDAOImpl implements NotificationDAO
         return false;
     }
 
+    @Override
+    public boolean addNotification(Connection conn, Notification notification) throws SQLException
+    {
+        // Check if created_at field exists
+        boolean hasCreatedAt = checkIfColumnExists(conn, "notifications", "created_at");
+        
+        String sql;
+        if (hasCreatedAt) {
+            sql = "INSERT INTO notifications (user_id, message, created_at, is_read) VALUES (?, ?, ?, ?)";
+        } else {
+            sql = "INSERT INTO notifications (user_id, message, is_read) VALUES (?, ?, ?)";
+        }
+        
+        try (PreparedStatement stmt = conn.prepareStatement(sql))
+        {
+            stmt.setInt(1, notification.getUserId());
+            stmt.setString(2, notification.getMessage());
+            
+            if (hasCreatedAt) {
+                stmt.setTimestamp(3, notification.getCreatedAt());
+                stmt.setBoolean(4, notification.isRead());
+            } else {
+                stmt.setBoolean(3, notification.isRead());
+            }
+            
+            return stmt.executeUpdate() > 0;
+        }
+    }
+
     @Override
     public boolean deleteNotification(int notificationId)
     {
@@ -247,9 +257,7 @@ public class NotificationDAOImpl implements NotificationDAO
         Connection conn = null;
         try {
             conn = DBConnection.getConnection();
-            DatabaseMetaData dbMeta = conn.getMetaData();
-            ResultSet rs = dbMeta.getColumns(null, null, tableName, columnName);
-            return rs.next(); // Column exists if resultset has rows
+            return checkIfColumnExists(conn, tableName, columnName);
         } catch (SQLException e) {
             e.printStackTrace();
             return false;
@@ -259,4 +267,11 @@ public class NotificationDAOImpl implements NotificationDAO
             }
         }
     }
+    
+    private boolean checkIfColumnExists(Connection conn, String tableName, String columnName) throws SQLException {
+        DatabaseMetaData dbMeta = conn.getMetaData();
+        try (ResultSet rs = dbMeta.getColumns(null, null, tableName, columnName)) {
+            return rs.next(); // Column exists if resultset has rows
+        }
+    }
 }
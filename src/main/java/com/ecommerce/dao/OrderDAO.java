@@ -2,7 +2,10 @@ package com.ecommerce.dao;
 
 import com.ecommerce.model.Order;
 import com.ecommerce.model.OrderItem;
+import com.ecommerce.model.OrderStatus;
 
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.util.List;
 
@@ -18,4 +21,22 @@ public interface OrderDAO
 
     boolean updateOrderStatus(int orderId, String status);
     boolean updateDeliveryEstimate(int orderId, Timestamp newDeliveryEstimate);
+
+    // Runs on the caller's connection so the order can be created inside a larger transaction
+    boolean placeOrder(Connection conn, Order order) throws SQLException;
+
+    /**
+     * Moves every order in status {@code from} placed at or before {@code placedOnOrBefore} to
+     * status {@code to} in one transaction, and returns the orders that were moved (with their
+     * new status). Uses the (status, order_date) index, so the cost follows the number of due
+     * orders rather than the size of the order history.
+     */
+    List<Order> advanceOrderStatus(OrderStatus from, OrderStatus to, Timestamp placedOnOrBefore) throws SQLException;
+
+    /**
+     * Sets delivery_estimate = order_date + days for open orders that have none
+     *
+     * @return number of orders updated
+     */
+    int fillMissingDeliveryEstimates(int days) throws SQLException;
 }
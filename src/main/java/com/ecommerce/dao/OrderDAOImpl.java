@@ -11,17 +11,23 @@ import java.util.concurrent.TimeUnit;
 
 public class OrderDAOImpl implements OrderDAO
 {
-    private Connection conn;
-    public OrderDAOImpl() {
-        try {
-            this.conn = DBConnection.getConnection();
-        } catch (SQLException e) {
+    @Override
+    public boolean placeOrder(Order order)
+    {
+        try (Connection conn = DBConnection.getConnection())
+        {
+            return placeOrder(conn, order);
+        }
+        catch (SQLException e)
+        {
+            System.out.println("Error placing order: " + e.getMessage());
             e.printStackTrace();
         }
+        return false;
     }
 
     @Override
-    public boolean placeOrder(Order order)
+    public boolean placeOrder(Connection conn, Order order) throws SQLException
     {
         String query = "INSERT INTO orders (user_id, order_date, total_amount, address_id, status, delivey_estimate) VALUES (?, ?, ?, ?, ?, ?)";
         try (PreparedStatement stmt = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS))
@@ -53,7 +59,6 @@ public class OrderDAOImpl implements OrderDAO
                 }
             } catch (SQLException ex) {
                 System.out.println("Error executing SQL for order placement: " + ex.getMessage());
-                ex.printStackTrace();
                 
                 // Check if it's a column issue and try an alternative query without the problematic column
                 if (ex.getMessage().contains("delivey_estimate") || ex.getMessage().contains("delivery_estimate")) {
@@ -82,19 +87,15 @@ public class OrderDAOImpl implements OrderDAO
                         }
                     } catch (SQLException e2) {
                         System.out.println("Fallback order placement also failed: " + e2.getMessage());
-                        e2.printStackTrace();
+                        throw e2;
                     }
+                } else {
+                    throw ex;
                 }
             }
             
             return false;
         }
-        catch (SQLException e)
-        {
-            System.out.println("Error preparing statement for order placement: " + e.getMessage());
-            e.printStackTrace();
-        }
-        return false;
     }
 
     @Override
@@ -107,7 +108,8 @@ public class OrderDAOImpl implements OrderDAO
     public Order getOrderById(int orderId)
     {
         String query = "SELECT * FROM orders WHERE id = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(query))
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query))
         {
             stmt.setInt(1, orderId);
             try (ResultSet rs = stmt.executeQuery())
@@ -130,7 +132,8 @@ public class OrderDAOImpl implements OrderDAO
     {
         List<Order> orders = new ArrayList<>();
         String query = "SELECT * FROM orders WHERE user_id = ?";
-        try(PreparedStatement stmt = conn.prepareStatement(query))
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query))
         {
             stmt.setInt(1, userId);
             try (ResultSet rs = stmt.executeQuery())
@@ -153,7 +156,8 @@ public class OrderDAOImpl implements OrderDAO
     {
         List<Order> orders = new ArrayList<>();
         String query = "SELECT * FROM orders";
-        try(PreparedStatement stmt = conn.prepareStatement(query))
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query))
         {
             try (ResultSet rs = stmt.executeQuery())
             {
@@ -174,7 +178,8 @@ public class OrderDAOImpl implements OrderDAO
     public boolean updateOrderStatus(int orderId, String status)
     {
         String query = "UPDATE orders SET status = ? WHERE id = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(query))
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query))
         {
             stmt.setString(1, status);
             stmt.setInt(2, orderId);
@@ -190,15 +195,15 @@ public class OrderDAOImpl implements OrderDAO
     @Override
     public boolean updateDeliveryEstimate(int orderId, Timestamp newDeliveryEstimate)
     {
-        try {
+        try (Connection conn = DBConnection.getConnection()) {
             // Check if delivery_estimate column exists
             DatabaseMetaData dbm = conn.getMetaData();
-            ResultSet columns = dbm.getColumns(null, null, "orders", "delivery_estimate");
-            
-            // If column doesn't exist, return true (no error) without attempting update
-            if (!columns.next()) {
-                System.out.println("delivery_estimate column does not exist in orders table");
-                return true;
+            try (ResultSet columns = dbm.getColumns(null, null, "orders", "delivery_estimate")) {
+                // If column doesn't exist, return true (no error) without attempting update
+                if (!columns.next()) {
+                    System.out.println("delivery_estimate column does not exist in orders table");
+                    return true;
+                }
             }
             
             // Column exists, proceed with update
@@ -217,6 +222,95 @@ public class OrderDAOImpl implements OrderDAO
         return false;
     }
 
+    @Override
+    public List<Order> advanceOrderStatus(OrderStatus from, OrderStatus to, Timestamp placedOnOrBefore) throws SQLException
+    {
+        List<Order> advanced = new ArrayList<>();
+        String selectQuery = "SELECT id, user_id, order_date, total_amount, address_id FROM orders "
+                + "WHERE status = ? AND order_date <= ? FOR UPDATE";
+        try (Connection conn = DBConnection.getConnection())
+        {
+            conn.setAutoCommit(false);
+            try
+            {
+                try (PreparedStatement stmt = conn.prepareStatement(selectQuery))
+                {
+                    stmt.setString(1, from.name().toLowerCase());
+                    stmt.setTimestamp(2, placedOnOrBefore);
+                    try (ResultSet rs = stmt.executeQuery())
+                    {
+                        while (rs.next())
+                        {
+                            Order order = new Order();
+                            order.setId(rs.getInt("id"));
+                            order.setUserId(rs.getInt("user_id"));
+                            order.setOrderDate(rs.getTimestamp("order_date"));
+                            order.setTotalAmount(rs.getDouble("total_amount"));
+                            order.setAddressId(rs.getInt("address_id"));
+                            order.setOrderStatus(to);
+                            advanced.add(order);
+                        }
+                    }
+                }
+
+                List<Integer> ids = new ArrayList<>(advanced.size());
+                for (Order order : advanced) {
+                    ids.add(order.getId());
+                }
+                for (List<Integer> chunk : QueryUtils.chunk(ids))
+                {
+                    String updateQuery = "UPDATE orders SET status = ? WHERE status = ? AND id IN ("
+                            + QueryUtils.placeholders(chunk.size()) + ")";
+                    try (PreparedStatement stmt = conn.prepareStatement(updateQuery))
+                    {
+                        stmt.setString(1, to.name().toLowerCase());
+                        stmt.setString(2, from.name().toLowerCase());
+                        for (int i = 0; i < chunk.size(); i++) {
+                            stmt.setInt(i + 3, chunk.get(i));
+                        }
+                        stmt.executeUpdate();
+                    }
+                }
+                conn.commit();
+            }
+            catch (SQLException e)
+            {
+                conn.rollback();
+                throw e;
+            }
+            finally
+            {
+                conn.setAutoCommit(true);
+            }
+        }
+        return advanced;
+    }
+
+    @Override
+    public int fillMissingDeliveryEstimates(int days) throws SQLException
+    {
+        try (Connection conn = DBConnection.getConnection())
+        {
+            // Same check as updateDeliveryEstimate: older schemas don't have the column
+            DatabaseMetaData dbm = conn.getMetaData();
+            try (ResultSet columns = dbm.getColumns(null, null, "orders", "delivery_estimate")) {
+                if (!columns.next()) {
+                    return 0;
+                }
+            }
+
+            String query = "UPDATE orders SET delivery_estimate = DATE_ADD(order_date, INTERVAL ? DAY) "
+                    + "WHERE delivery_estimate IS NULL AND status NOT IN (?, ?)";
+            try (PreparedStatement stmt = conn.prepareStatement(query))
+            {
+                stmt.setInt(1, days);
+                stmt.setString(2, OrderStatus.DELIVERED.name().toLowerCase());
+                stmt.setString(3, OrderStatus.CANCELLED.name().toLowerCase());
+                return stmt.executeUpdate();
+            }
+        }
+    }
+
     private Order extractOrderFromResultSet(ResultSet rs) throws SQLException {
         Order order = new Order();
         order.setId(rs.getInt("id"));
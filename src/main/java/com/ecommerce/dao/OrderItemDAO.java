@@ -2,12 +2,17 @@ package com.ecommerce.dao;
 
 import com.ecommerce.model.OrderItem;
 
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface OrderItemDAO
 {
     boolean addOrderItem(OrderItem item);
     List<OrderItem> getItemsByOrderId(int orderId);
+    Map<Integer, List<OrderItem>> getItemsByOrderIds(Collection<Integer> orderIds);
 
     boolean deleteItem(int orderItemId);
     boolean deleteItemsByOrderId(int orderId);
@@ -16,4 +21,11 @@ public interface OrderItemDAO
     boolean updateOrderItem(OrderItem item);
 
     List<OrderItem> getAllOrderItems();
+
+    // Distinct product ids per order for the orders following afterOrderId, in order id order.
+    // Reads about maxRows rows; an order cut off by the limit is left for the next call.
+    Map<Integer, List<Integer>> getProductIdsByOrderAfter(int afterOrderId, int maxRows);
+
+    // Inserts all items as one JDBC batch on the caller's connection
+    void addOrderItems(Connection conn, List<OrderItem> items) throws SQLException;
 }
@@ -5,24 +5,19 @@ import com.ecommerce.model.OrderItem;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class OrderItemDAOImpl implements OrderItemDAO
 {
-    private Connection connection;
-    public OrderItemDAOImpl() {
-        try {
-            this.connection = DBConnection.getConnection();
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-    }
-
     @Override
     public boolean addOrderItem(OrderItem item)
     {
         String query = "INSERT INTO order_items (order_id, product_id, product_name, quantity, price) VALUES (?, ?, ?, ?, ?)";
-        try (PreparedStatement stmt = connection.prepareStatement(query))
+        try (Connection connection = DBConnection.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(query))
         {
             stmt.setInt(1, item.getOrderId());
             stmt.setInt(2, item.getProductId());
@@ -39,12 +34,35 @@ public class OrderItemDAOImpl implements OrderItemDAO
         return false;
     }
 
+    @Override
+    public void addOrderItems(Connection conn, List<OrderItem> items) throws SQLException
+    {
+        if (items == null || items.isEmpty()) {
+            return;
+        }
+        String query = "INSERT INTO order_items (order_id, product_id, product_name, quantity, price) VALUES (?, ?, ?, ?, ?)";
+        try (PreparedStatement stmt = conn.prepareStatement(query))
+        {
+            for (OrderItem item : items)
+            {
+                stmt.setInt(1, item.getOrderId());
+                stmt.setInt(2, item.getProductId());
+                stmt.setString(3, item.getProductName());
+                stmt.setInt(4, item.getQuantity());
+                stmt.setDouble(5, item.getPrice());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
     @Override
     public List<OrderItem> getItemsByOrderId(int orderId)
     {
         List<OrderItem> items = new ArrayList<>();
         String query = "SELECT * FROM order_items WHERE order_id = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(query))
+        try (Connection connection = DBConnection.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(query))
         {
             stmt.setInt(1, orderId);
             try(ResultSet rs = stmt.executeQuery())
@@ -62,11 +80,47 @@ public class OrderItemDAOImpl implements OrderItemDAO
         return items;
     }
 
+    @Override
+    public Map<Integer, List<OrderItem>> getItemsByOrderIds(Collection<Integer> orderIds)
+    {
+        Map<Integer, List<OrderItem>> itemsByOrder = new LinkedHashMap<>();
+        if (orderIds == null || orderIds.isEmpty()) {
+            return itemsByOrder;
+        }
+        try (Connection connection = DBConnection.getConnection())
+        {
+            for (List<Integer> chunk : QueryUtils.chunk(orderIds))
+            {
+                String query = "SELECT * FROM order_items WHERE order_id IN (" + QueryUtils.placeholders(chunk.size()) + ")";
+                try (PreparedStatement stmt = connection.prepareStatement(query))
+                {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        stmt.setInt(i + 1, chunk.get(i));
+                    }
+                    try (ResultSet rs = stmt.executeQuery())
+                    {
+                        while (rs.next())
+                        {
+                            OrderItem item = extractOrderItem(rs);
+                            itemsByOrder.computeIfAbsent(item.getOrderId(), k -> new ArrayList<>()).add(item);
+                        }
+                    }
+                }
+            }
+        }
+        catch (SQLException e)
+        {
+            e.printStackTrace();
+        }
+        return itemsByOrder;
+    }
+
     @Override
     public boolean deleteItem(int orderItemId)
     {
         String query = "DELETE FROM order_items WHERE id = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(query))
+        try (Connection connection = DBConnection.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(query))
         {
             stmt.setInt(1, orderItemId);
             return stmt.executeUpdate() > 0;
@@ -82,7 +136,8 @@ public class OrderItemDAOImpl implements OrderItemDAO
     public boolean deleteItemsByOrderId(int orderId)
     {
         String query = "DELETE FROM order_items WHERE order_id = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(query))
+        try (Connection connection = DBConnection.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(query))
         {
             stmt.setInt(1, orderId);
             return stmt.executeUpdate() > 0;
@@ -98,7 +153,8 @@ public class OrderItemDAOImpl implements OrderItemDAO
     public boolean updateQuantity(int quantity, int orderItemId)
     {
         String query = "UPDATE order_items SET quantity = ? WHERE id = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(query))
+        try (Connection connection = DBConnection.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(query))
         {
             stmt.setInt(1, quantity);
             stmt.setInt(2, orderItemId);
@@ -123,7 +179,8 @@ public class OrderItemDAOImpl implements OrderItemDAO
                         price = ?
                     WHERE id = ?
                 """;
-        try (PreparedStatement stmt = connection.prepareStatement(query))
+        try (Connection connection = DBConnection.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(query))
         {
             stmt.setInt(1, item.getProductId());
             stmt.setString(2, item.getProductName());
@@ -144,7 +201,8 @@ public class OrderItemDAOImpl implements OrderItemDAO
     public List<OrderItem> getAllOrderItems() {
         List<OrderItem> orderItems = new ArrayList<>();
         String query = "SELECT * FROM order_items";
-        try (PreparedStatement stmt = connection.prepareStatement(query);
+        try (Connection connection = DBConnection.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(query);
              ResultSet rs = stmt.executeQuery()) {
             while (rs.next()) {
                 OrderItem item = new OrderItem();
@@ -161,6 +219,43 @@ public class OrderItemDAOImpl implements OrderItemDAO
         return orderItems;
     }
 
+    @Override
+    public Map<Integer, List<Integer>> getProductIdsByOrderAfter(int afterOrderId, int maxRows)
+    {
+        Map<Integer, List<Integer>> productIdsByOrder = new LinkedHashMap<>();
+        // Covered by idx_order_items_order_product, so only the index is read
+        String query = "SELECT DISTINCT order_id, product_id FROM order_items WHERE order_id > ? " +
+                "ORDER BY order_id, product_id LIMIT ?";
+        try (Connection connection = DBConnection.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(query))
+        {
+            stmt.setInt(1, afterOrderId);
+            stmt.setInt(2, maxRows);
+            int rows = 0;
+            int lastOrderId = afterOrderId;
+            try (ResultSet rs = stmt.executeQuery())
+            {
+                while (rs.next())
+                {
+                    lastOrderId = rs.getInt("order_id");
+                    productIdsByOrder.computeIfAbsent(lastOrderId, k -> new ArrayList<>())
+                            .add(rs.getInt("product_id"));
+                    rows++;
+                }
+            }
+            // The last order may continue past the limit; unless it is the only one, it is read
+            // whole by the next call
+            if (rows == maxRows && productIdsByOrder.size() > 1) {
+                productIdsByOrder.remove(lastOrderId);
+            }
+        }
+        catch (SQLException e)
+        {
+            e.printStackTrace();
+        }
+        return productIdsByOrder;
+    }
+
     private OrderItem extractOrderItem(ResultSet rs) throws SQLException
     {
         OrderItem item = new OrderItem();
@@ -0,0 +1,206 @@
+package com.ecommerce.dao;
+
+import com.ecommerce.model.Product;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * In-memory index from category to the ids of the products in it.
+ *
+ * Each category keeps its product ids in a sorted int array, so a category listing in id
+ * order is a slice of that array and the next page is found by binary search. Several
+ * categories (e.g. a whole subtree from {@link CategoryTree#getSubtreeIds}) are combined
+ * into a bitmap keyed by product id, which other candidate lists such as search hits are
+ * checked against in constant time per id.
+ *
+ * Like {@link ProductSearchIndex}, the index is built from the catalog on first use and then
+ * kept current through {@link #put} and {@link #remove}.
+ */
+public class ProductCategoryIndex
+{
+    private static final int[] NONE = new int[0];
+
+    private final ProductDAO productDAO;
+
+    private boolean built;
+    private final Map<Integer, IdList> productsByCategory = new HashMap<>();
+    private final Map<Integer, Integer> categoryByProduct = new HashMap<>();
+    private final IdList allProducts = new IdList();
+
+    public ProductCategoryIndex(ProductDAO productDAO)
+    {
+        this.productDAO = productDAO;
+    }
+
+    /**
+     * Build the index now if it hasn't been built yet, e.g. from a background thread before
+     * the first listing
+     */
+    public synchronized void ensureBuilt()
+    {
+        if (built) {
+            return;
+        }
+        clear();
+        for (Product product : productDAO.getAllProduct()) {
+            add(product.getId(), categoryOf(product));
+        }
+        built = true;
+    }
+
+    /**
+     * Whether the index is ready; callers that can't wait for a build can fall back to the database
+     */
+    public synchronized boolean isBuilt()
+    {
+        return built;
+    }
+
+    /**
+     * Index a new product, or move a changed one to its current category
+     */
+    public synchronized void put(Product product)
+    {
+        if (!built) {
+            // The product is picked up when the index is built
+            return;
+        }
+        remove(product.getId());
+        add(product.getId(), categoryOf(product));
+    }
+
+    public synchronized void remove(int productId)
+    {
+        if (!built) {
+            return;
+        }
+        Integer categoryId = categoryByProduct.remove(productId);
+        if (categoryId == null) {
+            return;
+        }
+        allProducts.remove(productId);
+        IdList products = productsByCategory.get(categoryId);
+        if (products != null) {
+            products.remove(productId);
+            if (products.size == 0) {
+                productsByCategory.remove(categoryId);
+            }
+        }
+    }
+
+    /**
+     * Drop everything; the next lookup rebuilds from the catalog
+     */
+    public synchronized void invalidateAll()
+    {
+        clear();
+        built = false;
+    }
+
+    /**
+     * Ids of the products in any of the categories, ascending
+     *
+     * @param categoryIds null for every product
+     */
+    public synchronized int[] productIds(Collection<Integer> categoryIds)
+    {
+        ensureBuilt();
+        if (categoryIds == null) {
+            return allProducts.toArray();
+        }
+        if (categoryIds.size() == 1) {
+            IdList products = productsByCategory.get(categoryIds.iterator().next());
+            return products != null ? products.toArray() : NONE;
+        }
+        return productSet(categoryIds).stream().toArray();
+    }
+
+    /**
+     * The products in any of the categories, as a bitmap keyed by product id
+     */
+    public synchronized BitSet productSet(Collection<Integer> categoryIds)
+    {
+        ensureBuilt();
+        BitSet set = new BitSet();
+        for (Integer categoryId : categoryIds) {
+            IdList products = productsByCategory.get(categoryId);
+            if (products != null) {
+                for (int i = 0; i < products.size; i++) {
+                    set.set(products.ids[i]);
+                }
+            }
+        }
+        return set;
+    }
+
+    public synchronized int size()
+    {
+        return allProducts.size;
+    }
+
+    private void add(int productId, int categoryId)
+    {
+        categoryByProduct.put(productId, categoryId);
+        allProducts.add(productId);
+        productsByCategory.computeIfAbsent(categoryId, k -> new IdList()).add(productId);
+    }
+
+    private void clear()
+    {
+        productsByCategory.clear();
+        categoryByProduct.clear();
+        allProducts.clear();
+    }
+
+    // Products without a category are kept under 0, as the database row reads them
+    private static int categoryOf(Product product)
+    {
+        return product.getCategory_id() != null ? product.getCategory_id() : 0;
+    }
+
+    // Sorted, duplicate-free product ids; products are mostly added with increasing ids, which append
+    private static final class IdList
+    {
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(int id)
+        {
+            int found = Arrays.binarySearch(ids, 0, size, id);
+            if (found >= 0) {
+                return;
+            }
+            int at = -found - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            ids[at] = id;
+            size++;
+        }
+
+        void remove(int id)
+        {
+            int found = Arrays.binarySearch(ids, 0, size, id);
+            if (found >= 0) {
+                System.arraycopy(ids, found + 1, ids, found, size - found - 1);
+                size--;
+            }
+        }
+
+        int[] toArray()
+        {
+            return Arrays.copyOf(ids, size);
+        }
+
+        void clear()
+        {
+            ids = new int[4];
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.ecommerce.dao;
+
+/**
+ * Where a page of a product listing ended: the sort key of its last product. The next page
+ * starts right after it, so pages stay consistent while products are added or removed, and
+ * fetching page 100 costs the same as page 1.
+ *
+ * RELEVANCE listings are the exception. Scores change with the catalog, since they weigh
+ * words by how rare they are, so the cursor only holds the last product's position among
+ * the matches. A match added or removed ahead of it while paging shifts the following
+ * pages by one: a product can be shown twice or skipped.
+ */
+public final class ProductCursor
+{
+    private final int id;
+    private final double price;
+    private final String name;
+    // Position in a RELEVANCE listing, which has no stable sort key of its own
+    private final int position;
+
+    ProductCursor(int id, double price, String name, int position)
+    {
+        this.id = id;
+        this.price = price;
+        this.name = name;
+        this.position = position;
+    }
+
+    public int getId()
+    {
+        return id;
+    }
+
+    public double getPrice()
+    {
+        return price;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public int getPosition()
+    {
+        return position;
+    }
+}
@@ -2,7 +2,11 @@ package com.ecommerce.dao;
 
 import com.ecommerce.model.Product;
 
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface ProductDAO
 {
@@ -12,6 +16,7 @@ public interface ProductDAO
     boolean updateStock(int productId, int newStock);
 
     Product getProductById(int productId);
+    Map<Integer, Product> getProductsByIds(Collection<Integer> productIds);
 
     List<Product> getAllProduct();
     List<Product> getProductsByCategoryId(int categoryId);
@@ -22,4 +27,32 @@ public interface ProductDAO
     List<Product> getProductSortedByPriceDesc();
 
     List<Product> getSimilarProducts(int productId, int limit);
+
+    /**
+     * One page of the products matching the filter, in the filter's order
+     * @param after cursor from the previous page, or null for the first page
+     */
+    ProductPage getProductPage(ProductFilter filter, ProductCursor after, int pageSize);
+
+    // Variants that run on the caller's connection so they can take part in a transaction.
+    // They throw instead of swallowing errors and leave commit/rollback to the caller.
+    Map<Integer, Product> getProductsByIds(Connection conn, Collection<Integer> productIds) throws SQLException;
+
+    /**
+     * Reserves stock for every line of an order in one batch of conditional decrements
+     * ({@code stock = stock - qty WHERE stock >= qty}), so concurrent checkouts can never
+     * oversell or lose each other's updates. If the driver reports no per-line counts (a
+     * rewritten batch), the batch is rolled back to a savepoint and the lines are run one by one.
+     * @return per product ID, whether its line was reserved; lines mapped to false had too little stock
+     */
+    Map<Integer, Boolean> reserveStock(Connection conn, Map<Integer, Integer> quantitiesByProductId) throws SQLException;
+
+    /**
+     * Tells the DAO that the transaction which reserved stock for these products has committed,
+     * so anything it caches about them can be dropped. Until the commit, readers on other
+     * connections still see the old stock.
+     */
+    default void stockCommitted(Collection<Integer> productIds)
+    {
+    }
 }
\ No newline at end of file
@@ -7,8 +7,14 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class ProductDAOImpl implements ProductDAO
 {
@@ -19,7 +25,7 @@ public class ProductDAOImpl implements ProductDAO
         Connection conn = null;
         try {
             conn = DBConnection.getConnection();
-            try (PreparedStatement stmt = conn.prepareStatement(query))
+            try (PreparedStatement stmt = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS))
             {
                 stmt.setString(1, product.getName());
                 stmt.setString(2, product.getDescription());
@@ -28,7 +34,17 @@ public class ProductDAOImpl implements ProductDAO
                 stmt.setInt(5, product.getCategory_id());
                 stmt.setString(6, product.getImagePath());
 
-                return stmt.executeUpdate() > 0;
+                if (stmt.executeUpdate() == 0) {
+                    return false;
+                }
+                // Hand the new id back, so caches and indexes can pick the product up
+                try (ResultSet keys = stmt.getGeneratedKeys())
+                {
+                    if (keys.next()) {
+                        product.setId(keys.getInt(1));
+                    }
+                }
+                return true;
             }
         } catch (SQLException e)
         {
@@ -122,6 +138,115 @@ public class ProductDAOImpl implements ProductDAO
         return null;
     }
 
+    @Override
+    public Map<Integer, Product> getProductsByIds(Collection<Integer> productIds)
+    {
+        if (productIds == null || productIds.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+        Connection conn = null;
+        try {
+            conn = DBConnection.getConnection();
+            return getProductsByIds(conn, productIds);
+        } catch (SQLException e)
+        {
+            e.printStackTrace();
+        } finally {
+            if (conn != null) {
+                DBConnection.releaseConnection(conn);
+            }
+        }
+        return new LinkedHashMap<>();
+    }
+
+    @Override
+    public Map<Integer, Product> getProductsByIds(Connection conn, Collection<Integer> productIds) throws SQLException
+    {
+        Map<Integer, Product> products = new LinkedHashMap<>();
+        if (productIds == null || productIds.isEmpty()) {
+            return products;
+        }
+        for (List<Integer> chunk : QueryUtils.chunk(productIds))
+        {
+            String query = "SELECT * FROM products WHERE id IN (" + QueryUtils.placeholders(chunk.size()) + ")";
+            try (PreparedStatement stmt = conn.prepareStatement(query))
+            {
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setInt(i + 1, chunk.get(i));
+                }
+                try (ResultSet rs = stmt.executeQuery())
+                {
+                    while (rs.next())
+                    {
+                        Product product = extractProductColumns(rs);
+                        products.put(product.getId(), product);
+                    }
+                }
+            }
+        }
+        RatingSummaries.getInstance().decorate(products.values());
+        return products;
+    }
+
+    @Override
+    public Map<Integer, Boolean> reserveStock(Connection conn, Map<Integer, Integer> quantitiesByProductId) throws SQLException
+    {
+        Map<Integer, Boolean> results = new LinkedHashMap<>();
+        if (quantitiesByProductId == null || quantitiesByProductId.isEmpty()) {
+            return results;
+        }
+        // Relative, conditional update: the row lock lasts one statement and a short line simply matches no row
+        String query = "UPDATE products SET stock = stock - ? WHERE id = ? AND stock >= ?";
+        List<Integer> productIds = new ArrayList<>(quantitiesByProductId.keySet());
+        try (PreparedStatement stmt = conn.prepareStatement(query))
+        {
+            // Lets a batch without per-line counts be undone inside the caller's transaction
+            Savepoint beforeBatch = conn.getAutoCommit() ? null : conn.setSavepoint();
+            for (Integer productId : productIds)
+            {
+                setReservation(stmt, productId, quantitiesByProductId.get(productId));
+                stmt.addBatch();
+            }
+            int[] counts = stmt.executeBatch();
+            boolean countsKnown = true;
+            for (int count : counts)
+            {
+                countsKnown &= count != Statement.SUCCESS_NO_INFO;
+            }
+            if (countsKnown) {
+                for (int i = 0; i < productIds.size(); i++)
+                {
+                    results.put(productIds.get(i), counts[i] > 0);
+                }
+                if (beforeBatch != null) {
+                    conn.releaseSavepoint(beforeBatch);
+                }
+                return results;
+            }
+
+            // A rewritten batch (rewriteBatchedStatements=true) can't tell us which lines matched, and
+            // guessing would oversell: undo it and reserve line by line on the same connection
+            if (beforeBatch == null) {
+                throw new SQLException("Driver returned no per-line update counts for stock reservation " +
+                        "outside a transaction, so the batch can't be retried line by line");
+            }
+            conn.rollback(beforeBatch);
+            for (Integer productId : productIds)
+            {
+                setReservation(stmt, productId, quantitiesByProductId.get(productId));
+                results.put(productId, stmt.executeUpdate() > 0);
+            }
+        }
+        return results;
+    }
+
+    private static void setReservation(PreparedStatement stmt, int productId, int quantity) throws SQLException
+    {
+        stmt.setInt(1, quantity);
+        stmt.setInt(2, productId);
+        stmt.setInt(3, quantity);
+    }
+
     @Override
     public List<Product> getAllProduct()
     {
@@ -296,10 +421,18 @@ public class ProductDAOImpl implements ProductDAO
     public List<Product> getSimilarProducts(int productId, int limit)
     {
         List<Product> similarProducts = new ArrayList<>();
-        String query = "SELECT p.* FROM products p JOIN products original " +
+        // The products following this one in its category, wrapping round to the start. Both
+        // halves are short range scans on idx_products_category_id, unlike sorting the whole
+        // category by RAND(), and the answer is stable so it can be cached.
+        String query = "SELECT * FROM (" +
+                "(SELECT p.*, 0 AS wrapped FROM products p JOIN products original " +
                 "ON p.category_id = original.category_id " +
-                "WHERE original.id = ? AND p.id != ? " +
-                "ORDER BY RAND() LIMIT ?";
+                "WHERE original.id = ? AND p.id > original.id ORDER BY p.id LIMIT ?) " +
+                "UNION ALL " +
+                "(SELECT p.*, 1 AS wrapped FROM products p JOIN products original " +
+                "ON p.category_id = original.category_id " +
+                "WHERE original.id = ? AND p.id < original.id ORDER BY p.id LIMIT ?)" +
+                ") similar ORDER BY wrapped, id LIMIT ?";
         
         Connection conn = null;
         try {
@@ -307,8 +440,10 @@ public class ProductDAOImpl implements ProductDAO
             try (PreparedStatement stmt = conn.prepareStatement(query))
             {
                 stmt.setInt(1, productId);
-                stmt.setInt(2, productId);
-                stmt.setInt(3, limit);
+                stmt.setInt(2, limit);
+                stmt.setInt(3, productId);
+                stmt.setInt(4, limit);
+                stmt.setInt(5, limit);
                 
                 try (ResultSet rs = stmt.executeQuery())
                 {
@@ -329,6 +464,79 @@ public class ProductDAOImpl implements ProductDAO
         return similarProducts;
     }
 
+    @Override
+    public ProductPage getProductPage(ProductFilter filter, ProductCursor after, int pageSize)
+    {
+        ProductSort sort = filter.getSort();
+        StringBuilder query = new StringBuilder("SELECT * FROM products WHERE 1 = 1");
+        List<Object> parameters = new ArrayList<>();
+        if (filter.getCategoryIds() != null) {
+            if (filter.getCategoryIds().isEmpty()) {
+                return new ProductPage(new ArrayList<>(), null);
+            }
+            query.append(" AND category_id IN (").append(QueryUtils.placeholders(filter.getCategoryIds().size())).append(")");
+            parameters.addAll(filter.getCategoryIds());
+        }
+        if (filter.getMinPrice() != null) {
+            query.append(" AND price >= ?");
+            parameters.add(filter.getMinPrice());
+        }
+        if (filter.getMaxPrice() != null) {
+            query.append(" AND price <= ?");
+            parameters.add(filter.getMaxPrice());
+        }
+        if (filter.getKeyword() != null) {
+            query.append(" AND (name LIKE ? OR description LIKE ?)");
+            parameters.add("%" + filter.getKeyword() + "%");
+            parameters.add("%" + filter.getKeyword() + "%");
+        }
+        // Keyset pagination: continue after the last row instead of skipping an OFFSET, so
+        // each page is a short scan of idx_products_price_id / idx_products_name_id
+        if (after != null) {
+            query.append(" AND ").append(sort.afterCursor());
+            parameters.addAll(Arrays.asList(sort.cursorParameters(after)));
+        }
+        // One extra row tells whether there is another page
+        query.append(" ORDER BY ").append(sort.orderBy()).append(" LIMIT ?");
+        parameters.add(pageSize + 1);
+
+        Map<Integer, Product> products = new LinkedHashMap<>();
+        Connection conn = null;
+        try {
+            conn = DBConnection.getConnection();
+            try (PreparedStatement stmt = conn.prepareStatement(query.toString()))
+            {
+                for (int i = 0; i < parameters.size(); i++) {
+                    stmt.setObject(i + 1, parameters.get(i));
+                }
+                try (ResultSet rs = stmt.executeQuery())
+                {
+                    while (rs.next())
+                    {
+                        Product product = extractProductColumns(rs);
+                        products.put(product.getId(), product);
+                    }
+                }
+            }
+            RatingSummaries.getInstance().decorate(products.values());
+        } catch (SQLException e)
+        {
+            e.printStackTrace();
+        } finally {
+            if (conn != null) {
+                DBConnection.releaseConnection(conn);
+            }
+        }
+
+        List<Product> page = new ArrayList<>(products.values());
+        ProductCursor next = null;
+        if (page.size() > pageSize) {
+            page = new ArrayList<>(page.subList(0, pageSize));
+            next = sort.cursorAfter(page.get(pageSize - 1), -1);
+        }
+        return new ProductPage(page, next);
+    }
+
     @Override
     public boolean updateStock(int productId, int newStock)
     {
@@ -354,6 +562,13 @@ public class ProductDAOImpl implements ProductDAO
     }
 
     private Product extractProductFromResultSet(ResultSet rs) throws SQLException
+    {
+        Product product = extractProductColumns(rs);
+        RatingSummaries.getInstance().decorate(product);
+        return product;
+    }
+
+    private Product extractProductColumns(ResultSet rs) throws SQLException
     {
         Product product = new Product();
         product.setId(rs.getInt("id"));
@@ -363,12 +578,6 @@ public class ProductDAOImpl implements ProductDAO
         product.setStock(rs.getInt("stock"));
         product.setCategory_id(rs.getInt("category_id"));
         product.setImagePath(rs.getString("image_path"));
-        
-        // Load ratings data
-        RatingDAO ratingDAO = new RatingDAOImpl();
-        product.setAverageRating(ratingDAO.getAverageRatingForProduct(product.getId()));
-        product.setRatingCount(ratingDAO.getCountOfRatingsForProduct(product.getId()));
-        
         return product;
     }
 }
\ No newline at end of file
@@ -0,0 +1,83 @@
+package com.ecommerce.dao;
+
+import com.ecommerce.model.Product;
+
+import java.util.Collection;
+
+/**
+ * Which products a paged listing shows, and in what order. Unset criteria don't filter.
+ */
+public final class ProductFilter
+{
+    private String keyword;
+    private Collection<Integer> categoryIds;
+    private Double minPrice;
+    private Double maxPrice;
+    private ProductSort sort = ProductSort.ID;
+
+    public String getKeyword()
+    {
+        return keyword;
+    }
+
+    /**
+     * Only products matching the search text; blank matches everything
+     */
+    public ProductFilter setKeyword(String keyword)
+    {
+        this.keyword = keyword == null || keyword.trim().isEmpty() ? null : keyword.trim();
+        return this;
+    }
+
+    public Collection<Integer> getCategoryIds()
+    {
+        return categoryIds;
+    }
+
+    /**
+     * Only products in one of these categories; null for any category
+     */
+    public ProductFilter setCategoryIds(Collection<Integer> categoryIds)
+    {
+        this.categoryIds = categoryIds;
+        return this;
+    }
+
+    public Double getMinPrice()
+    {
+        return minPrice;
+    }
+
+    public Double getMaxPrice()
+    {
+        return maxPrice;
+    }
+
+    public ProductFilter setPriceRange(Double minPrice, Double maxPrice)
+    {
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        return this;
+    }
+
+    public ProductSort getSort()
+    {
+        return sort;
+    }
+
+    public ProductFilter setSort(ProductSort sort)
+    {
+        this.sort = sort != null ? sort : ProductSort.ID;
+        return this;
+    }
+
+    /**
+     * Whether the product passes the category and price criteria (not the keyword)
+     */
+    boolean matches(Product product)
+    {
+        return (categoryIds == null || categoryIds.contains(product.getCategory_id()))
+                && (minPrice == null || product.getPrice() >= minPrice)
+                && (maxPrice == null || product.getPrice() <= maxPrice);
+    }
+}
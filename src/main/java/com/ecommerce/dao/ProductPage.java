@@ -0,0 +1,38 @@
+package com.ecommerce.dao;
+
+import com.ecommerce.model.Product;
+
+import java.util.List;
+
+/**
+ * One page of a product listing
+ */
+public final class ProductPage
+{
+    private final List<Product> products;
+    private final ProductCursor next;
+
+    public ProductPage(List<Product> products, ProductCursor next)
+    {
+        this.products = products;
+        this.next = next;
+    }
+
+    public List<Product> getProducts()
+    {
+        return products;
+    }
+
+    /**
+     * Cursor to pass for the following page, or null if this is the last one
+     */
+    public ProductCursor getNext()
+    {
+        return next;
+    }
+
+    public boolean hasMore()
+    {
+        return next != null;
+    }
+}
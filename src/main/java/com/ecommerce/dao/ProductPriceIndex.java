@@ -0,0 +1,206 @@
+package com.ecommerce.dao;
+
+import com.ecommerce.model.Product;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * In-memory index of products sorted by price.
+ *
+ * Prices and product ids are kept in two parallel primitive arrays sorted by (price, id), the
+ * order of {@link ProductSort#PRICE_ASC}; walking them backwards gives
+ * {@link ProductSort#PRICE_DESC}. A price range or a page cursor is found by binary search,
+ * so listing by price is a walk over presorted arrays rather than a sort per request.
+ *
+ * Like {@link ProductSearchIndex}, the index is built from the catalog on first use and then
+ * kept current through {@link #put} and {@link #remove}; a price change moves one entry.
+ */
+public class ProductPriceIndex
+{
+    private final ProductDAO productDAO;
+
+    private boolean built;
+    private double[] prices = new double[0];
+    private int[] ids = new int[0];
+    private int size;
+    private final Map<Integer, Double> priceByProduct = new HashMap<>();
+
+    public ProductPriceIndex(ProductDAO productDAO)
+    {
+        this.productDAO = productDAO;
+    }
+
+    /**
+     * Build the index now if it hasn't been built yet, e.g. from a background thread before
+     * the first listing
+     */
+    public synchronized void ensureBuilt()
+    {
+        if (built) {
+            return;
+        }
+        clear();
+        // One sort for the whole catalog, rather than inserting products one by one
+        Product[] products = productDAO.getAllProduct().toArray(new Product[0]);
+        Arrays.sort(products, ProductSort.PRICE_ASC.comparator());
+        prices = new double[Math.max(16, products.length)];
+        ids = new int[prices.length];
+        for (Product product : products) {
+            if (priceByProduct.putIfAbsent(product.getId(), product.getPrice()) == null) {
+                prices[size] = product.getPrice();
+                ids[size] = product.getId();
+                size++;
+            }
+        }
+        built = true;
+    }
+
+    /**
+     * Whether the index is ready; callers that can't wait for a build can fall back to the database
+     */
+    public synchronized boolean isBuilt()
+    {
+        return built;
+    }
+
+    /**
+     * Index a new product, or move a changed one to its current price
+     */
+    public synchronized void put(Product product)
+    {
+        if (!built) {
+            // The product is picked up when the index is built
+            return;
+        }
+        remove(product.getId());
+        int at = firstAfter(product.getPrice(), product.getId(), true);
+        if (size == prices.length) {
+            prices = Arrays.copyOf(prices, Math.max(16, size * 2));
+            ids = Arrays.copyOf(ids, prices.length);
+        }
+        System.arraycopy(prices, at, prices, at + 1, size - at);
+        System.arraycopy(ids, at, ids, at + 1, size - at);
+        prices[at] = product.getPrice();
+        ids[at] = product.getId();
+        size++;
+        priceByProduct.put(product.getId(), product.getPrice());
+    }
+
+    public synchronized void remove(int productId)
+    {
+        if (!built) {
+            return;
+        }
+        Double price = priceByProduct.remove(productId);
+        if (price == null) {
+            return;
+        }
+        int at = firstAfter(price, productId, true);
+        if (at < size && ids[at] == productId) {
+            System.arraycopy(prices, at + 1, prices, at, size - at - 1);
+            System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+            size--;
+        }
+    }
+
+    /**
+     * Drop everything; the next lookup rebuilds from the catalog
+     */
+    public synchronized void invalidateAll()
+    {
+        clear();
+        built = false;
+    }
+
+    /**
+     * Ids of the products priced within the range, in price order (then id, as
+     * {@link ProductSort} orders them)
+     *
+     * @param minPrice null for no lower bound
+     * @param maxPrice null for no upper bound
+     */
+    public synchronized int[] productIds(Double minPrice, Double maxPrice, boolean descending)
+    {
+        return productIds(minPrice, maxPrice, descending, null, null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Up to limit ids of products priced within the range, in price order, starting after the
+     * cursor and skipping products not in allowed
+     *
+     * @param after null to start at the beginning
+     * @param allowed null to allow every product
+     */
+    synchronized int[] productIds(Double minPrice, Double maxPrice, boolean descending,
+                                  ProductCursor after, BitSet allowed, int limit)
+    {
+        ensureBuilt();
+        int from = minPrice != null ? firstAfter(minPrice, Integer.MIN_VALUE, true) : 0;
+        int to = maxPrice != null ? firstAfter(maxPrice, Integer.MAX_VALUE, false) : size;
+        if (after != null) {
+            if (descending) {
+                to = Math.min(to, firstAfter(after.getPrice(), after.getId(), true));
+            } else {
+                from = Math.max(from, firstAfter(after.getPrice(), after.getId(), false));
+            }
+        }
+
+        int[] result = new int[Math.max(0, Math.min(limit, to - from))];
+        int count = 0;
+        int step = descending ? -1 : 1;
+        for (int i = descending ? to - 1 : from; i >= from && i < to && count < result.length; i += step) {
+            if (allowed == null || allowed.get(ids[i])) {
+                result[count++] = ids[i];
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Cursor for continuing a walk after the product, at the price it is indexed under; null
+     * if it isn't in the index
+     */
+    synchronized ProductCursor cursorAt(int productId)
+    {
+        Double price = priceByProduct.get(productId);
+        return price != null ? new ProductCursor(productId, price, null, 0) : null;
+    }
+
+    public synchronized int size()
+    {
+        return size;
+    }
+
+    /**
+     * First position whose (price, id) is past the given pair, or at it when inclusive
+     */
+    private int firstAfter(double price, int id, boolean inclusive)
+    {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int order = Double.compare(prices[mid], price);
+            if (order == 0) {
+                order = Integer.compare(ids[mid], id);
+            }
+            if (order < 0 || (order == 0 && !inclusive)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void clear()
+    {
+        prices = new double[0];
+        ids = new int[0];
+        size = 0;
+        priceByProduct.clear();
+    }
+}
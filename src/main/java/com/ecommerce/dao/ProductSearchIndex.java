@@ -0,0 +1,483 @@
+package com.ecommerce.dao;
+
+import com.ecommerce.model.Category;
+import com.ecommerce.model.Product;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over product names, descriptions and category names.
+ *
+ * Every word maps to a postings list of the products containing it, so a search only touches
+ * the products that match its words instead of scanning the catalog with LIKE '%kw%'. All
+ * words of a query must match; a word also matches every longer word it is a prefix of ("lap"
+ * finds "laptop"), at a lower score than an exact match. Results are ranked by how rare the
+ * matched words are and where they occur: a hit in the name counts more than one in the
+ * category, which counts more than one in the description.
+ *
+ * The index is built from the catalog on first use and then kept current through
+ * {@link #put} and {@link #remove}. Removed or replaced products are only marked dead in
+ * their postings, and the postings are rewritten once dead entries make up a quarter of the
+ * index. Category renames are not tracked; call {@link #invalidateAll} after changing categories.
+ */
+public class ProductSearchIndex
+{
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final float NAME_WEIGHT = 3f;
+    private static final float CATEGORY_WEIGHT = 2f;
+    private static final float DESCRIPTION_WEIGHT = 1f;
+    // A prefix match ("lap" for "laptop") scores less than the exact word
+    private static final float PREFIX_FACTOR = 0.6f;
+    // Above this many matching terms, a word is checked against each candidate's own terms
+    // instead of binary-searching every term's postings for it
+    private static final int MAX_TERMS_TO_PROBE = 8;
+    private static final int MIN_DEAD_TO_COMPACT = 64;
+
+    private final ProductDAO productDAO;
+    private final CategoryDAO categoryDAO;
+
+    private boolean built;
+    private Map<Integer, String> categoryNames = new HashMap<>();
+    private final TreeMap<String, Postings> postings = new TreeMap<>();
+    // Documents are numbered in the order they were added; a product gets a new number on every change
+    private int[] docProductIds = new int[256];
+    private String[][] docTerms = new String[256][];
+    private float[][] docWeights = new float[256][];
+    private int docCount;
+    private int deadCount;
+    private final BitSet live = new BitSet();
+    private final Map<Integer, Integer> docByProductId = new HashMap<>();
+
+    public ProductSearchIndex(ProductDAO productDAO, CategoryDAO categoryDAO)
+    {
+        this.productDAO = productDAO;
+        this.categoryDAO = categoryDAO;
+    }
+
+    /**
+     * Ids of the products matching every word of the query, best match first
+     *
+     * @param limit maximum number of ids to return
+     */
+    public synchronized List<Integer> search(String query, int limit)
+    {
+        List<String> words = tokenize(query);
+        if (words.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        ensureBuilt();
+
+        List<WordMatch> matches = new ArrayList<>(words.size());
+        for (String word : words) {
+            WordMatch match = match(word);
+            if (match.lists.isEmpty()) {
+                return new ArrayList<>();
+            }
+            matches.add(match);
+        }
+        // Start from the rarest word and only look the others up for its documents, so the
+        // cost follows the smallest postings list rather than the most common word
+        matches.sort((a, b) -> Long.compare(a.cost(), b.cost()));
+        IntFloatMap result = new IntFloatMap((int) Math.min(matches.get(0).cost(), docCount));
+        matches.get(0).addTo(result);
+        for (int i = 1; i < matches.size() && result.size() > 0; i++) {
+            result = matches.get(i).intersect(result);
+        }
+
+        // Score descending, then product id, packed into one long so a primitive sort does it
+        int[] docs = result.keys();
+        long[] ranked = new long[docs.length];
+        for (int i = 0; i < docs.length; i++) {
+            int scoreBits = Float.floatToIntBits(result.get(docs[i]));
+            ranked[i] = (long) (Integer.MAX_VALUE - scoreBits) << 32 | docProductIds[docs[i]];
+        }
+        Arrays.sort(ranked);
+
+        List<Integer> ids = new ArrayList<>(Math.min(limit, ranked.length));
+        for (int i = 0; i < ranked.length && ids.size() < limit; i++) {
+            ids.add((int) ranked[i]);
+        }
+        return ids;
+    }
+
+    /**
+     * Build the index now if it hasn't been built yet, e.g. from a background thread before
+     * the first search
+     */
+    public synchronized void ensureBuilt()
+    {
+        if (built) {
+            return;
+        }
+        clear();
+        Map<Integer, String> names = new HashMap<>();
+        for (Category category : categoryDAO.getAllCategories()) {
+            names.put(category.getId(), category.getName());
+        }
+        categoryNames = names;
+        for (Product product : productDAO.getAllProduct()) {
+            add(product);
+        }
+        built = true;
+    }
+
+    /**
+     * Index a new or changed product
+     */
+    public synchronized void put(Product product)
+    {
+        if (!built) {
+            // The product is picked up when the index is built
+            return;
+        }
+        if (product.getId() <= 0) {
+            // Not stored yet, so it can't be looked up by id; start over on the next search
+            built = false;
+            return;
+        }
+        kill(product.getId());
+        add(product);
+        compactIfNeeded();
+    }
+
+    /**
+     * Drop a deleted product
+     */
+    public synchronized void remove(int productId)
+    {
+        if (built) {
+            kill(productId);
+            compactIfNeeded();
+        }
+    }
+
+    /**
+     * Rebuild from the database on the next search, e.g. after categories were renamed
+     */
+    public synchronized void invalidateAll()
+    {
+        built = false;
+        clear();
+    }
+
+    /**
+     * Number of products currently indexed
+     */
+    public synchronized int size()
+    {
+        return docByProductId.size();
+    }
+
+    /**
+     * Split text into lowercase words, the same way for products and queries
+     */
+    static List<String> tokenize(String text)
+    {
+        List<String> words = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return words;
+        }
+        for (String word : NON_WORD.split(text.toLowerCase(Locale.ROOT))) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private WordMatch match(String word)
+    {
+        WordMatch match = new WordMatch();
+        // Terms sort right after their prefix, so all of them are one range of the term map
+        String end = word + Character.MAX_VALUE;
+        for (Map.Entry<String, Postings> entry : postings.subMap(word, true, end, false).entrySet()) {
+            Postings list = entry.getValue();
+            boolean exact = entry.getKey().length() == word.length();
+            match.add(entry.getKey(), list, exact ? idf(list) : PREFIX_FACTOR * idf(list));
+        }
+        return match;
+    }
+
+    private float idf(Postings list)
+    {
+        return (float) Math.log(1 + (double) docByProductId.size() / Math.max(1, list.size));
+    }
+
+    private void add(Product product)
+    {
+        Map<String, Float> termWeights = new LinkedHashMap<>();
+        addField(termWeights, product.getName(), NAME_WEIGHT);
+        addField(termWeights, categoryNames.get(product.getCategory_id()), CATEGORY_WEIGHT);
+        addField(termWeights, product.getDescription(), DESCRIPTION_WEIGHT);
+
+        String[] terms = new String[termWeights.size()];
+        float[] weights = new float[termWeights.size()];
+        int i = 0;
+        for (Map.Entry<String, Float> entry : termWeights.entrySet()) {
+            terms[i] = entry.getKey();
+            // Saturate, so repeating a word in the description doesn't outrank a name match
+            float weight = entry.getValue();
+            weights[i] = weight * 2.2f / (weight + 1.2f);
+            i++;
+        }
+        addDoc(product.getId(), terms, weights);
+    }
+
+    private static void addField(Map<String, Float> termWeights, String text, float weight)
+    {
+        for (String word : tokenize(text)) {
+            termWeights.merge(word, weight, Float::sum);
+        }
+    }
+
+    private void addDoc(int productId, String[] terms, float[] weights)
+    {
+        if (docCount == docProductIds.length) {
+            int capacity = docCount * 2;
+            docProductIds = Arrays.copyOf(docProductIds, capacity);
+            docTerms = Arrays.copyOf(docTerms, capacity);
+            docWeights = Arrays.copyOf(docWeights, capacity);
+        }
+        int doc = docCount++;
+        docProductIds[doc] = productId;
+        docTerms[doc] = terms;
+        docWeights[doc] = weights;
+        live.set(doc);
+        docByProductId.put(productId, doc);
+        for (int i = 0; i < terms.length; i++) {
+            postings.computeIfAbsent(terms[i], t -> new Postings()).add(doc, weights[i]);
+        }
+    }
+
+    private void kill(int productId)
+    {
+        Integer doc = docByProductId.remove(productId);
+        if (doc != null) {
+            live.clear(doc);
+            deadCount++;
+        }
+    }
+
+    private void compactIfNeeded()
+    {
+        if (deadCount < MIN_DEAD_TO_COMPACT || deadCount * 4 < docCount) {
+            return;
+        }
+        // Re-add the live documents from their stored terms; no database access needed
+        int[] oldProductIds = docProductIds;
+        String[][] oldTerms = docTerms;
+        float[][] oldWeights = docWeights;
+        int oldCount = docCount;
+        BitSet oldLive = (BitSet) live.clone();
+        clear();
+        for (int doc = oldLive.nextSetBit(0); doc >= 0 && doc < oldCount; doc = oldLive.nextSetBit(doc + 1)) {
+            addDoc(oldProductIds[doc], oldTerms[doc], oldWeights[doc]);
+        }
+    }
+
+    private void clear()
+    {
+        postings.clear();
+        docProductIds = new int[256];
+        docTerms = new String[256][];
+        docWeights = new float[256][];
+        docCount = 0;
+        deadCount = 0;
+        live.clear();
+        docByProductId.clear();
+    }
+
+    // Documents containing one word, in ascending document order
+    private static final class Postings
+    {
+        private int[] docs = new int[4];
+        private float[] weights = new float[4];
+        private int size;
+
+        private void add(int doc, float weight)
+        {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            docs[size] = doc;
+            weights[size] = weight;
+            size++;
+        }
+
+        // The document's weight for this word, or 0 if it doesn't contain it
+        private float weightOf(int doc)
+        {
+            int i = Arrays.binarySearch(docs, 0, size, doc);
+            return i >= 0 ? weights[i] : 0f;
+        }
+    }
+
+    // The postings one query word matches: its exact term and every term it is a prefix of
+    private final class WordMatch
+    {
+        private final List<Postings> lists = new ArrayList<>();
+        private final List<Float> factors = new ArrayList<>();
+        private final Map<String, Float> factorByTerm = new HashMap<>();
+
+        private void add(String term, Postings list, float factor)
+        {
+            lists.add(list);
+            factors.add(factor);
+            factorByTerm.put(term, factor);
+        }
+
+        private long cost()
+        {
+            long cost = 0;
+            for (Postings list : lists) {
+                cost += list.size;
+            }
+            return cost;
+        }
+
+        // Keeps the best score per document when several terms of the word match it
+        private void addTo(IntFloatMap scores)
+        {
+            for (int l = 0; l < lists.size(); l++) {
+                Postings list = lists.get(l);
+                float factor = factors.get(l);
+                for (int i = 0; i < list.size; i++) {
+                    if (live.get(list.docs[i])) {
+                        scores.putMax(list.docs[i], list.weights[i] * factor);
+                    }
+                }
+            }
+        }
+
+        // The candidates that also match this word, with its score added
+        private IntFloatMap intersect(IntFloatMap candidates)
+        {
+            IntFloatMap result = new IntFloatMap(candidates.size());
+            boolean probe = lists.size() <= MAX_TERMS_TO_PROBE;
+            for (int doc : candidates.keys()) {
+                float best = probe ? bestByPostings(doc) : bestByDocTerms(doc);
+                if (best > 0f) {
+                    result.putMax(doc, candidates.get(doc) + best);
+                }
+            }
+            return result;
+        }
+
+        private float bestByPostings(int doc)
+        {
+            float best = 0f;
+            for (int l = 0; l < lists.size(); l++) {
+                best = Math.max(best, lists.get(l).weightOf(doc) * factors.get(l));
+            }
+            return best;
+        }
+
+        // A short prefix can match thousands of terms, but a document only has a few dozen
+        private float bestByDocTerms(int doc)
+        {
+            float best = 0f;
+            String[] terms = docTerms[doc];
+            float[] weights = docWeights[doc];
+            for (int i = 0; i < terms.length; i++) {
+                Float factor = factorByTerm.get(terms[i]);
+                if (factor != null) {
+                    best = Math.max(best, weights[i] * factor);
+                }
+            }
+            return best;
+        }
+    }
+
+    /**
+     * Open-addressing map from document number to score, to avoid boxing while matching
+     */
+    private static final class IntFloatMap
+    {
+        private static final int EMPTY = -1;
+
+        private int[] keys;
+        private float[] values;
+        private int size;
+
+        private IntFloatMap(int expected)
+        {
+            int capacity = Integer.highestOneBit(Math.max(4, expected * 2) - 1) << 1;
+            keys = new int[capacity];
+            values = new float[capacity];
+            Arrays.fill(keys, EMPTY);
+        }
+
+        private int size()
+        {
+            return size;
+        }
+
+        private float get(int key)
+        {
+            int slot = find(key);
+            return keys[slot] == key ? values[slot] : Float.NaN;
+        }
+
+        private void putMax(int key, float value)
+        {
+            int slot = find(key);
+            if (keys[slot] == key) {
+                values[slot] = Math.max(values[slot], value);
+                return;
+            }
+            keys[slot] = key;
+            values[slot] = value;
+            if (++size * 2 > keys.length) {
+                grow();
+            }
+        }
+
+        private int[] keys()
+        {
+            int[] result = new int[size];
+            int n = 0;
+            for (int key : keys) {
+                if (key != EMPTY) {
+                    result[n++] = key;
+                }
+            }
+            return result;
+        }
+
+        private int find(int key)
+        {
+            int mask = keys.length - 1;
+            int slot = (key * 0x9E3779B9) >>> 1 & mask;
+            while (keys[slot] != EMPTY && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void grow()
+        {
+            int[] oldKeys = keys;
+            float[] oldValues = values;
+            keys = new int[oldKeys.length * 2];
+            values = new float[oldKeys.length * 2];
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    putMax(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+    }
+}
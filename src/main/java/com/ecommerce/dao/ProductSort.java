@@ -0,0 +1,89 @@
+package com.ecommerce.dao;
+
+import com.ecommerce.model.Product;
+
+import java.util.Comparator;
+
+/**
+ * Orders a product listing can be paged in. Every order ends with the product id, so it is
+ * total and a page cursor always points at exactly one position.
+ */
+public enum ProductSort
+{
+    // Best search match first; without a keyword this is the same as ID. Paged by position,
+    // see ProductCursor.
+    RELEVANCE(null, false),
+    ID(null, false),
+    PRICE_ASC("price", false),
+    PRICE_DESC("price", true),
+    NAME_ASC("name", false),
+    NAME_DESC("name", true);
+
+    private final String column;
+    private final boolean descending;
+
+    ProductSort(String column, boolean descending)
+    {
+        this.column = column;
+        this.descending = descending;
+    }
+
+    /**
+     * ORDER BY clause matching {@link #comparator()}
+     */
+    String orderBy()
+    {
+        String direction = descending ? " DESC" : "";
+        return column == null ? "id" + direction : column + direction + ", id" + direction;
+    }
+
+    /**
+     * WHERE condition selecting the rows after the cursor, with its parameters in
+     * {@link #cursorParameters}
+     */
+    String afterCursor()
+    {
+        String operator = descending ? "<" : ">";
+        if (column == null) {
+            return "id " + operator + " ?";
+        }
+        return "(" + column + " " + operator + " ? OR (" + column + " = ? AND id " + operator + " ?))";
+    }
+
+    Object[] cursorParameters(ProductCursor cursor)
+    {
+        if (column == null) {
+            return new Object[] { cursor.getId() };
+        }
+        Object value = "price".equals(column) ? (Object) cursor.getPrice() : cursor.getName();
+        return new Object[] { value, value, cursor.getId() };
+    }
+
+    /**
+     * The same order as the SQL, for lists sorted in memory. Names compare case-insensitively
+     * like the database's default collation.
+     */
+    Comparator<Product> comparator()
+    {
+        Comparator<Product> byId = Comparator.comparingInt(Product::getId);
+        Comparator<Product> order;
+        if ("price".equals(column)) {
+            order = Comparator.comparingDouble(Product::getPrice).thenComparing(byId);
+        } else if ("name".equals(column)) {
+            order = Comparator.comparing(Product::getName, String.CASE_INSENSITIVE_ORDER).thenComparing(byId);
+        } else {
+            order = byId;
+        }
+        return descending ? order.reversed() : order;
+    }
+
+    /**
+     * Cursor for the page following the given product
+     *
+     * @param position the product's position in the listing, used by RELEVANCE
+     */
+    ProductCursor cursorAfter(Product product, int position)
+    {
+        return new ProductCursor(product.getId(), product.getPrice(), product.getName(), position);
+    }
+}
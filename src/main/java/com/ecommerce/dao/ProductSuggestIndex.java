@@ -0,0 +1,765 @@
+package com.ecommerce.dao;
+
+import com.ecommerce.model.Category;
+import com.ecommerce.model.Product;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Search-box completions over product and category names, tolerant of typos.
+ *
+ * Every name is a suggestion, reachable from the start of any of its words ("mou" suggests
+ * "Wireless Mouse"). The lookup keys are kept in sorted arrays, so the keys starting with
+ * what was typed form a contiguous range, and a max-tree over their weights hands out the
+ * best completions of a range without looking at the rest of it. The sorted keys also act as
+ * an implicit trie: when the exact prefix finds too little, the trie is walked with an edit
+ * distance row per character to find keys within one or two edits (insertions, deletions,
+ * substitutions or swapped neighbours) of the query. The first letter must match exactly, a
+ * second edit is only tried when one finds too little, and the walk stops after a fixed
+ * number of trie nodes, so a keystroke costs about the same however large the catalog.
+ *
+ * A name's weight is the number of products carrying it (for categories, the products in
+ * the category plus one). The index is built from the catalog on first use and kept current
+ * through {@link #put} and {@link #remove}. Names that appear later go into a small second
+ * key array, which is merged into the main one once it fills up; names that disappear keep
+ * their keys at weight zero until then. Category renames are not tracked; call
+ * {@link #invalidateAll} after changing categories.
+ */
+public class ProductSuggestIndex
+{
+    // Queries shorter than this only complete exactly; one or two letters match everything anyway
+    private static final int MIN_FUZZY_LENGTH = 3;
+    private static final int LONG_QUERY_LENGTH = 6;
+    // Typos in the first letter are rare, and trusting it keeps the walk to one subtree
+    private static final int EXACT_PREFIX_LENGTH = 1;
+    // Caps the trie nodes one corrected lookup may visit, which bounds the latency of a keystroke
+    private static final int MAX_FUZZY_VISITS = 1_500;
+    // Only the first words of a long name are completion starting points
+    private static final int MAX_WORD_STARTS = 8;
+    private static final int MAX_RECENT_KEYS = 4_096;
+
+    private final ProductDAO productDAO;
+    private final CategoryDAO categoryDAO;
+
+    private boolean built;
+    private final Map<String, Phrase> phrases = new HashMap<>();
+    private final Map<Integer, Phrase> categoryPhrases = new HashMap<>();
+    private final Map<Integer, Phrase> nameByProductId = new HashMap<>();
+    private final Map<Integer, Integer> categoryByProductId = new HashMap<>();
+
+    private Segment main = new Segment(new ArrayList<>());
+    // Keys of names added since main was last rebuilt
+    private Segment recent = new Segment(new ArrayList<>());
+
+    public ProductSuggestIndex(ProductDAO productDAO, CategoryDAO categoryDAO)
+    {
+        this.productDAO = productDAO;
+        this.categoryDAO = categoryDAO;
+    }
+
+    /**
+     * Up to limit names completing what was typed, best first: exact prefix matches before
+     * those needing a correction, and more common names before rarer ones
+     */
+    public synchronized List<String> suggest(String typed, int limit)
+    {
+        String query = normalize(typed);
+        if (query.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        ensureBuilt();
+
+        List<Range> ranges = new ArrayList<>();
+        int exact = 0;
+        for (Segment segment : segments()) {
+            int lo = segment.lowerBound(query);
+            int hi = segment.prefixEnd(lo, query);
+            if (lo < hi) {
+                ranges.add(new Range(segment, lo, hi, 0));
+                exact += hi - lo;
+            }
+        }
+        if (exact < limit && query.length() >= MIN_FUZZY_LENGTH) {
+            corrections(query, limit, ranges);
+        }
+        return best(ranges, limit);
+    }
+
+    /**
+     * Build the index now if it hasn't been built yet, e.g. from a background thread before
+     * the first keystroke
+     */
+    public synchronized void ensureBuilt()
+    {
+        if (built) {
+            return;
+        }
+        clear();
+        for (Category category : categoryDAO.getAllCategories()) {
+            Phrase phrase = phrase(category.getName());
+            if (phrase != null) {
+                // Categories are worth suggesting even while they are empty
+                phrase.weight++;
+                categoryPhrases.put(category.getId(), phrase);
+            }
+        }
+        for (Product product : productDAO.getAllProduct()) {
+            Phrase name = phrase(product.getName());
+            if (name != null) {
+                name.weight++;
+                nameByProductId.put(product.getId(), name);
+            }
+            Phrase category = categoryPhrases.get(product.getCategory_id());
+            if (category != null) {
+                category.weight++;
+                categoryByProductId.put(product.getId(), product.getCategory_id());
+            }
+        }
+
+        List<Key> keys = new ArrayList<>();
+        for (Phrase phrase : phrases.values()) {
+            addKeys(phrase, keys);
+        }
+        Collections.sort(keys);
+        main = new Segment(keys);
+        built = true;
+    }
+
+    /**
+     * Index a new or changed product
+     */
+    public synchronized void put(Product product)
+    {
+        if (!built) {
+            // The product is picked up when the index is built
+            return;
+        }
+        Map<Phrase, Integer> deltas = new IdentityHashMap<>();
+        unlink(product.getId(), deltas);
+        Phrase name = phrase(product.getName());
+        if (name != null) {
+            deltas.merge(name, 1, Integer::sum);
+            nameByProductId.put(product.getId(), name);
+        }
+        Phrase category = categoryPhrases.get(product.getCategory_id());
+        if (category != null) {
+            deltas.merge(category, 1, Integer::sum);
+            categoryByProductId.put(product.getId(), product.getCategory_id());
+        }
+        apply(deltas);
+    }
+
+    /**
+     * Drop a deleted product
+     */
+    public synchronized void remove(int productId)
+    {
+        if (built) {
+            Map<Phrase, Integer> deltas = new IdentityHashMap<>();
+            unlink(productId, deltas);
+            apply(deltas);
+        }
+    }
+
+    /**
+     * Rebuild from the database on the next lookup, e.g. after categories were renamed
+     */
+    public synchronized void invalidateAll()
+    {
+        built = false;
+        clear();
+    }
+
+    /**
+     * Lowercase words separated by single spaces, the form keys and queries are compared in
+     */
+    static String normalize(String text)
+    {
+        return String.join(" ", ProductSearchIndex.tokenize(text));
+    }
+
+    // Ranges of keys within one, then if that finds too little two, edits of the query
+    private void corrections(String query, int limit, List<Range> ranges)
+    {
+        int allowedEdits = query.length() >= LONG_QUERY_LENGTH ? 2 : 1;
+        String start = query.substring(0, EXACT_PREFIX_LENGTH);
+        // Rows for the exact start: each query prefix is |j - depth| edits away from it
+        int[] before = null;
+        int[] row = null;
+        for (int depth = 0; depth <= EXACT_PREFIX_LENGTH; depth++) {
+            before = row;
+            row = new int[query.length() + 1];
+            for (int j = 0; j < row.length; j++) {
+                row[j] = Math.abs(j - depth);
+            }
+        }
+
+        int[] budget = {MAX_FUZZY_VISITS};
+        // One row per depth, reused by every node at that depth; a walk never goes more than
+        // allowedEdits characters deeper than the query is long
+        int[][] rows = new int[query.length() + allowedEdits + 2][query.length() + 1];
+        for (int maxEdits = 1; maxEdits <= allowedEdits && budget[0] > 0; maxEdits++) {
+            int found = 0;
+            for (Segment segment : segments()) {
+                int lo = segment.lowerBound(start);
+                int hi = segment.prefixEnd(lo, start);
+                List<Range> corrected = new ArrayList<>();
+                fuzzy(segment, query, maxEdits, lo, hi, EXACT_PREFIX_LENGTH, before, row,
+                        start.charAt(EXACT_PREFIX_LENGTH - 1), rows, budget, corrected);
+                for (Range range : corrected) {
+                    found += range.hi - range.lo;
+                }
+                ranges.addAll(corrected);
+            }
+            if (found >= limit) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Walk the keys in [lo, hi), which share their first depth characters, collecting ranges
+     * whose prefix is within maxEdits of the query
+     *
+     * @param before the edit distance row one character up, for swapped neighbours
+     * @param row the edit distance row for the shared prefix, whose last character is last
+     * @param rows scratch rows by depth; rows[depth + 1] is overwritten for each child
+     * @param budget trie nodes left to visit, shared by the whole lookup
+     */
+    private void fuzzy(Segment segment, String query, int maxEdits, int lo, int hi, int depth, int[] before,
+                       int[] row, char last, int[][] rows, int[] budget, List<Range> out)
+    {
+        int m = query.length();
+        int pos = lo;
+        // Keys that end at this depth sort first; they have no child to descend into
+        while (pos < hi && segment.keyLength(pos) == depth) {
+            pos++;
+        }
+        while (pos < hi && budget[0]-- > 0) {
+            char c = segment.charAt(pos, depth);
+            int end = segment.childEnd(pos, hi, depth, c);
+
+            // Only columns within maxEdits of the diagonal can stay under the limit; the rest
+            // are left at maxEdits + 1, which is as good as infinite here
+            int[] next = rows[depth + 1];
+            Arrays.fill(next, maxEdits + 1);
+            int d = depth + 1;
+            next[0] = Math.min(d, maxEdits + 1);
+            int rowMin = next[0];
+            for (int j = Math.max(1, d - maxEdits); j <= Math.min(m, d + maxEdits); j++) {
+                int cost = query.charAt(j - 1) == c ? 0 : 1;
+                next[j] = Math.min(Math.min(row[j] + 1, next[j - 1] + 1), row[j - 1] + cost);
+                if (j > 1 && query.charAt(j - 1) == last && query.charAt(j - 2) == c) {
+                    next[j] = Math.min(next[j], before[j - 2] + 1);
+                }
+                next[j] = Math.min(next[j], maxEdits + 1);
+                rowMin = Math.min(rowMin, next[j]);
+            }
+            if (next[m] <= maxEdits) {
+                // Everything below completes a close enough prefix; go deeper only for a closer one
+                out.add(new Range(segment, pos, end, next[m]));
+                if (rowMin < next[m]) {
+                    fuzzy(segment, query, next[m] - 1, pos, end, depth + 1, row, next, c, rows, budget, out);
+                }
+            } else if (rowMin <= maxEdits) {
+                fuzzy(segment, query, maxEdits, pos, end, depth + 1, row, next, c, rows, budget, out);
+            }
+            pos = end;
+        }
+    }
+
+    // Best-first over the matched ranges: the max-tree finds each range's best key, and the
+    // rest of the range goes back into the queue split around it
+    private List<String> best(List<Range> ranges, int limit)
+    {
+        PriorityQueue<Candidate> queue = new PriorityQueue<>();
+        for (Range range : ranges) {
+            queue.add(Candidate.ofRange(range.segment, range.lo, range.hi, range.edits));
+        }
+        List<String> result = new ArrayList<>(limit);
+        Set<Phrase> seen = new HashSet<>();
+        while (!queue.isEmpty() && result.size() < limit) {
+            Candidate candidate = queue.poll();
+            if (candidate.weight == 0) {
+                // Nothing in it but names that have since disappeared
+                continue;
+            }
+            Segment segment = candidate.segment;
+            int pos = candidate.pos;
+            if (candidate.lo < 0) {
+                Phrase phrase = segment.phrases[pos];
+                if (seen.add(phrase)) {
+                    result.add(phrase.text);
+                }
+                continue;
+            }
+            queue.add(Candidate.ofKey(segment, pos, candidate.edits));
+            if (candidate.lo < pos) {
+                queue.add(Candidate.ofRange(segment, candidate.lo, pos, candidate.edits));
+            }
+            if (pos + 1 < candidate.hi) {
+                queue.add(Candidate.ofRange(segment, pos + 1, candidate.hi, candidate.edits));
+            }
+        }
+        return result;
+    }
+
+    private Phrase phrase(String text)
+    {
+        String key = normalize(text);
+        if (key.isEmpty()) {
+            return null;
+        }
+        return phrases.computeIfAbsent(key, k -> new Phrase(text.trim(), k));
+    }
+
+    private void unlink(int productId, Map<Phrase, Integer> deltas)
+    {
+        Phrase name = nameByProductId.remove(productId);
+        if (name != null) {
+            deltas.merge(name, -1, Integer::sum);
+        }
+        Integer categoryId = categoryByProductId.remove(productId);
+        Phrase category = categoryId != null ? categoryPhrases.get(categoryId) : null;
+        if (category != null) {
+            deltas.merge(category, -1, Integer::sum);
+        }
+    }
+
+    private void apply(Map<Phrase, Integer> deltas)
+    {
+        List<Key> added = new ArrayList<>();
+        for (Map.Entry<Phrase, Integer> delta : deltas.entrySet()) {
+            Phrase phrase = delta.getKey();
+            int before = phrase.weight;
+            phrase.weight += delta.getValue();
+            if (phrase.weight == before) {
+                continue;
+            }
+            if (phrase.weight == 0) {
+                // Its keys stay behind at weight zero; a later name with the same text gets new ones
+                phrases.remove(phrase.key);
+            }
+            if (!phrase.indexed) {
+                addKeys(phrase, added);
+                continue;
+            }
+            for (int offset : wordStarts(phrase.key)) {
+                if (!main.reweigh(phrase, offset)) {
+                    recent.reweigh(phrase, offset);
+                }
+            }
+        }
+        if (added.isEmpty()) {
+            return;
+        }
+
+        // Rebuilding the recent keys is cheap; folding them into main takes a pass over everything
+        List<Key> keys = recent.liveKeys();
+        keys.addAll(added);
+        Collections.sort(keys);
+        if (keys.size() <= MAX_RECENT_KEYS) {
+            recent = new Segment(keys);
+        } else {
+            List<Key> all = main.liveKeys();
+            all.addAll(keys);
+            Collections.sort(all);
+            main = new Segment(all);
+            recent = new Segment(new ArrayList<>());
+        }
+    }
+
+    private Segment[] segments()
+    {
+        return new Segment[] {main, recent};
+    }
+
+    private static void addKeys(Phrase phrase, List<Key> keys)
+    {
+        phrase.indexed = true;
+        for (int offset : wordStarts(phrase.key)) {
+            keys.add(new Key(phrase, offset));
+        }
+    }
+
+    private static int[] wordStarts(String key)
+    {
+        int[] starts = new int[MAX_WORD_STARTS];
+        int count = 0;
+        for (int i = 0; i < key.length() && count < MAX_WORD_STARTS; i++) {
+            if (i == 0 || key.charAt(i - 1) == ' ') {
+                starts[count++] = i;
+            }
+        }
+        return Arrays.copyOf(starts, count);
+    }
+
+    // Key order: the text from the offset on, ties broken by the whole phrase
+    private static int compare(Phrase a, int aOffset, Phrase b, int bOffset)
+    {
+        String x = a.key;
+        String y = b.key;
+        int length = Math.min(x.length() - aOffset, y.length() - bOffset);
+        for (int i = 0; i < length; i++) {
+            int cmp = x.charAt(aOffset + i) - y.charAt(bOffset + i);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        int cmp = (x.length() - aOffset) - (y.length() - bOffset);
+        return cmp != 0 ? cmp : x.compareTo(y);
+    }
+
+    private void clear()
+    {
+        phrases.clear();
+        categoryPhrases.clear();
+        nameByProductId.clear();
+        categoryByProductId.clear();
+        main = new Segment(new ArrayList<>());
+        recent = new Segment(new ArrayList<>());
+    }
+
+    // A suggestible name; products and categories with the same normalized name share one
+    private static final class Phrase
+    {
+        private final String text;
+        private final String key;
+        private int weight;
+        // Whether its keys are in one of the segments
+        private boolean indexed;
+
+        private Phrase(String text, String key)
+        {
+            this.text = text;
+            this.key = key;
+        }
+    }
+
+    // A phrase from one of its word starts on
+    private static final class Key implements Comparable<Key>
+    {
+        private final Phrase phrase;
+        private final int offset;
+
+        private Key(Phrase phrase, int offset)
+        {
+            this.phrase = phrase;
+            this.offset = offset;
+        }
+
+        @Override
+        public int compareTo(Key other)
+        {
+            return compare(phrase, offset, other.phrase, other.offset);
+        }
+    }
+
+    /**
+     * Sorted keys plus a segment tree holding, per node, the position of its heaviest key.
+     * Key i is phrases[i].key from offsets[i] on.
+     *
+     * A second tree holds the minimum, per node, of how many leading characters each key
+     * shares with the one before it. Finding where a trie node's children end is then a walk
+     * down that small array rather than comparing characters of keys spread over the heap,
+     * which is what a corrected lookup spends its time on.
+     */
+    private static final class Segment
+    {
+        private final Phrase[] phrases;
+        // phrases[i].key, held here too so the walk over the keys reads one array less
+        private final String[] keys;
+        private final int[] offsets;
+        private final int count;
+        private final int[] maxTree;
+        // Characters key i shares with key i - 1, capped at Byte.MAX_VALUE, as a min-tree
+        private final byte[] sharedTree;
+        private final int treeSize;
+
+        private Segment(List<Key> sortedKeys)
+        {
+            count = sortedKeys.size();
+            phrases = new Phrase[count];
+            keys = new String[count];
+            offsets = new int[count];
+            for (int i = 0; i < count; i++) {
+                phrases[i] = sortedKeys.get(i).phrase;
+                keys[i] = phrases[i].key;
+                offsets[i] = sortedKeys.get(i).offset;
+            }
+            int size = 1;
+            while (size < count) {
+                size <<= 1;
+            }
+            treeSize = size;
+            maxTree = new int[2 * treeSize];
+            Arrays.fill(maxTree, -1);
+            for (int i = 0; i < count; i++) {
+                maxTree[treeSize + i] = i;
+            }
+            for (int node = treeSize - 1; node > 0; node--) {
+                maxTree[node] = heavier(maxTree[2 * node], maxTree[2 * node + 1]);
+            }
+            sharedTree = new byte[2 * treeSize];
+            for (int i = 1; i < count; i++) {
+                sharedTree[treeSize + i] = (byte) sharedLength(i - 1, i, Byte.MAX_VALUE);
+            }
+            for (int node = treeSize - 1; node > 0; node--) {
+                sharedTree[node] = (byte) Math.min(sharedTree[2 * node], sharedTree[2 * node + 1]);
+            }
+        }
+
+        // Keys whose phrase still has products, in order
+        private List<Key> liveKeys()
+        {
+            List<Key> keys = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                if (phrases[i].weight > 0) {
+                    keys.add(new Key(phrases[i], offsets[i]));
+                } else {
+                    phrases[i].indexed = false;
+                }
+            }
+            return keys;
+        }
+
+        // Refresh the tree after the phrase's weight changed; false if the key isn't here
+        private boolean reweigh(Phrase phrase, int offset)
+        {
+            int lo = 0;
+            int hi = count;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                int cmp = compare(phrases[mid], offsets[mid], phrase, offset);
+                if (cmp == 0 && phrases[mid] == phrase) {
+                    for (int node = (treeSize + mid) >> 1; node > 0; node >>= 1) {
+                        maxTree[node] = heavier(maxTree[2 * node], maxTree[2 * node + 1]);
+                    }
+                    return true;
+                }
+                if (cmp < 0) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return false;
+        }
+
+        // Position of the heaviest key in [lo, hi)
+        private int maxIn(int lo, int hi)
+        {
+            int best = -1;
+            for (int l = lo + treeSize, r = hi + treeSize; l < r; l >>= 1, r >>= 1) {
+                if ((l & 1) == 1) {
+                    best = heavier(best, maxTree[l++]);
+                }
+                if ((r & 1) == 1) {
+                    best = heavier(best, maxTree[--r]);
+                }
+            }
+            return best;
+        }
+
+        private int heavier(int a, int b)
+        {
+            if (a < 0) {
+                return b;
+            }
+            if (b < 0) {
+                return a;
+            }
+            return phrases[b].weight > phrases[a].weight ? b : a;
+        }
+
+        // First key not less than the query
+        private int lowerBound(String query)
+        {
+            int lo = 0;
+            int hi = count;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (compareTo(mid, query) < 0) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        // End of the keys from lo on that start with the query
+        private int prefixEnd(int lo, String query)
+        {
+            int hi = count;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (keys[mid].startsWith(query, offsets[mid])) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        // End of the keys from lo on with character c at depth; all keys in [lo, hi) are
+        // longer than depth and share their first depth characters
+        private int childEnd(int lo, int hi, int depth, char c)
+        {
+            if (lo + 1 >= hi) {
+                return hi;
+            }
+            if (depth < Byte.MAX_VALUE) {
+                return Math.min(firstSharingAtMost(lo + 1, depth), hi);
+            }
+            // Deeper than the shared lengths are kept for; gallop, since most children are
+            // small next to their parent
+            int step = 1;
+            int from = lo;
+            while (lo + step < hi && charAt(lo + step, depth) <= c) {
+                from = lo + step;
+                step <<= 1;
+            }
+            int to = Math.min(lo + step, hi);
+            while (from < to) {
+                int mid = (from + to) >>> 1;
+                if (charAt(mid, depth) <= c) {
+                    from = mid + 1;
+                } else {
+                    to = mid;
+                }
+            }
+            return from;
+        }
+
+        // First key from the given one on sharing at most depth characters with the key before
+        // it; positions past the last key count as sharing none. Climbs from the leaf rather
+        // than descending from the root, so a small child only touches the tree near it.
+        private int firstSharingAtMost(int from, int depth)
+        {
+            int node = from + treeSize;
+            while (sharedTree[node] > depth) {
+                // On to the subtree right after this one
+                while ((node & 1) == 1) {
+                    node >>= 1;
+                }
+                if (node == 0) {
+                    return treeSize;
+                }
+                node++;
+            }
+            while (node < treeSize) {
+                node = sharedTree[2 * node] <= depth ? 2 * node : 2 * node + 1;
+            }
+            return node - treeSize;
+        }
+
+        private int sharedLength(int a, int b, int max)
+        {
+            int length = Math.min(Math.min(keyLength(a), keyLength(b)), max);
+            for (int i = 0; i < length; i++) {
+                if (charAt(a, i) != charAt(b, i)) {
+                    return i;
+                }
+            }
+            return length;
+        }
+
+        private int compareTo(int pos, String query)
+        {
+            String key = keys[pos];
+            int offset = offsets[pos];
+            int length = Math.min(key.length() - offset, query.length());
+            for (int i = 0; i < length; i++) {
+                int cmp = key.charAt(offset + i) - query.charAt(i);
+                if (cmp != 0) {
+                    return cmp;
+                }
+            }
+            return (key.length() - offset) - query.length();
+        }
+
+        private int keyLength(int pos)
+        {
+            return keys[pos].length() - offsets[pos];
+        }
+
+        private char charAt(int pos, int depth)
+        {
+            return keys[pos].charAt(offsets[pos] + depth);
+        }
+    }
+
+    private static final class Range
+    {
+        private final Segment segment;
+        private final int lo;
+        private final int hi;
+        private final int edits;
+
+        private Range(Segment segment, int lo, int hi, int edits)
+        {
+            this.segment = segment;
+            this.lo = lo;
+            this.hi = hi;
+            this.edits = edits;
+        }
+    }
+
+    // Either a range of keys (lo >= 0, pos its heaviest key) or the single key at pos,
+    // ordered fewest edits, then heaviest
+    private static final class Candidate implements Comparable<Candidate>
+    {
+        private final Segment segment;
+        private final int lo;
+        private final int hi;
+        private final int pos;
+        private final int edits;
+        private final int weight;
+        private final boolean wholeName;
+
+        private Candidate(Segment segment, int lo, int hi, int pos, int edits, boolean wholeName)
+        {
+            this.segment = segment;
+            this.lo = lo;
+            this.hi = hi;
+            this.pos = pos;
+            this.edits = edits;
+            this.weight = segment.phrases[pos].weight;
+            this.wholeName = wholeName;
+        }
+
+        private static Candidate ofRange(Segment segment, int lo, int hi, int edits)
+        {
+            return new Candidate(segment, lo, hi, segment.maxIn(lo, hi), edits, false);
+        }
+
+        private static Candidate ofKey(Segment segment, int pos, int edits)
+        {
+            return new Candidate(segment, -1, -1, pos, edits, segment.offsets[pos] == 0);
+        }
+
+        @Override
+        public int compareTo(Candidate other)
+        {
+            if (edits != other.edits) {
+                return Integer.compare(edits, other.edits);
+            }
+            if (weight != other.weight) {
+                return Integer.compare(other.weight, weight);
+            }
+            // Completing the start of a name reads better than completing a later word
+            return Boolean.compare(other.wholeName, wholeName);
+        }
+    }
+}
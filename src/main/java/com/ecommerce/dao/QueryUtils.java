@@ -0,0 +1,56 @@
+package com.ecommerce.dao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Helpers for building multi-id (IN (...)) queries
+ */
+final class QueryUtils
+{
+    // Keeps each statement well under MySQL's placeholder and packet limits
+    static final int MAX_IN_CLAUSE_SIZE = 500;
+
+    private QueryUtils() {
+    }
+
+    /**
+     * "?, ?, ?" with the given number of placeholders
+     */
+    static String placeholders(int count)
+    {
+        StringBuilder sb = new StringBuilder(count * 3);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append('?');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * De-duplicates the ids (dropping nulls) and splits them into chunks of at most MAX_IN_CLAUSE_SIZE
+     */
+    static List<List<Integer>> chunk(Collection<Integer> ids)
+    {
+        List<List<Integer>> chunks = new ArrayList<>();
+        List<Integer> current = new ArrayList<>();
+        for (Integer id : new LinkedHashSet<>(ids)) {
+            if (id == null) {
+                continue;
+            }
+            current.add(id);
+            if (current.size() == MAX_IN_CLAUSE_SIZE) {
+                chunks.add(current);
+                current = new ArrayList<>();
+            }
+        }
+        if (!current.isEmpty()) {
+            chunks.add(current);
+        }
+        return chunks;
+    }
+}
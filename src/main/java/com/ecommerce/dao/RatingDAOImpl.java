@@ -9,6 +9,9 @@ import java.util.List;
 
 public class RatingDAOImpl implements RatingDAO {
 
+    // Averages and counts come from here, kept current by the writes below
+    private final RatingSummaries summaries = RatingSummaries.getInstance();
+
     @Override
     public boolean addRating(Rating rating) {
         // Check if user already rated this product
@@ -31,6 +34,7 @@ public class RatingDAOImpl implements RatingDAO {
             
             int result = stmt.executeUpdate();
             if (result > 0) {
+                summaries.ratingAdded(rating.getProductId(), rating.getValue());
                 try (ResultSet rs = stmt.getGeneratedKeys()) {
                     if (rs.next()) {
                         rating.setId(rs.getInt(1));
@@ -46,6 +50,8 @@ public class RatingDAOImpl implements RatingDAO {
 
     @Override
     public boolean updateRating(Rating rating) {
+        // The old value is needed to adjust the product's rating sum
+        Rating oldRating = getRatingById(rating.getId());
         String sql = "UPDATE ratings SET value = ?, comment = ? WHERE id = ?";
         try (Connection conn = DBConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -54,7 +60,11 @@ public class RatingDAOImpl implements RatingDAO {
             stmt.setString(2, rating.getComment());
             stmt.setInt(3, rating.getId());
             
-            return stmt.executeUpdate() > 0;
+            boolean updated = stmt.executeUpdate() > 0;
+            if (updated && oldRating != null) {
+                summaries.ratingChanged(oldRating.getProductId(), oldRating.getValue(), rating.getValue());
+            }
+            return updated;
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -63,12 +73,17 @@ public class RatingDAOImpl implements RatingDAO {
 
     @Override
     public boolean deleteRating(int ratingId) {
+        Rating oldRating = getRatingById(ratingId);
         String sql = "DELETE FROM ratings WHERE id = ?";
         try (Connection conn = DBConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
             stmt.setInt(1, ratingId);
-            return stmt.executeUpdate() > 0;
+            boolean deleted = stmt.executeUpdate() > 0;
+            if (deleted && oldRating != null) {
+                summaries.ratingRemoved(oldRating.getProductId(), oldRating.getValue());
+            }
+            return deleted;
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -137,40 +152,12 @@ public class RatingDAOImpl implements RatingDAO {
 
     @Override
     public double getAverageRatingForProduct(int productId) {
-        String sql = "SELECT AVG(value) as average FROM ratings WHERE product_id = ?";
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setInt(1, productId);
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getDouble("average");
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return 0.0;
+        return summaries.getAverage(productId);
     }
 
     @Override
     public int getCountOfRatingsForProduct(int productId) {
-        String sql = "SELECT COUNT(*) as count FROM ratings WHERE product_id = ?";
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setInt(1, productId);
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt("count");
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return 0;
+        return summaries.getCount(productId);
     }
     
     private Rating extractRatingFromResultSet(ResultSet rs) throws SQLException {
@@ -0,0 +1,256 @@
+package com.ecommerce.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.ecommerce.config.AppConfig;
+import com.ecommerce.config.DBConnection;
+import com.ecommerce.model.Product;
+
+/**
+ * Rating sum and count per product, kept in memory so showing a product's rating costs no query.
+ *
+ * Everything is loaded with one grouped query over ratings, then kept current by
+ * {@link RatingDAOImpl} as ratings are added, changed and deleted. Ratings written by other
+ * application instances show up when the whole table is reloaded, every
+ * ratings.summaryRefreshIntervalMs. Local changes made while the reload's query runs are
+ * recorded and replayed onto its result, since the query may not have seen them; one that
+ * committed just as the query started can be counted twice until the next reload.
+ *
+ * Readers never wait for the database: until the first load is in, every product shows
+ * as unrated.
+ */
+public class RatingSummaries
+{
+    // Marks a free slot, so it can't be a product id
+    private static final int FREE = Integer.MIN_VALUE;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private static RatingSummaries instance;
+
+    private final ScheduledExecutorService executor;
+
+    // Guarded by this
+    private Table table = new Table(INITIAL_CAPACITY);
+    private boolean loaded;
+    // Local changes since the running reload's query started, null when no reload is running
+    private Table changedDuringReload;
+
+    public RatingSummaries(long refreshIntervalMs)
+    {
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "rating-summaries");
+            t.setDaemon(true);
+            return t;
+        });
+        if (refreshIntervalMs > 0) {
+            executor.scheduleWithFixedDelay(this::reload, 0, refreshIntervalMs, TimeUnit.MILLISECONDS);
+        } else {
+            executor.execute(this::reload);
+        }
+    }
+
+    /**
+     * The application-wide instance; the first call starts loading the summaries in the background
+     */
+    public static synchronized RatingSummaries getInstance()
+    {
+        if (instance == null) {
+            instance = new RatingSummaries(AppConfig.getRatingSummaryRefreshIntervalMs());
+        }
+        return instance;
+    }
+
+    public synchronized double getAverage(int productId)
+    {
+        return table.average(productId);
+    }
+
+    public synchronized int getCount(int productId)
+    {
+        return table.count(productId);
+    }
+
+    /**
+     * Fill in the product's average rating and rating count
+     */
+    public void decorate(Product product)
+    {
+        if (product != null) {
+            decorate(Arrays.asList(product));
+        }
+    }
+
+    /**
+     * Fill in average rating and rating count for all the given products in one pass
+     */
+    public void decorate(Collection<Product> products)
+    {
+        if (products.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            for (Product product : products) {
+                product.setAverageRating(table.average(product.getId()));
+                product.setRatingCount(table.count(product.getId()));
+            }
+        }
+    }
+
+    synchronized void ratingAdded(int productId, int value)
+    {
+        changed(productId, value, 1);
+    }
+
+    synchronized void ratingChanged(int productId, int oldValue, int newValue)
+    {
+        changed(productId, newValue - oldValue, 0);
+    }
+
+    synchronized void ratingRemoved(int productId, int value)
+    {
+        changed(productId, -value, -1);
+    }
+
+    private void changed(int productId, int sumDelta, int countDelta)
+    {
+        // Before the first load there's nothing to update; the load reads the change from the table
+        if (loaded) {
+            table.add(productId, sumDelta, countDelta);
+        }
+        if (changedDuringReload != null) {
+            changedDuringReload.add(productId, sumDelta, countDelta);
+        }
+    }
+
+    private void reload()
+    {
+        Table fresh = new Table(INITIAL_CAPACITY);
+        String sql = "SELECT product_id, SUM(value) AS total, COUNT(*) AS count FROM ratings GROUP BY product_id";
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            synchronized (this) {
+                changedDuringReload = new Table(INITIAL_CAPACITY);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    fresh.add(rs.getInt("product_id"), rs.getInt("total"), rs.getInt("count"));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            synchronized (this) {
+                // Keep what there is; the next reload tries again
+                changedDuringReload = null;
+            }
+            return;
+        }
+
+        synchronized (this) {
+            fresh.addAll(changedDuringReload);
+            changedDuringReload = null;
+            table = fresh;
+            loaded = true;
+        }
+    }
+
+    // Open-addressing table: productIds[i] has sums[i] over counts[i] ratings
+    private static final class Table
+    {
+        private int[] productIds;
+        private int[] sums;
+        private int[] counts;
+        private int size;
+
+        Table(int capacity)
+        {
+            productIds = new int[capacity];
+            Arrays.fill(productIds, FREE);
+            sums = new int[capacity];
+            counts = new int[capacity];
+        }
+
+        double average(int productId)
+        {
+            int slot = find(productId);
+            return productIds[slot] == productId && counts[slot] > 0 ? (double) sums[slot] / counts[slot] : 0.0;
+        }
+
+        int count(int productId)
+        {
+            int slot = find(productId);
+            return productIds[slot] == productId ? Math.max(0, counts[slot]) : 0;
+        }
+
+        void add(int productId, int sumDelta, int countDelta)
+        {
+            if (productId == FREE) {
+                return;
+            }
+            int slot = find(productId);
+            if (productIds[slot] != productId) {
+                if ((size + 1) * 3 > productIds.length * 2) {
+                    rehash(productIds.length * 2);
+                    slot = find(productId);
+                }
+                productIds[slot] = productId;
+                size++;
+            }
+            sums[slot] += sumDelta;
+            counts[slot] += countDelta;
+        }
+
+        void addAll(Table other)
+        {
+            for (int i = 0; i < other.productIds.length; i++) {
+                if (other.productIds[i] != FREE) {
+                    add(other.productIds[i], other.sums[i], other.counts[i]);
+                }
+            }
+        }
+
+        // Slot holding the product, or the free slot where it would go
+        private int find(int productId)
+        {
+            int mask = productIds.length - 1;
+            int slot = hash(productId) & mask;
+            while (productIds[slot] != FREE && productIds[slot] != productId) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void rehash(int capacity)
+        {
+            int[] oldProductIds = productIds;
+            int[] oldSums = sums;
+            int[] oldCounts = counts;
+            productIds = new int[capacity];
+            Arrays.fill(productIds, FREE);
+            sums = new int[capacity];
+            counts = new int[capacity];
+            for (int i = 0; i < oldProductIds.length; i++) {
+                if (oldProductIds[i] != FREE) {
+                    int slot = find(oldProductIds[i]);
+                    productIds[slot] = oldProductIds[i];
+                    sums[slot] = oldSums[i];
+                    counts[slot] = oldCounts[i];
+                }
+            }
+        }
+
+        private static int hash(int productId)
+        {
+            int h = productId * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.ecommerce.dao;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+import com.ecommerce.model.OrderStatus;
+import com.ecommerce.model.SalesReportRow;
+
+public interface SalesReportDAO
+{
+    enum Grouping
+    {
+        PRODUCT,
+        CATEGORY,
+        DAY
+    }
+
+    /**
+     * Aggregates sold quantity and revenue in the database and hands each group to the consumer
+     * as it is read, so the order history is never loaded into memory.
+     *
+     * @param from first order date to include, or null for no lower bound
+     * @param to last order date to include, or null for no upper bound
+     * @param statuses order statuses to include, or null/empty for all
+     */
+    void streamSalesReport(Grouping grouping, LocalDate from, LocalDate to, Collection<OrderStatus> statuses,
+                           Consumer<SalesReportRow> consumer) throws SQLException;
+}
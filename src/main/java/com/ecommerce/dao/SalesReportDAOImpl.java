@@ -0,0 +1,121 @@
+package com.ecommerce.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.ecommerce.config.DBConnection;
+import com.ecommerce.model.OrderStatus;
+import com.ecommerce.model.SalesReportRow;
+
+public class SalesReportDAOImpl implements SalesReportDAO
+{
+    // Spreads the order's discounted total over its items in proportion to their list price
+    private static final String LINE_REVENUE =
+            "CASE WHEN ot.items_total > 0 THEN oi.price * oi.quantity / ot.items_total * o.total_amount "
+            + "ELSE oi.price * oi.quantity END";
+
+    @Override
+    public void streamSalesReport(Grouping grouping, LocalDate from, LocalDate to, Collection<OrderStatus> statuses,
+                                  Consumer<SalesReportRow> consumer) throws SQLException
+    {
+        List<Object> params = new ArrayList<>();
+        String query = buildQuery(grouping, from, to, statuses, params);
+
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY))
+        {
+            // Ask MySQL Connector/J to stream rows instead of buffering the whole result
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet rs = stmt.executeQuery())
+            {
+                while (rs.next())
+                {
+                    consumer.accept(new SalesReportRow(
+                            rs.getString("label"),
+                            rs.getString("category_name"),
+                            rs.getInt("quantity_sold"),
+                            rs.getDouble("revenue")));
+                }
+            }
+        }
+    }
+
+    private String buildQuery(Grouping grouping, LocalDate from, LocalDate to, Collection<OrderStatus> statuses,
+                              List<Object> params)
+    {
+        String select;
+        String groupBy;
+        String orderBy;
+        switch (grouping) {
+            case CATEGORY:
+                select = "COALESCE(c.name, 'Unknown') AS label, NULL AS category_name";
+                groupBy = "c.id, c.name";
+                orderBy = "revenue DESC";
+                break;
+            case DAY:
+                select = "DATE(o.order_date) AS label, NULL AS category_name";
+                groupBy = "DATE(o.order_date)";
+                orderBy = "label";
+                break;
+            case PRODUCT:
+            default:
+                select = "p.name AS label, COALESCE(c.name, 'Unknown') AS category_name";
+                groupBy = "p.id, p.name, c.name";
+                orderBy = "revenue DESC";
+                break;
+        }
+
+        // Order totals before discount, restricted to the same orders as the outer query
+        String itemTotals = "SELECT oi2.order_id, SUM(oi2.price * oi2.quantity) AS items_total "
+                + "FROM order_items oi2 JOIN orders o2 ON o2.id = oi2.order_id"
+                + orderFilter("o2", from, to, statuses, params)
+                + " GROUP BY oi2.order_id";
+
+        return "SELECT " + select + ", SUM(oi.quantity) AS quantity_sold, SUM(" + LINE_REVENUE + ") AS revenue "
+                + "FROM order_items oi "
+                + "JOIN orders o ON o.id = oi.order_id "
+                + "JOIN (" + itemTotals + ") ot ON ot.order_id = oi.order_id "
+                + "JOIN products p ON p.id = oi.product_id "
+                + "LEFT JOIN categories c ON c.id = p.category_id"
+                + orderFilter("o", from, to, statuses, params)
+                + " GROUP BY " + groupBy
+                + " ORDER BY " + orderBy;
+    }
+
+    /**
+     * WHERE clause on the given orders alias; appends the matching bind values to params
+     */
+    private String orderFilter(String alias, LocalDate from, LocalDate to, Collection<OrderStatus> statuses,
+                               List<Object> params)
+    {
+        List<String> conditions = new ArrayList<>();
+        if (from != null) {
+            conditions.add(alias + ".order_date >= ?");
+            params.add(Timestamp.valueOf(from.atStartOfDay()));
+        }
+        if (to != null) {
+            // Inclusive end date
+            conditions.add(alias + ".order_date < ?");
+            params.add(Timestamp.valueOf(to.plusDays(1).atStartOfDay()));
+        }
+        if (statuses != null && !statuses.isEmpty()) {
+            conditions.add(alias + ".status IN (" + QueryUtils.placeholders(statuses.size()) + ")");
+            for (OrderStatus status : statuses) {
+                // Statuses are stored lower-case (see OrderDAOImpl)
+                params.add(status.name().toLowerCase());
+            }
+        }
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+}
@@ -3,6 +3,8 @@ package com.ecommerce.dao;
 import com.ecommerce.model.Transaction;
 import com.ecommerce.model.TransactionStatus;
 
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.List;
 
 public interface TransactionDAO
@@ -11,4 +13,7 @@ public interface TransactionDAO
     boolean updateTransactionStatus(int transactionId, TransactionStatus transactionStatus);
     Transaction getTransactionByOrderId(int orderId);
     List<Transaction> getAllTransactions();
+
+    // Runs on the caller's connection so the transaction row commits with its order
+    boolean addTransaction(Connection conn, Transaction transaction) throws SQLException;
 }
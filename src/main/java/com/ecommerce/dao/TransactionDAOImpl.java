@@ -14,33 +14,11 @@ public class TransactionDAOImpl implements TransactionDAO
     @Override
     public boolean addTransaction(Transaction transaction)
     {
-        String query = "INSERT INTO transactions (order_id, method, status, transaction_date) VALUES (?, ?, ?, ?)";
         Connection conn = null;
         try
         {
             conn = DBConnection.getConnection();
-            try (PreparedStatement stmt = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS))
-            {
-                stmt.setInt(1, transaction.getOrderId());
-                stmt.setString(2, transaction.getMethod().name());
-                stmt.setString(3, transaction.getStatus().name());
-                stmt.setTimestamp(4, transaction.getTransactionDate());
-
-                int affectedRows = stmt.executeUpdate();
-                if (affectedRows == 0)
-                {
-                    return false;
-                }
-
-                try (ResultSet generatedKeys = stmt.getGeneratedKeys())
-                {
-                    if (generatedKeys.next())
-                    {
-                        transaction.setId(generatedKeys.getInt(1));
-                        return true;
-                    }
-                }
-            }
+            return addTransaction(conn, transaction);
         }
         catch (SQLException e)
         {
@@ -56,6 +34,35 @@ public class TransactionDAOImpl implements TransactionDAO
         return false;
     }
 
+    @Override
+    public boolean addTransaction(Connection conn, Transaction transaction) throws SQLException
+    {
+        String query = "INSERT INTO transactions (order_id, method, status, transaction_date) VALUES (?, ?, ?, ?)";
+        try (PreparedStatement stmt = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS))
+        {
+            stmt.setInt(1, transaction.getOrderId());
+            stmt.setString(2, transaction.getMethod().name());
+            stmt.setString(3, transaction.getStatus().name());
+            stmt.setTimestamp(4, transaction.getTransactionDate());
+
+            int affectedRows = stmt.executeUpdate();
+            if (affectedRows == 0)
+            {
+                return false;
+            }
+
+            try (ResultSet generatedKeys = stmt.getGeneratedKeys())
+            {
+                if (generatedKeys.next())
+                {
+                    transaction.setId(generatedKeys.getInt(1));
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     @Override
     public boolean updateTransactionStatus(int transactionId, TransactionStatus transactionStatus)
     {
@@ -1,13 +1,16 @@
 package com.ecommerce.dao;
 
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import com.ecommerce.model.User;
 
 public interface UserDAO {
     User create(User user) throws SQLException;
     User findById(int id) throws SQLException;
+    Map<Integer, User> getUsersByIds(Collection<Integer> ids) throws SQLException;
     User findByUsername(String username) throws SQLException;
     List<User> getAllUsers() throws SQLException;
     User update(User user) throws SQLException;
@@ -7,7 +7,10 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import com.ecommerce.config.DBConnection;
 import com.ecommerce.model.User;
@@ -75,6 +78,37 @@ public class UserDAOImpl implements UserDAO {
         return null;
     }
 
+    @Override
+    public Map<Integer, User> getUsersByIds(Collection<Integer> ids) throws SQLException {
+        Map<Integer, User> users = new LinkedHashMap<>();
+        if (ids == null || ids.isEmpty()) {
+            return users;
+        }
+        Connection conn = null;
+        try {
+            conn = DBConnection.getConnection();
+            for (List<Integer> chunk : QueryUtils.chunk(ids)) {
+                String sql = "SELECT * FROM users WHERE id IN (" + QueryUtils.placeholders(chunk.size()) + ")";
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        stmt.setInt(i + 1, chunk.get(i));
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            User user = extractUserFromResultSet(rs);
+                            users.put(user.getId(), user);
+                        }
+                    }
+                }
+            }
+        } finally {
+            if (conn != null) {
+                DBConnection.releaseConnection(conn);
+            }
+        }
+        return users;
+    }
+
     @Override
     public User findByUsername(String username) throws SQLException {
         String sql = "SELECT * FROM users WHERE username = ?";
@@ -1,16 +1,20 @@
 package com.ecommerce.dao;
 
 import java.util.List;
+import java.util.Map;
 
 import com.ecommerce.model.Product;
 import com.ecommerce.model.User;
 import com.ecommerce.model.Wishlist;
+import com.ecommerce.util.IntHashSet;
 
 public interface WishlistDAO {
     boolean addToWishlist(Wishlist wishlistItem);
     boolean removeFromWishlist(int userId, int productId);
     boolean isInWishlist(int userId, int productId);
+    IntHashSet getWishlistProductIds(int userId);
     List<Wishlist> getWishlistByUserId(int userId);
     List<Product> getWishlistProductsByUserId(int userId);
     List<User> getUsersWithProductInWishlist(int productId);
+    Map<Integer, List<Integer>> getProductIdsByUser();
 } 
\ No newline at end of file
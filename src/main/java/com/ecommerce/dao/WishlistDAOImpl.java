@@ -6,12 +6,15 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import com.ecommerce.config.DBConnection;
 import com.ecommerce.model.Product;
 import com.ecommerce.model.User;
 import com.ecommerce.model.Wishlist;
+import com.ecommerce.util.IntHashSet;
 
 public class WishlistDAOImpl implements WishlistDAO {
 
@@ -81,6 +84,28 @@ public class WishlistDAOImpl implements WishlistDAO {
         return false;
     }
 
+    @Override
+    public IntHashSet getWishlistProductIds(int userId) {
+        IntHashSet productIds = new IntHashSet();
+        String sql = "SELECT product_id FROM wishlist WHERE user_id = ?";
+        
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setInt(1, userId);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    productIds.add(rs.getInt("product_id"));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        
+        return productIds;
+    }
+
     @Override
     public List<Wishlist> getWishlistByUserId(int userId) {
         List<Wishlist> wishlistItems = new ArrayList<>();
@@ -179,4 +204,24 @@ public class WishlistDAOImpl implements WishlistDAO {
             return users;
         }
     }
+
+    @Override
+    public Map<Integer, List<Integer>> getProductIdsByUser() {
+        Map<Integer, List<Integer>> productIdsByUser = new HashMap<>();
+        String sql = "SELECT user_id, product_id FROM wishlist";
+        
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            
+            while (rs.next()) {
+                productIdsByUser.computeIfAbsent(rs.getInt("user_id"), k -> new ArrayList<>())
+                        .add(rs.getInt("product_id"));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        
+        return productIdsByUser;
+    }
 } 
\ No newline at end of file
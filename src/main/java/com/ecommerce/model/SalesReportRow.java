@@ -0,0 +1,40 @@
+package com.ecommerce.model;
+
+/**
+ * One aggregated line of the sales report: a product, a category or a day,
+ * depending on how the report was grouped
+ */
+public class SalesReportRow
+{
+    private String label;
+    private String categoryName;
+    private int quantitySold;
+    private double revenue;
+
+    public SalesReportRow(String label, String categoryName, int quantitySold, double revenue)
+    {
+        this.label = label;
+        this.categoryName = categoryName;
+        this.quantitySold = quantitySold;
+        this.revenue = revenue;
+    }
+
+    // Product name, category name or date (yyyy-MM-dd)
+    public String getLabel() {
+        return label;
+    }
+
+    // Only set when grouped by product
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    public int getQuantitySold() {
+        return quantitySold;
+    }
+
+    // Line totals with the order-level discount spread across the order's items
+    public double getRevenue() {
+        return revenue;
+    }
+}
@@ -1,5 +1,6 @@
 package com.ecommerce.scheduler;
 
+import com.ecommerce.config.AppConfig;
 import com.ecommerce.dao.OrderDAO;
 import com.ecommerce.dao.OrderDAOImpl;
 import com.ecommerce.dao.UserDAO;
@@ -11,109 +12,82 @@ import com.ecommerce.service.NotificationService;
 
 import java.sql.SQLException;
 import java.sql.Timestamp;
-import java.time.*;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.*;
 
 public class OrderStatusScheduler {
 
+    private static final int DELIVERY_ESTIMATE_DAYS = 7;
+
+    /**
+     * One lifecycle step: orders in {@code from} move to {@code to} once they are at least
+     * {@code minAgeDays} old. Listed last step first, so an order advances at most one step
+     * per run and every step gets its own notification.
+     */
+    private static final Transition[] TRANSITIONS = {
+        new Transition(OrderStatus.OUT_FOR_DELIVERY, OrderStatus.DELIVERED, 5),
+        new Transition(OrderStatus.SHIPPED, OrderStatus.OUT_FOR_DELIVERY, 3),
+        new Transition(OrderStatus.CONFIRMED, OrderStatus.SHIPPED, 2),
+        new Transition(OrderStatus.PENDING, OrderStatus.CONFIRMED, 0)
+    };
+
     private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
     private final OrderDAO orderDAO = new OrderDAOImpl();
     private final UserDAO userDAO = new UserDAOImpl();
 
-    /** Start the scheduler to run once a day at midnight */
+    /** Start the scheduler; runs right away and then every scheduler.orderStatus.intervalMinutes */
     public void start() {
-        long initialDelay = computeDelayToNextMidnight();
-        long period = TimeUnit.DAYS.toMillis(1);
+        long period = Math.max(1, AppConfig.getOrderStatusIntervalMinutes());
 
-        scheduler.scheduleAtFixedRate(this::updateOrders,
-                initialDelay,
+        // Fixed delay, so a slow run can never overlap the next one
+        scheduler.scheduleWithFixedDelay(this::updateOrders,
+                0,
                 period,
-                TimeUnit.MILLISECONDS);
+                TimeUnit.MINUTES);
         
-        System.out.println("OrderStatusScheduler started. Next run in " + (initialDelay / 1000 / 60) + " minutes.");
+        System.out.println("OrderStatusScheduler started. Running every " + period + " minutes.");
     }
 
-    /** The task that updates order statuses and delivery estimates */
+    /**
+     * The task that updates order statuses and delivery estimates.
+     * Only open orders whose next step is due are read, and each step is applied with
+     * set-based updates, so a run costs in proportion to the work due.
+     */
     private void updateOrders() {
         try {
             System.out.println("Running order status updates...");
-            List<Order> orders = orderDAO.getAllOrders();
-            if (orders == null || orders.isEmpty()) {
-                System.out.println("No orders found to update");
-                return;
+            
+            // If the delivery_estimate is not set, update it
+            int estimated = orderDAO.fillMissingDeliveryEstimates(DELIVERY_ESTIMATE_DAYS);
+            if (estimated > 0) {
+                System.out.println("Set delivery estimate for " + estimated + " orders");
             }
             
-            Timestamp now = new Timestamp(System.currentTimeMillis());
-
-            for (Order order : orders) {
-                // Skip if essential data is missing
-                if (order == null || order.getOrderDate() == null) {
-                    System.out.println("Skipping order with missing data: " + (order != null ? order.getId() : "null order"));
-                    continue;
-                }
-                
-                Timestamp orderDate = order.getOrderDate();
-                Timestamp deliveryEstimate = order.getDeliveryEstimate();
-                OrderStatus currentStatus = order.getOrderStatus();
-                
-                // Skip if order status is null or already delivered
-                if (currentStatus == null) {
-                    System.out.println("Skipping order with null status: ID=" + order.getId());
-                    continue;
-                }
-                
-                // Skip orders that are already delivered or cancelled
-                if (currentStatus == OrderStatus.DELIVERED || currentStatus == OrderStatus.CANCELLED) {
-                    continue;
-                }
-
-                // If the delivery_estimate is not set, update it
-                if (deliveryEstimate == null) {
-                    Timestamp newDeliveryEstimate = new Timestamp(orderDate.getTime() + TimeUnit.DAYS.toMillis(7));
-                    order.setDeliveryEstimate(newDeliveryEstimate);
-                    orderDAO.updateDeliveryEstimate(order.getId(), newDeliveryEstimate);
-                }
-                
-                // Determine days since order was placed
-                long daysSinceOrder = TimeUnit.MILLISECONDS.toDays(now.getTime() - orderDate.getTime());
-                OrderStatus newStatus = null;
-                
-                // Update the status based on days since order
-                if (daysSinceOrder <= 1 && currentStatus == OrderStatus.PENDING) {
-                    newStatus = OrderStatus.CONFIRMED;
-                } else if (daysSinceOrder > 1 && daysSinceOrder <= 2 && currentStatus == OrderStatus.CONFIRMED) {
-                    newStatus = OrderStatus.SHIPPED;
-                } else if (daysSinceOrder > 2 && daysSinceOrder <= 4 && currentStatus == OrderStatus.SHIPPED) {
-                    newStatus = OrderStatus.OUT_FOR_DELIVERY;
-                } else if (daysSinceOrder > 4 && currentStatus == OrderStatus.OUT_FOR_DELIVERY) {
-                    newStatus = OrderStatus.DELIVERED;
-                }
-                
-                // If status needs to be updated
-                if (newStatus != null && newStatus != currentStatus) {
-                    String statusString = newStatus.name().toLowerCase();
-                    boolean updated = orderDAO.updateOrderStatus(order.getId(), statusString);
-                    
-                    if (updated) {
-                        // Also update the order object
-                        order.setOrderStatus(newStatus);
-                        
-                        // Send notification to the user
-                        try {
-                            User user = userDAO.getUserById(order.getUserId());
-                            if (user != null) {
-                                NotificationService.sendOrderStatusNotification(user, order, newStatus.name());
-                                System.out.println("Updated order #" + order.getId() + " status to " + statusString + " and notified user");
-                            } else {
-                                System.out.println("User not found for order #" + order.getId());
-                            }
-                        } catch (Exception e) {
-                            System.err.println("Error finding user or sending notification for order #" + order.getId() + ": " + e.getMessage());
-                        }
+            long now = System.currentTimeMillis();
+            List<Order> advanced = new ArrayList<>();
+            for (Transition transition : TRANSITIONS) {
+                Timestamp cutoff = new Timestamp(now - TimeUnit.DAYS.toMillis(transition.minAgeDays));
+                try {
+                    List<Order> moved = orderDAO.advanceOrderStatus(transition.from, transition.to, cutoff);
+                    if (!moved.isEmpty()) {
+                        System.out.println("Updated " + moved.size() + " orders from " + transition.from + " to " + transition.to);
                     }
+                    advanced.addAll(moved);
+                } catch (SQLException e) {
+                    // Leave this step for the next run; the others are independent
+                    System.err.println("Error updating orders from " + transition.from + " to " + transition.to + ": " + e.getMessage());
                 }
             }
+            
+            if (advanced.isEmpty()) {
+                System.out.println("No orders due for a status update");
+                return;
+            }
+            notifyUsers(advanced);
             System.out.println("Order status updates completed.");
         } catch (Exception e) {
             System.err.println("Error updating order statuses: " + e.getMessage());
@@ -121,12 +95,33 @@ public class OrderStatusScheduler {
         }
     }
 
-    /** Compute millis until next midnight */
-    private long computeDelayToNextMidnight() {
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime nextMid = now.toLocalDate().plusDays(1).atStartOfDay();
-        Duration duration = Duration.between(now, nextMid);
-        return duration.toMillis();
+    /** Send one notification per advanced order, looking all users up in a single query */
+    private void notifyUsers(List<Order> orders) {
+        Set<Integer> userIds = new HashSet<>();
+        for (Order order : orders) {
+            userIds.add(order.getUserId());
+        }
+        
+        Map<Integer, User> users;
+        try {
+            users = userDAO.getUsersByIds(userIds);
+        } catch (SQLException e) {
+            System.err.println("Error loading users for order status notifications: " + e.getMessage());
+            return;
+        }
+        
+        for (Order order : orders) {
+            User user = users.get(order.getUserId());
+            if (user == null) {
+                System.out.println("User not found for order #" + order.getId());
+                continue;
+            }
+            try {
+                NotificationService.sendOrderStatusNotification(user, order, order.getOrderStatus().name());
+            } catch (Exception e) {
+                System.err.println("Error sending notification for order #" + order.getId() + ": " + e.getMessage());
+            }
+        }
     }
 
     /** Shutdown the scheduler (if you ever need to) */
@@ -141,4 +136,16 @@ public class OrderStatusScheduler {
             Thread.currentThread().interrupt();
         }
     }
+
+    private static final class Transition {
+        private final OrderStatus from;
+        private final OrderStatus to;
+        private final int minAgeDays;
+
+        private Transition(OrderStatus from, OrderStatus to, int minAgeDays) {
+            this.from = from;
+            this.to = to;
+            this.minAgeDays = minAgeDays;
+        }
+    }
 }
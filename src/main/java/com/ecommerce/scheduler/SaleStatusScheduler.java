@@ -129,11 +129,9 @@ public class SaleStatusScheduler
                     try {
                         List<User> adminUsers = userDAO.getAdminUsers();
                         if (adminUsers != null) {
-                            for (User admin : adminUsers) {
-                                String message = "ADMIN ALERT: Sale '" + sale.getName() + 
-                                               "' with " + sale.getDiscountPercent() + "% discount is ending tomorrow!";
-                                NotificationService.sendNotification(admin, message);
-                            }
+                            String message = "ADMIN ALERT: Sale '" + sale.getName() + 
+                                           "' with " + sale.getDiscountPercent() + "% discount is ending tomorrow!";
+                            NotificationService.sendNotificationToUsers(adminUsers, message);
                             System.out.println("Sent sale ending notifications to " + adminUsers.size() + " admin users");
                         }
                     } catch (Exception e) {
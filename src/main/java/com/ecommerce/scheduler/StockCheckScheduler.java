@@ -10,8 +10,8 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import com.ecommerce.config.AppConfig;
+import com.ecommerce.dao.CachingProductDAO;
 import com.ecommerce.dao.ProductDAO;
-import com.ecommerce.dao.ProductDAOImpl;
 import com.ecommerce.dao.UserDAO;
 import com.ecommerce.dao.UserDAOImpl;
 import com.ecommerce.dao.WishlistDAO;
@@ -22,7 +22,7 @@ import com.ecommerce.service.NotificationService;
 
 public class StockCheckScheduler {
     private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
-    private final ProductDAO productDAO = new ProductDAOImpl();
+    private final ProductDAO productDAO = CachingProductDAO.getInstance();
     private final WishlistDAO wishlistDAO = new WishlistDAOImpl();
     private final UserDAO userDAO = new UserDAOImpl();
     
@@ -74,12 +74,10 @@ public class StockCheckScheduler {
                             if (wishlistUsers != null && !wishlistUsers.isEmpty()) {
                                 System.out.println("Sending wishlist notifications to " + wishlistUsers.size() + " users for low stock product: " + product.getName());
                                 
-                                for (User user : wishlistUsers) {
-                                    String message = "A product in your wishlist (" + product.getName() + ") is running low on stock! Only " + 
-                                                    product.getStock() + " units left. Order soon before it's gone!";
-                                    
-                                    NotificationService.sendNotification(user, message);
-                                }
+                                String message = "A product in your wishlist (" + product.getName() + ") is running low on stock! Only " + 
+                                                product.getStock() + " units left. Order soon before it's gone!";
+                                
+                                NotificationService.sendNotificationToUsers(wishlistUsers, message);
                             }
                         } catch (Exception e) {
                             System.err.println("Error notifying wishlist users about low stock for product ID " + productId + ": " + e.getMessage());
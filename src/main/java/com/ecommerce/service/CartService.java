@@ -0,0 +1,255 @@
+package com.ecommerce.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.ecommerce.config.AppConfig;
+import com.ecommerce.dao.CartItemDAO;
+import com.ecommerce.dao.CartItemDAOImpl;
+import com.ecommerce.model.CartItem;
+
+/**
+ * Users' carts, kept in memory for the session and written back to the database behind the edits.
+ *
+ * A user's cart is read from cart_items once, the first time it's needed. After that adding,
+ * removing and changing quantities only update memory, so the cart view can show the new
+ * totals straight away. Changed quantities are written cart.writeDelayMs later, the latest
+ * quantity per product in one batch: pressing + five times is a single write.
+ *
+ * {@link #flush} writes a user's pending changes immediately; it runs before an order is
+ * placed, on logout ({@link #close}) and at shutdown ({@link #flushAll}).
+ */
+public class CartService
+{
+    private static CartService instance;
+
+    private final CartItemDAO cartItemDAO;
+    private final long writeDelayMs;
+    private final Map<Integer, UserCart> carts = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService executor;
+
+    public CartService(CartItemDAO cartItemDAO, long writeDelayMs)
+    {
+        this.cartItemDAO = cartItemDAO;
+        this.writeDelayMs = Math.max(0, writeDelayMs);
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "cart-writer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public static synchronized CartService getInstance()
+    {
+        if (instance == null) {
+            instance = new CartService(new CartItemDAOImpl(), AppConfig.getCartWriteDelayMs());
+        }
+        return instance;
+    }
+
+    /**
+     * Read the user's cart now if it hasn't been read yet, e.g. in the background at login so
+     * that the first change, made from the EDT, doesn't wait for the database
+     */
+    public void load(int userId)
+    {
+        UserCart cart = cart(userId);
+        synchronized (cart) {
+            ensureLoaded(userId, cart);
+        }
+    }
+
+    /**
+     * The user's cart lines in the order products were added. The first call for a user reads
+     * the cart from the database.
+     */
+    public List<CartItem> getItems(int userId)
+    {
+        UserCart cart = cart(userId);
+        synchronized (cart) {
+            ensureLoaded(userId, cart);
+            List<CartItem> items = new ArrayList<>(cart.quantities.size());
+            for (Map.Entry<Integer, Integer> line : cart.quantities.entrySet()) {
+                items.add(new CartItem(userId, line.getKey(), line.getValue()));
+            }
+            return items;
+        }
+    }
+
+    /**
+     * How many of the product are in the user's cart, 0 if none
+     */
+    public int getQuantity(int userId, int productId)
+    {
+        UserCart cart = cart(userId);
+        synchronized (cart) {
+            ensureLoaded(userId, cart);
+            return cart.quantities.getOrDefault(productId, 0);
+        }
+    }
+
+    /**
+     * Add to the quantity of the product in the user's cart, putting it in the cart if it isn't yet
+     */
+    public void add(int userId, int productId, int quantity)
+    {
+        UserCart cart = cart(userId);
+        synchronized (cart) {
+            ensureLoaded(userId, cart);
+            set(userId, cart, productId, cart.quantities.getOrDefault(productId, 0) + quantity);
+        }
+    }
+
+    /**
+     * Set the quantity of the product in the user's cart; 0 or less removes it
+     */
+    public void setQuantity(int userId, int productId, int quantity)
+    {
+        UserCart cart = cart(userId);
+        synchronized (cart) {
+            ensureLoaded(userId, cart);
+            set(userId, cart, productId, quantity);
+        }
+    }
+
+    public void remove(int userId, int productId)
+    {
+        setQuantity(userId, productId, 0);
+    }
+
+    public void clear(int userId)
+    {
+        UserCart cart = cart(userId);
+        synchronized (cart) {
+            ensureLoaded(userId, cart);
+            for (Integer productId : new ArrayList<>(cart.quantities.keySet())) {
+                set(userId, cart, productId, 0);
+            }
+        }
+    }
+
+    /**
+     * Write the user's pending changes now, on the calling thread
+     *
+     * @return false if they couldn't be written; they are kept and retried later
+     */
+    public boolean flush(int userId)
+    {
+        UserCart cart = carts.get(userId);
+        return cart == null || write(userId, cart);
+    }
+
+    /**
+     * Write the user's pending changes and forget the cart, e.g. on logout
+     */
+    public void close(int userId)
+    {
+        UserCart cart = carts.get(userId);
+        if (cart != null && write(userId, cart)) {
+            carts.remove(userId, cart);
+        }
+    }
+
+    /**
+     * Write every user's pending changes, e.g. before the application exits
+     */
+    public void flushAll()
+    {
+        for (Map.Entry<Integer, UserCart> entry : carts.entrySet()) {
+            write(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * An order took everything in the user's cart, and emptied cart_items as part of it
+     */
+    void orderPlaced(int userId)
+    {
+        UserCart cart = cart(userId);
+        synchronized (cart) {
+            cart.quantities.clear();
+            cart.pending.clear();
+            cart.loaded = true;
+        }
+    }
+
+    private UserCart cart(int userId)
+    {
+        return carts.computeIfAbsent(userId, id -> new UserCart());
+    }
+
+    // Called holding the cart's lock: the first access waits for the read rather than see an empty cart
+    private void ensureLoaded(int userId, UserCart cart)
+    {
+        if (cart.loaded) {
+            return;
+        }
+        for (CartItem item : cartItemDAO.getCartItemsByUserId(userId)) {
+            // Older carts can hold a product on more than one row
+            cart.quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+        cart.loaded = true;
+    }
+
+    // Called holding the cart's lock
+    private void set(int userId, UserCart cart, int productId, int quantity)
+    {
+        if (quantity > 0) {
+            cart.quantities.put(productId, quantity);
+        } else {
+            cart.quantities.remove(productId);
+        }
+        cart.pending.put(productId, Math.max(0, quantity));
+        if (!cart.writeScheduled) {
+            cart.writeScheduled = true;
+            executor.schedule(() -> write(userId, cart), writeDelayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private boolean write(int userId, UserCart cart)
+    {
+        // One write per cart at a time, so an older batch can't land after a newer one
+        synchronized (cart.writeLock) {
+            Map<Integer, Integer> batch;
+            synchronized (cart) {
+                cart.writeScheduled = false;
+                if (cart.pending.isEmpty()) {
+                    return true;
+                }
+                batch = new LinkedHashMap<>(cart.pending);
+                cart.pending.clear();
+            }
+            if (cartItemDAO.saveQuantities(userId, batch)) {
+                return true;
+            }
+            long retryMs = Math.max(writeDelayMs, 1_000);
+            System.err.println("Could not save cart for user " + userId + "; retrying in " + retryMs + " ms");
+            synchronized (cart) {
+                // Keep what failed, unless it has been changed again since
+                batch.forEach(cart.pending::putIfAbsent);
+                if (!cart.writeScheduled) {
+                    cart.writeScheduled = true;
+                    executor.schedule(() -> write(userId, cart), retryMs, TimeUnit.MILLISECONDS);
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final class UserCart
+    {
+        private final Object writeLock = new Object();
+        // Guarded by the cart: product id to quantity, in the order products were added
+        private final Map<Integer, Integer> quantities = new LinkedHashMap<>();
+        // Quantities changed since the last write, 0 for removed products
+        private final Map<Integer, Integer> pending = new LinkedHashMap<>();
+        private boolean loaded;
+        private boolean writeScheduled;
+    }
+}
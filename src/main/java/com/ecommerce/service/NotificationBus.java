@@ -0,0 +1,224 @@
+package com.ecommerce.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.ecommerce.config.AppConfig;
+import com.ecommerce.dao.NotificationDAO;
+import com.ecommerce.dao.NotificationDAOImpl;
+import com.ecommerce.model.Notification;
+
+/**
+ * In-process delivery of notification changes, so open sessions don't have to poll.
+ *
+ * A view subscribes for a user and is told that user's unread count whenever it changes.
+ * The count is kept in memory: it is read from the database once when the first listener
+ * subscribes, then adjusted as notifications are added ({@link #published}) and read
+ * ({@link #markedRead}). Users nobody listens for cost nothing.
+ *
+ * Notifications written by another process (e.g. an admin on another machine) are not seen
+ * by this bus, so subscribed counts are re-read from the database every
+ * notification.reconcileIntervalMs to catch up. Changes published while that query runs are
+ * recorded and replayed onto its result, since the query may not have seen them; one that
+ * committed just as the query started can be counted twice until the next reconcile.
+ */
+public class NotificationBus
+{
+    /**
+     * Called with a user's unread count. Runs on whichever thread caused the change, so
+     * Swing listeners must hand off to the EDT themselves.
+     */
+    public interface UnreadCountListener
+    {
+        void unreadCountChanged(int unreadCount);
+    }
+
+    private static NotificationBus instance;
+
+    private final NotificationDAO notificationDAO;
+    private final Map<Integer, UserState> users = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService executor;
+
+    public NotificationBus(NotificationDAO notificationDAO, long reconcileIntervalMs)
+    {
+        this.notificationDAO = notificationDAO;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "notification-bus");
+            t.setDaemon(true);
+            return t;
+        });
+        if (reconcileIntervalMs > 0) {
+            executor.scheduleWithFixedDelay(this::reconcileAll, reconcileIntervalMs, reconcileIntervalMs,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public static synchronized NotificationBus getInstance()
+    {
+        if (instance == null) {
+            instance = new NotificationBus(new NotificationDAOImpl(), AppConfig.getNotificationReconcileIntervalMs());
+        }
+        return instance;
+    }
+
+    /**
+     * Start listening to a user's unread count. The current count is delivered shortly
+     * after, from a background thread.
+     */
+    public Subscription subscribe(int userId, UnreadCountListener listener)
+    {
+        UserState state = users.compute(userId, (id, existing) -> {
+            UserState userState = existing != null ? existing : new UserState();
+            userState.listeners.add(listener);
+            return userState;
+        });
+        Subscription subscription = new Subscription(userId, listener);
+        synchronized (state) {
+            if (state.known) {
+                listener.unreadCountChanged(state.unread);
+                return subscription;
+            }
+        }
+        reconcile(userId);
+        return subscription;
+    }
+
+    /**
+     * A notification was stored
+     */
+    public void published(Notification notification)
+    {
+        if (!notification.isRead()) {
+            adjust(notification.getUserId(), 1);
+        }
+    }
+
+    /**
+     * Some of the user's unread notifications were marked as read
+     */
+    public void markedRead(int userId, int count)
+    {
+        if (count > 0) {
+            adjust(userId, -count);
+        }
+    }
+
+    /**
+     * Re-read the user's unread count from the database in the background
+     */
+    public void reconcile(int userId)
+    {
+        executor.execute(() -> refresh(userId));
+    }
+
+    private void adjust(int userId, int delta)
+    {
+        UserState state = users.get(userId);
+        if (state == null) {
+            // Nobody is listening; the count is read fresh on the next subscribe
+            return;
+        }
+        int unread;
+        synchronized (state) {
+            if (state.refreshing) {
+                state.changedDuringRefresh += delta;
+            }
+            if (!state.known) {
+                // The initial count is being read (or will be, and then includes this change)
+                return;
+            }
+            state.unread = Math.max(0, state.unread + delta);
+            unread = state.unread;
+        }
+        state.notifyListeners(unread);
+    }
+
+    private void refresh(int userId)
+    {
+        UserState state = users.get(userId);
+        if (state == null) {
+            return;
+        }
+        synchronized (state) {
+            state.refreshing = true;
+            state.changedDuringRefresh = 0;
+        }
+        int unread;
+        try {
+            int counted = notificationDAO.countUnreadNotifications(userId);
+            synchronized (state) {
+                state.unread = Math.max(0, counted + state.changedDuringRefresh);
+                state.known = true;
+                unread = state.unread;
+            }
+        } finally {
+            synchronized (state) {
+                state.refreshing = false;
+            }
+        }
+        state.notifyListeners(unread);
+    }
+
+    private void reconcileAll()
+    {
+        for (Integer userId : users.keySet()) {
+            try {
+                refresh(userId);
+            } catch (RuntimeException e) {
+                System.err.println("Error reconciling unread notifications for user " + userId + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static final class UserState
+    {
+        private final List<UnreadCountListener> listeners = new CopyOnWriteArrayList<>();
+        // Guarded by the state itself
+        private int unread;
+        private boolean known;
+        // Whether the count is being read, and the changes published since the read started
+        private boolean refreshing;
+        private int changedDuringRefresh;
+
+        private void notifyListeners(int unread)
+        {
+            for (UnreadCountListener listener : listeners) {
+                try {
+                    listener.unreadCountChanged(unread);
+                } catch (RuntimeException e) {
+                    System.err.println("Notification listener failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * A listener's registration; close it when the view goes away
+     */
+    public final class Subscription implements AutoCloseable
+    {
+        private final int userId;
+        private final UnreadCountListener listener;
+
+        private Subscription(int userId, UnreadCountListener listener)
+        {
+            this.userId = userId;
+            this.listener = listener;
+        }
+
+        @Override
+        public void close()
+        {
+            users.computeIfPresent(userId, (id, state) -> {
+                state.listeners.remove(listener);
+                // Forget the count with the last listener, so it is re-read if someone subscribes again
+                return state.listeners.isEmpty() ? null : state;
+            });
+        }
+    }
+}
@@ -51,7 +51,7 @@ public class NotificationService
             // Try to send email, but continue even if it fails
             if (user.getEmail() != null && !user.getEmail().isEmpty()) {
                 try {
-                    emailSender.sendEmail(user.getEmail(), "E-commerce Notification", message, null);
+                    emailSender.sendEmailAsync(user.getEmail(), "E-commerce Notification", message, null);
                 } catch (Exception e) {
                     System.err.println("Failed to send email notification to " + user.getEmail() + ": " + e.getMessage());
                 }
@@ -93,7 +93,7 @@ public class NotificationService
             // Try to send email, but continue even if it fails
             if (user.getEmail() != null && !user.getEmail().isEmpty()) {
                 try {
-                    emailSender.sendEmail(user.getEmail(), "Order Status Update", message, null);
+                    emailSender.sendEmailAsync(user.getEmail(), "Order Status Update", message, null);
                 } catch (Exception e) {
                     System.err.println("Failed to send order status email notification to " + user.getEmail() + ": " + e.getMessage());
                 }
@@ -118,6 +118,7 @@ public class NotificationService
                 "A new sale is now active: " + saleName :
                 "A new sale is coming tomorrow: " + saleName;
                 
+            List<String> recipients = new ArrayList<>();
             for (User user : users) {
                 if (user.getEmail() != null && !user.getEmail().isEmpty()) {
                     // Add in-app notification
@@ -128,14 +129,12 @@ public class NotificationService
                     notification.setRead(false);
                     notificationDAO.addNotification(notification);
                     
-                    // Send email notification
-                    try {
-                        emailSender.sendEmail(user.getEmail(), subject, message, null);
-                    } catch (Exception e) {
-                        System.err.println("Failed to send sale email notification to " + user.getEmail() + ": " + e.getMessage());
-                    }
+                    recipients.add(user.getEmail());
                 }
             }
+            
+            // Send email notifications over one connection
+            sendBulkEmail(subject, message, recipients);
         } catch (Exception e) {
             System.err.println("Error sending sale notifications: " + e.getMessage());
             e.printStackTrace();
@@ -163,6 +162,7 @@ public class NotificationService
                 return 0;
             }
             
+            List<String> recipients = new ArrayList<>();
             for (User user : users) {
                 if (user.isAdmin()) {
                     try {
@@ -177,13 +177,8 @@ public class NotificationService
                         if (success) {
                             notificationsSent++;
                             
-                            // Try to send email, but continue even if it fails
                             if (user.getEmail() != null && !user.getEmail().isEmpty()) {
-                                try {
-                                    emailSender.sendEmail(user.getEmail(), "Low Stock Alert", message, null);
-                                } catch (Exception e) {
-                                    System.err.println("Failed to send low stock email notification to " + user.getEmail() + ": " + e.getMessage());
-                                }
+                                recipients.add(user.getEmail());
                             }
                         }
                     } catch (Exception e) {
@@ -192,6 +187,9 @@ public class NotificationService
                 }
             }
             
+            // Try to send email, but continue even if it fails
+            sendBulkEmail("Low Stock Alert", message, recipients);
+            
             if (notificationsSent > 0) {
                 System.out.println("Low stock notifications sent to " + notificationsSent + " admin users");
             }
@@ -232,7 +230,7 @@ public class NotificationService
             // Try to send email, but continue even if it fails
             if (user.getEmail() != null && !user.getEmail().isEmpty()) {
                 try {
-                    emailSender.sendEmail(user.getEmail(), "Cart Item Low Stock Alert", message, null);
+                    emailSender.sendEmailAsync(user.getEmail(), "Cart Item Low Stock Alert", message, null);
                 } catch (Exception e) {
                     System.err.println("Failed to send cart item low stock email notification to " + user.getEmail() + ": " + e.getMessage());
                 }
@@ -256,6 +254,7 @@ public class NotificationService
             String message = "LAST CHANCE: Sale '" + saleName + "' with " + discountPercent + "% discount ends tomorrow!";
                 
             int notificationCount = 0;
+            List<String> recipients = new ArrayList<>();
             for (User user : users) {
                 if (user != null) {
                     // Add in-app notification
@@ -270,21 +269,78 @@ public class NotificationService
                         notificationCount++;
                     }
                     
-                    // Send email notification
                     if (user.getEmail() != null && !user.getEmail().isEmpty()) {
-                        try {
-                            emailSender.sendEmail(user.getEmail(), subject, message, null);
-                        } catch (Exception e) {
-                            System.err.println("Failed to send sale ending email notification to " + user.getEmail() + ": " + e.getMessage());
-                        }
+                        recipients.add(user.getEmail());
                     }
                 }
             }
             
+            // Send email notifications over one connection
+            sendBulkEmail(subject, message, recipients);
+            
             System.out.println("Sent " + notificationCount + " sale ending notifications to users");
         } catch (Exception e) {
             System.err.println("Error sending sale ending notifications: " + e.getMessage());
             e.printStackTrace();
         }
     }
+    
+    /**
+     * Send the same general notification to several users, emailing them in one batch
+     *
+     * @return number of in-app notifications stored
+     */
+    public static int sendNotificationToUsers(List<User> users, String message)
+    {
+        if (users == null || users.isEmpty() || message == null || message.isEmpty()) {
+            return 0;
+        }
+        
+        int notificationCount = 0;
+        List<String> recipients = new ArrayList<>();
+        for (User user : users) {
+            if (user == null) {
+                continue;
+            }
+            try {
+                Notification notification = new Notification();
+                notification.setUserId(user.getId());
+                notification.setMessage(message);
+                notification.setCreatedAt(new Timestamp(System.currentTimeMillis()));
+                notification.setRead(false);
+                
+                if (notificationDAO.addNotification(notification)) {
+                    notificationCount++;
+                } else {
+                    System.err.println("Failed to add notification to database for user: " + user.getUsername());
+                }
+            } catch (Exception e) {
+                System.err.println("Error sending notification to " + user.getUsername() + ": " + e.getMessage());
+            }
+            
+            if (user.getEmail() != null && !user.getEmail().isEmpty()) {
+                recipients.add(user.getEmail());
+            }
+        }
+        
+        sendBulkEmail("E-commerce Notification", message, recipients);
+        return notificationCount;
+    }
+    
+    /**
+     * Queue one email to many recipients; logs the per-recipient outcome once it is done
+     */
+    private static void sendBulkEmail(String subject, String message, List<String> recipients)
+    {
+        if (recipients.isEmpty()) {
+            return;
+        }
+        emailSender.sendBulkAsync(subject, message, recipients).thenAccept(outcomes -> {
+            for (EmailSender.SendOutcome outcome : outcomes) {
+                if (!outcome.isSent()) {
+                    System.err.println("Failed to send '" + subject + "' email to " + outcome.getToEmail() + ": " + outcome.getError());
+                }
+            }
+        });
+    }
 }
@@ -0,0 +1,56 @@
+package com.ecommerce.service;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What one {@link OrderService#placeOrder} call did: the ID of the order it placed, or the
+ * products whose stock couldn't cover it, or neither if it failed for another reason.
+ */
+public final class OrderOutcome
+{
+    private final int orderId;
+    private final List<String> oversoldProducts;
+
+    private OrderOutcome(int orderId, List<String> oversoldProducts)
+    {
+        this.orderId = orderId;
+        this.oversoldProducts = oversoldProducts;
+    }
+
+    static OrderOutcome placed(int orderId)
+    {
+        return new OrderOutcome(orderId, Collections.emptyList());
+    }
+
+    static OrderOutcome oversold(List<String> productNames)
+    {
+        return new OrderOutcome(0, List.copyOf(productNames));
+    }
+
+    static OrderOutcome failed()
+    {
+        return new OrderOutcome(0, Collections.emptyList());
+    }
+
+    public boolean isPlaced()
+    {
+        return orderId > 0;
+    }
+
+    /**
+     * ID of the placed order, or 0 if none was placed
+     */
+    public int getOrderId()
+    {
+        return orderId;
+    }
+
+    /**
+     * Names of the products that had too little stock; empty unless that is why the order was rejected
+     */
+    public List<String> getOversoldProducts()
+    {
+        return oversoldProducts;
+    }
+}
@@ -2,11 +2,18 @@ package com.ecommerce.service;
 
 import java.io.File;
 import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import com.ecommerce.config.AppConfig;
+import com.ecommerce.config.DBConnection;
+import com.ecommerce.dao.CachingProductDAO;
 import com.ecommerce.dao.CartItemDAO;
 import com.ecommerce.dao.CartItemDAOImpl;
 import com.ecommerce.dao.NotificationDAO;
@@ -16,7 +23,6 @@ import com.ecommerce.dao.OrderDAOImpl;
 import com.ecommerce.dao.OrderItemDAO;
 import com.ecommerce.dao.OrderItemDAOImpl;
 import com.ecommerce.dao.ProductDAO;
-import com.ecommerce.dao.ProductDAOImpl;
 import com.ecommerce.dao.SaleDAO;
 import com.ecommerce.dao.SaleDAOImpl;
 import com.ecommerce.dao.TransactionDAO;
@@ -52,7 +58,7 @@ public class OrderService
         this.cartItemDAO = new CartItemDAOImpl();
         this.transactionDAO = new TransactionDAOImpl();
         this.saleDAO = new SaleDAOImpl();
-        this.productDAO = new ProductDAOImpl();
+        this.productDAO = CachingProductDAO.getInstance();
         this.notificationDAO = new NotificationDAOImpl();
     }
 
@@ -67,7 +73,11 @@ public class OrderService
         this.notificationDAO = notificationDAO;
     }
 
-    public boolean placeOrder(int userId, int addressId, String transactionMethod, String email, String username, String city, String state, String pincode)
+    /**
+     * Places an order for everything in the user's cart
+     * @return the new order's ID, or why no order was placed
+     */
+    public OrderOutcome placeOrder(int userId, int addressId, String transactionMethod, String email, String username, String city, String state, String pincode)
     {
         System.out.println("Starting order placement process...");
         try
@@ -78,11 +88,17 @@ public class OrderService
             System.out.println("Customer Email: " + email + ", Username: " + username);
             System.out.println("Shipping to: " + city + ", " + state + ", " + pincode);
             
+            // The order is built from cart_items, so it must hold every change made to the cart
+            if (!CartService.getInstance().flush(userId))
+            {
+                System.out.println("Cart changes could not be saved. Cannot place order.");
+                return OrderOutcome.failed();
+            }
             List<CartItem> cartItems = cartItemDAO.getCartItemsByUserId(userId);
             if (cartItems.isEmpty())
             {
                 System.out.println("Cart is empty. Cannot place order.");
-                return false;
+                return OrderOutcome.failed();
             }
             
             System.out.println("Found " + cartItems.size() + " items in cart");
@@ -98,165 +114,172 @@ public class OrderService
                          ", Discount: " + discountPercent + "%");
             }
 
-            // Calculate total
-            double totalAmount = 0;
+            TransactionMethod method = toTransactionMethod(transactionMethod);
+
+            // Aggregate quantities per product in case the cart holds the same product twice
+            Map<Integer, Integer> quantities = new LinkedHashMap<>();
             for (CartItem cartItem : cartItems)
             {
-                Product product = productDAO.getProductById(cartItem.getProductId());
-                if (product == null) {
-                    System.out.println("Product not found for cart item: " + cartItem.getId());
-                    continue;
-                }
-                
-                double productPrice = product.getPrice();
-                double itemDiscount = productPrice * (discountPercent / 100.0);
-                double finalPrice = (productPrice - itemDiscount) * cartItem.getQuantity();
-                totalAmount += finalPrice;
-                
-                System.out.println("Item: " + product.getName() + ", Price: " + productPrice + 
-                        ", Discount: " + itemDiscount + ", Quantity: " + cartItem.getQuantity() + 
-                        ", Final price: " + finalPrice);
+                quantities.merge(cartItem.getProductId(), cartItem.getQuantity(), Integer::sum);
             }
-            
-            System.out.println("Total order amount: " + totalAmount);
 
-            // Create order
-            System.out.println("Creating order record in database...");
+            // Everything from here to commit runs as one transaction on a single connection
             Order order = new Order();
-            order.setUserId(userId);
-            order.setAddressId(addressId);
-            order.setOrderDate(Timestamp.valueOf(LocalDateTime.now()));
-            order.setTotalAmount(totalAmount);
-            order.setOrderStatus(OrderStatus.PENDING);
-            
-            // We will let the DAO handle setting the delivery_estimate
-            // This avoids issues with database column naming
-
-            boolean orderPlaced = orderDAO.placeOrder(order);
-            if (!orderPlaced)
+            List<OrderItem> orderItems = new ArrayList<>();
+            List<Product> lowStockProducts = new ArrayList<>();
+            // Names of products whose stock can't cover the order
+            List<String> oversoldProducts = new ArrayList<>();
+            Transaction transaction = new Transaction();
+            Connection conn = null;
+            try
             {
-                System.out.println("Failed to place order in database");
-                return false;
-            }
+                conn = DBConnection.getConnection();
+                conn.setAutoCommit(false);
 
-            int orderId = order.getId();
-            System.out.println("Order created successfully with ID: " + orderId);
-            
-            if (orderId <= 0) {
-                System.out.println("Invalid order ID: " + orderId);
-                return false;
-            }
+                Map<Integer, Product> products = productDAO.getProductsByIds(conn, quantities.keySet());
 
-            try {
-                // Create OrderItems and update product stock
-                System.out.println("Creating order item records...");
-                for (CartItem cartItem : cartItems)
+                // Calculate total
+                double totalAmount = 0;
+                for (Map.Entry<Integer, Integer> line : quantities.entrySet())
                 {
-                    Product product = productDAO.getProductById(cartItem.getProductId());
+                    Product product = products.get(line.getKey());
                     if (product == null) {
-                        System.out.println("Product not found for cart item: " + cartItem.getId());
+                        System.out.println("Product not found for cart product ID: " + line.getKey());
                         continue;
                     }
-                    
+                    int quantity = line.getValue();
                     double productPrice = product.getPrice();
                     double itemDiscount = productPrice * (discountPercent / 100.0);
+                    double finalPrice = (productPrice - itemDiscount) * quantity;
+                    totalAmount += finalPrice;
 
-                    OrderItem orderItem = new OrderItem();
-                    orderItem.setOrderId(orderId);
-                    orderItem.setProductId(cartItem.getProductId());
-                    orderItem.setProductName(product.getName());
-                    orderItem.setQuantity(cartItem.getQuantity());
-                    orderItem.setPrice(productPrice);
-                    
-                    try {
-                        System.out.println("Adding order item for product: " + product.getName());
-                        boolean itemAdded = orderItemDAO.addOrderItem(orderItem);
-                        if (!itemAdded) {
-                            System.out.println("Failed to add order item for product: " + product.getName());
-                        } else {
-                            System.out.println("Order item added successfully");
-                        }
-                    } catch (Exception ex) {
-                        System.out.println("Error adding order item: " + ex.getMessage());
-                    }
+                    System.out.println("Item: " + product.getName() + ", Price: " + productPrice +
+                            ", Discount: " + itemDiscount + ", Quantity: " + quantity +
+                            ", Final price: " + finalPrice);
 
-                    // Reduce stock
-                    System.out.println("Updating stock for product: " + product.getName() + 
-                            " from " + product.getStock() + " to " + (product.getStock() - cartItem.getQuantity()));
-                    int newStock = product.getStock() - cartItem.getQuantity();
-                    if (newStock < 0) {
-                        newStock = 0; // Prevent negative stock
-                        System.out.println("Warning: Insufficient stock for product: " + product.getName() + ". Setting to 0.");
-                    }
-                    
-                    boolean stockUpdated = productDAO.updateStock(product.getId(), newStock);
-                    if (stockUpdated) {
-                        System.out.println("Stock updated successfully for product: " + product.getName());
-                        
-                        // Check if stock is low and send notification if needed
-                        if (newStock <= AppConfig.LOW_STOCK_THRESHOLD) {
-                            System.out.println("Product ID " + product.getId() + " has low stock (" + newStock + 
-                                             "). Sending notifications.");
-                            // Update the product object with new stock before sending notification
-                            product.setStock(newStock);
-                            NotificationService.sendLowStockNotification(product);
-                        }
-                    } else {
-                        System.out.println("Failed to update stock for product: " + product.getName());
+                    if (product.getStock() < quantity) {
+                        oversoldProducts.add(product.getName());
                     }
+                    orderItems.add(new OrderItem(0, product.getId(), product.getName(), quantity, productPrice));
+                }
+
+                // Cheap early exit; the conditional reservation below is what actually guarantees no overselling
+                if (!oversoldProducts.isEmpty()) {
+                    System.out.println("Insufficient stock for: " + oversoldProducts + ". Rejecting order.");
+                    conn.rollback();
+                    return OrderOutcome.oversold(oversoldProducts);
+                }
+
+                if (orderItems.isEmpty()) {
+                    System.out.println("None of the cart products exist any more. Cannot place order.");
+                    conn.rollback();
+                    return OrderOutcome.failed();
+                }
+
+                System.out.println("Total order amount: " + totalAmount);
+
+                // Create order
+                System.out.println("Creating order record in database...");
+                order.setUserId(userId);
+                order.setAddressId(addressId);
+                order.setOrderDate(Timestamp.valueOf(LocalDateTime.now()));
+                order.setTotalAmount(totalAmount);
+                order.setOrderStatus(OrderStatus.PENDING);
+
+                // We will let the DAO handle setting the delivery_estimate
+                // This avoids issues with database column naming
+                if (!orderDAO.placeOrder(conn, order) || order.getId() <= 0)
+                {
+                    throw new SQLException("Failed to create order record");
+                }
+                int orderId = order.getId();
+                System.out.println("Order created with ID: " + orderId);
+
+                // Create OrderItems in one batch
+                for (OrderItem orderItem : orderItems)
+                {
+                    orderItem.setOrderId(orderId);
                 }
+                orderItemDAO.addOrderItems(conn, orderItems);
 
                 // Clear user's cart after order placement
-                boolean cleared = cartItemDAO.clearCartByUserId(userId);
-                System.out.println("Cart cleared for user ID " + userId + ": " + cleared);
+                cartItemDAO.clearCartByUserId(conn, userId);
 
                 // Create Transaction
-                try {
-                    System.out.println("Creating transaction record...");
-                    Transaction transaction = new Transaction();
-                    transaction.setOrderId(orderId);
-                    
-                    // Handle different payment method formats correctly
-                    if (transactionMethod.equalsIgnoreCase("Pay on Delivery")) {
-                        transaction.setMethod(TransactionMethod.PAY_ON_DELIVERY);
-                    } else {
-                        // For other methods, normalize and convert to enum
-                        String normalizedMethod = transactionMethod.toUpperCase().replace(" ", "_");
-                        transaction.setMethod(TransactionMethod.valueOf(normalizedMethod));
-                    }
-                    
-                    transaction.setStatus(TransactionStatus.PENDING);
-                    transaction.setTransactionDate(Timestamp.valueOf(LocalDateTime.now()));
-                    boolean transactionCreated = transactionDAO.addTransaction(transaction);
-                    if (transactionCreated) {
-                        System.out.println("Transaction created successfully");
-                    } else {
-                        System.out.println("Failed to create transaction record");
-                    }
-                } catch (Exception ex) {
-                    System.out.println("Error creating transaction: " + ex.getMessage());
-                    ex.printStackTrace();
-                    // Continue processing even if transaction fails
+                transaction.setOrderId(orderId);
+                transaction.setMethod(method);
+                transaction.setStatus(TransactionStatus.PENDING);
+                transaction.setTransactionDate(Timestamp.valueOf(LocalDateTime.now()));
+                if (!transactionDAO.addTransaction(conn, transaction))
+                {
+                    throw new SQLException("Failed to create transaction record");
                 }
 
                 // Send Notifications
-                try {
-                    System.out.println("Creating notification for user...");
-                    Notification notification = new Notification();
-                    notification.setUserId(userId);
-                    notification.setMessage("Your order #" + orderId + " has been placed successfully!");
-                    notification.setCreatedAt(Timestamp.valueOf(LocalDateTime.now()));
-                    notification.setRead(false);
-                    boolean notificationAdded = notificationDAO.addNotification(notification);
-                    if (notificationAdded) {
-                        System.out.println("Notification created successfully");
-                    } else {
-                        System.out.println("Failed to create notification");
+                Notification notification = new Notification();
+                notification.setUserId(userId);
+                notification.setMessage("Your order #" + orderId + " has been placed successfully!");
+                notification.setCreatedAt(Timestamp.valueOf(LocalDateTime.now()));
+                notification.setRead(false);
+                notificationDAO.addNotification(conn, notification);
+
+                // Reserve stock last so the product row locks are held only until the commit right after
+                Map<Integer, Integer> orderedQuantities = new LinkedHashMap<>();
+                for (OrderItem orderItem : orderItems)
+                {
+                    orderedQuantities.put(orderItem.getProductId(), orderItem.getQuantity());
+                }
+                Map<Integer, Boolean> reserved = productDAO.reserveStock(conn, orderedQuantities);
+                for (Map.Entry<Integer, Boolean> line : reserved.entrySet())
+                {
+                    if (!line.getValue()) {
+                        oversoldProducts.add(products.get(line.getKey()).getName());
                     }
-                } catch (Exception ex) {
-                    System.out.println("Error creating notification: " + ex.getMessage());
-                    ex.printStackTrace();
-                    // Continue processing even if notification fails
+                }
+                if (!oversoldProducts.isEmpty()) {
+                    System.out.println("Insufficient stock for: " + oversoldProducts + ". Rejecting order.");
+                    conn.rollback();
+                    return OrderOutcome.oversold(oversoldProducts);
+                }
+
+                conn.commit();
+                System.out.println("Order #" + orderId + " committed with " + orderItems.size() + " items");
+                productDAO.stockCommitted(orderedQuantities.keySet());
+                CartService.getInstance().orderPlaced(userId);
+                NotificationBus.getInstance().published(notification);
+
+                for (OrderItem orderItem : orderItems)
+                {
+                    Product product = products.get(orderItem.getProductId());
+                    int newStock = product.getStock() - orderItem.getQuantity();
+                    if (newStock <= AppConfig.LOW_STOCK_THRESHOLD) {
+                        product.setStock(newStock);
+                        lowStockProducts.add(product);
+                    }
+                }
+            }
+            catch (SQLException | RuntimeException ex)
+            {
+                System.out.println("Order placement failed, rolling back: " + ex.getMessage());
+                ex.printStackTrace();
+                rollbackQuietly(conn);
+                return OrderOutcome.failed();
+            }
+            finally
+            {
+                if (conn != null) {
+                    DBConnection.releaseConnection(conn);
+                }
+            }
+
+            int orderId = order.getId();
+            try {
+                // Low stock alerts only go out once the decrement is committed
+                for (Product product : lowStockProducts)
+                {
+                    System.out.println("Product ID " + product.getId() + " has low stock (" + product.getStock() +
+                                     "). Sending notifications.");
+                    NotificationService.sendLowStockNotification(product);
                 }
 
                 // Generate receipt
@@ -272,36 +295,8 @@ public class OrderService
                         }
                     }
                     
-                    // Get the transaction we just created
-                    Transaction transaction = transactionDAO.getTransactionByOrderId(orderId);
-                    
-                    if (transaction == null) {
-                        System.out.println("Transaction not found for order ID: " + orderId + ", creating dummy transaction");
-                        // Create a dummy transaction if none found
-                        transaction = new Transaction();
-                        transaction.setId(0);
-                        transaction.setOrderId(orderId);
-                        
-                        // Handle different payment method formats correctly
-                        if (transactionMethod.equalsIgnoreCase("Pay on Delivery")) {
-                            transaction.setMethod(TransactionMethod.PAY_ON_DELIVERY);
-                        } else {
-                            // For other methods, normalize and convert to enum
-                            String normalizedMethod = transactionMethod.toUpperCase().replace(" ", "_");
-                            transaction.setMethod(TransactionMethod.valueOf(normalizedMethod));
-                        }
-                        
-                        transaction.setStatus(TransactionStatus.PENDING);
-                        transaction.setTransactionDate(Timestamp.valueOf(LocalDateTime.now()));
-                    }
-                    
-                    // Generate receipt locally and email 
-                    List<OrderItem> orderItems = orderItemDAO.getItemsByOrderId(orderId);
-                    if (orderItems.isEmpty()) {
-                        System.out.println("No order items found for order ID: " + orderId);
-                        throw new IOException("No order items found for receipt generation");
-                    }
-                    System.out.println("Found " + orderItems.size() + " order items for receipt");
+                    // The transaction and items were just written in this checkout, so use them directly
+                    System.out.println("Using " + orderItems.size() + " order items for receipt");
                     
                     // Get all necessary info for the receipt
                     String receiptPath = ReceiptGenerator.generateReceipt(order, orderItems, transaction, username, city, state, pincode);
@@ -343,34 +338,36 @@ public class OrderService
                         
                         // Verify the receipt file exists and is readable
                         File receiptFile = new File(receiptPath);
+                        String body = emailBody.toString();
                         if (!receiptFile.exists() || !receiptFile.canRead()) {
                             System.out.println("Warning: Receipt file is not accessible: " + receiptPath);
                             System.out.println("File exists: " + receiptFile.exists() + ", Can read: " + receiptFile.canRead());
                             // Try to send email without attachment
-                            boolean emailSent = emailSender.sendEmail(email, emailSubject, emailBody.toString(), null);
-                            if (emailSent) {
-                                System.out.println("Email sent successfully (without attachment)");
-                            } else {
-                                System.out.println("Failed to send email (without attachment)");
-                                // Log the error but continue with order processing
-                            }
+                            emailSender.sendEmailAsync(email, emailSubject, body, null).thenAccept(emailSent -> {
+                                if (emailSent) {
+                                    System.out.println("Email sent successfully (without attachment)");
+                                } else {
+                                    System.out.println("Failed to send email (without attachment)");
+                                }
+                            });
                         } else {
-                            // Send with attachment
+                            // Send with attachment; queued so checkout doesn't wait on the mail server
                             System.out.println("Sending email with receipt attachment: " + receiptPath + " (Size: " + receiptFile.length() + " bytes)");
-                            boolean emailSent = emailSender.sendEmail(email, emailSubject, emailBody.toString(), receiptPath);
-                            if (emailSent) {
-                                System.out.println("Email sent successfully with receipt attachment");
-                            } else {
-                                System.out.println("Failed to send email with attachment - trying without attachment");
-                                // Fallback: try to send without attachment
-                                emailSent = emailSender.sendEmail(email, emailSubject, emailBody.toString(), null);
+                            emailSender.sendEmailAsync(email, emailSubject, body, receiptPath).thenAccept(emailSent -> {
                                 if (emailSent) {
-                                    System.out.println("Fallback email sent successfully (without attachment)");
-                                } else {
-                                    System.out.println("Failed to send email even without attachment");
-                                    // Log the error but continue with order processing
+                                    System.out.println("Email sent successfully with receipt attachment");
+                                    return;
                                 }
-                            }
+                                System.out.println("Failed to send email with attachment - trying without attachment");
+                                // Fallback: try to send without attachment
+                                emailSender.sendEmailAsync(email, emailSubject, body, null).thenAccept(fallbackSent -> {
+                                    if (fallbackSent) {
+                                        System.out.println("Fallback email sent successfully (without attachment)");
+                                    } else {
+                                        System.out.println("Failed to send email even without attachment");
+                                    }
+                                });
+                            });
                         }
                     } catch (Exception emailEx) {
                         System.out.println("Error in email sending process: " + emailEx.getMessage());
@@ -398,18 +395,42 @@ public class OrderService
                     // Don't fail the order if stock check fails
                 }
                 
-                return true;
+                return OrderOutcome.placed(orderId);
             } catch (Exception ex) {
-                System.out.println("Error in order processing: " + ex.getMessage());
+                // The order is already committed, so follow-up failures don't undo the checkout
+                System.out.println("Error in post-order processing: " + ex.getMessage());
                 ex.printStackTrace();
-                return false;
+                return OrderOutcome.placed(orderId);
             }
         }
         catch (Exception e)
         {
             System.out.println("Error placing order: " + e.getMessage());
             e.printStackTrace();
-            return false;
+            return OrderOutcome.failed();
+        }
+    }
+
+    private static TransactionMethod toTransactionMethod(String transactionMethod)
+    {
+        // Handle different payment method formats correctly
+        if (transactionMethod.equalsIgnoreCase("Pay on Delivery")) {
+            return TransactionMethod.PAY_ON_DELIVERY;
+        }
+        // For other methods, normalize and convert to enum
+        String normalizedMethod = transactionMethod.toUpperCase().replace(" ", "_");
+        return TransactionMethod.valueOf(normalizedMethod);
+    }
+
+    private static void rollbackQuietly(Connection conn)
+    {
+        if (conn == null) {
+            return;
+        }
+        try {
+            conn.rollback();
+        } catch (SQLException e) {
+            System.out.println("Rollback failed: " + e.getMessage());
         }
     }
 }
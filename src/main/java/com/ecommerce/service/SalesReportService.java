@@ -0,0 +1,109 @@
+package com.ecommerce.service;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import com.ecommerce.config.AppConfig;
+import com.ecommerce.dao.SalesReportDAO;
+import com.ecommerce.dao.SalesReportDAOImpl;
+import com.ecommerce.model.OrderStatus;
+import com.ecommerce.model.SalesReportRow;
+import com.ecommerce.util.LruCache;
+
+/**
+ * Sales report queries with a small result cache.
+ *
+ * Each distinct combination of grouping, date range and status filter is cached as one
+ * entry, so flipping between e.g. "last 7 days by product" and "this month by day" doesn't
+ * re-run the aggregation every time. Entries expire after report.cache.ttlMs so new orders
+ * show up without an explicit refresh.
+ */
+public class SalesReportService
+{
+    private static SalesReportService instance;
+
+    private final SalesReportDAO salesReportDAO;
+    private final LruCache<String, List<SalesReportRow>> cache;
+    // Bumped by invalidateAll, so a report that was running at the time isn't cached
+    private final AtomicLong version = new AtomicLong();
+
+    public SalesReportService(SalesReportDAO salesReportDAO, int maxEntries, long ttlMs)
+    {
+        this.salesReportDAO = salesReportDAO;
+        this.cache = maxEntries > 0 ? new LruCache<>(maxEntries, ttlMs) : null;
+    }
+
+    public static synchronized SalesReportService getInstance()
+    {
+        if (instance == null) {
+            instance = new SalesReportService(new SalesReportDAOImpl(),
+                    AppConfig.getReportCacheMaxEntries(),
+                    AppConfig.getReportCacheTtlMs());
+        }
+        return instance;
+    }
+
+    /**
+     * Hands each report row to the consumer, from the cache when possible, otherwise
+     * straight from the database as rows are read
+     */
+    public void streamReport(SalesReportDAO.Grouping grouping, LocalDate from, LocalDate to,
+                             Collection<OrderStatus> statuses, Consumer<SalesReportRow> consumer) throws SQLException
+    {
+        if (cache == null) {
+            salesReportDAO.streamSalesReport(grouping, from, to, statuses, consumer);
+            return;
+        }
+
+        String key = cacheKey(grouping, from, to, statuses);
+        List<SalesReportRow> cached = cache.get(key);
+        if (cached != null) {
+            cached.forEach(consumer);
+            return;
+        }
+
+        long startVersion = version.get();
+        List<SalesReportRow> rows = new ArrayList<>();
+        salesReportDAO.streamSalesReport(grouping, from, to, statuses, row -> {
+            rows.add(row);
+            consumer.accept(row);
+        });
+        if (version.get() == startVersion) {
+            cache.put(key, Collections.unmodifiableList(rows));
+        }
+    }
+
+    public List<SalesReportRow> getReport(SalesReportDAO.Grouping grouping, LocalDate from, LocalDate to,
+                                          Collection<OrderStatus> statuses) throws SQLException
+    {
+        List<SalesReportRow> rows = new ArrayList<>();
+        streamReport(grouping, from, to, statuses, rows::add);
+        return rows;
+    }
+
+    /**
+     * Forget all cached reports, e.g. when the user explicitly asks for a refresh
+     */
+    public void invalidateAll()
+    {
+        version.incrementAndGet();
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    private static String cacheKey(SalesReportDAO.Grouping grouping, LocalDate from, LocalDate to,
+                                   Collection<OrderStatus> statuses)
+    {
+        // Sorted so the same filter in a different order hits the same entry
+        String statusKey = statuses == null || statuses.isEmpty() ? "*" : new TreeSet<>(statuses).toString();
+        return grouping + "|" + from + "|" + to + "|" + statusKey;
+    }
+}
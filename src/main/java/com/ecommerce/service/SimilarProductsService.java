@@ -0,0 +1,439 @@
+package com.ecommerce.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import com.ecommerce.config.AppConfig;
+import com.ecommerce.dao.CachingProductDAO;
+import com.ecommerce.dao.OrderItemDAO;
+import com.ecommerce.dao.OrderItemDAOImpl;
+import com.ecommerce.dao.ProductDAO;
+import com.ecommerce.dao.WishlistDAO;
+import com.ecommerce.dao.WishlistDAOImpl;
+import com.ecommerce.model.Product;
+import com.ecommerce.util.SparseCountMatrix;
+
+/**
+ * "You may also like" and "customers also bought" lists, precomputed so a product page or
+ * the cart costs a map lookup.
+ *
+ * How often two products were bought in the same order, or kept in the same wishlist, is
+ * counted in {@link SparseCountMatrix}es, which cap the pairs kept per product at
+ * similar.maxPairsPerProduct so memory stays bounded however long the order history gets.
+ * A product's neighbours are ranked by those counts; a shared order counts for more than a
+ * shared wishlist and a shared category breaks ties. "Also bought" uses the order counts alone.
+ *
+ * The lists live in memory and are refreshed in the background every
+ * similar.refreshIntervalMs. Order history is streamed in chunks, and only orders placed
+ * since the last refresh are read; only products whose counts changed are re-ranked.
+ * Wishlists are re-read because items can be removed, but only the users whose wishlist
+ * changed are recounted. Deleted orders, and any order whose items committed after a later
+ * order was already read, are picked up by the full rebuild every
+ * similar.fullRebuildIntervalMs.
+ *
+ * Similar-product lookups pick a few of a product's best neighbours at random, so the page
+ * varies between visits, and fill up with other products from the same category.
+ */
+public class SimilarProductsService
+{
+    // Neighbours and also-bought products kept per product
+    private static final int MAX_NEIGHBORS = 24;
+    // Order rows read per query while catching up on order history
+    private static final int ORDER_CHUNK_ROWS = 10_000;
+    // Lookups pick from the best (limit * this) neighbours
+    private static final int SAMPLE_POOL_FACTOR = 3;
+    // Only this many products of one order or wishlist are paired up, so a huge basket
+    // can't add a quadratic number of pairs
+    private static final int MAX_BASKET_SIZE = 50;
+    private static final int PURCHASE_WEIGHT = 3;
+    private static final int WISHLIST_WEIGHT = 2;
+    private static final int SAME_CATEGORY_WEIGHT = 1;
+
+    private static SimilarProductsService instance;
+
+    private final ProductDAO productDAO;
+    private final OrderItemDAO orderItemDAO;
+    private final WishlistDAO wishlistDAO;
+    private final long fullRebuildIntervalMs;
+    private final ScheduledExecutorService executor;
+
+    // Refresh state, only touched on the executor thread
+    private final SparseCountMatrix coPurchases;
+    private final SparseCountMatrix coWishlists;
+    private Map<Integer, Set<Integer>> wishlistsByUser = new HashMap<>();
+    private int lastOrderId;
+    private long lastFullRebuild;
+
+    // What lookups read; replaced as a whole by each refresh, null until the first one
+    private volatile Snapshot snapshot;
+
+    public SimilarProductsService(ProductDAO productDAO, OrderItemDAO orderItemDAO, WishlistDAO wishlistDAO,
+                                  int maxPairsPerProduct, long refreshIntervalMs, long fullRebuildIntervalMs)
+    {
+        this.productDAO = productDAO;
+        this.orderItemDAO = orderItemDAO;
+        this.wishlistDAO = wishlistDAO;
+        this.coPurchases = new SparseCountMatrix(maxPairsPerProduct);
+        this.coWishlists = new SparseCountMatrix(maxPairsPerProduct);
+        this.fullRebuildIntervalMs = fullRebuildIntervalMs;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "similar-products");
+            t.setDaemon(true);
+            return t;
+        });
+        if (refreshIntervalMs > 0) {
+            executor.scheduleWithFixedDelay(this::refresh, 0, refreshIntervalMs, TimeUnit.MILLISECONDS);
+        } else {
+            executor.execute(this::refresh);
+        }
+    }
+
+    /**
+     * The application-wide instance; the first call starts building the lists in the background
+     */
+    public static synchronized SimilarProductsService getInstance()
+    {
+        if (instance == null) {
+            instance = new SimilarProductsService(CachingProductDAO.getInstance(), new OrderItemDAOImpl(),
+                    new WishlistDAOImpl(), AppConfig.getSimilarMaxPairsPerProduct(),
+                    AppConfig.getSimilarRefreshIntervalMs(), AppConfig.getSimilarFullRebuildIntervalMs());
+        }
+        return instance;
+    }
+
+    /**
+     * Up to limit products to suggest alongside the given one, most related first.
+     * Until the lists are first built this falls back to the database.
+     */
+    public List<Product> getSimilarProducts(int productId, int limit)
+    {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return productDAO.getSimilarProducts(productId, limit);
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<Integer> picked = new ArrayList<>(limit);
+        int[] ranked = current.neighbors.get(productId);
+        if (ranked != null) {
+            int pool = Math.min(ranked.length, limit * SAMPLE_POOL_FACTOR);
+            int take = Math.min(limit, pool);
+            // Partial shuffle of the pool's positions, then keep the picks in rank order
+            int[] positions = new int[pool];
+            for (int i = 0; i < pool; i++) {
+                positions[i] = i;
+            }
+            for (int i = 0; i < take; i++) {
+                int j = i + random.nextInt(pool - i);
+                int swap = positions[i];
+                positions[i] = positions[j];
+                positions[j] = swap;
+            }
+            Arrays.sort(positions, 0, take);
+            for (int i = 0; i < take; i++) {
+                picked.add(ranked[positions[i]]);
+            }
+        }
+
+        Integer categoryId = current.categoryByProduct.get(productId);
+        int[] peers = categoryId != null ? current.productsByCategory.get(categoryId) : null;
+        if (peers != null && picked.size() < limit) {
+            // Fill from the category, starting at a random product
+            int start = random.nextInt(peers.length);
+            for (int i = 0; i < peers.length && picked.size() < limit; i++) {
+                int peer = peers[(start + i) % peers.length];
+                if (peer != productId && !picked.contains(peer)) {
+                    picked.add(peer);
+                }
+            }
+        }
+
+        return load(picked);
+    }
+
+    /**
+     * Up to limit products most often bought together with the given one, most often first.
+     * Empty until the lists are first built.
+     */
+    public List<Product> getAlsoBought(int productId, int limit)
+    {
+        Snapshot current = snapshot;
+        Ranking ranking = current != null ? current.alsoBought.get(productId) : null;
+        if (ranking == null) {
+            return new ArrayList<>();
+        }
+        List<Integer> picked = new ArrayList<>(limit);
+        for (int i = 0; i < ranking.productIds.length && picked.size() < limit; i++) {
+            picked.add(ranking.productIds[i]);
+        }
+        return load(picked);
+    }
+
+    /**
+     * Up to limit products most often bought together with any of the given ones (e.g. a
+     * cart), not counting the given ones themselves
+     */
+    public List<Product> getAlsoBought(Collection<Integer> productIds, int limit)
+    {
+        Snapshot current = snapshot;
+        if (current == null || productIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (Integer productId : productIds) {
+            Ranking ranking = current.alsoBought.get(productId);
+            if (ranking != null) {
+                for (int i = 0; i < ranking.productIds.length; i++) {
+                    counts.merge(ranking.productIds[i], ranking.counts[i], Integer::sum);
+                }
+            }
+        }
+        counts.keySet().removeAll(productIds);
+        List<Integer> picked = counts.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+        return load(picked);
+    }
+
+    // The products with the given ids, in that order, skipping any that have been deleted
+    private List<Product> load(List<Integer> productIds)
+    {
+        Map<Integer, Product> products = productDAO.getProductsByIds(productIds);
+        List<Product> result = new ArrayList<>(productIds.size());
+        for (Integer id : productIds) {
+            Product product = products.get(id);
+            if (product != null) {
+                result.add(product);
+            }
+        }
+        return result;
+    }
+
+    private void refresh()
+    {
+        try {
+            long now = System.currentTimeMillis();
+            Snapshot previous = snapshot;
+            boolean full = previous == null || now - lastFullRebuild >= fullRebuildIntervalMs;
+            if (full) {
+                coPurchases.clear();
+                coWishlists.clear();
+                wishlistsByUser = new HashMap<>();
+                lastOrderId = 0;
+            }
+
+            Set<Integer> changed = new HashSet<>();
+            readOrders(changed);
+            readWishlists(changed);
+
+            Map<Integer, Integer> categoryByProduct = new HashMap<>();
+            Map<Integer, List<Integer>> productIdsByCategory = new HashMap<>();
+            for (Product product : productDAO.getAllProduct()) {
+                // Uncategorised products are kept with a null category
+                categoryByProduct.put(product.getId(), product.getCategory_id());
+                if (product.getCategory_id() != null) {
+                    productIdsByCategory.computeIfAbsent(product.getCategory_id(), k -> new ArrayList<>())
+                            .add(product.getId());
+                }
+            }
+
+            Map<Integer, int[]> neighbors;
+            Map<Integer, Ranking> alsoBought;
+            if (full || !previous.categoryByProduct.equals(categoryByProduct)) {
+                // Categories feed into the ranking, so a catalog change re-ranks everything
+                neighbors = new HashMap<>();
+                alsoBought = new HashMap<>();
+                Set<Integer> related = new HashSet<>();
+                for (int productId : coPurchases.rowKeys()) {
+                    related.add(productId);
+                }
+                for (int productId : coWishlists.rowKeys()) {
+                    related.add(productId);
+                }
+                for (Integer productId : related) {
+                    rank(productId, categoryByProduct, neighbors, alsoBought);
+                }
+                if (full) {
+                    lastFullRebuild = now;
+                }
+            } else if (!changed.isEmpty()) {
+                neighbors = new HashMap<>(previous.neighbors);
+                alsoBought = new HashMap<>(previous.alsoBought);
+                for (Integer productId : changed) {
+                    rank(productId, categoryByProduct, neighbors, alsoBought);
+                }
+            } else {
+                return;
+            }
+
+            Map<Integer, int[]> productsByCategory = new HashMap<>();
+            for (Map.Entry<Integer, List<Integer>> entry : productIdsByCategory.entrySet()) {
+                productsByCategory.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+            }
+            snapshot = new Snapshot(neighbors, alsoBought, categoryByProduct, productsByCategory);
+        } catch (RuntimeException e) {
+            System.err.println("Error refreshing similar products: " + e.getMessage());
+        }
+    }
+
+    private void readOrders(Set<Integer> changed)
+    {
+        // A chunk at a time, so catching up on years of orders never holds them all in memory
+        while (true) {
+            Map<Integer, List<Integer>> productIdsByOrder =
+                    orderItemDAO.getProductIdsByOrderAfter(lastOrderId, ORDER_CHUNK_ROWS);
+            if (productIdsByOrder.isEmpty()) {
+                return;
+            }
+            for (Map.Entry<Integer, List<Integer>> order : productIdsByOrder.entrySet()) {
+                countPairs(coPurchases, order.getValue(), 1, changed);
+                lastOrderId = Math.max(lastOrderId, order.getKey());
+            }
+        }
+    }
+
+    private void readWishlists(Set<Integer> changed)
+    {
+        Map<Integer, Set<Integer>> current = new HashMap<>();
+        for (Map.Entry<Integer, List<Integer>> wishlist : wishlistDAO.getProductIdsByUser().entrySet()) {
+            current.put(wishlist.getKey(), new HashSet<>(wishlist.getValue()));
+        }
+        Set<Integer> users = new HashSet<>(wishlistsByUser.keySet());
+        users.addAll(current.keySet());
+        for (Integer userId : users) {
+            Set<Integer> before = wishlistsByUser.get(userId);
+            Set<Integer> after = current.get(userId);
+            if (Objects.equals(before, after)) {
+                continue;
+            }
+            if (before != null) {
+                countPairs(coWishlists, before, -1, changed);
+            }
+            if (after != null) {
+                countPairs(coWishlists, after, 1, changed);
+            }
+        }
+        wishlistsByUser = current;
+    }
+
+    /**
+     * Add delta to the count of every pair of products in the basket
+     */
+    private static void countPairs(SparseCountMatrix counts, Collection<Integer> basket, int delta,
+                                   Set<Integer> changed)
+    {
+        // Sorted, so that removing a basket takes back exactly the pairs adding it counted
+        int[] productIds = basket.stream().mapToInt(Integer::intValue).distinct().sorted()
+                .limit(MAX_BASKET_SIZE).toArray();
+        if (productIds.length < 2) {
+            return;
+        }
+        for (int a : productIds) {
+            for (int b : productIds) {
+                if (a != b) {
+                    counts.add(a, b, delta);
+                }
+            }
+            changed.add(a);
+        }
+    }
+
+    /**
+     * Recompute one product's neighbour and also-bought lists from the pair counts
+     */
+    private void rank(int productId, Map<Integer, Integer> categoryByProduct, Map<Integer, int[]> neighbors,
+                      Map<Integer, Ranking> alsoBought)
+    {
+        neighbors.remove(productId);
+        alsoBought.remove(productId);
+        if (!categoryByProduct.containsKey(productId)) {
+            // No longer in the catalog
+            return;
+        }
+        Integer categoryId = categoryByProduct.get(productId);
+        Map<Integer, Integer> scores = new HashMap<>();
+        coPurchases.forEach(productId, (other, count) -> scores.merge(other, count * PURCHASE_WEIGHT, Integer::sum));
+        coWishlists.forEach(productId, (other, count) -> scores.merge(other, count * WISHLIST_WEIGHT, Integer::sum));
+
+        // Packed as (inverted score, id) so an ascending sort is best first, ties by id
+        long[] packed = new long[scores.size()];
+        int count = 0;
+        for (Map.Entry<Integer, Integer> entry : scores.entrySet()) {
+            if (!categoryByProduct.containsKey(entry.getKey())) {
+                continue;
+            }
+            boolean sameCategory = categoryId != null && categoryId.equals(categoryByProduct.get(entry.getKey()));
+            int score = entry.getValue() + (sameCategory ? SAME_CATEGORY_WEIGHT : 0);
+            packed[count++] = ((long) (Integer.MAX_VALUE - score) << 32) | entry.getKey();
+        }
+        if (count > 0) {
+            Arrays.sort(packed, 0, count);
+            int[] ranked = new int[Math.min(count, MAX_NEIGHBORS)];
+            for (int i = 0; i < ranked.length; i++) {
+                ranked[i] = (int) packed[i];
+            }
+            neighbors.put(productId, ranked);
+        }
+
+        int[] boughtIds = new int[MAX_NEIGHBORS];
+        int[] boughtCounts = new int[MAX_NEIGHBORS];
+        int bought = 0;
+        int top = coPurchases.top(productId, MAX_NEIGHBORS, boughtIds, boughtCounts);
+        for (int i = 0; i < top; i++) {
+            if (categoryByProduct.containsKey(boughtIds[i])) {
+                boughtIds[bought] = boughtIds[i];
+                boughtCounts[bought] = boughtCounts[i];
+                bought++;
+            }
+        }
+        if (bought > 0) {
+            alsoBought.put(productId, new Ranking(Arrays.copyOf(boughtIds, bought), Arrays.copyOf(boughtCounts, bought)));
+        }
+    }
+
+    private static final class Snapshot
+    {
+        // Best neighbours first, for products that share any order or wishlist
+        private final Map<Integer, int[]> neighbors;
+        private final Map<Integer, Ranking> alsoBought;
+        private final Map<Integer, Integer> categoryByProduct;
+        private final Map<Integer, int[]> productsByCategory;
+
+        private Snapshot(Map<Integer, int[]> neighbors, Map<Integer, Ranking> alsoBought,
+                         Map<Integer, Integer> categoryByProduct, Map<Integer, int[]> productsByCategory)
+        {
+            this.neighbors = neighbors;
+            this.alsoBought = alsoBought;
+            this.categoryByProduct = categoryByProduct;
+            this.productsByCategory = productsByCategory;
+        }
+    }
+
+    // Products bought together with one product, most often first, with how many orders had both
+    private static final class Ranking
+    {
+        private final int[] productIds;
+        private final int[] counts;
+
+        private Ranking(int[] productIds, int[] counts)
+        {
+            this.productIds = productIds;
+            this.counts = counts;
+        }
+    }
+}
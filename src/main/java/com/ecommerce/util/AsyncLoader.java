@@ -0,0 +1,224 @@
+package com.ecommerce.util;
+
+import java.awt.Component;
+import java.awt.event.HierarchyEvent;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import javax.swing.JLabel;
+import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
+
+/**
+ * Runs view data loading (DAO calls) off the Event Dispatch Thread.
+ *
+ * The work runs on a small background pool; the result is handed back on the EDT. Views
+ * keep one {@link Slot} per thing they load: starting a new load in a slot, or cancelling
+ * it when the view is hidden, makes sure a slow, stale result never overwrites a newer one.
+ *
+ * Time spent applying results on the EDT is recorded per load name, see {@link #getStats()};
+ * anything over 50 ms is also logged, since that is when the UI starts to feel stuck.
+ */
+public final class AsyncLoader {
+
+    private static final long SLOW_EDT_NANOS = 50_000_000L;
+    private static final int THREADS = 4;
+
+    private static final AtomicInteger threadNumber = new AtomicInteger();
+    private static final ExecutorService executor = Executors.newFixedThreadPool(THREADS, r -> {
+        Thread t = new Thread(r, "view-loader-" + threadNumber.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+    private static final Map<String, Stats> stats = new ConcurrentHashMap<>();
+
+    private AsyncLoader() {
+    }
+
+    /**
+     * Run a task in the background and hand its result to the EDT. Use a {@link Slot}
+     * instead when a newer load should replace this one.
+     */
+    public static <T> void load(String name, Callable<T> task, Consumer<T> onLoaded) {
+        new Slot(name).load(task, onLoaded);
+    }
+
+    /**
+     * @param onError called on the EDT if the task throws; when null the error is logged
+     */
+    public static <T> void load(String name, Callable<T> task, Consumer<T> onLoaded, Consumer<Exception> onError) {
+        new Slot(name).load(task, onLoaded, onError);
+    }
+
+    /**
+     * Run background work (typically a write) whose result nobody waits for
+     */
+    public static void run(String name, Runnable task) {
+        load(name, () -> {
+            task.run();
+            return null;
+        }, result -> { });
+    }
+
+    /**
+     * A label to show where data will appear once loaded
+     */
+    public static JLabel placeholder(String text) {
+        JLabel label = new JLabel(text, SwingConstants.CENTER);
+        label.setFont(FontManager.getRegular(14f));
+        label.setForeground(ThemeManager.SECONDARY_TEXT_COLOR);
+        label.setAlignmentX(Component.CENTER_ALIGNMENT);
+        return label;
+    }
+
+    /**
+     * Cancel the slots' loads whenever the component stops being shown, e.g. when the user
+     * switches to another panel or closes the window
+     */
+    public static void cancelWhenHidden(Component component, Slot... slots) {
+        component.addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0 && !component.isShowing()) {
+                for (Slot slot : slots) {
+                    slot.cancel();
+                }
+            }
+        });
+    }
+
+    /**
+     * Snapshot of load statistics, by load name
+     */
+    public static Map<String, Stats> getStats() {
+        return new TreeMap<>(stats);
+    }
+
+    /**
+     * One thing a view loads. Starting a load cancels the slot's previous load, so only the
+     * newest result is ever applied.
+     */
+    public static final class Slot {
+        private final String name;
+        private final AtomicLong generation = new AtomicLong();
+        private volatile Future<?> current;
+
+        public Slot(String name) {
+            this.name = name;
+        }
+
+        public <T> void load(Callable<T> task, Consumer<T> onLoaded) {
+            load(task, onLoaded, null);
+        }
+
+        /**
+         * @param onError called on the EDT if the task throws; when null the error is logged
+         */
+        public <T> void load(Callable<T> task, Consumer<T> onLoaded, Consumer<Exception> onError) {
+            cancel();
+            long loadGeneration = generation.get();
+            Stats loadStats = stats.computeIfAbsent(name, k -> new Stats());
+
+            current = executor.submit(() -> {
+                long start = System.nanoTime();
+                T result = null;
+                Exception error = null;
+                try {
+                    result = task.call();
+                } catch (Exception e) {
+                    error = e;
+                }
+                loadStats.recordBackground(System.nanoTime() - start);
+
+                T loaded = result;
+                Exception failure = error;
+                SwingUtilities.invokeLater(() -> {
+                    if (generation.get() != loadGeneration) {
+                        // Cancelled or replaced by a newer load while running
+                        loadStats.recordStale();
+                        return;
+                    }
+                    current = null;
+                    long edtStart = System.nanoTime();
+                    try {
+                        if (failure == null) {
+                            onLoaded.accept(loaded);
+                        } else if (onError != null) {
+                            onError.accept(failure);
+                        } else {
+                            System.err.println("Error loading " + name + ": " + failure.getMessage());
+                            failure.printStackTrace();
+                        }
+                    } finally {
+                        long edtNanos = System.nanoTime() - edtStart;
+                        loadStats.recordEdt(edtNanos, failure != null);
+                        if (edtNanos > SLOW_EDT_NANOS) {
+                            System.err.println("Slow UI update for " + name + ": " + (edtNanos / 1_000_000) + " ms on the EDT");
+                        }
+                    }
+                });
+            });
+        }
+
+        /**
+         * Drop the in-flight load, if any. A load that already started still runs to the end,
+         * but its result is discarded.
+         */
+        public void cancel() {
+            generation.incrementAndGet();
+            Future<?> running = current;
+            if (running != null) {
+                running.cancel(false);
+                current = null;
+            }
+        }
+    }
+
+    /**
+     * Counters for one load name. Times are in milliseconds.
+     */
+    public static final class Stats {
+        private long loads;
+        private long errors;
+        private long stale;
+        private long backgroundNanos;
+        private long edtNanos;
+        private long maxEdtNanos;
+
+        private synchronized void recordBackground(long nanos) {
+            backgroundNanos += nanos;
+        }
+
+        private synchronized void recordEdt(long nanos, boolean failed) {
+            loads++;
+            if (failed) {
+                errors++;
+            }
+            edtNanos += nanos;
+            maxEdtNanos = Math.max(maxEdtNanos, nanos);
+        }
+
+        private synchronized void recordStale() {
+            stale++;
+        }
+
+        public synchronized long getLoads() { return loads; }
+        public synchronized long getErrors() { return errors; }
+        public synchronized long getStale() { return stale; }
+        public synchronized double getBackgroundMs() { return backgroundNanos / 1_000_000.0; }
+        public synchronized double getEdtMs() { return edtNanos / 1_000_000.0; }
+        public synchronized double getMaxEdtMs() { return maxEdtNanos / 1_000_000.0; }
+
+        @Override
+        public synchronized String toString() {
+            return String.format("loads=%d, errors=%d, stale=%d, background=%.1f ms, edt=%.1f ms, maxEdt=%.1f ms",
+                    loads, errors, stale, getBackgroundMs(), getEdtMs(), getMaxEdtMs());
+        }
+    }
+}
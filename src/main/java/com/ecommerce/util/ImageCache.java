@@ -0,0 +1,273 @@
+package com.ecommerce.util;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.swing.ImageIcon;
+import javax.swing.SwingUtilities;
+
+import com.ecommerce.config.AppConfig;
+
+/**
+ * Shared cache of scaled images (product thumbnails and UI icons).
+ *
+ * Thumbnails are keyed by their candidate sources and target size, and the cache is bounded
+ * by the pixel bytes it holds. Sources that turned out to have no image are remembered for a
+ * while too, so views don't probe the same missing files over and over. Once an image has been
+ * seen, showing it again never touches disk.
+ *
+ * A source is a classpath resource (e.g. "/icons/cart.png") or a file path; the first
+ * candidate that exists is used. Product images loaded with {@link #loadAsync} are also kept
+ * in a {@link ThumbnailStore} on disk, so a later start reads the small thumbnail instead of
+ * decoding the original again.
+ */
+public final class ImageCache {
+
+    private static final int DECODER_THREADS = 2;
+    private static final int MAX_MISSING_ENTRIES = 4096;
+
+    private static ImageCache instance;
+
+    private final LruCache<String, ImageIcon> thumbnails;
+    private final LruCache<String, Boolean> missing;
+    private final ThumbnailStore thumbnailStore;
+    private final ExecutorService decoder;
+    // Callbacks waiting for a decode that is already running, by key
+    private final Map<String, List<Consumer<ImageIcon>>> inFlight = new HashMap<>();
+
+    private ImageCache(long maxBytes, long missingTtlMs, ThumbnailStore thumbnailStore) {
+        this.thumbnailStore = thumbnailStore;
+        this.thumbnails = new LruCache<>(maxBytes, 0,
+                icon -> (long) icon.getIconWidth() * icon.getIconHeight() * 4);
+        this.missing = new LruCache<>(MAX_MISSING_ENTRIES, missingTtlMs);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.decoder = Executors.newFixedThreadPool(DECODER_THREADS, r -> {
+            Thread t = new Thread(r, "image-decoder-" + threadNumber.incrementAndGet());
+            t.setDaemon(true);
+            t.setPriority(Thread.NORM_PRIORITY - 1);
+            return t;
+        });
+    }
+
+    public static synchronized ImageCache getInstance() {
+        if (instance == null) {
+            String thumbnailDir = AppConfig.getImageThumbnailDir();
+            instance = new ImageCache(AppConfig.getImageCacheMaxBytes(), AppConfig.getImageCacheMissingTtlMs(),
+                    thumbnailDir.isEmpty() ? null : new ThumbnailStore(new File(thumbnailDir)));
+        }
+        return instance;
+    }
+
+    /**
+     * The cached image, or null if it hasn't been decoded yet (or doesn't exist). Never
+     * touches disk, so it is safe to call while building UI on the EDT.
+     */
+    public ImageIcon getIfCached(int width, int height, String... sources) {
+        return thumbnails.get(key(width, height, sources));
+    }
+
+    /**
+     * Get the image, decoding it on the calling thread if needed. Meant for small UI icons;
+     * use {@link #loadAsync} for product images.
+     *
+     * @return the scaled image, or null if none of the sources exist
+     */
+    public ImageIcon getIcon(int width, int height, String... sources) {
+        String key = key(width, height, sources);
+        ImageIcon icon = thumbnails.get(key);
+        if (icon != null || missing.containsKey(key)) {
+            return icon;
+        }
+        return decodeAndStore(key, width, height, false, sources);
+    }
+
+    /**
+     * Same as {@link #getIcon(int, int, String...)} for a resource already looked up
+     */
+    public ImageIcon getIcon(URL url, int width, int height) {
+        return getIcon(width, height, url.toExternalForm());
+    }
+
+    /**
+     * Decode the image in the background and hand it to the EDT; null is passed when none
+     * of the sources exist. Cached (and known missing) images are handed over right away.
+     */
+    public void loadAsync(int width, int height, Consumer<ImageIcon> onLoaded, String... sources) {
+        String key = key(width, height, sources);
+        ImageIcon cached = thumbnails.get(key);
+        if (cached != null || missing.containsKey(key)) {
+            onLoaded.accept(cached);
+            return;
+        }
+
+        synchronized (inFlight) {
+            List<Consumer<ImageIcon>> waiting = inFlight.get(key);
+            if (waiting != null) {
+                waiting.add(onLoaded);
+                return;
+            }
+            waiting = new ArrayList<>();
+            waiting.add(onLoaded);
+            inFlight.put(key, waiting);
+        }
+
+        decoder.execute(() -> {
+            ImageIcon icon = decodeAndStore(key, width, height, true, sources);
+            List<Consumer<ImageIcon>> callbacks;
+            synchronized (inFlight) {
+                callbacks = inFlight.remove(key);
+            }
+            SwingUtilities.invokeLater(() -> {
+                for (Consumer<ImageIcon> callback : callbacks) {
+                    callback.accept(icon);
+                }
+            });
+        });
+    }
+
+    /**
+     * Write out the thumbnail store's pending index entries, if the cache was ever used. Called
+     * at shutdown.
+     */
+    public static synchronized void flushInstance() {
+        if (instance != null && instance.thumbnailStore != null) {
+            instance.thumbnailStore.flush();
+        }
+    }
+
+    public LruCache.Stats getStats() {
+        return thumbnails.getStats();
+    }
+
+    /**
+     * @param persist whether to use the on-disk thumbnail store; not worth it for small icons
+     */
+    private ImageIcon decodeAndStore(String key, int width, int height, boolean persist, String... sources) {
+        ThumbnailStore store = persist ? thumbnailStore : null;
+        for (String source : sources) {
+            URL url = resolve(source);
+            if (url == null) {
+                continue;
+            }
+            try {
+                BufferedImage thumbnail = store != null ? store.load(url, width, height) : null;
+                if (thumbnail == null) {
+                    BufferedImage image = read(url, width, height);
+                    if (image != null) {
+                        thumbnail = scale(image, width, height);
+                        if (store != null) {
+                            store.save(url, width, height, thumbnail);
+                        }
+                    }
+                }
+                if (thumbnail != null) {
+                    ImageIcon icon = new ImageIcon(thumbnail);
+                    thumbnails.put(key, icon);
+                    return icon;
+                }
+            } catch (IOException e) {
+                System.err.println("Failed to load image from: " + source + " - " + e.getMessage());
+            }
+        }
+        missing.put(key, Boolean.TRUE);
+        return null;
+    }
+
+    private static URL resolve(String source) {
+        if (source == null || source.isEmpty()) {
+            return null;
+        }
+        if (source.contains(":/")) {
+            try {
+                return new URL(source);
+            } catch (MalformedURLException e) {
+                // Not a URL; try it as a resource or file below
+            }
+        }
+        URL url = source.startsWith("/") ? ImageCache.class.getResource(source) : null;
+        if (url == null) {
+            File file = new File(source);
+            if (file.isFile()) {
+                try {
+                    url = file.toURI().toURL();
+                } catch (MalformedURLException e) {
+                    return null;
+                }
+            }
+        }
+        return url;
+    }
+
+    /**
+     * Decode an image, skipping pixels the thumbnail won't need: anything beyond twice the
+     * target size is subsampled away while decoding, which keeps a multi-megapixel original
+     * from ever being held in memory at full size.
+     */
+    private static BufferedImage read(URL url, int width, int height) throws IOException {
+        try (InputStream raw = url.openStream();
+             ImageInputStream in = ImageIO.createImageInputStream(raw)) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int step = Math.max(1, Math.min(reader.getWidth(0) / (2 * width), reader.getHeight(0) / (2 * height)));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Scale to exactly the given size. Large images are first halved repeatedly with bilinear
+     * filtering, which looks close to SCALE_SMOOTH at a fraction of the cost.
+     */
+    static BufferedImage scale(BufferedImage source, int width, int height) {
+        BufferedImage current = source;
+        int currentWidth = source.getWidth();
+        int currentHeight = source.getHeight();
+        while (currentWidth / 2 >= width && currentHeight / 2 >= height) {
+            currentWidth /= 2;
+            currentHeight /= 2;
+            current = draw(current, currentWidth, currentHeight);
+        }
+        return draw(current, width, height);
+    }
+
+    private static BufferedImage draw(BufferedImage source, int width, int height) {
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = scaled.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(source, 0, 0, width, height, null);
+        g.dispose();
+        return scaled;
+    }
+
+    private static String key(int width, int height, String... sources) {
+        return width + "x" + height + ":" + String.join("|", sources);
+    }
+}
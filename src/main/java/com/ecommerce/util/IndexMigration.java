@@ -0,0 +1,91 @@
+package com.ecommerce.util;
+
+import com.ecommerce.config.DBConnection;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Utility class to create the secondary indexes the application's queries rely on
+ */
+public class IndexMigration {
+    
+    private static final Logger LOGGER = Logger.getLogger(IndexMigration.class.getName());
+    
+    /**
+     * Create any missing indexes
+     */
+    public static void createIndexes() {
+        Connection conn = null;
+        try {
+            conn = DBConnection.getConnection();
+            
+            // Order status scheduler: open orders by status, oldest first
+            ensureIndex(conn, "orders", "idx_orders_status_order_date", "status, order_date");
+            
+            // Similar products: category neighbours by id, and each order's products
+            ensureIndex(conn, "products", "idx_products_category_id", "category_id, id");
+            ensureIndex(conn, "order_items", "idx_order_items_order_product", "order_id, product_id");
+            
+            // Product listing pages, continued from the last (price, id) or (name, id) shown
+            ensureIndex(conn, "products", "idx_products_price_id", "price, id");
+            ensureIndex(conn, "products", "idx_products_name_id", "name, id");
+            
+            // A user's wishlisted product ids, read from the index alone
+            ensureIndex(conn, "wishlist", "idx_wishlist_user_product", "user_id, product_id");
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error checking/creating indexes: " + e.getMessage(), e);
+        } finally {
+            if (conn != null) {
+                DBConnection.releaseConnection(conn);
+            }
+        }
+    }
+    
+    private static void ensureIndex(Connection conn, String tableName, String indexName, String columns) throws SQLException {
+        if (indexExists(conn, tableName, indexName)) {
+            LOGGER.fine("Index " + indexName + " already exists on " + tableName);
+            return;
+        }
+        
+        LOGGER.info("Creating index " + indexName + " on " + tableName + " (" + columns + ")");
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE INDEX " + indexName + " ON " + tableName + " (" + columns + ")");
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Error creating index " + indexName + ": " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Check if an index exists on a table
+     */
+    private static boolean indexExists(Connection conn, String tableName, String indexName) throws SQLException {
+        DatabaseMetaData metadata = conn.getMetaData();
+        try (ResultSet rs = metadata.getIndexInfo(null, null, tableName, false, true)) {
+            while (rs.next()) {
+                if (indexName.equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Execute this method to run the migration
+     */
+    public static void main(String[] args) {
+        try {
+            System.out.println("Creating indexes...");
+            createIndexes();
+            System.out.println("Migration completed");
+        } catch (Exception e) {
+            System.err.println("Error running migration: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.ecommerce.util;
+
+import java.util.Arrays;
+
+/**
+ * Set of ints in an open-addressing array, without boxing each member.
+ *
+ * Not thread-safe.
+ */
+public final class IntHashSet {
+
+    // Marks a free slot, so it can't be a member
+    private static final int FREE = Integer.MIN_VALUE;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] slots;
+    private int size;
+
+    public IntHashSet() {
+        clear();
+    }
+
+    public IntHashSet(int expectedSize) {
+        int capacity = INITIAL_CAPACITY;
+        while (capacity * 2 < expectedSize * 3) {
+            capacity *= 2;
+        }
+        slots = new int[capacity];
+        Arrays.fill(slots, FREE);
+    }
+
+    public boolean contains(int value) {
+        return value != FREE && slots[find(value)] == value;
+    }
+
+    /**
+     * @return whether the value was added, i.e. wasn't already there
+     */
+    public boolean add(int value) {
+        if (value == FREE) {
+            throw new IllegalArgumentException("Value out of range: " + value);
+        }
+        int slot = find(value);
+        if (slots[slot] == value) {
+            return false;
+        }
+        if ((size + 1) * 3 > slots.length * 2) {
+            rehash(slots.length * 2);
+            slot = find(value);
+        }
+        slots[slot] = value;
+        size++;
+        return true;
+    }
+
+    /**
+     * @return whether the value was there
+     */
+    public boolean remove(int value) {
+        if (value == FREE) {
+            return false;
+        }
+        int slot = find(value);
+        if (slots[slot] != value) {
+            return false;
+        }
+        // Backward-shift deletion, so probe chains stay unbroken without tombstones
+        int mask = slots.length - 1;
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (slots[next] != FREE) {
+            int home = hash(slots[next]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                slots[gap] = slots[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        slots[gap] = FREE;
+        size--;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        slots = new int[INITIAL_CAPACITY];
+        Arrays.fill(slots, FREE);
+        size = 0;
+    }
+
+    // Slot holding the value, or the free slot where it would go
+    private int find(int value) {
+        int mask = slots.length - 1;
+        int slot = hash(value) & mask;
+        while (slots[slot] != FREE && slots[slot] != value) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash(int capacity) {
+        int[] old = slots;
+        slots = new int[capacity];
+        Arrays.fill(slots, FREE);
+        for (int value : old) {
+            if (value != FREE) {
+                slots[find(value)] = value;
+            }
+        }
+    }
+
+    private static int hash(int value) {
+        int h = value * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
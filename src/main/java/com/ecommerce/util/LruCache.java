@@ -0,0 +1,238 @@
+package com.ecommerce.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Thread-safe, bounded LRU cache with optional time-to-live.
+ *
+ * The bound is a total weight: by default every entry weighs 1, so the bound is an entry
+ * count, but a weigher can be supplied to bound e.g. bytes instead. Least recently used
+ * entries are evicted first once the bound is exceeded.
+ */
+public class LruCache<K, V>
+{
+    private final long maxWeight;
+    private final long ttlMs;
+    private final ToLongFunction<V> weigher;
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long currentWeight = 0;
+
+    // Statistics
+    private long hitCount = 0;
+    private long missCount = 0;
+    private long evictionCount = 0;
+    private long expirationCount = 0;
+    private long invalidationCount = 0;
+
+    /**
+     * @param maxEntries maximum number of entries
+     * @param ttlMs how long an entry stays valid after it is stored (0 = no expiry)
+     */
+    public LruCache(int maxEntries, long ttlMs)
+    {
+        this(maxEntries, ttlMs, value -> 1L);
+    }
+
+    /**
+     * @param maxWeight maximum total weight of all entries
+     * @param ttlMs how long an entry stays valid after it is stored (0 = no expiry)
+     * @param weigher weight of a single value
+     */
+    public LruCache(long maxWeight, long ttlMs, ToLongFunction<V> weigher)
+    {
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("Cache max weight must be positive: " + maxWeight);
+        }
+        this.maxWeight = maxWeight;
+        this.ttlMs = ttlMs;
+        this.weigher = weigher;
+    }
+
+    /**
+     * Returns the cached value, or null if absent or expired
+     */
+    public synchronized V get(K key)
+    {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            missCount++;
+            return null;
+        }
+        if (entry.isExpired(System.currentTimeMillis())) {
+            remove(key);
+            expirationCount++;
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        return entry.value;
+    }
+
+    /**
+     * Like {@link #get} but doesn't touch LRU order or statistics
+     */
+    public synchronized boolean containsKey(K key)
+    {
+        Entry<V> entry = entries.get(key);
+        return entry != null && !entry.isExpired(System.currentTimeMillis());
+    }
+
+    public synchronized void put(K key, V value)
+    {
+        if (value == null) {
+            invalidate(key);
+            return;
+        }
+        long weight = Math.max(0, weigher.applyAsLong(value));
+        if (weight > maxWeight) {
+            // Would evict everything else and still not fit
+            return;
+        }
+        Entry<V> previous = entries.put(key, new Entry<>(value, weight,
+                ttlMs > 0 ? System.currentTimeMillis() + ttlMs : Long.MAX_VALUE));
+        if (previous != null) {
+            currentWeight -= previous.weight;
+        }
+        currentWeight += weight;
+        evictToFit();
+    }
+
+    public synchronized void invalidate(K key)
+    {
+        if (remove(key)) {
+            invalidationCount++;
+        }
+    }
+
+    public synchronized void invalidateIf(Predicate<K> keyFilter)
+    {
+        Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<K, Entry<V>> e = it.next();
+            if (keyFilter.test(e.getKey())) {
+                currentWeight -= e.getValue().weight;
+                it.remove();
+                invalidationCount++;
+            }
+        }
+    }
+
+    public synchronized void invalidateAll()
+    {
+        invalidationCount += entries.size();
+        entries.clear();
+        currentWeight = 0;
+    }
+
+    public synchronized int size()
+    {
+        return entries.size();
+    }
+
+    public synchronized Stats getStats()
+    {
+        return new Stats(entries.size(), currentWeight, maxWeight, hitCount, missCount,
+                evictionCount, expirationCount, invalidationCount);
+    }
+
+    private boolean remove(K key)
+    {
+        Entry<V> removed = entries.remove(key);
+        if (removed != null) {
+            currentWeight -= removed.weight;
+            return true;
+        }
+        return false;
+    }
+
+    private void evictToFit()
+    {
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+        while (currentWeight > maxWeight && it.hasNext()) {
+            Entry<V> eldest = it.next().getValue();
+            currentWeight -= eldest.weight;
+            it.remove();
+            if (eldest.isExpired(now)) {
+                expirationCount++;
+            } else {
+                evictionCount++;
+            }
+        }
+    }
+
+    private static final class Entry<V>
+    {
+        private final V value;
+        private final long weight;
+        private final long expiresAt;
+
+        private Entry(V value, long weight, long expiresAt)
+        {
+            this.value = value;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now)
+        {
+            return now >= expiresAt;
+        }
+    }
+
+    /**
+     * Point-in-time snapshot of cache size and hit/miss/eviction counters.
+     */
+    public static final class Stats
+    {
+        private final int size;
+        private final long weight;
+        private final long maxWeight;
+        private final long hitCount;
+        private final long missCount;
+        private final long evictionCount;
+        private final long expirationCount;
+        private final long invalidationCount;
+
+        private Stats(int size, long weight, long maxWeight, long hitCount, long missCount,
+                      long evictionCount, long expirationCount, long invalidationCount)
+        {
+            this.size = size;
+            this.weight = weight;
+            this.maxWeight = maxWeight;
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.evictionCount = evictionCount;
+            this.expirationCount = expirationCount;
+            this.invalidationCount = invalidationCount;
+        }
+
+        public int getSize() { return size; }
+        public long getWeight() { return weight; }
+        public long getMaxWeight() { return maxWeight; }
+        public long getHitCount() { return hitCount; }
+        public long getMissCount() { return missCount; }
+        public long getEvictionCount() { return evictionCount; }
+        public long getExpirationCount() { return expirationCount; }
+        public long getInvalidationCount() { return invalidationCount; }
+
+        public double getHitRate()
+        {
+            long requests = hitCount + missCount;
+            return requests == 0 ? 0.0 : hitCount / (double) requests;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("size=%d, weight=%d/%d, hits=%d, misses=%d, hitRate=%.1f%%, evictions=%d, "
+                            + "expirations=%d, invalidations=%d",
+                    size, weight, maxWeight, hitCount, missCount, getHitRate() * 100, evictionCount,
+                    expirationCount, invalidationCount);
+        }
+    }
+}
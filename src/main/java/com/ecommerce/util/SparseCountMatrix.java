@@ -0,0 +1,286 @@
+package com.ecommerce.util;
+
+import java.util.Arrays;
+
+/**
+ * Sparse matrix of counts keyed by int row and column, e.g. how often two products were
+ * bought together.
+ *
+ * Rows and cells live in open-addressing int arrays instead of boxed maps, so a cell costs
+ * two ints plus table slack. Memory is bounded per row: when a row grows past
+ * maxColumnsPerRow, its smallest counts are dropped until three quarters of the limit is
+ * left, ties at the cut going to the lower column. A dropped cell that is counted again starts over from zero, so counts of rare pairs
+ * are approximate while the frequent pairs that make up a top-N stay exact.
+ *
+ * Not thread-safe.
+ */
+public final class SparseCountMatrix {
+
+    /**
+     * Receives the cells of a row
+     */
+    public interface CellConsumer {
+        void accept(int column, int count);
+    }
+
+    // Marks a free slot, so it can't be used as a row or column key
+    private static final int FREE = Integer.MIN_VALUE;
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final int maxColumnsPerRow;
+    private int[] rowKeys;
+    private Row[] rows;
+    private int rowCount;
+
+    public SparseCountMatrix(int maxColumnsPerRow) {
+        if (maxColumnsPerRow < 4) {
+            throw new IllegalArgumentException("maxColumnsPerRow must be at least 4");
+        }
+        this.maxColumnsPerRow = maxColumnsPerRow;
+        clear();
+    }
+
+    public void clear() {
+        rowKeys = newKeys(INITIAL_CAPACITY);
+        rows = new Row[INITIAL_CAPACITY];
+        rowCount = 0;
+    }
+
+    /**
+     * Add delta to a cell. A cell whose count drops to zero or below is removed; a negative
+     * delta for a cell that isn't there (never counted, or dropped) is ignored.
+     */
+    public void add(int row, int column, int delta) {
+        checkKey(row);
+        checkKey(column);
+        Row cells = row(row, delta > 0);
+        if (cells != null) {
+            cells.add(column, delta, maxColumnsPerRow);
+        }
+    }
+
+    public int get(int row, int column) {
+        Row cells = row(row, false);
+        return cells != null ? cells.get(column) : 0;
+    }
+
+    /**
+     * Number of cells in a row
+     */
+    public int rowSize(int row) {
+        Row cells = row(row, false);
+        return cells != null ? cells.size : 0;
+    }
+
+    /**
+     * Keys of the rows that have any cells, in no particular order
+     */
+    public int[] rowKeys() {
+        int[] keys = new int[rowCount];
+        int count = 0;
+        for (int i = 0; i < rowKeys.length; i++) {
+            if (rowKeys[i] != FREE && rows[i].size > 0) {
+                keys[count++] = rowKeys[i];
+            }
+        }
+        return Arrays.copyOf(keys, count);
+    }
+
+    public void forEach(int row, CellConsumer consumer) {
+        Row cells = row(row, false);
+        if (cells == null) {
+            return;
+        }
+        for (int i = 0; i < cells.columns.length; i++) {
+            if (cells.columns[i] != FREE) {
+                consumer.accept(cells.columns[i], cells.counts[i]);
+            }
+        }
+    }
+
+    /**
+     * The highest counts of a row, highest first and ties by column
+     *
+     * @return how many cells were written to columns and counts (at most n)
+     */
+    public int top(int row, int n, int[] columns, int[] counts) {
+        Row cells = row(row, false);
+        if (cells == null || n <= 0) {
+            return 0;
+        }
+        long[] packed = cells.packed();
+        Arrays.sort(packed);
+        int count = Math.min(n, packed.length);
+        for (int i = 0; i < count; i++) {
+            columns[i] = (int) packed[i];
+            counts[i] = Integer.MAX_VALUE - (int) (packed[i] >>> 32);
+        }
+        return count;
+    }
+
+    private Row row(int key, boolean create) {
+        int mask = rowKeys.length - 1;
+        int slot = hash(key) & mask;
+        while (rowKeys[slot] != FREE) {
+            if (rowKeys[slot] == key) {
+                return rows[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (!create) {
+            return null;
+        }
+        if ((rowCount + 1) * 3 > rowKeys.length * 2) {
+            growRows();
+            return row(key, true);
+        }
+        Row cells = new Row();
+        rowKeys[slot] = key;
+        rows[slot] = cells;
+        rowCount++;
+        return cells;
+    }
+
+    private void growRows() {
+        int[] oldKeys = rowKeys;
+        Row[] oldRows = rows;
+        rowKeys = newKeys(oldKeys.length * 2);
+        rows = new Row[rowKeys.length];
+        int mask = rowKeys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (rowKeys[slot] != FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                rowKeys[slot] = oldKeys[i];
+                rows[slot] = oldRows[i];
+            }
+        }
+    }
+
+    private static void checkKey(int key) {
+        if (key == FREE) {
+            throw new IllegalArgumentException("Key out of range: " + key);
+        }
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int[] newKeys(int capacity) {
+        int[] keys = new int[capacity];
+        Arrays.fill(keys, FREE);
+        return keys;
+    }
+
+    // One row's cells: linear probing over parallel column/count arrays
+    private static final class Row {
+        private int[] columns = newKeys(INITIAL_CAPACITY);
+        private int[] counts = new int[INITIAL_CAPACITY];
+        private int size;
+
+        int get(int column) {
+            int slot = find(column);
+            return columns[slot] == column ? counts[slot] : 0;
+        }
+
+        void add(int column, int delta, int maxColumns) {
+            int slot = find(column);
+            if (columns[slot] == column) {
+                counts[slot] += delta;
+                if (counts[slot] <= 0) {
+                    remove(slot);
+                }
+                return;
+            }
+            if (delta <= 0) {
+                return;
+            }
+            if (size + 1 > maxColumns) {
+                prune(maxColumns * 3 / 4);
+            }
+            if ((size + 1) * 3 > columns.length * 2) {
+                rehash(columns.length * 2);
+            }
+            slot = find(column);
+            columns[slot] = column;
+            counts[slot] = delta;
+            size++;
+        }
+
+        // Slot holding the column, or the free slot where it would go
+        private int find(int column) {
+            int mask = columns.length - 1;
+            int slot = hash(column) & mask;
+            while (columns[slot] != FREE && columns[slot] != column) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        // Backward-shift deletion, so probe chains stay unbroken without tombstones
+        private void remove(int slot) {
+            int mask = columns.length - 1;
+            int gap = slot;
+            int next = (gap + 1) & mask;
+            while (columns[next] != FREE) {
+                int home = hash(columns[next]) & mask;
+                // Move the entry back if its home isn't cyclically within (gap, next]
+                if (((next - home) & mask) >= ((next - gap) & mask)) {
+                    columns[gap] = columns[next];
+                    counts[gap] = counts[next];
+                    gap = next;
+                }
+                next = (next + 1) & mask;
+            }
+            columns[gap] = FREE;
+            counts[gap] = 0;
+            size--;
+        }
+
+        // Keep exactly the keep highest counts; ties at the cut go by column, as in top()
+        private void prune(int keep) {
+            long[] packed = packed();
+            Arrays.sort(packed);
+            columns = newKeys(columns.length);
+            counts = new int[columns.length];
+            size = 0;
+            for (int i = 0; i < keep && i < packed.length; i++) {
+                int column = (int) packed[i];
+                int slot = find(column);
+                columns[slot] = column;
+                counts[slot] = Integer.MAX_VALUE - (int) (packed[i] >>> 32);
+                size++;
+            }
+        }
+
+        private void rehash(int capacity) {
+            int[] oldColumns = columns;
+            int[] oldCounts = counts;
+            columns = newKeys(capacity);
+            counts = new int[capacity];
+            for (int i = 0; i < oldColumns.length; i++) {
+                if (oldColumns[i] != FREE) {
+                    int slot = find(oldColumns[i]);
+                    columns[slot] = oldColumns[i];
+                    counts[slot] = oldCounts[i];
+                }
+            }
+        }
+
+        // Cells as (inverted count, column), so an ascending sort is highest count first
+        private long[] packed() {
+            long[] packed = new long[size];
+            int count = 0;
+            for (int i = 0; i < columns.length; i++) {
+                if (columns[i] != FREE) {
+                    packed[count++] = ((long) (Integer.MAX_VALUE - counts[i]) << 32) | (columns[i] & 0xFFFFFFFFL);
+                }
+            }
+            return packed;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.ecommerce.util;
+
+import java.awt.Dimension;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import javax.swing.BorderFactory;
+import javax.swing.DefaultListModel;
+import javax.swing.JList;
+import javax.swing.JPopupMenu;
+import javax.swing.JTextField;
+import javax.swing.ListSelectionModel;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+/**
+ * Drop-down of suggestions under a text field, refreshed as the user types.
+ *
+ * Suggestions are looked up in the background through an {@link AsyncLoader.Slot}, so a
+ * slow lookup never holds up typing and only the newest keystroke's list is shown. Up/Down
+ * move through the list, Enter or a click picks an entry, Escape closes it. Enter without a
+ * selected entry is left to the field's own action.
+ */
+public final class SuggestionPopup {
+
+    // Rows shown at most; suggesters need not return more
+    public static final int MAX_SUGGESTIONS = 8;
+
+    private final JTextField field;
+    private final Function<String, List<String>> suggester;
+    private final Consumer<String> onChosen;
+    private final AsyncLoader.Slot lookupSlot = new AsyncLoader.Slot("search.suggestions");
+    private final JPopupMenu popup = new JPopupMenu();
+    private final DefaultListModel<String> model = new DefaultListModel<>();
+    private final JList<String> list = new JList<>(model);
+    // Set while the field's text is changed from here, so that change doesn't trigger a lookup
+    private boolean choosing;
+
+    private SuggestionPopup(JTextField field, Function<String, List<String>> suggester, Consumer<String> onChosen) {
+        this.field = field;
+        this.suggester = suggester;
+        this.onChosen = onChosen;
+
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        list.setFont(field.getFont());
+        list.setFocusable(false);
+        list.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int index = list.locationToIndex(e.getPoint());
+                if (index >= 0) {
+                    choose(model.get(index));
+                }
+            }
+        });
+        popup.setFocusable(false);
+        popup.setBorder(BorderFactory.createLineBorder(ThemeManager.PRIMARY_LIGHT));
+        popup.add(list);
+    }
+
+    /**
+     * Show suggestions for the field
+     *
+     * @param suggester looks up suggestions for the typed text, best first; runs on a
+     *                  background thread and only the first few results are shown
+     * @param onChosen called on the EDT with the picked suggestion, already put in the field
+     */
+    public static SuggestionPopup attach(JTextField field, Function<String, List<String>> suggester,
+                                         Consumer<String> onChosen) {
+        SuggestionPopup suggestions = new SuggestionPopup(field, suggester, onChosen);
+        field.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                suggestions.textChanged();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                suggestions.textChanged();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                // Attribute changes only
+            }
+        });
+        field.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                suggestions.keyPressed(e);
+            }
+        });
+        field.addFocusListener(new FocusAdapter() {
+            @Override
+            public void focusLost(FocusEvent e) {
+                suggestions.hide();
+            }
+        });
+        return suggestions;
+    }
+
+    public void hide() {
+        lookupSlot.cancel();
+        popup.setVisible(false);
+    }
+
+    private void textChanged() {
+        if (choosing) {
+            return;
+        }
+        String text = field.getText();
+        if (text.trim().isEmpty()) {
+            hide();
+            return;
+        }
+        lookupSlot.load(() -> suggester.apply(text), this::show);
+    }
+
+    private void show(List<String> suggestions) {
+        if (suggestions.isEmpty() || !field.isShowing() || !field.hasFocus()) {
+            popup.setVisible(false);
+            return;
+        }
+        model.clear();
+        for (String suggestion : suggestions.subList(0, Math.min(MAX_SUGGESTIONS, suggestions.size()))) {
+            model.addElement(suggestion);
+        }
+        list.clearSelection();
+        list.setVisibleRowCount(model.size());
+        popup.setPopupSize(new Dimension(field.getWidth(), list.getPreferredScrollableViewportSize().height + 4));
+        if (popup.isVisible()) {
+            // Resize to the new number of rows
+            popup.pack();
+        } else {
+            popup.show(field, 0, field.getHeight());
+        }
+    }
+
+    private void keyPressed(KeyEvent e) {
+        if (!popup.isVisible()) {
+            return;
+        }
+        int selected = list.getSelectedIndex();
+        switch (e.getKeyCode()) {
+            case KeyEvent.VK_DOWN:
+                list.setSelectedIndex(Math.min(selected + 1, model.size() - 1));
+                e.consume();
+                break;
+            case KeyEvent.VK_UP:
+                if (selected > 0) {
+                    list.setSelectedIndex(selected - 1);
+                } else {
+                    list.clearSelection();
+                }
+                e.consume();
+                break;
+            case KeyEvent.VK_ENTER:
+                if (selected >= 0) {
+                    choose(model.get(selected));
+                    e.consume();
+                } else {
+                    hide();
+                }
+                break;
+            case KeyEvent.VK_ESCAPE:
+                hide();
+                e.consume();
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void choose(String suggestion) {
+        hide();
+        choosing = true;
+        try {
+            field.setText(suggestion);
+        } finally {
+            choosing = false;
+        }
+        onChosen.accept(suggestion);
+    }
+}
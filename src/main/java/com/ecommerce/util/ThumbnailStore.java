@@ -0,0 +1,276 @@
+package com.ecommerce.util;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+
+/**
+ * On-disk store of pre-scaled thumbnails, so images are only decoded at full size once.
+ *
+ * Thumbnails are addressed by the SHA-256 of the source image's bytes plus the target size:
+ * an edited source gets a new hash and so a new thumbnail, and identical images stored under
+ * different names share one. Hashing a file still means reading it, so the hash is remembered
+ * in an index together with the file's size and modification time and only recomputed when
+ * either changes. New index entries are written out in batches a couple of seconds apart and
+ * on {@link #flush}, so hashing a whole catalog doesn't rewrite the index once per image.
+ *
+ * When a source changes, the thumbnails of its old content are deleted unless another indexed
+ * source still has that content. Thumbnails of sources that are deleted outright stay until
+ * the directory is cleared by hand.
+ */
+public class ThumbnailStore
+{
+    private static final String INDEX_FILE = "index.properties";
+    private static final long INDEX_FLUSH_DELAY_MS = 2_000;
+
+    private final File directory;
+    private final File indexFile;
+    private final Properties index = new Properties();
+    private final ScheduledExecutorService indexWriter;
+    // Guarded by index: whether it has entries not yet on disk, and whether a write is scheduled
+    private boolean dirty;
+    private boolean flushScheduled;
+
+    public ThumbnailStore(File directory)
+    {
+        this.directory = directory;
+        this.indexFile = new File(directory, INDEX_FILE);
+        if (indexFile.isFile()) {
+            try (InputStream in = Files.newInputStream(indexFile.toPath())) {
+                index.load(in);
+            } catch (IOException e) {
+                System.err.println("Could not read thumbnail index " + indexFile + ": " + e.getMessage());
+            }
+        }
+        this.indexWriter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "thumbnail-index");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * The stored thumbnail of the source at the given size, or null if there is none yet
+     */
+    public BufferedImage load(URL source, int width, int height)
+    {
+        try {
+            File file = thumbnailFile(source, width, height);
+            if (file == null || !file.isFile()) {
+                return null;
+            }
+            return ImageIO.read(file);
+        } catch (IOException e) {
+            System.err.println("Could not read thumbnail of " + source + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Store a thumbnail of the source. Failures are logged and otherwise ignored: the
+     * thumbnail is simply generated again next time.
+     */
+    public void save(URL source, int width, int height, BufferedImage thumbnail)
+    {
+        try {
+            File file = thumbnailFile(source, width, height);
+            if (file == null) {
+                return;
+            }
+            File parent = file.getParentFile();
+            if (!parent.isDirectory() && !parent.mkdirs()) {
+                throw new IOException("Could not create " + parent);
+            }
+            // Write next to the target and move it in place, so readers never see half a file
+            Path temp = Files.createTempFile(parent.toPath(), "thumb", ".tmp");
+            try {
+                try (OutputStream out = Files.newOutputStream(temp)) {
+                    ImageIO.write(thumbnail, "png", out);
+                }
+                Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            System.err.println("Could not store thumbnail of " + source + ": " + e.getMessage());
+        }
+    }
+
+    private File thumbnailFile(URL source, int width, int height) throws IOException
+    {
+        String hash = contentHash(source);
+        if (hash == null) {
+            return null;
+        }
+        // Spread over subdirectories so no single directory gets huge
+        return new File(new File(directory, hash.substring(0, 2)), hash + "_" + width + "x" + height + ".png");
+    }
+
+    private String contentHash(URL source) throws IOException
+    {
+        File file = toFile(source);
+        if (file == null) {
+            // Classpath resources inside a jar; they are small, so just hash them
+            try (InputStream in = source.openStream()) {
+                return sha256(in);
+            }
+        }
+        if (!file.isFile()) {
+            return null;
+        }
+
+        String key = file.getAbsolutePath();
+        String stamp = file.length() + ":" + file.lastModified();
+        synchronized (index) {
+            String entry = index.getProperty(key);
+            if (entry != null && entry.startsWith(stamp + ":")) {
+                return entry.substring(stamp.length() + 1);
+            }
+        }
+
+        String hash;
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            hash = sha256(in);
+        }
+        String staleHash = null;
+        synchronized (index) {
+            String previous = (String) index.setProperty(key, stamp + ":" + hash);
+            if (previous != null) {
+                String previousHash = previous.substring(previous.lastIndexOf(':') + 1);
+                if (!previousHash.equals(hash) && !indexedHash(previousHash)) {
+                    staleHash = previousHash;
+                }
+            }
+            dirty = true;
+            if (!flushScheduled) {
+                flushScheduled = true;
+                indexWriter.schedule(this::flush, INDEX_FLUSH_DELAY_MS, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (staleHash != null) {
+            deleteThumbnails(staleHash);
+        }
+        return hash;
+    }
+
+    /**
+     * Write index entries that aren't on disk yet. Called on a timer after new entries, and
+     * should be called once more at shutdown.
+     */
+    public void flush()
+    {
+        // One writer at a time, so an older snapshot can't replace a newer one
+        synchronized (indexFile) {
+            writeIndex();
+        }
+    }
+
+    // Caller holds the indexFile lock
+    private void writeIndex()
+    {
+        Properties snapshot = new Properties();
+        synchronized (index) {
+            flushScheduled = false;
+            if (!dirty) {
+                return;
+            }
+            dirty = false;
+            snapshot.putAll(index);
+        }
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("Could not create " + directory);
+            }
+            Path temp = Files.createTempFile(directory.toPath(), "index", ".tmp");
+            try {
+                try (OutputStream out = Files.newOutputStream(temp)) {
+                    snapshot.store(out, "Thumbnail source hashes: path = size:lastModified:sha256");
+                }
+                Files.move(temp, indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            // The entries are still in memory; the next new entry or flush tries again
+            synchronized (index) {
+                dirty = true;
+            }
+            System.err.println("Could not write thumbnail index " + indexFile + ": " + e.getMessage());
+        }
+    }
+
+    // Caller holds the index lock
+    private boolean indexedHash(String hash)
+    {
+        String suffix = ":" + hash;
+        for (Object entry : index.values()) {
+            if (((String) entry).endsWith(suffix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Every size stored for the content hash
+    private void deleteThumbnails(String hash)
+    {
+        File[] files = new File(directory, hash.substring(0, 2)).listFiles((dir, name) -> name.startsWith(hash + "_"));
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (!file.delete()) {
+                System.err.println("Could not delete stale thumbnail " + file);
+            }
+        }
+    }
+
+    private static File toFile(URL url)
+    {
+        if (!"file".equals(url.getProtocol())) {
+            return null;
+        }
+        try {
+            return new File(url.toURI());
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String sha256(InputStream in) throws IOException
+    {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        try (DigestInputStream digestIn = new DigestInputStream(in, digest)) {
+            byte[] buffer = new byte[8192];
+            while (digestIn.read(buffer) != -1) {
+                // Reading is all that's needed to feed the digest
+            }
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
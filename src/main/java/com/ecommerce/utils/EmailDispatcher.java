@@ -0,0 +1,343 @@
+package com.ecommerce.utils;
+
+import com.ecommerce.config.AppConfig;
+
+import javax.mail.Transport;
+import javax.mail.internet.MimeMessage;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.sql.Timestamp;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Background sender for outgoing email.
+ *
+ * Emails go into a bounded queue drained by a small pool of workers. Each worker keeps its
+ * SMTP connection open between messages and only reconnects after an error or when it has
+ * been idle for a while. A failed email is retried after an exponentially growing, jittered
+ * delay without holding up the worker; once it runs out of attempts (or the queue is full)
+ * it is written to the dead-letter file and its future completes with false.
+ */
+public class EmailDispatcher
+{
+    private static final long IDLE_DISCONNECT_MS = 30_000;
+    private static final int MAX_RECENT_DEAD_LETTERS = 100;
+
+    private static EmailDispatcher instance;
+    // Queued at shutdown to wake idle workers, so they don't sit out their poll timeout
+    private static final EmailJob WAKE_UP = new EmailJob(null, null, null, null);
+
+    private final EmailSender sender;
+    private final BlockingQueue<EmailJob> queue;
+    private final ExecutorService workers;
+    private final ScheduledExecutorService retryScheduler;
+    private final ExecutorService bulkExecutor;
+    private final int workerCount;
+    private final int maxAttempts;
+    private final long retryDelayMs;
+    private final String deadLetterFile;
+    private final Set<EmailJob> waitingForRetry = ConcurrentHashMap.newKeySet();
+    private final Deque<DeadLetter> recentDeadLetters = new ArrayDeque<>();
+    private volatile boolean running = true;
+
+    public EmailDispatcher(EmailSender sender, int queueCapacity, int workerCount, int maxAttempts,
+                           long retryDelayMs, String deadLetterFile)
+    {
+        this.sender = sender;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryDelayMs = retryDelayMs;
+        this.deadLetterFile = deadLetterFile;
+
+        int threads = Math.max(1, workerCount);
+        this.workerCount = threads;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "email-worker-" + threadNumber.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "email-retry");
+            t.setDaemon(true);
+            return t;
+        });
+        this.bulkExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "email-bulk");
+            t.setDaemon(true);
+            return t;
+        });
+        for (int i = 0; i < threads; i++) {
+            workers.execute(this::runWorker);
+        }
+    }
+
+    public static synchronized EmailDispatcher getInstance()
+    {
+        if (instance == null) {
+            instance = new EmailDispatcher(new EmailSender(),
+                    AppConfig.getMailQueueCapacity(),
+                    AppConfig.getMailWorkers(),
+                    AppConfig.getMailMaxAttempts(),
+                    AppConfig.getMailRetryDelayMs(),
+                    AppConfig.getMailDeadLetterFile());
+        }
+        return instance;
+    }
+
+    /**
+     * Drains and stops the shared dispatcher, if it was ever started
+     */
+    public static synchronized void shutdownInstance(long timeoutMs)
+    {
+        if (instance != null) {
+            instance.shutdown(timeoutMs);
+            instance = null;
+        }
+    }
+
+    /**
+     * Queues an email without blocking. The future completes with true once it is sent and
+     * with false if it ends up dead-lettered.
+     */
+    public CompletableFuture<Boolean> submit(String toEmail, String subject, String body, String attachmentPath)
+    {
+        EmailJob job = new EmailJob(toEmail, subject, body, attachmentPath);
+        if (!running) {
+            deadLetter(job, "Email dispatcher is shut down");
+        } else if (!queue.offer(job)) {
+            deadLetter(job, "Email queue is full");
+        }
+        return job.future;
+    }
+
+    /**
+     * Sends one email to many recipients over a single SMTP connection, on a background
+     * thread. Recipients that fail for any reason other than a bad address are queued
+     * individually, so they get the usual retries and end up dead-lettered if those fail too.
+     * The future holds the outcome of the bulk pass.
+     */
+    public CompletableFuture<List<EmailSender.SendOutcome>> submitBulk(String subject, String body,
+                                                                       Collection<String> recipients)
+    {
+        List<String> toEmails = new ArrayList<>(recipients);
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                List<EmailSender.SendOutcome> outcomes = sender.sendBulk(subject, body, toEmails);
+                for (EmailSender.SendOutcome outcome : outcomes) {
+                    if (!outcome.isSent() && outcome.getToEmail() != null && outcome.getToEmail().contains("@")) {
+                        submit(outcome.getToEmail(), subject, body, null);
+                    }
+                }
+                return outcomes;
+            }, bulkExecutor);
+        } catch (RejectedExecutionException e) {
+            // Shut down: fall back to the single-message path, which dead-letters them
+            List<EmailSender.SendOutcome> outcomes = new ArrayList<>();
+            for (String toEmail : toEmails) {
+                submit(toEmail, subject, body, null);
+                outcomes.add(new EmailSender.SendOutcome(toEmail, false, "Email dispatcher is shut down"));
+            }
+            return CompletableFuture.completedFuture(outcomes);
+        }
+    }
+
+    public int getQueueSize()
+    {
+        return queue.size();
+    }
+
+    /**
+     * The most recent dead letters, newest first
+     */
+    public synchronized List<DeadLetter> getRecentDeadLetters()
+    {
+        return new ArrayList<>(recentDeadLetters);
+    }
+
+    /**
+     * Stops accepting email and gives the workers up to the timeout to drain the queue
+     */
+    public void shutdown(long timeoutMs)
+    {
+        // Let a running bulk send finish handing its failures to the queue first
+        bulkExecutor.shutdown();
+        try {
+            bulkExecutor.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        running = false;
+        retryScheduler.shutdownNow();
+        for (int i = 0; i < workerCount; i++) {
+            // A full queue has nobody idle to wake
+            queue.offer(WAKE_UP);
+        }
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        EmailJob job;
+        while ((job = queue.poll()) != null) {
+            if (job != WAKE_UP) {
+                deadLetter(job, "Not sent before shutdown");
+            }
+        }
+        for (EmailJob waiting : waitingForRetry) {
+            if (waitingForRetry.remove(waiting)) {
+                deadLetter(waiting, "Not retried before shutdown");
+            }
+        }
+    }
+
+    private void runWorker()
+    {
+        Transport transport = null;
+        try {
+            while (running || !queue.isEmpty()) {
+                EmailJob job = queue.poll(running ? IDLE_DISCONNECT_MS : 0, TimeUnit.MILLISECONDS);
+                if (job == null || job == WAKE_UP) {
+                    // Idle: don't hold the SMTP connection open for nothing
+                    EmailSender.closeQuietly(transport);
+                    transport = null;
+                    continue;
+                }
+                try {
+                    if (transport == null || !transport.isConnected()) {
+                        transport = sender.connect();
+                    }
+                    MimeMessage message = sender.createMessage(job.toEmail, job.subject, job.body, job.attachmentPath);
+                    transport.sendMessage(message, message.getAllRecipients());
+                    System.out.println("Email Sent Successfully to: " + job.toEmail);
+                    job.future.complete(true);
+                } catch (Exception e) {
+                    // The connection may be unusable now; start the next email on a fresh one
+                    EmailSender.closeQuietly(transport);
+                    transport = null;
+                    retryOrDeadLetter(job, e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            EmailSender.closeQuietly(transport);
+        }
+    }
+
+    private void retryOrDeadLetter(EmailJob job, Exception error)
+    {
+        job.attempts++;
+        System.err.println("Error Sending Email to " + job.toEmail + " (Attempt " + job.attempts + "): " + error.getMessage());
+        if (job.attempts >= maxAttempts || !running) {
+            deadLetter(job, error.getMessage());
+            return;
+        }
+
+        // Exponential backoff, +/- 50% so a burst of failures doesn't retry in lockstep
+        long delay = retryDelayMs << (job.attempts - 1);
+        delay = (long) (delay * (0.5 + ThreadLocalRandom.current().nextDouble()));
+        waitingForRetry.add(job);
+        try {
+            retryScheduler.schedule(() -> {
+                if (waitingForRetry.remove(job) && !queue.offer(job)) {
+                    deadLetter(job, "Email queue is full");
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            // Scheduler already shut down
+            if (waitingForRetry.remove(job)) {
+                deadLetter(job, error.getMessage());
+            }
+        }
+    }
+
+    private void deadLetter(EmailJob job, String reason)
+    {
+        DeadLetter deadLetter = new DeadLetter(new Timestamp(System.currentTimeMillis()), job.toEmail, job.subject,
+                job.attempts, reason);
+        System.err.println("Email to " + job.toEmail + " dead-lettered: " + reason);
+        synchronized (this) {
+            recentDeadLetters.addFirst(deadLetter);
+            if (recentDeadLetters.size() > MAX_RECENT_DEAD_LETTERS) {
+                recentDeadLetters.removeLast();
+            }
+            if (deadLetterFile != null && !deadLetterFile.isEmpty()) {
+                try (PrintWriter out = new PrintWriter(new FileWriter(deadLetterFile, true))) {
+                    out.println(deadLetter.getFailedAt() + "\t" + job.toEmail + "\t" + job.subject + "\t"
+                            + job.attempts + "\t" + reason + "\t" + job.body.replace("\n", "\\n"));
+                } catch (IOException e) {
+                    System.err.println("Could not write dead letter file " + deadLetterFile + ": " + e.getMessage());
+                }
+            }
+        }
+        job.future.complete(false);
+    }
+
+    private static final class EmailJob
+    {
+        private final String toEmail;
+        private final String subject;
+        private final String body;
+        private final String attachmentPath;
+        private final CompletableFuture<Boolean> future = new CompletableFuture<>();
+        private int attempts = 0;
+
+        private EmailJob(String toEmail, String subject, String body, String attachmentPath)
+        {
+            this.toEmail = toEmail;
+            this.subject = subject;
+            this.body = body == null ? "" : body;
+            this.attachmentPath = attachmentPath;
+        }
+    }
+
+    /**
+     * An email that could not be delivered
+     */
+    public static final class DeadLetter
+    {
+        private final Timestamp failedAt;
+        private final String toEmail;
+        private final String subject;
+        private final int attempts;
+        private final String reason;
+
+        private DeadLetter(Timestamp failedAt, String toEmail, String subject, int attempts, String reason)
+        {
+            this.failedAt = failedAt;
+            this.toEmail = toEmail;
+            this.subject = subject;
+            this.attempts = attempts;
+            this.reason = reason;
+        }
+
+        public Timestamp getFailedAt() { return failedAt; }
+        public String getToEmail() { return toEmail; }
+        public String getSubject() { return subject; }
+        public int getAttempts() { return attempts; }
+        public String getReason() { return reason; }
+    }
+}
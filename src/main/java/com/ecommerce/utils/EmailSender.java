@@ -7,6 +7,7 @@ import javax.mail.Authenticator;
 import javax.mail.PasswordAuthentication;
 import javax.mail.Message;
 import javax.mail.MessagingException;
+import javax.mail.SendFailedException;
 import javax.mail.Transport;
 import javax.mail.internet.InternetAddress;
 import javax.mail.internet.MimeMessage;
@@ -20,7 +21,11 @@ import javax.activation.DataHandler;
 import javax.activation.DataSource;
 import javax.activation.FileDataSource;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
 import java.io.File;
 
 public class EmailSender
@@ -28,6 +33,7 @@ public class EmailSender
     private String fromEmail;
     private String fromPassword;
     private boolean isConfigured = false;
+    private Session session;
 
     public EmailSender()
     {
@@ -68,53 +74,15 @@ public class EmailSender
         }
     }
 
+    /**
+     * Sends the email on the calling thread, retrying up to 3 times.
+     * Prefer {@link #sendEmailAsync} anywhere a caller shouldn't wait on the SMTP server.
+     */
     public boolean sendEmail(String toEmail, String subject, String body, String attachmentPath)
     {
-        // Skip sending if not configured or recipient email is invalid
-        if (!isConfigured) {
-            System.out.println("Email not sent: Email functionality not configured");
-            System.out.println("Username: " + (fromEmail == null ? "null" : (fromEmail.isEmpty() ? "empty" : fromEmail)));
-            System.out.println("Password: " + (fromPassword == null ? "null" : (fromPassword.isEmpty() ? "empty" : "******")));
+        if (!canSendTo(toEmail)) {
             return false;
         }
-        
-        if (toEmail == null || toEmail.isEmpty() || !toEmail.contains("@")) {
-            System.out.println("Email not sent: Invalid recipient email address");
-            return false;
-        }
-
-        String host = AppConfig.EMAIL_HOST;
-        String port = AppConfig.EMAIL_PORT;
-        
-        System.out.println("Email configuration: Host=" + host + ", Port=" + port + ", From=" + fromEmail);
-
-        Properties properties = System.getProperties();
-        properties.put("mail.smtp.host", host);
-        properties.put("mail.smtp.port", port);
-        properties.put("mail.smtp.auth", "true");
-        properties.put("mail.smtp.starttls.enable", "true");
-        properties.put("mail.smtp.timeout", "15000"); // 15 second timeout
-        properties.put("mail.smtp.connectiontimeout", "15000"); // 15 second connection timeout
-        properties.put("mail.debug", "true"); // Enable debugging
-        
-        // Enable SSL if using port 465
-        if ("465".equals(port)) {
-            properties.put("mail.smtp.socketFactory.port", port);
-            properties.put("mail.smtp.socketFactory.class", "javax.net.ssl.SSLSocketFactory");
-            properties.put("mail.smtp.ssl.enable", "true");
-        }
-
-        Session session = Session.getInstance(properties, new Authenticator()
-        {
-            @Override
-            protected PasswordAuthentication getPasswordAuthentication()
-            {
-                return new PasswordAuthentication(fromEmail, fromPassword);
-            }
-        });
-        
-        // Enable session debugging
-        session.setDebug(true);
 
         // Try multiple times with increasing delay
         Exception lastException = null;
@@ -122,42 +90,7 @@ public class EmailSender
             try {
                 System.out.println("Sending email attempt " + attempt + " to: " + toEmail);
                 
-                MimeMessage message = new MimeMessage(session);
-                message.setFrom(new InternetAddress(fromEmail));
-                message.addRecipient(Message.RecipientType.TO, new InternetAddress(toEmail));
-                message.setSubject(subject);
-
-                Multipart multipart = new MimeMultipart();
-                
-                // Add text part
-                BodyPart messageBodyPart = new MimeBodyPart();
-                messageBodyPart.setText(body);
-                multipart.addBodyPart(messageBodyPart);
-
-                // Add attachment if provided
-                if (attachmentPath != null && !attachmentPath.isEmpty()) {
-                    try {
-                        System.out.println("Attaching file: " + attachmentPath);
-                        File attachmentFile = new File(attachmentPath);
-                        if (!attachmentFile.exists()) {
-                            System.err.println("Attachment file does not exist: " + attachmentPath);
-                            // Continue without attachment
-                        } else {
-                            messageBodyPart = new MimeBodyPart();
-                            DataSource source = new FileDataSource(attachmentPath);
-                            messageBodyPart.setDataHandler(new DataHandler(source));
-                            messageBodyPart.setFileName("OrderReceipt.pdf");
-                            multipart.addBodyPart(messageBodyPart);
-                            System.out.println("File attached successfully: " + attachmentFile.length() + " bytes");
-                        }
-                    } catch (Exception e) {
-                        System.err.println("Error attaching file to email: " + e.getMessage());
-                        e.printStackTrace();
-                        // Continue sending email without attachment
-                    }
-                }
-
-                message.setContent(multipart);
+                MimeMessage message = createMessage(toEmail, subject, body, attachmentPath);
 
                 System.out.println("Sending email...");
                 Transport.send(message);
@@ -203,8 +136,261 @@ public class EmailSender
         return false;
     }
     
+    /**
+     * Queues the email on the shared {@link EmailDispatcher} and returns immediately.
+     * The future completes with true once sent, or false if the email could not be queued
+     * or was dead-lettered after its retries; it never completes exceptionally.
+     */
+    public CompletableFuture<Boolean> sendEmailAsync(String toEmail, String subject, String body, String attachmentPath)
+    {
+        if (!canSendTo(toEmail)) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return EmailDispatcher.getInstance().submit(toEmail, subject, body, attachmentPath);
+    }
+    
+    /**
+     * Sends the same email to each recipient as a separate message over one SMTP connection,
+     * instead of connecting once per message. A dropped connection is re-opened and the
+     * message retried once; a recipient the server rejects doesn't affect the others.
+     *
+     * @return one outcome per recipient, in order
+     */
+    public List<SendOutcome> sendBulk(String subject, String body, Collection<String> recipients)
+    {
+        List<SendOutcome> outcomes = new ArrayList<>(recipients.size());
+        if (!isConfigured) {
+            for (String toEmail : recipients) {
+                outcomes.add(new SendOutcome(toEmail, false, "Email functionality not configured"));
+            }
+            return outcomes;
+        }
+
+        Transport transport = null;
+        String connectError = null;
+        int sentCount = 0;
+        try {
+            for (String toEmail : recipients) {
+                if (toEmail == null || toEmail.isEmpty() || !toEmail.contains("@")) {
+                    outcomes.add(new SendOutcome(toEmail, false, "Invalid recipient email address"));
+                    continue;
+                }
+                if (connectError != null) {
+                    // Server unreachable; don't wait out a connect timeout for every recipient
+                    outcomes.add(new SendOutcome(toEmail, false, connectError));
+                    continue;
+                }
+
+                String error = null;
+                boolean sent = false;
+                for (int attempt = 1; attempt <= 2 && !sent; attempt++) {
+                    try {
+                        if (transport == null || !transport.isConnected()) {
+                            transport = connectOrNull();
+                            if (transport == null) {
+                                connectError = "Could not connect to mail server";
+                                error = connectError;
+                                break;
+                            }
+                        }
+                        MimeMessage message = createMessage(toEmail, subject, body, null);
+                        transport.sendMessage(message, message.getAllRecipients());
+                        sent = true;
+                    } catch (SendFailedException e) {
+                        // Rejected recipient; the connection itself is still fine
+                        error = e.getMessage();
+                        break;
+                    } catch (MessagingException e) {
+                        error = e.getMessage();
+                        closeQuietly(transport);
+                        transport = null;
+                    }
+                }
+                if (sent) {
+                    sentCount++;
+                }
+                outcomes.add(new SendOutcome(toEmail, sent, sent ? null : error));
+            }
+        } finally {
+            closeQuietly(transport);
+        }
+
+        System.out.println("Bulk email '" + subject + "' sent to " + sentCount + " of " + recipients.size() + " recipients");
+        return outcomes;
+    }
+    
+    /**
+     * Queues a bulk send (see {@link #sendBulk}) on the shared {@link EmailDispatcher}.
+     * Recipients that fail are handed to the dispatcher's retry queue.
+     */
+    public CompletableFuture<List<SendOutcome>> sendBulkAsync(String subject, String body, Collection<String> recipients)
+    {
+        if (recipients == null || recipients.isEmpty()) {
+            return CompletableFuture.completedFuture(new ArrayList<>());
+        }
+        if (!isConfigured) {
+            return CompletableFuture.completedFuture(sendBulk(subject, body, recipients));
+        }
+        return EmailDispatcher.getInstance().submitBulk(subject, body, recipients);
+    }
+    
+    private Transport connectOrNull()
+    {
+        try {
+            return connect();
+        } catch (MessagingException e) {
+            System.err.println("Error connecting to mail server: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    static void closeQuietly(Transport transport)
+    {
+        if (transport != null) {
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                // Already broken; nothing more to do
+            }
+        }
+    }
+    
+    private boolean canSendTo(String toEmail)
+    {
+        // Skip sending if not configured or recipient email is invalid
+        if (!isConfigured) {
+            System.out.println("Email not sent: Email functionality not configured");
+            System.out.println("Username: " + (fromEmail == null ? "null" : (fromEmail.isEmpty() ? "empty" : fromEmail)));
+            System.out.println("Password: " + (fromPassword == null ? "null" : (fromPassword.isEmpty() ? "empty" : "******")));
+            return false;
+        }
+        
+        if (toEmail == null || toEmail.isEmpty() || !toEmail.contains("@")) {
+            System.out.println("Email not sent: Invalid recipient email address");
+            return false;
+        }
+        return true;
+    }
+    
+    /**
+     * Opens an authenticated SMTP connection that can send any number of messages
+     * until it is closed
+     */
+    Transport connect() throws MessagingException
+    {
+        Transport transport = getSession().getTransport("smtp");
+        transport.connect(AppConfig.EMAIL_HOST, Integer.parseInt(AppConfig.EMAIL_PORT), fromEmail, fromPassword);
+        return transport;
+    }
+    
+    MimeMessage createMessage(String toEmail, String subject, String body, String attachmentPath) throws MessagingException
+    {
+        MimeMessage message = new MimeMessage(getSession());
+        message.setFrom(new InternetAddress(fromEmail));
+        message.addRecipient(Message.RecipientType.TO, new InternetAddress(toEmail));
+        message.setSubject(subject);
+
+        Multipart multipart = new MimeMultipart();
+        
+        // Add text part
+        BodyPart messageBodyPart = new MimeBodyPart();
+        messageBodyPart.setText(body);
+        multipart.addBodyPart(messageBodyPart);
+
+        // Add attachment if provided
+        if (attachmentPath != null && !attachmentPath.isEmpty()) {
+            try {
+                System.out.println("Attaching file: " + attachmentPath);
+                File attachmentFile = new File(attachmentPath);
+                if (!attachmentFile.exists()) {
+                    System.err.println("Attachment file does not exist: " + attachmentPath);
+                    // Continue without attachment
+                } else {
+                    messageBodyPart = new MimeBodyPart();
+                    DataSource source = new FileDataSource(attachmentPath);
+                    messageBodyPart.setDataHandler(new DataHandler(source));
+                    messageBodyPart.setFileName("OrderReceipt.pdf");
+                    multipart.addBodyPart(messageBodyPart);
+                    System.out.println("File attached successfully: " + attachmentFile.length() + " bytes");
+                }
+            } catch (Exception e) {
+                System.err.println("Error attaching file to email: " + e.getMessage());
+                e.printStackTrace();
+                // Continue sending email without attachment
+            }
+        }
+
+        message.setContent(multipart);
+        return message;
+    }
+    
+    // One session per sender; building it is cheap but it only ever needs doing once
+    private synchronized Session getSession()
+    {
+        if (session != null) {
+            return session;
+        }
+        
+        String host = AppConfig.EMAIL_HOST;
+        String port = AppConfig.EMAIL_PORT;
+        
+        System.out.println("Email configuration: Host=" + host + ", Port=" + port + ", From=" + fromEmail);
+
+        Properties properties = new Properties();
+        properties.putAll(System.getProperties());
+        properties.put("mail.smtp.host", host);
+        properties.put("mail.smtp.port", port);
+        properties.put("mail.smtp.auth", "true");
+        properties.put("mail.smtp.starttls.enable", "true");
+        properties.put("mail.smtp.timeout", "15000"); // 15 second timeout
+        properties.put("mail.smtp.connectiontimeout", "15000"); // 15 second connection timeout
+        properties.put("mail.debug", "true"); // Enable debugging
+        
+        // Enable SSL if using port 465
+        if ("465".equals(port)) {
+            properties.put("mail.smtp.socketFactory.port", port);
+            properties.put("mail.smtp.socketFactory.class", "javax.net.ssl.SSLSocketFactory");
+            properties.put("mail.smtp.ssl.enable", "true");
+        }
+
+        session = Session.getInstance(properties, new Authenticator()
+        {
+            @Override
+            protected PasswordAuthentication getPasswordAuthentication()
+            {
+                return new PasswordAuthentication(fromEmail, fromPassword);
+            }
+        });
+        
+        // Enable session debugging
+        session.setDebug(true);
+        return session;
+    }
+    
     // Check if the email service is properly configured
     public boolean isEmailServiceConfigured() {
         return isConfigured;
     }
+    
+    /**
+     * Result of sending to one recipient
+     */
+    public static final class SendOutcome
+    {
+        private final String toEmail;
+        private final boolean sent;
+        private final String error;
+
+        public SendOutcome(String toEmail, boolean sent, String error)
+        {
+            this.toEmail = toEmail;
+            this.sent = sent;
+            this.error = error;
+        }
+
+        public String getToEmail() { return toEmail; }
+        public boolean isSent() { return sent; }
+        // Null when sent
+        public String getError() { return error; }
+    }
 }
\ No newline at end of file
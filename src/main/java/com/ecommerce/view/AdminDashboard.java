@@ -11,15 +11,15 @@ import java.awt.Graphics2D;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.GridLayout;
-import java.awt.Image;
 import java.awt.Insets;
 import java.awt.image.BufferedImage;
-import java.net.URL;
 import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import javax.swing.BorderFactory;
 import javax.swing.Box;
@@ -48,28 +48,31 @@ import javax.swing.AbstractCellEditor;
 
 import com.ecommerce.dao.AddressDAO;
 import com.ecommerce.dao.AddressDAOImpl;
+import com.ecommerce.dao.CachingCategoryDAO;
+import com.ecommerce.dao.CachingProductDAO;
 import com.ecommerce.dao.CategoryDAO;
-import com.ecommerce.dao.CategoryDAOImpl;
+import com.ecommerce.dao.CategoryTree;
 import com.ecommerce.dao.OrderDAO;
 import com.ecommerce.dao.OrderDAOImpl;
-import com.ecommerce.dao.OrderItemDAO;
-import com.ecommerce.dao.OrderItemDAOImpl;
 import com.ecommerce.dao.ProductDAO;
-import com.ecommerce.dao.ProductDAOImpl;
 import com.ecommerce.dao.SaleDAO;
 import com.ecommerce.dao.SaleDAOImpl;
+import com.ecommerce.dao.SalesReportDAO;
 import com.ecommerce.dao.UserDAO;
 import com.ecommerce.dao.UserDAOImpl;
 import com.ecommerce.model.Address;
 import com.ecommerce.model.Category;
 import com.ecommerce.model.Order;
-import com.ecommerce.model.OrderItem;
+import com.ecommerce.model.OrderStatus;
 import com.ecommerce.model.Product;
 import com.ecommerce.model.Sale;
 import com.ecommerce.model.User;
 import com.ecommerce.model.UserRole;
 import com.ecommerce.service.NotificationService;
+import com.ecommerce.service.SalesReportService;
+import com.ecommerce.util.AsyncLoader;
 import com.ecommerce.util.FontManager;
+import com.ecommerce.util.ImageCache;
 import com.ecommerce.util.ThemeManager;
 
 public class AdminDashboard extends JFrame {
@@ -82,9 +85,16 @@ public class AdminDashboard extends JFrame {
     private UserDAO userDAO;
     private OrderDAO orderDAO;
     private SaleDAO saleDAO;
-    private OrderItemDAO orderItemDAO;
     private AddressDAO addressDAO;
     
+    // Background loads, one per table so a refresh replaces a load still in flight
+    private final AsyncLoader.Slot productsSlot = new AsyncLoader.Slot("admin.products");
+    private final AsyncLoader.Slot categoriesSlot = new AsyncLoader.Slot("admin.categories");
+    private final AsyncLoader.Slot ordersSlot = new AsyncLoader.Slot("admin.orders");
+    private final AsyncLoader.Slot usersSlot = new AsyncLoader.Slot("admin.users");
+    private final AsyncLoader.Slot salesSlot = new AsyncLoader.Slot("admin.sales");
+    private final AsyncLoader.Slot salesReportSlot = new AsyncLoader.Slot("admin.salesReport");
+    
     // Panels
     private JPanel productsPanel;
     private JPanel categoriesPanel;
@@ -106,12 +116,11 @@ public class AdminDashboard extends JFrame {
         this.adminUser = adminUser;
         
         // Initialize DAOs
-        productDAO = new ProductDAOImpl();
-        categoryDAO = new CategoryDAOImpl();
+        productDAO = CachingProductDAO.getInstance();
+        categoryDAO = CachingCategoryDAO.getInstance();
         userDAO = new UserDAOImpl();
         orderDAO = new OrderDAOImpl();
         saleDAO = new SaleDAOImpl();
-        orderItemDAO = new OrderItemDAOImpl();
         addressDAO = new AddressDAOImpl();
         
         // Setup UI
@@ -361,26 +370,12 @@ public class AdminDashboard extends JFrame {
         searchButton.addActionListener(e -> {
             String searchText = searchField.getText().trim().toLowerCase();
             if (!searchText.isEmpty()) {
-                model.setRowCount(0);
-                List<Product> products = productDAO.getAllProduct();
-                for (Product product : products) {
-                    if (product.getName().toLowerCase().contains(searchText)) {
-                        String categoryName = "Unknown";
-                        Category category = categoryDAO.getCategoryById(product.getCategory_id());
-                        if (category != null) {
-                            categoryName = category.getName();
-                        }
-                        
-                        model.addRow(new Object[]{
-                            product.getId(),
-                            product.getName(),
-                            String.format("Rs. %.2f", product.getPrice()),
-                            product.getStock(),
-                            categoryName,
-                            "Actions"
-                        });
-                    }
-                }
+                productsSlot.load(() -> {
+                    List<Product> products = productDAO.getAllProduct().stream()
+                            .filter(product -> product.getName().toLowerCase().contains(searchText))
+                            .collect(Collectors.toList());
+                    return productRows(products);
+                }, rows -> showRows(model, rows));
             } else {
                 loadProducts(model);
             }
@@ -390,16 +385,21 @@ public class AdminDashboard extends JFrame {
     }
     
     private void loadProducts(DefaultTableModel model) {
-        model.setRowCount(0);
-        List<Product> products = productDAO.getAllProduct();
+        productsSlot.load(() -> productRows(productDAO.getAllProduct()), rows -> showRows(model, rows));
+    }
+    
+    // Builds the product table rows; runs in the background
+    private List<Object[]> productRows(List<Product> products) {
+        Map<Integer, Category> categories = loadCategoriesFor(products);
+        List<Object[]> rows = new ArrayList<>(products.size());
         for (Product product : products) {
             String categoryName = "Unknown";
-            Category category = categoryDAO.getCategoryById(product.getCategory_id());
+            Category category = categories.get(product.getCategory_id());
             if (category != null) {
                 categoryName = category.getName();
             }
             
-            model.addRow(new Object[]{
+            rows.add(new Object[]{
                 product.getId(),
                 product.getName(),
                 String.format("Rs. %.2f", product.getPrice()),
@@ -408,6 +408,21 @@ public class AdminDashboard extends JFrame {
                 "Actions"
             });
         }
+        return rows;
+    }
+    
+    // Replaces the table contents with rows loaded in the background
+    private void showRows(DefaultTableModel model, List<Object[]> rows) {
+        model.setRowCount(0);
+        for (Object[] row : rows) {
+            model.addRow(row);
+        }
+    }
+    
+    // Fetches the categories of all given products in one query
+    private Map<Integer, Category> loadCategoriesFor(List<Product> products) {
+        return categoryDAO.getCategoriesByIds(
+                products.stream().map(Product::getCategory_id).collect(Collectors.toSet()));
     }
     
     private void showAddProductDialog(DefaultTableModel model) {
@@ -790,6 +805,7 @@ public class AdminDashboard extends JFrame {
                         JOptionPane.YES_NO_OPTION);
                 if (confirm == JOptionPane.YES_OPTION) {
                     if (categoryDAO.deleteCategory(categoryId)) {
+                        categoriesChanged();
                         model.removeRow(selectedRow);
                         JOptionPane.showMessageDialog(this, "Category deleted successfully.");
                     } else {
@@ -801,29 +817,42 @@ public class AdminDashboard extends JFrame {
             }
         });
         
-        refreshButton.addActionListener(e -> loadCategories(model));
+        refreshButton.addActionListener(e -> {
+            // Reload from the database, in case another instance changed the categories
+            CachingCategoryDAO.getInstance().invalidateAll();
+            loadCategories(model);
+        });
         
         return panel;
     }
     
     private void loadCategories(DefaultTableModel model) {
-        model.setRowCount(0);
-        List<Category> categories = categoryDAO.getAllCategories();
+        categoriesSlot.load(this::categoryRows, rows -> showRows(model, rows));
+    }
+    
+    private List<Object[]> categoryRows() {
+        CategoryTree tree = CachingCategoryDAO.getInstance().getCategoryTree();
+        List<Category> categories = tree.getAllCategories();
+        List<Object[]> rows = new ArrayList<>(categories.size());
         for (Category category : categories) {
             String parentName = "None";
             Integer parentId = category.getParentId();
-            if (parentId != null && parentId > 0) {
-                Category parent = categoryDAO.getCategoryById(parentId);
-                if (parent != null) {
-                    parentName = parent.getName();
-                }
+            if (parentId != null && parentId > 0 && tree.contains(parentId)) {
+                parentName = tree.getName(parentId);
             }
-            model.addRow(new Object[]{
+            rows.add(new Object[]{
                 category.getId(),
                 category.getName(),
                 parentName
             });
         }
+        return rows;
+    }
+    
+    // Product search and suggestions match category names, which the indexes don't track by themselves
+    private void categoriesChanged() {
+        CachingProductDAO.getInstance().getSearchIndex().invalidateAll();
+        CachingProductDAO.getInstance().getSuggestIndex().invalidateAll();
     }
     
     private void showAddCategoryDialog(DefaultTableModel model) {
@@ -870,6 +899,7 @@ public class AdminDashboard extends JFrame {
             }
             
             if (categoryDAO.addCategory(category)) {
+                categoriesChanged();
                 JOptionPane.showMessageDialog(dialog, "Category added successfully!");
                 loadCategories(model);
                 dialog.dispose();
@@ -941,6 +971,7 @@ public class AdminDashboard extends JFrame {
             }
             
             if (categoryDAO.updateCategory(category)) {
+                categoriesChanged();
                 JOptionPane.showMessageDialog(dialog, "Category updated successfully!");
                 loadCategories(model);
                 dialog.dispose();
@@ -1026,21 +1057,28 @@ public class AdminDashboard extends JFrame {
     }
     
     private void loadOrders(DefaultTableModel model) {
-        model.setRowCount(0);
+        ordersSlot.load(this::orderRows, rows -> showRows(model, rows));
+    }
+    
+    private List<Object[]> orderRows() {
         List<Order> orders = orderDAO.getAllOrders();
+        List<Object[]> rows = new ArrayList<>(orders.size());
+        Map<Integer, User> users = new HashMap<>();
+        try {
+            users = userDAO.getUsersByIds(
+                    orders.stream().map(Order::getUserId).collect(Collectors.toSet()));
+        } catch (SQLException e) {
+            e.printStackTrace();
+            System.err.println("Error retrieving users for orders: " + e.getMessage());
+        }
         for (Order order : orders) {
             String username = "Unknown";
-            try {
-                User user = userDAO.findById(order.getUserId());
-                if (user != null) {
-                    username = user.getUsername();
-                }
-            } catch (SQLException e) {
-                e.printStackTrace();
-                System.err.println("Error retrieving user for order: " + e.getMessage());
+            User user = users.get(order.getUserId());
+            if (user != null) {
+                username = user.getUsername();
             }
             
-            model.addRow(new Object[]{
+            rows.add(new Object[]{
                 order.getId(),
                 username,
                 order.getOrderDate(),
@@ -1048,6 +1086,7 @@ public class AdminDashboard extends JFrame {
                 order.getOrderStatus()
             });
         }
+        return rows;
     }
     
     private JPanel createUserManagementPanel() {
@@ -1184,15 +1223,17 @@ public class AdminDashboard extends JFrame {
     }
 
     private void loadUsers(DefaultTableModel model) {
-        model.setRowCount(0);
-        try {
+        usersSlot.load(() -> {
             List<User> users = userDAO.getAllUsers();
+            List<Object[]> rows = new ArrayList<>(users.size());
             for (User user : users) {
-                model.addRow(new Object[]{user.getId(), user.getUsername(), user.getEmail(), user.getRole()});
+                rows.add(new Object[]{user.getId(), user.getUsername(), user.getEmail(), user.getRole()});
             }
-        } catch (SQLException ex) {
+            return rows;
+        }, rows -> showRows(model, rows), ex -> {
+            model.setRowCount(0);
             JOptionPane.showMessageDialog(this, "Error loading users: " + ex.getMessage());
-        }
+        });
     }
 
     private JPanel createSalesPanel() {
@@ -1292,18 +1333,21 @@ public class AdminDashboard extends JFrame {
     }
     
     private void loadSales(DefaultTableModel model) {
-        model.setRowCount(0);
-        List<Sale> sales = saleDAO.getAllSale();
-        for (Sale sale : sales) {
-            model.addRow(new Object[]{
-                sale.getId(),
-                sale.getName(),
-                sale.getDiscountPercent() + "%",
-                sale.getStartDate(),
-                sale.getEndDate(),
-                sale.isActive() ? "Active" : "Inactive"
-            });
-        }
+        salesSlot.load(() -> {
+            List<Sale> sales = saleDAO.getAllSale();
+            List<Object[]> rows = new ArrayList<>(sales.size());
+            for (Sale sale : sales) {
+                rows.add(new Object[]{
+                    sale.getId(),
+                    sale.getName(),
+                    sale.getDiscountPercent() + "%",
+                    sale.getStartDate(),
+                    sale.getEndDate(),
+                    sale.isActive() ? "Active" : "Inactive"
+                });
+            }
+            return rows;
+        }, rows -> showRows(model, rows));
     }
     
     private void showAddSaleDialog(DefaultTableModel model) {
@@ -1429,6 +1473,36 @@ public class AdminDashboard extends JFrame {
         buttonPanel.add(refreshButton);
         actionBar.add(buttonPanel, BorderLayout.EAST);
         
+        // Filters
+        JPanel filterPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 0));
+        filterPanel.setBackground(ThemeManager.BACKGROUND_COLOR);
+        filterPanel.setBorder(BorderFactory.createEmptyBorder(10, 0, 0, 0));
+        
+        JComboBox<String> groupingCombo = new JComboBox<>(new String[]{"Product", "Category", "Day"});
+        String[] statusOptions = new String[OrderStatus.values().length + 1];
+        statusOptions[0] = "All";
+        for (int i = 0; i < OrderStatus.values().length; i++) {
+            statusOptions[i + 1] = OrderStatus.values()[i].name();
+        }
+        JComboBox<String> statusCombo = new JComboBox<>(statusOptions);
+        JTextField fromField = new JTextField(10);
+        fromField.setToolTipText("yyyy-MM-dd, leave empty for no start date");
+        JTextField toField = new JTextField(10);
+        toField.setToolTipText("yyyy-MM-dd, leave empty for no end date");
+        JButton applyButton = ThemeManager.createStyledButton("Apply", ThemeManager.PRIMARY_DARK);
+        applyButton.setForeground(Color.WHITE);
+        
+        filterPanel.add(new JLabel("Group by:"));
+        filterPanel.add(groupingCombo);
+        filterPanel.add(new JLabel("Status:"));
+        filterPanel.add(statusCombo);
+        filterPanel.add(new JLabel("From:"));
+        filterPanel.add(fromField);
+        filterPanel.add(new JLabel("To:"));
+        filterPanel.add(toField);
+        filterPanel.add(applyButton);
+        actionBar.add(filterPanel, BorderLayout.SOUTH);
+        
         // Report table
         DefaultTableModel model = new DefaultTableModel(new String[]{"Product", "Category", "Quantity Sold", "Total Sales"}, 0);
         JTable salesTable = new JTable(model);
@@ -1452,13 +1526,24 @@ public class AdminDashboard extends JFrame {
         panel.add(actionBar, BorderLayout.NORTH);
         panel.add(scrollPane, BorderLayout.CENTER);
         
+        Runnable reload = () -> loadSalesReport(model,
+                SalesReportDAO.Grouping.values()[groupingCombo.getSelectedIndex()],
+                fromField.getText(), toField.getText(),
+                statusCombo.getSelectedIndex() == 0
+                        ? null
+                        : java.util.Collections.singletonList(OrderStatus.valueOf((String) statusCombo.getSelectedItem())));
+        
         // Load sales report data
-        loadSalesReport(model);
+        reload.run();
         
         // Add export functionality
         exportButton.addActionListener(e -> exportSalesReportToPDF(salesTable));
         
-        refreshButton.addActionListener(e -> loadSalesReport(model));
+        applyButton.addActionListener(e -> reload.run());
+        refreshButton.addActionListener(e -> {
+            SalesReportService.getInstance().invalidateAll();
+            reload.run();
+        });
         
         return panel;
     }
@@ -1547,78 +1632,42 @@ public class AdminDashboard extends JFrame {
         }
     }
 
-    private void loadSalesReport(DefaultTableModel model) {
-        model.setRowCount(0);
-        List<OrderItem> orderItems = orderItemDAO.getAllOrderItems();
-        Map<String, Integer> productSales = new HashMap<>();
-        Map<String, Double> productRevenue = new HashMap<>();
-        Map<String, String> productCategories = new HashMap<>(); // Store product to category mapping
-        Map<Integer, List<OrderItem>> orderItemsByOrder = new HashMap<>();
-        Map<Integer, Order> orderMap = new HashMap<>();
-        
-        // Group items by order
-        for (OrderItem item : orderItems) {
-            orderItemsByOrder.computeIfAbsent(item.getOrderId(), k -> new java.util.ArrayList<>()).add(item);
-        }
-        
-        // Get all orders for mapping
-        List<Order> allOrders = orderDAO.getAllOrders();
-        for (Order order : allOrders) {
-            orderMap.put(order.getId(), order);
+    private void loadSalesReport(DefaultTableModel model, SalesReportDAO.Grouping grouping, String fromText,
+                                 String toText, List<OrderStatus> statuses) {
+        LocalDate from;
+        LocalDate to;
+        try {
+            from = fromText.trim().isEmpty() ? null : LocalDate.parse(fromText.trim());
+            to = toText.trim().isEmpty() ? null : LocalDate.parse(toText.trim());
+        } catch (java.time.format.DateTimeParseException e) {
+            JOptionPane.showMessageDialog(this, "Dates must be in yyyy-MM-dd format.", "Invalid Date", JOptionPane.ERROR_MESSAGE);
+            return;
         }
         
-        for (OrderItem item : orderItems) {
-            Product product = productDAO.getProductById(item.getProductId());
-            if (product != null) {
-                String productName = product.getName();
-                
-                // Get category name
-                String categoryName = "Unknown";
-                if (product.getCategoryId() > 0) {
-                    Category category = categoryDAO.getCategoryById(product.getCategoryId());
-                    if (category != null) {
-                        categoryName = category.getName();
-                        System.out.println("Product: " + productName + ", Category ID: " + product.getCategoryId() + ", Category Name: " + categoryName);
-                    } else {
-                        System.out.println("Category not found for ID: " + product.getCategoryId());
-                    }
+        // Aggregation happens in the database; rows are collected in the background as they arrive
+        salesReportSlot.load(() -> {
+            List<Object[]> rows = new ArrayList<>();
+            SalesReportService.getInstance().streamReport(grouping, from, to, statuses, row -> {
+                String revenue = String.format("Rs. %.2f", row.getRevenue());
+                if (grouping == SalesReportDAO.Grouping.PRODUCT) {
+                    rows.add(new Object[]{row.getLabel(), row.getCategoryName(), row.getQuantitySold(), revenue});
                 } else {
-                    System.out.println("Product has no category ID: " + productName);
-                }
-                
-                // Store category for this product
-                productCategories.put(productName, categoryName);
-                
-                // Discounted revenue calculation
-                Order order = orderMap.get(item.getOrderId());
-                List<OrderItem> itemsInOrder = orderItemsByOrder.get(item.getOrderId());
-                double orderOriginalTotal = 0;
-                if (itemsInOrder != null) {
-                    for (OrderItem oi : itemsInOrder) {
-                        orderOriginalTotal += oi.getPrice() * oi.getQuantity();
-                    }
-                }
-                
-                double itemOriginal = item.getPrice() * item.getQuantity();
-                double discountedRevenue = itemOriginal;
-                if (order != null && orderOriginalTotal > 0) {
-                    discountedRevenue = (itemOriginal / orderOriginalTotal) * order.getTotalAmount();
+                    rows.add(new Object[]{row.getLabel(), row.getQuantitySold(), revenue});
                 }
-                
-                productSales.put(productName, productSales.getOrDefault(productName, 0) + item.getQuantity());
-                productRevenue.put(productName, productRevenue.getOrDefault(productName, 0.0) + discountedRevenue);
-            }
-        }
-        
-        for (String productName : productSales.keySet()) {
-            String categoryName = productCategories.getOrDefault(productName, "Unknown");
-            model.addRow(new Object[]{
-                productName, 
-                categoryName, 
-                productSales.get(productName), 
-                String.format("Rs. %.2f", productRevenue.get(productName))
             });
-        }
+            return rows;
+        }, rows -> {
+            if (grouping == SalesReportDAO.Grouping.PRODUCT) {
+                model.setColumnIdentifiers(new String[]{"Product", "Category", "Quantity Sold", "Total Sales"});
+            } else {
+                String label = grouping == SalesReportDAO.Grouping.CATEGORY ? "Category" : "Date";
+                model.setColumnIdentifiers(new String[]{label, "Quantity Sold", "Total Sales"});
+            }
+            showRows(model, rows);
+        }, e -> {
+            e.printStackTrace();
+            JOptionPane.showMessageDialog(this, "Error loading sales report: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+        });
     }
 
     private JPanel createUserProfilePanel() {
@@ -1712,14 +1761,12 @@ public class AdminDashboard extends JFrame {
     // Helper method to get scaled icons
     private ImageIcon getScaledIcon(String path, int width, int height) {
         try {
-            URL url = getClass().getResource(path);
-            if (url == null) {
+            ImageIcon icon = ImageCache.getInstance().getIcon(width, height, path);
+            if (icon == null) {
                 // If icon not found, return a colored icon as fallback
                 return createColorIcon(width, height, new Color(150, 150, 150));
             }
-            ImageIcon icon = new ImageIcon(url);
-            Image img = icon.getImage().getScaledInstance(width, height, Image.SCALE_SMOOTH);
-            return new ImageIcon(img);
+            return icon;
         } catch (Exception e) {
             // Return colored rectangle if icon loading fails
             return createColorIcon(width, height, new Color(150, 150, 150));
@@ -1882,9 +1929,9 @@ public class AdminDashboard extends JFrame {
 
         // Product image
         if (product.getImagePath() != null && !product.getImagePath().isEmpty()) {
-            ImageIcon imageIcon = new ImageIcon(product.getImagePath());
-            Image image = imageIcon.getImage().getScaledInstance(200, 200, Image.SCALE_SMOOTH);
-            JLabel imageLabel = new JLabel(new ImageIcon(image));
+            JLabel imageLabel = new JLabel();
+            imageLabel.setPreferredSize(new Dimension(200, 200));
+            ImageCache.getInstance().loadAsync(200, 200, imageLabel::setIcon, product.getImagePath());
             gbc.gridx = 0;
             gbc.gridy = 0;
             gbc.gridheight = 5;
@@ -3,11 +3,18 @@ package com.ecommerce.view;
 import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Component;
+import java.awt.Cursor;
 import java.awt.FlowLayout;
 import java.awt.Font;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
 import java.text.DecimalFormat;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
+import javax.swing.BorderFactory;
 import javax.swing.Box;
 import javax.swing.DefaultCellEditor;
 import javax.swing.JButton;
@@ -19,36 +26,49 @@ import javax.swing.JScrollPane;
 import javax.swing.JTable;
 import javax.swing.SwingUtilities;
 import javax.swing.border.EmptyBorder;
+import javax.swing.event.TableModelEvent;
 import javax.swing.table.DefaultTableModel;
 
-import com.ecommerce.dao.CartItemDAO;
-import com.ecommerce.dao.CartItemDAOImpl;
+import com.ecommerce.dao.CachingProductDAO;
 import com.ecommerce.dao.ProductDAO;
-import com.ecommerce.dao.ProductDAOImpl;
 import com.ecommerce.dao.SaleDAO;
 import com.ecommerce.dao.SaleDAOImpl;
 import com.ecommerce.model.CartItem;
 import com.ecommerce.model.Product;
 import com.ecommerce.model.Sale;
 import com.ecommerce.model.User;
+import com.ecommerce.service.CartService;
+import com.ecommerce.service.SimilarProductsService;
+import com.ecommerce.util.AsyncLoader;
 import com.ecommerce.util.ThemeManager;
 
 public class CartView extends JPanel {
     private final User currentUser;
-    private final CartItemDAO cartItemDAO;
+    private final CartService cartService;
     private final ProductDAO productDAO;
     private final SaleDAO saleDAO;
     private final DefaultTableModel cartTableModel;
     private final JTable cartTable;
     private final JLabel totalLabel;
+    private final JPanel alsoBoughtPanel;
+    private final JPanel alsoBoughtItemsPanel;
     private double totalAmount = 0.0;
+    // The product shown on each table row, and the sale discount the rows were priced with
+    private final List<Product> rowProducts = new ArrayList<>();
+    private double discountPercent = 0.0;
+    // Set while the view itself writes to the table, so only the user's edits reach the cart
+    private boolean updatingRows;
+    private final AsyncLoader.Slot cartSlot = new AsyncLoader.Slot("cart.items");
     
     private final DecimalFormat currencyFormat = new DecimalFormat("#,##0.00");
     
+    // Products suggested under the cart
+    private static final int ALSO_BOUGHT_COUNT = 4;
+    
     public CartView(User currentUser) {
         this.currentUser = currentUser;
-        this.cartItemDAO = new CartItemDAOImpl();
-        this.productDAO = new ProductDAOImpl();
+        this.cartService = CartService.getInstance();
+        this.productDAO = CachingProductDAO.getInstance();
         this.saleDAO = new SaleDAOImpl();
         
         setLayout(new BorderLayout());
@@ -81,6 +101,15 @@ public class CartView extends JPanel {
         cartTable.getColumnModel().getColumn(5).setCellRenderer(new ButtonRenderer());
         cartTable.getColumnModel().getColumn(5).setCellEditor(new ButtonEditor(new JCheckBox(), this));
         
+        // A quantity typed into the table changes the cart
+        cartTableModel.addTableModelListener(e -> {
+            if (!updatingRows && e.getType() == TableModelEvent.UPDATE && e.getColumn() == 2) {
+                int row = e.getFirstRow();
+                // After the table has handled the edit, since the row may be removed
+                SwingUtilities.invokeLater(() -> quantityEdited(row));
+            }
+        });
+        
         JScrollPane scrollPane = new JScrollPane(cartTable);
         add(scrollPane, BorderLayout.CENTER);
         
@@ -93,6 +122,13 @@ public class CartView extends JPanel {
         totalLabel.setFont(new Font("Arial", Font.BOLD, 18));
         totalPanel.add(totalLabel);
         
+        // Products other customers bought with what's in the cart; hidden until there are some
+        alsoBoughtItemsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 15, 5));
+        alsoBoughtPanel = new JPanel(new BorderLayout());
+        alsoBoughtPanel.setBorder(BorderFactory.createTitledBorder("Customers Also Bought"));
+        alsoBoughtPanel.add(alsoBoughtItemsPanel, BorderLayout.CENTER);
+        alsoBoughtPanel.setVisible(false);
+        
         // Checkout panel
         JPanel checkoutPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
         JButton clearCartButton = ThemeManager.createRoundedButton("Clear Cart", ThemeManager.ACCENT_RED);
@@ -102,7 +138,8 @@ public class CartView extends JPanel {
         checkoutPanel.add(Box.createHorizontalStrut(10));
         checkoutPanel.add(checkoutButton);
         
-        bottomPanel.add(totalPanel, BorderLayout.NORTH);
+        bottomPanel.add(alsoBoughtPanel, BorderLayout.NORTH);
+        bottomPanel.add(totalPanel, BorderLayout.CENTER);
         bottomPanel.add(checkoutPanel, BorderLayout.SOUTH);
         
         add(bottomPanel, BorderLayout.SOUTH);
@@ -111,195 +148,158 @@ public class CartView extends JPanel {
         clearCartButton.addActionListener(e -> clearCart());
         checkoutButton.addActionListener(e -> proceedToCheckout());
         
-        // Load cart items
+        // Load cart items; the view is replaced each time the cart is opened, so drop the load if it goes away
+        AsyncLoader.cancelWhenHidden(this, cartSlot);
         loadCartItems();
     }
     
     public void loadCartItems() {
+        totalLabel.setText("Loading cart...");
+        int userId = currentUser.getId();
+        cartSlot.load(() -> {
+            // Read from the database only the first time the cart is used this session
+            List<CartItem> cartItems = cartService.getItems(userId);
+            if (cartItems.isEmpty()) {
+                return new CartData(cartItems, null, Map.of(), List.of());
+            }
+            // One lookup for every product in the cart
+            List<Integer> productIds = cartItems.stream().map(CartItem::getProductId).collect(Collectors.toList());
+            Map<Integer, Product> products = productDAO.getProductsByIds(productIds);
+            List<Product> alsoBought = SimilarProductsService.getInstance().getAlsoBought(productIds, ALSO_BOUGHT_COUNT);
+            return new CartData(cartItems, saleDAO.getActiveSale(), products, alsoBought);
+        }, this::applyCartItems);
+    }
+    
+    private void applyCartItems(CartData data) {
         cartTableModel.setRowCount(0);
-        totalAmount = 0.0;
-        
-        List<CartItem> cartItems = cartItemDAO.getCartItemsByUserId(currentUser.getId());
-        if (cartItems.isEmpty()) {
-            totalLabel.setText("Total: Rs. 0.00");
-            return;
-        }
+        rowProducts.clear();
+        showAlsoBought(data.alsoBought);
         
         // Get active sale discount if any
-        Sale activeSale = saleDAO.getActiveSale();
-        double discountPercent = (activeSale != null) ? activeSale.getDiscountPercent() : 0.0;
+        discountPercent = (data.activeSale != null) ? data.activeSale.getDiscountPercent() : 0.0;
         
-        for (CartItem item : cartItems) {
-            Product product = productDAO.getProductById(item.getProductId());
+        for (CartItem item : data.cartItems) {
+            Product product = data.products.get(item.getProductId());
             if (product != null) {
-                double price = product.getPrice();
                 int quantity = item.getQuantity();
-                double discount = price * (discountPercent / 100.0) * quantity;
-                double subtotal = (price * quantity) - discount;
-                
-                totalAmount += subtotal;
-                
+                rowProducts.add(product);
                 cartTableModel.addRow(new Object[]{
                     product.getName(),
-                    "Rs. " + String.format("%.2f", price),
+                    "Rs. " + String.format("%.2f", product.getPrice()),
                     quantity,
-                    "Rs. " + String.format("%.2f", discount),
-                    "Rs. " + String.format("%.2f", subtotal),
+                    "Rs. " + String.format("%.2f", discount(product, quantity)),
+                    "Rs. " + String.format("%.2f", subtotal(product, quantity)),
                     "Remove"
                 });
             }
         }
         
-        totalLabel.setText("Total: Rs. " + String.format("%.2f", totalAmount));
+        calculateTotal();
     }
     
-    public void updateCartItemQuantity(int row, int quantity) {
-        if (row < 0 || row >= cartTableModel.getRowCount()) return;
-        
-        String productName = (String) cartTableModel.getValueAt(row, 0);
-        List<CartItem> cartItems = cartItemDAO.getCartItemsByUserId(currentUser.getId());
-        
-        for (int i = 0; i < cartItems.size(); i++) {
-            if (i == row) {
-                CartItem item = cartItems.get(i);
-                Product product = productDAO.getProductById(item.getProductId());
-                
-                if (product != null) {
-                    if (quantity <= 0) {
-                        removeCartItem(row);
-                        return;
-                    }
-                    
-                    if (quantity > product.getStock()) {
-                        JOptionPane.showMessageDialog(this, 
-                                "Sorry, only " + product.getStock() + " units available.", 
-                                "Insufficient Stock", 
-                                JOptionPane.ERROR_MESSAGE);
-                        loadCartItems(); // Reload to reset displayed quantity
-                        return;
-                    }
-                    
-                    item.setQuantity(quantity);
-                    cartItemDAO.updateCartItem(item);
-                    
-                    // Update the row in the table
-                    Sale activeSale = saleDAO.getActiveSale();
-                    double discountPercent = (activeSale != null) ? activeSale.getDiscountPercent() : 0.0;
-                    double price = product.getPrice();
-                    double discount = price * (discountPercent / 100.0) * quantity;
-                    double subtotal = (price * quantity) - discount;
-                    
-                    cartTableModel.setValueAt(quantity, row, 2);
-                    cartTableModel.setValueAt("Rs. " + String.format("%.2f", discount), row, 3);
-                    cartTableModel.setValueAt("Rs. " + String.format("%.2f", subtotal), row, 4);
-                    
-                    // Recalculate total
-                    calculateTotal();
-                    break;
+    private void showAlsoBought(List<Product> alsoBought) {
+        alsoBoughtItemsPanel.removeAll();
+        for (Product product : alsoBought) {
+            JLabel productLabel = new JLabel("<html><u>" + product.getName() + "</u> - Rs. "
+                    + String.format("%.2f", product.getPrice()) + "</html>");
+            productLabel.setCursor(new Cursor(Cursor.HAND_CURSOR));
+            productLabel.addMouseListener(new MouseAdapter() {
+                @Override
+                public void mouseClicked(MouseEvent e) {
+                    new ProductDetailsView(SwingUtilities.getWindowAncestor(CartView.this), currentUser, product)
+                            .setVisible(true);
+                    // The product may have been added to the cart from its page
+                    loadCartItems();
                 }
-            }
+            });
+            alsoBoughtItemsPanel.add(productLabel);
+        }
+        alsoBoughtPanel.setVisible(!alsoBought.isEmpty());
+        alsoBoughtPanel.revalidate();
+        alsoBoughtPanel.repaint();
+    }
+    
+    private void quantityEdited(int row) {
+        if (row < 0 || row >= rowProducts.size()) return;
+        
+        Object value = cartTableModel.getValueAt(row, 2);
+        try {
+            updateCartItemQuantity(row, Integer.parseInt(String.valueOf(value).trim()));
+        } catch (NumberFormatException e) {
+            // Not a number; show the quantity the cart still has
+            Product product = rowProducts.get(row);
+            showLine(row, product, cartService.getQuantity(currentUser.getId(), product.getId()));
         }
     }
     
+    public void updateCartItemQuantity(int row, int quantity) {
+        if (row < 0 || row >= rowProducts.size()) return;
+        
+        Product product = rowProducts.get(row);
+        if (quantity <= 0) {
+            removeCartItem(row);
+            return;
+        }
+        
+        if (quantity > product.getStock()) {
+            JOptionPane.showMessageDialog(this, 
+                    "Sorry, only " + product.getStock() + " units available.", 
+                    "Insufficient Stock", 
+                    JOptionPane.ERROR_MESSAGE);
+            // Reset the displayed quantity
+            showLine(row, product, cartService.getQuantity(currentUser.getId(), product.getId()));
+            return;
+        }
+        
+        // Changes the cart in memory; CartService saves it shortly after, together with any further edits
+        cartService.setQuantity(currentUser.getId(), product.getId(), quantity);
+        showLine(row, product, quantity);
+        calculateTotal();
+    }
+    
     public void removeCartItem(int row) {
-        if (row < 0 || row >= cartTableModel.getRowCount()) {
+        if (row < 0 || row >= rowProducts.size()) {
             System.out.println("Invalid row index: " + row);
             return;
         }
         
+        Product product = rowProducts.remove(row);
+        cartService.remove(currentUser.getId(), product.getId());
+        cartTableModel.removeRow(row);
+        calculateTotal();
+        JOptionPane.showMessageDialog(this, "Item removed from cart", "Success", JOptionPane.INFORMATION_MESSAGE);
+    }
+    
+    private void showLine(int row, Product product, int quantity) {
+        updatingRows = true;
         try {
-            // Get the product name from the table to help with identification
-            String productName = (String) cartTableModel.getValueAt(row, 0);
-            System.out.println("Attempting to remove item: " + productName + " at row " + row);
-            
-            // Get current cart items
-            List<CartItem> cartItems = cartItemDAO.getCartItemsByUserId(currentUser.getId());
-            if (cartItems.isEmpty()) {
-                System.out.println("Cart is empty, nothing to remove");
-                return;
-            }
-            
-            // Safety check - does this row actually exist?
-            if (row >= cartItems.size()) {
-                System.out.println("Warning: Table row index exceeds cart items size");
-                // Fall back to removing by product name
-                for (CartItem item : cartItems) {
-                    Product product = productDAO.getProductById(item.getProductId());
-                    if (product != null && product.getName().equals(productName)) {
-                        if (cartItemDAO.removeCartItem(item.getId())) {
-                            cartTableModel.removeRow(row);
-                            calculateTotal();
-                            JOptionPane.showMessageDialog(this, "Item removed from cart", "Success", JOptionPane.INFORMATION_MESSAGE);
-                        } else {
-                            JOptionPane.showMessageDialog(this, "Failed to remove item from cart", "Error", JOptionPane.ERROR_MESSAGE);
-                        }
-                        return;
-                    }
-                }
-                JOptionPane.showMessageDialog(this, "Could not find item to remove", "Error", JOptionPane.ERROR_MESSAGE);
-                return;
-            }
-            
-            // Get the cart item at the corresponding index
-            CartItem itemToRemove = cartItems.get(row);
-            int cartItemId = itemToRemove.getId();
-            
-            // Delete the specific cart item from the database
-            boolean removed = cartItemDAO.removeCartItem(cartItemId);
-            if (removed) {
-                // Remove from the table model
-                cartTableModel.removeRow(row);
-                calculateTotal();
-                JOptionPane.showMessageDialog(this, "Item removed from cart", "Success", JOptionPane.INFORMATION_MESSAGE);
-            } else {
-                System.out.println("Database removal failed for cart item ID: " + cartItemId);
-                
-                // Try a fallback approach - remove by product ID
-                Product product = productDAO.getProductById(itemToRemove.getProductId());
-                if (product != null) {
-                    String pName = product.getName();
-                    for (int i = 0; i < cartItems.size(); i++) {
-                        CartItem item = cartItems.get(i);
-                        Product p = productDAO.getProductById(item.getProductId());
-                        if (p != null && p.getName().equals(pName)) {
-                            if (cartItemDAO.removeCartItem(item.getId())) {
-                                cartTableModel.removeRow(row);
-                                calculateTotal();
-                                JOptionPane.showMessageDialog(this, "Item removed from cart", "Success", JOptionPane.INFORMATION_MESSAGE);
-                                return;
-                            }
-                        }
-                    }
-                }
-                
-                JOptionPane.showMessageDialog(this, "Failed to remove item from cart", "Error", JOptionPane.ERROR_MESSAGE);
-            }
-        } catch (Exception e) {
-            System.err.println("Error removing cart item: " + e.getMessage());
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(this, "Error removing item: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-            
-            // Reload cart to ensure UI consistency
-            loadCartItems();
+            cartTableModel.setValueAt(quantity, row, 2);
+            cartTableModel.setValueAt("Rs. " + String.format("%.2f", discount(product, quantity)), row, 3);
+            cartTableModel.setValueAt("Rs. " + String.format("%.2f", subtotal(product, quantity)), row, 4);
+        } finally {
+            updatingRows = false;
         }
     }
     
+    // From the prices loaded with the cart and the in-memory quantities, so an edit costs no query
     private void calculateTotal() {
         totalAmount = 0.0;
-        
-        for (int i = 0; i < cartTableModel.getRowCount(); i++) {
-            String subtotalStr = (String) cartTableModel.getValueAt(i, 4);
-            subtotalStr = subtotalStr.replace("Rs. ", "").replace(",", "");
-            try {
-                totalAmount += Double.parseDouble(subtotalStr);
-            } catch (NumberFormatException e) {
-                e.printStackTrace();
-            }
+        int userId = currentUser.getId();
+        for (Product product : rowProducts) {
+            totalAmount += subtotal(product, cartService.getQuantity(userId, product.getId()));
         }
         
         totalLabel.setText("Total: Rs. " + String.format("%.2f", totalAmount));
     }
     
+    private double discount(Product product, int quantity) {
+        return product.getPrice() * (discountPercent / 100.0) * quantity;
+    }
+    
+    private double subtotal(Product product, int quantity) {
+        return (product.getPrice() * quantity) - discount(product, quantity);
+    }
+    
     private void clearCart() {
         int confirm = JOptionPane.showConfirmDialog(this, 
                 "Are you sure you want to clear your cart?", 
@@ -307,7 +307,7 @@ public class CartView extends JPanel {
                 JOptionPane.YES_NO_OPTION);
         
         if (confirm == JOptionPane.YES_OPTION) {
-            cartItemDAO.clearCartByUserId(currentUser.getId());
+            cartService.clear(currentUser.getId());
             loadCartItems();
             JOptionPane.showMessageDialog(this, "Cart cleared successfully", "Cart Cleared", JOptionPane.INFORMATION_MESSAGE);
         }
@@ -343,6 +343,21 @@ public class CartView extends JPanel {
         }
     }
     
+    // Everything the cart table needs, loaded together off the EDT
+    private static class CartData {
+        private final List<CartItem> cartItems;
+        private final Sale activeSale;
+        private final Map<Integer, Product> products;
+        private final List<Product> alsoBought;
+        
+        CartData(List<CartItem> cartItems, Sale activeSale, Map<Integer, Product> products, List<Product> alsoBought) {
+            this.cartItems = cartItems;
+            this.activeSale = activeSale;
+            this.products = products;
+            this.alsoBought = alsoBought;
+        }
+    }
+    
     // Custom Button Renderer for action column
     static class ButtonRenderer extends JButton implements javax.swing.table.TableCellRenderer {
         public ButtonRenderer() {
@@ -29,6 +29,7 @@ import com.ecommerce.dao.AddressDAO;
 import com.ecommerce.dao.AddressDAOImpl;
 import com.ecommerce.model.Address;
 import com.ecommerce.model.User;
+import com.ecommerce.service.OrderOutcome;
 import com.ecommerce.service.OrderService;
 
 public class CheckoutDialog extends JDialog {
@@ -356,7 +357,7 @@ public class CheckoutDialog extends JDialog {
         
         // Use OrderService to place the order
         OrderService orderService = new OrderService();
-        boolean success = orderService.placeOrder(
+        OrderOutcome outcome = orderService.placeOrder(
                 currentUser.getId(), 
                 addressId, 
                 paymentMethod, 
@@ -366,7 +367,7 @@ public class CheckoutDialog extends JDialog {
                 state,
                 pincode);
         
-        if (success) {
+        if (outcome.isPlaced()) {
             // Create buttons for viewing the receipt
             int option = JOptionPane.showOptionDialog(
                 this,
@@ -409,6 +410,12 @@ public class CheckoutDialog extends JDialog {
             }
             orderPlaced = true;
             dispose();
+        } else if (!outcome.getOversoldProducts().isEmpty()) {
+            JOptionPane.showMessageDialog(this, 
+                    "Not enough stock left for: " + String.join(", ", outcome.getOversoldProducts()) +
+                    "\nPlease reduce the quantity or remove these items and try again.", 
+                    "Insufficient Stock", 
+                    JOptionPane.WARNING_MESSAGE);
         } else {
             JOptionPane.showMessageDialog(this, 
                     "There was a problem placing your order. Please try again.", 
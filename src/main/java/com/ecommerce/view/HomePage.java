@@ -14,10 +14,17 @@ import com.ecommerce.model.Address;
 import com.ecommerce.dao.SaleDAO;
 import com.ecommerce.dao.SaleDAOImpl;
 import com.ecommerce.model.Sale;
+import com.ecommerce.service.CartService;
+import com.ecommerce.service.NotificationBus;
+import com.ecommerce.util.AsyncLoader;
 import com.ecommerce.util.FontManager;
+import com.ecommerce.util.ImageCache;
+import com.ecommerce.util.SuggestionPopup;
 import com.ecommerce.util.ThemeManager;
 import com.ecommerce.dao.OrderDAO;
 import com.ecommerce.dao.OrderDAOImpl;
+import com.ecommerce.dao.CachingProductDAO;
+import com.ecommerce.dao.ProductSuggestIndex;
 import com.ecommerce.model.Order;
 import com.ecommerce.view.OrderDetailsDialog;
 
@@ -29,10 +36,7 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.net.URL;
 import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
 
 public class HomePage extends JFrame {
     private final User currentUser;
@@ -43,7 +47,7 @@ public class HomePage extends JFrame {
     private JButton cartButton;
     private JButton notificationsButton;
     private JLabel notificationBadge;
-    private Timer notificationTimer;
+    private NotificationBus.Subscription notificationSubscription;
     private NotificationDAO notificationDAO;
     private JMenuBar menuBar;
     private JMenu accountMenu;
@@ -55,6 +59,9 @@ public class HomePage extends JFrame {
     private final UserDAO userDAO = new UserDAOImpl();
     private AddressDAO addressDAO;
     private final SaleDAO saleDAO = new SaleDAOImpl();
+    private final AsyncLoader.Slot saleBannerSlot = new AsyncLoader.Slot("home.saleBanner");
+    private final AsyncLoader.Slot ordersSlot = new AsyncLoader.Slot("home.orders");
+    private final AsyncLoader.Slot notificationsSlot = new AsyncLoader.Slot("home.notifications");
 
     public HomePage(User currentUser) {
         this.currentUser = currentUser;
@@ -75,9 +82,13 @@ public class HomePage extends JFrame {
         createTopPanel();
         createContentPanel();
         createFooter();
-        startNotificationTimer();
+        subscribeToNotifications();
         showHomePanel();
         
+        // Read the cart before the first add to cart, which would otherwise wait for it on the EDT
+        int userId = currentUser.getId();
+        AsyncLoader.run("cart.load", () -> CartService.getInstance().load(userId));
+        
         // Apply fonts immediately after components are created
         setFontsOnAllComponents();
         
@@ -194,7 +205,9 @@ public class HomePage extends JFrame {
         logoutMenuItem.setBackground(ThemeManager.CARD_COLOR);
         logoutMenuItem.setForeground(ThemeManager.TEXT_COLOR);
         logoutMenuItem.addActionListener(e -> {
-            stopNotificationTimer();
+            unsubscribeFromNotifications();
+            int userId = currentUser.getId();
+            AsyncLoader.run("cart.close", () -> CartService.getInstance().close(userId));
             dispose();
             new LoginForm().setVisible(true);
         });
@@ -236,6 +249,15 @@ public class HomePage extends JFrame {
                 productsContentPanel.setSearchTextAndFilter(searchField.getText());
             }
         });
+        
+        // Suggest product and category names while typing; picking one searches for it
+        ProductSuggestIndex suggestIndex = CachingProductDAO.getInstance().getSuggestIndex();
+        SuggestionPopup.attach(searchField, text -> suggestIndex.suggest(text, SuggestionPopup.MAX_SUGGESTIONS), text -> {
+            showProductsPanel();
+            if (productsContentPanel != null) {
+                productsContentPanel.setSearchTextAndFilter(text);
+            }
+        });
     }
     
     private void createContentPanel() {
@@ -268,11 +290,14 @@ public class HomePage extends JFrame {
         panel.setLayout(new BorderLayout());
         
         // Check for active sales and add banner if any
-        Sale activeSale = saleDAO.getActiveSale();
-        if (activeSale != null) {
-            JPanel saleBannerPanel = createSaleBanner(activeSale);
-            panel.add(saleBannerPanel, BorderLayout.NORTH);
-        }
+        saleBannerSlot.load(saleDAO::getActiveSale, activeSale -> {
+            if (activeSale != null) {
+                JPanel saleBannerPanel = createSaleBanner(activeSale);
+                panel.add(saleBannerPanel, BorderLayout.NORTH);
+                panel.revalidate();
+                panel.repaint();
+            }
+        });
         
         // Welcome section
         JPanel welcomePanel = new JPanel();
@@ -500,12 +525,30 @@ public class HomePage extends JFrame {
         orderTable.getColumnModel().getColumn(4).setCellEditor(new ButtonEditor(new JCheckBox(), this));
         
         JScrollPane scrollPane = new JScrollPane(orderTable);
-        panel.add(scrollPane, BorderLayout.CENTER);
+        JLabel loadingLabel = AsyncLoader.placeholder("Loading orders...");
+        panel.add(loadingLabel, BorderLayout.CENTER);
         
-        // Load orders
+        // Load orders; a newer orders panel replaces this load if it is still running
         OrderDAO orderDAO = new OrderDAOImpl();
-        List<Order> orders = orderDAO.getOrdersByUserId(currentUser.getId());
+        int userId = currentUser.getId();
+        ordersSlot.load(() -> orderDAO.getOrdersByUserId(userId), orders -> {
+            panel.remove(loadingLabel);
+            showOrders(panel, model, scrollPane, orders);
+            panel.revalidate();
+            panel.repaint();
+        });
         
+        // Refresh button at the bottom
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        JButton refreshButton = new JButton("Refresh Orders");
+        refreshButton.addActionListener(e -> refreshOrdersPanel());
+        buttonPanel.add(refreshButton);
+        panel.add(buttonPanel, BorderLayout.SOUTH);
+        
+        return panel;
+    }
+    
+    private void showOrders(JPanel panel, DefaultTableModel model, JScrollPane scrollPane, List<Order> orders) {
         if (orders.isEmpty()) {
             // If no orders, show a message
             JPanel noOrdersPanel = new JPanel();
@@ -525,7 +568,6 @@ public class HomePage extends JFrame {
             noOrdersPanel.add(shopButton);
             noOrdersPanel.add(Box.createVerticalGlue());
             
-            panel.remove(scrollPane);
             panel.add(noOrdersPanel, BorderLayout.CENTER);
         } else {
             // If there are orders, populate the table
@@ -538,16 +580,8 @@ public class HomePage extends JFrame {
                     "View Details"
                 });
             }
+            panel.add(scrollPane, BorderLayout.CENTER);
         }
-        
-        // Refresh button at the bottom
-        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
-        JButton refreshButton = new JButton("Refresh Orders");
-        refreshButton.addActionListener(e -> refreshOrdersPanel());
-        buttonPanel.add(refreshButton);
-        panel.add(buttonPanel, BorderLayout.SOUTH);
-        
-        return panel;
     }
     
     private void refreshOrdersPanel() {
@@ -658,14 +692,22 @@ public class HomePage extends JFrame {
         
         JButton markAllReadButton = new JButton("Mark All as Read");
         markAllReadButton.addActionListener(e -> {
-            // Mark all notifications as read
-            List<Notification> notifications = notificationDAO.getNotificationsByUserId(currentUser.getId());
-            for (Notification notification : notifications) {
-                notification.setRead(true);
-                notificationDAO.updateNotification(notification);
-            }
-            refreshNotificationsPanel(notificationsListPanel);
-            updateNotificationBadge();
+            // Mark all notifications as read, then show the updated list
+            int userId = currentUser.getId();
+            notificationsSlot.load(() -> {
+                List<Notification> notifications = notificationDAO.getNotificationsByUserId(userId);
+                int marked = 0;
+                for (Notification notification : notifications) {
+                    if (!notification.isRead()) {
+                        notification.setRead(true);
+                        if (notificationDAO.updateNotification(notification)) {
+                            marked++;
+                        }
+                    }
+                }
+                NotificationBus.getInstance().markedRead(userId, marked);
+                return notifications;
+            }, notifications -> showNotifications(notificationsListPanel, notifications));
         });
         
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
@@ -677,8 +719,15 @@ public class HomePage extends JFrame {
     
     private void refreshNotificationsPanel(JPanel notificationsPanel) {
         notificationsPanel.removeAll();
+        notificationsPanel.add(AsyncLoader.placeholder("Loading notifications..."));
         
-        List<Notification> notifications = notificationDAO.getNotificationsByUserId(currentUser.getId());
+        int userId = currentUser.getId();
+        notificationsSlot.load(() -> notificationDAO.getNotificationsByUserId(userId),
+                notifications -> showNotifications(notificationsPanel, notifications));
+    }
+    
+    private void showNotifications(JPanel notificationsPanel, List<Notification> notifications) {
+        notificationsPanel.removeAll();
         
         if (notifications.isEmpty()) {
             JLabel noNotificationsLabel = new JLabel("You don't have any notifications.");
@@ -713,10 +762,14 @@ public class HomePage extends JFrame {
         JButton markReadButton = new JButton("Mark as Read");
         markReadButton.addActionListener(e -> {
             notification.setRead(true);
-            notificationDAO.updateNotification(notification);
             card.setBackground(null);
             markReadButton.setEnabled(false);
-            updateNotificationBadge();
+            int userId = currentUser.getId();
+            AsyncLoader.run("home.markNotificationRead", () -> {
+                if (notificationDAO.updateNotification(notification)) {
+                    NotificationBus.getInstance().markedRead(userId, 1);
+                }
+            });
         });
         markReadButton.setEnabled(!notification.isRead());
         
@@ -1015,31 +1068,22 @@ public class HomePage extends JFrame {
         add(footerPanel, BorderLayout.SOUTH);
     }
     
-    private void startNotificationTimer() {
-        notificationTimer = new Timer();
-        notificationTimer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                updateNotificationBadge();
-            }
-        }, 0, 30000); // Check every 30 seconds
+    private void subscribeToNotifications() {
+        // The bus pushes the unread count whenever it changes, instead of this window polling for it
+        notificationSubscription = NotificationBus.getInstance().subscribe(currentUser.getId(),
+                unreadCount -> SwingUtilities.invokeLater(() -> {
+                    notificationBadge.setText(String.valueOf(unreadCount));
+                    notificationBadge.setVisible(unreadCount > 0);
+                }));
     }
     
-    private void stopNotificationTimer() {
-        if (notificationTimer != null) {
-            notificationTimer.cancel();
-            notificationTimer = null;
+    private void unsubscribeFromNotifications() {
+        if (notificationSubscription != null) {
+            notificationSubscription.close();
+            notificationSubscription = null;
         }
     }
     
-    private void updateNotificationBadge() {
-        SwingUtilities.invokeLater(() -> {
-            int unreadCount = notificationDAO.countUnreadNotifications(currentUser.getId());
-            notificationBadge.setText(String.valueOf(unreadCount));
-            notificationBadge.setVisible(unreadCount > 0);
-        });
-    }
-    
     // Methods to switch between panels
     public void showHomePanel() {
         cardLayout.show(contentPanel, "HOME");
@@ -1127,15 +1171,9 @@ public class HomePage extends JFrame {
         return button;
     }
 
-    // Helper to scale icons
+    // Helper to scale icons; null if the image doesn't exist
     private ImageIcon getScaledIcon(String path, int width, int height) {
-        URL iconUrl = getClass().getResource(path);
-        if (iconUrl != null) {
-            ImageIcon icon = new ImageIcon(iconUrl);
-            Image img = icon.getImage().getScaledInstance(width, height, Image.SCALE_SMOOTH);
-            return new ImageIcon(img);
-        }
-        return null;
+        return ImageCache.getInstance().getIcon(width, height, path);
     }
 
     // Use Caudex font throughout the application
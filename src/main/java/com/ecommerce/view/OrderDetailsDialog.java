@@ -2,6 +2,7 @@ package com.ecommerce.view;
 
 import com.ecommerce.dao.*;
 import com.ecommerce.model.*;
+import com.ecommerce.util.AsyncLoader;
 import com.ecommerce.util.ThemeManager;
 import com.ecommerce.utils.ReceiptGenerator;
 
@@ -11,6 +12,8 @@ import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.text.SimpleDateFormat;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 import java.io.File;
 import java.io.IOException;
 import java.awt.Desktop;
@@ -22,13 +25,14 @@ public class OrderDetailsDialog extends JDialog {
     private final ProductDAO productDAO;
     private final AddressDAO addressDAO;
     private final TransactionDAO transactionDAO;
+    private final AsyncLoader.Slot detailsSlot = new AsyncLoader.Slot("orderDetails");
     
     public OrderDetailsDialog(Window owner, int orderId) {
         super(owner, "Order Details - #" + orderId, ModalityType.APPLICATION_MODAL);
         this.orderId = orderId;
         this.orderDAO = new OrderDAOImpl();
         this.orderItemDAO = new OrderItemDAOImpl();
-        this.productDAO = new ProductDAOImpl();
+        this.productDAO = CachingProductDAO.getInstance();
         this.addressDAO = new AddressDAOImpl();
         this.transactionDAO = new TransactionDAOImpl();
         
@@ -40,9 +44,35 @@ public class OrderDetailsDialog extends JDialog {
         setLocationRelativeTo(getOwner());
         setLayout(new BorderLayout());
         
-        // Get order information
+        JLabel loadingLabel = AsyncLoader.placeholder("Loading order details...");
+        add(loadingLabel, BorderLayout.CENTER);
+        
+        // Fetch everything off the EDT; closing the dialog first drops the result
+        AsyncLoader.cancelWhenHidden(this, detailsSlot);
+        detailsSlot.load(this::loadOrderData, data -> {
+            remove(loadingLabel);
+            showOrder(data);
+            revalidate();
+            repaint();
+        });
+    }
+    
+    private OrderData loadOrderData() {
         Order order = orderDAO.getOrderById(orderId);
         if (order == null) {
+            return null;
+        }
+        List<OrderItem> orderItems = orderItemDAO.getItemsByOrderId(orderId);
+        Map<Integer, Product> products = productDAO.getProductsByIds(
+                orderItems.stream().map(OrderItem::getProductId).collect(Collectors.toList()));
+        return new OrderData(order, orderItems, products,
+                transactionDAO.getTransactionByOrderId(orderId),
+                addressDAO.getAddressById(order.getAddressId()));
+    }
+    
+    private void showOrder(OrderData data) {
+        // Get order information
+        if (data == null) {
             JOptionPane.showMessageDialog(this, 
                     "Error loading order details. Order not found.", 
                     "Error", 
@@ -50,23 +80,24 @@ public class OrderDetailsDialog extends JDialog {
             dispose();
             return;
         }
+        Order order = data.order;
         
         // Format date
         SimpleDateFormat dateFormat = new SimpleDateFormat("dd-MM-yyyy HH:mm:ss");
         String formattedDate = dateFormat.format(order.getOrderDate());
         
         // Get order items
-        List<OrderItem> orderItems = orderItemDAO.getItemsByOrderId(orderId);
+        List<OrderItem> orderItems = data.orderItems;
         
         // Get payment method from transaction
-        Transaction transaction = transactionDAO.getTransactionByOrderId(orderId);
+        Transaction transaction = data.transaction;
         String paymentMethod = "Standard Payment";
         if (transaction != null) {
             paymentMethod = transaction.getMethod().toString();
         }
         
         // Get delivery address
-        Address address = addressDAO.getAddressById(order.getAddressId());
+        Address address = data.address;
         
         // Main panel with padding
         JPanel mainPanel = new JPanel(new BorderLayout(10, 10));
@@ -126,8 +157,9 @@ public class OrderDetailsDialog extends JDialog {
         
         // Add items to table
         double total = 0.0;
+        Map<Integer, Product> products = data.products;
         for (OrderItem item : orderItems) {
-            Product product = productDAO.getProductById(item.getProductId());
+            Product product = products.get(item.getProductId());
             if (product != null) {
                 double price = item.getPrice();
                 int quantity = item.getQuantity();
@@ -318,4 +350,22 @@ public class OrderDetailsDialog extends JDialog {
         add(mainPanel, BorderLayout.CENTER);
         add(buttonPanel, BorderLayout.SOUTH);
     }
+    
+    // Everything the dialog shows, loaded together off the EDT
+    private static class OrderData {
+        private final Order order;
+        private final List<OrderItem> orderItems;
+        private final Map<Integer, Product> products;
+        private final Transaction transaction;
+        private final Address address;
+        
+        OrderData(Order order, List<OrderItem> orderItems, Map<Integer, Product> products,
+                  Transaction transaction, Address address) {
+            this.order = order;
+            this.orderItems = orderItems;
+            this.products = products;
+            this.transaction = transaction;
+            this.address = address;
+        }
+    }
 } 
\ No newline at end of file
@@ -2,6 +2,10 @@ package com.ecommerce.view;
 
 import com.ecommerce.dao.*;
 import com.ecommerce.model.*;
+import com.ecommerce.service.CartService;
+import com.ecommerce.service.SimilarProductsService;
+import com.ecommerce.util.AsyncLoader;
+import com.ecommerce.util.ImageCache;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
@@ -9,16 +13,19 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.image.BufferedImage;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.text.DecimalFormat;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 public class ProductDetailsView extends JDialog {
     private final User currentUser;
     private final Product product;
     private final ProductDAO productDAO;
     private final CategoryDAO categoryDAO;
-    private final CartItemDAO cartItemDAO;
     private final SaleDAO saleDAO;
     private final WishlistDAO wishlistDAO;
     private final RatingDAO ratingDAO;
@@ -39,9 +46,8 @@ public class ProductDetailsView extends JDialog {
         this.product = product;
         
         // Initialize DAOs
-        this.productDAO = new ProductDAOImpl();
-        this.categoryDAO = new CategoryDAOImpl();
-        this.cartItemDAO = new CartItemDAOImpl();
+        this.productDAO = CachingProductDAO.getInstance();
+        this.categoryDAO = CachingCategoryDAO.getInstance();
         this.saleDAO = new SaleDAOImpl();
         this.wishlistDAO = new WishlistDAOImpl();
         this.ratingDAO = new RatingDAOImpl();
@@ -74,6 +80,13 @@ public class ProductDetailsView extends JDialog {
         // Add similar products section
         contentPanel.add(createSimilarProductsPanel());
         
+        // Add frequently bought together section, if this product has been ordered with others
+        List<Product> alsoBought = SimilarProductsService.getInstance().getAlsoBought(product.getId(), 4);
+        if (!alsoBought.isEmpty()) {
+            contentPanel.add(Box.createVerticalStrut(20));
+            contentPanel.add(createAlsoBoughtPanel(alsoBought));
+        }
+        
         JScrollPane scrollPane = new JScrollPane(contentPanel);
         scrollPane.setBorder(null);
         scrollPane.getVerticalScrollBar().setUnitIncrement(16);
@@ -145,13 +158,13 @@ public class ProductDetailsView extends JDialog {
             
             // Load and display product image
             if (product.getImagePath() != null && !product.getImagePath().isEmpty()) {
-                try {
-                    ImageIcon originalIcon = new ImageIcon(product.getImagePath());
-                    Image scaledImage = originalIcon.getImage().getScaledInstance(280, 280, Image.SCALE_SMOOTH);
-                    imageLabel.setIcon(new ImageIcon(scaledImage));
-                } catch (Exception e) {
-                    imageLabel.setText("Image not available");
-                }
+                ImageCache.getInstance().loadAsync(280, 280, icon -> {
+                    if (icon != null) {
+                        imageLabel.setIcon(icon);
+                    } else {
+                        imageLabel.setText("Image not available");
+                    }
+                }, product.getImagePath());
             } else {
                 imageLabel.setText("No image available");
             }
@@ -203,27 +216,22 @@ public class ProductDetailsView extends JDialog {
         ActionListener cartActionListener = new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent actionEvent) {
-                try {
-                    int quantity = (int) quantitySpinner.getValue();
-                    CartItem cartItem = new CartItem(currentUser.getId(), product.getId(), quantity);
-                    if (cartItemDAO.addCartItem(cartItem)) {
-                        JOptionPane.showMessageDialog(ProductDetailsView.this, 
-                            product.getName() + " added to your cart.", 
-                            "Added to Cart", 
-                            JOptionPane.INFORMATION_MESSAGE);
-                    } else {
-                        JOptionPane.showMessageDialog(ProductDetailsView.this, 
-                            "Failed to add item to cart. Please try again.", 
-                            "Error", 
-                            JOptionPane.ERROR_MESSAGE);
-                    }
-                } catch (Exception ex) {
+                int quantity = (int) quantitySpinner.getValue();
+                int userId = currentUser.getId();
+                // Off the EDT in case the cart hasn't been read yet; saved to the database later
+                AsyncLoader.load("cart.add", () -> {
+                    CartService.getInstance().add(userId, product.getId(), quantity);
+                    return null;
+                }, done -> JOptionPane.showMessageDialog(ProductDetailsView.this, 
+                        product.getName() + " added to your cart.", 
+                        "Added to Cart", 
+                        JOptionPane.INFORMATION_MESSAGE), ex -> {
                     System.err.println("Error adding to cart: " + ex.getMessage());
                     JOptionPane.showMessageDialog(ProductDetailsView.this, 
                         "An error occurred. Please try again.", 
                         "Error", 
                         JOptionPane.ERROR_MESSAGE);
-                }
+                });
             }
         };
         
@@ -269,7 +277,7 @@ public class ProductDetailsView extends JDialog {
         JPanel cardsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 10));
         
         // Get similar products
-        List<Product> similarProducts = productDAO.getSimilarProducts(product.getId(), 4);
+        List<Product> similarProducts = SimilarProductsService.getInstance().getSimilarProducts(product.getId(), 4);
         
         if (similarProducts.isEmpty()) {
             JLabel noProductsLabel = new JLabel("No similar products found");
@@ -284,6 +292,19 @@ public class ProductDetailsView extends JDialog {
         return panel;
     }
     
+    private JPanel createAlsoBoughtPanel(List<Product> alsoBought) {
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.setBorder(BorderFactory.createTitledBorder("Customers Who Bought This Also Bought"));
+        
+        JPanel cardsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 10));
+        for (Product boughtProduct : alsoBought) {
+            cardsPanel.add(createProductCard(boughtProduct));
+        }
+        
+        panel.add(cardsPanel, BorderLayout.CENTER);
+        return panel;
+    }
+    
     private JPanel createProductCard(Product product) {
         JPanel card = new JPanel();
         card.setLayout(new BoxLayout(card, BoxLayout.Y_AXIS));
@@ -316,9 +337,7 @@ public class ProductDetailsView extends JDialog {
         
         // Load and display product image
         if (product.getImagePath() != null && !product.getImagePath().isEmpty()) {
-            ImageIcon originalIcon = new ImageIcon(product.getImagePath());
-            Image scaledImage = originalIcon.getImage().getScaledInstance(180, 180, Image.SCALE_SMOOTH);
-            imageLabel.setIcon(new ImageIcon(scaledImage));
+            ImageCache.getInstance().loadAsync(180, 180, imageLabel::setIcon, product.getImagePath());
         } else {
             imageLabel.setText("No image available");
         }
@@ -427,9 +446,18 @@ public class ProductDetailsView extends JDialog {
             noRatingsLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
             ratingsPanel.add(noRatingsLabel);
         } else {
+            // Look up all reviewers at once rather than one query per rating
+            Map<Integer, User> reviewers = new HashMap<>();
+            try {
+                reviewers = new UserDAOImpl().getUsersByIds(
+                        ratings.stream().map(Rating::getUserId).collect(Collectors.toList()));
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+            
             // Display ratings
             for (Rating rating : ratings) {
-                JPanel ratingPanel = createRatingPanel(rating);
+                JPanel ratingPanel = createRatingPanel(rating, reviewers.get(rating.getUserId()));
                 ratingsPanel.add(ratingPanel);
                 ratingsPanel.add(Box.createVerticalStrut(10));
             }
@@ -444,7 +472,7 @@ public class ProductDetailsView extends JDialog {
         ratingsPanel.repaint();
     }
     
-    private JPanel createRatingPanel(Rating rating) {
+    private JPanel createRatingPanel(Rating rating, User ratingUser) {
         JPanel panel = new JPanel(new BorderLayout(10, 0));
         panel.setBorder(BorderFactory.createCompoundBorder(
                 BorderFactory.createMatteBorder(0, 0, 1, 0, Color.LIGHT_GRAY),
@@ -460,8 +488,6 @@ public class ProductDetailsView extends JDialog {
         }
         
         // Add username if available
-        UserDAO userDAO = new UserDAOImpl();
-        User ratingUser = userDAO.getUserById(rating.getUserId());
         if (ratingUser != null) {
             starsPanel.add(new JLabel(" - " + ratingUser.getUsername()));
         }
@@ -644,27 +670,18 @@ public class ProductDetailsView extends JDialog {
     }
     
     private String getCategoryName(int categoryId) {
-        // Get category from database
-        for (Category category : categoryDAO.getAllCategories()) {
-            if (category.getId() == categoryId) {
-                return category.getName();
-            }
-        }
-        return "Unknown";
+        Category category = categoryDAO.getCategoryById(categoryId);
+        return category != null ? category.getName() : "Unknown";
     }
     
     private ImageIcon getScaledIcon(String iconPath, int width, int height) {
         try {
-            // Check if resource exists
-            if (getClass().getResource(iconPath) == null) {
+            ImageIcon icon = ImageCache.getInstance().getIcon(width, height, iconPath);
+            if (icon == null) {
                 // Create a colored rectangle icon instead
                 return createColorIcon(width, height, new Color(255, 153, 0));
             }
-            
-            // Resource exists, proceed normally
-            ImageIcon originalIcon = new ImageIcon(getClass().getResource(iconPath));
-            Image scaledImage = originalIcon.getImage().getScaledInstance(width, height, Image.SCALE_SMOOTH);
-            return new ImageIcon(scaledImage);
+            return icon;
         } catch (Exception e) {
             // If any error occurs, return a fallback colored icon
             return createColorIcon(width, height, new Color(255, 153, 0));
@@ -12,19 +12,20 @@ import java.awt.Font;
 import java.awt.FontMetrics;
 import java.awt.GradientPaint;
 import java.awt.Graphics2D;
-import java.awt.Image;
-import java.awt.Insets;
+import java.awt.Rectangle;
 import java.awt.RenderingHints;
 import java.awt.Window;
-import java.awt.event.KeyAdapter;
-import java.awt.event.KeyEvent;
+import java.awt.event.HierarchyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.image.BufferedImage;
-import java.net.URL;
 import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 import javax.swing.BorderFactory;
 import javax.swing.Box;
@@ -37,59 +38,97 @@ import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.JScrollBar;
 import javax.swing.JScrollPane;
 import javax.swing.JSpinner;
 import javax.swing.JTextField;
+import javax.swing.Scrollable;
 import javax.swing.SpinnerNumberModel;
 import javax.swing.SwingConstants;
 import javax.swing.SwingUtilities;
 import javax.swing.border.EmptyBorder;
 
-import com.ecommerce.dao.CartItemDAO;
-import com.ecommerce.dao.CartItemDAOImpl;
-import com.ecommerce.dao.CategoryDAO;
-import com.ecommerce.dao.CategoryDAOImpl;
+import com.ecommerce.dao.CachingProductDAO;
+import com.ecommerce.dao.CachingCategoryDAO;
+import com.ecommerce.dao.CategoryTree;
+import com.ecommerce.dao.ProductCursor;
 import com.ecommerce.dao.ProductDAO;
-import com.ecommerce.dao.ProductDAOImpl;
+import com.ecommerce.dao.ProductFilter;
+import com.ecommerce.dao.ProductPage;
+import com.ecommerce.dao.ProductSearchIndex;
+import com.ecommerce.dao.ProductSort;
+import com.ecommerce.dao.ProductSuggestIndex;
 import com.ecommerce.dao.SaleDAO;
 import com.ecommerce.dao.SaleDAOImpl;
 import com.ecommerce.dao.WishlistDAO;
 import com.ecommerce.dao.WishlistDAOImpl;
-import com.ecommerce.model.CartItem;
 import com.ecommerce.model.Category;
 import com.ecommerce.model.Product;
 import com.ecommerce.model.Sale;
 import com.ecommerce.model.User;
 import com.ecommerce.model.Wishlist;
+import com.ecommerce.service.CartService;
+import com.ecommerce.util.AsyncLoader;
 import com.ecommerce.util.FontManager;
+import com.ecommerce.util.ImageCache;
+import com.ecommerce.util.IntHashSet;
+import com.ecommerce.util.SuggestionPopup;
 import com.ecommerce.util.ThemeManager;
 
 public class ProductListView extends JPanel {
     private final User currentUser;
     private final ProductDAO productDAO;
-    private final CategoryDAO categoryDAO;
-    private final CartItemDAO cartItemDAO;
+    private final ProductSearchIndex searchIndex;
+    private final ProductSuggestIndex suggestIndex;
+    private final CachingCategoryDAO categoryDAO;
     private final SaleDAO saleDAO;
     private final WishlistDAO wishlistDAO;
     
-    private JPanel productCardsPanel;
+    private ProductGrid productGrid;
     private JComboBox<String> categoryFilterCombo;
     private JComboBox<String> sortByCombo;
     private JTextField searchField;
     private JLabel statusLabel;
-    private List<Product> allProducts;
-    private List<Category> allCategories;
+    private JScrollPane scrollPane;
+    private CategoryTree categoryTree;
     private Sale activeSale;
     private JComboBox<String> subcategoryFilterCombo;
-    private List<Category> allSubcategories;
+    private final AsyncLoader.Slot catalogSlot = new AsyncLoader.Slot("products.catalog");
+    private final AsyncLoader.Slot pageSlot = new AsyncLoader.Slot("products.page");
+    private final AsyncLoader.Slot wishlistSlot = new AsyncLoader.Slot("products.wishlist");
+    // Paging state for the current filter
+    private ProductFilter currentFilter;
+    private ProductCursor nextCursor;
+    private boolean hasMorePages;
+    private boolean loadingPage;
+    private int shownCount;
+    // Ids of the products in the user's wishlist, loaded in one query and kept up to date by toggleWishlist
+    private IntHashSet wishlistedIds = new IntHashSet();
+    // Products whose heart was clicked and is still being saved; more clicks on them are ignored
+    private final IntHashSet wishlistSaving = new IntHashSet();
+    // Category picked (e.g. from the home page) before the catalog finished loading
+    private String pendingCategory;
+    // Set while the filter combos are changed in code, so their listeners don't each start a load
+    private boolean updatingFilters;
     
     private final DecimalFormat currencyFormat = new DecimalFormat("#,##0.00");
     
+    // Products fetched per page, and how close to the bottom the next page is fetched
+    private static final int PAGE_SIZE = 40;
+    private static final int LOAD_AHEAD_PIXELS = 800;
+    
+    // Product grid geometry; only the rows in view plus BUFFER_ROWS either side have cards
+    private static final int CARD_WIDTH = 250;
+    private static final int CARD_HEIGHT = 350;
+    private static final int CARD_GAP = 20;
+    private static final int BUFFER_ROWS = 1;
+    
     public ProductListView(User currentUser) {
         this.currentUser = currentUser;
-        this.productDAO = new ProductDAOImpl();
-        this.categoryDAO = new CategoryDAOImpl();
-        this.cartItemDAO = new CartItemDAOImpl();
+        this.productDAO = CachingProductDAO.getInstance();
+        this.searchIndex = CachingProductDAO.getInstance().getSearchIndex();
+        this.suggestIndex = CachingProductDAO.getInstance().getSuggestIndex();
+        this.categoryDAO = CachingCategoryDAO.getInstance();
         this.saleDAO = new SaleDAOImpl();
         this.wishlistDAO = new WishlistDAOImpl();
         
@@ -102,14 +141,15 @@ public class ProductListView extends JPanel {
         add(filterPanel, BorderLayout.NORTH);
         
         // Center panel with scrollable product cards
-        productCardsPanel = new JPanel();
-        productCardsPanel.setLayout(new WrapLayout(FlowLayout.LEFT, 20, 20));
-        productCardsPanel.setBackground(ThemeManager.BACKGROUND_COLOR);
+        productGrid = new ProductGrid();
         
-        JScrollPane scrollPane = new JScrollPane(productCardsPanel);
+        scrollPane = new JScrollPane(productGrid);
         scrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_ALWAYS);
         scrollPane.setBorder(null);
         scrollPane.getViewport().setBackground(ThemeManager.BACKGROUND_COLOR);
+        // Cards follow the viewport, and products are added a page at a time as the user nears the bottom
+        scrollPane.getViewport().addChangeListener(e -> productGrid.bindVisibleCards());
+        scrollPane.getVerticalScrollBar().addAdjustmentListener(e -> loadMoreIfNearBottom());
         add(scrollPane, BorderLayout.CENTER);
         
         // Status label
@@ -118,9 +158,15 @@ public class ProductListView extends JPanel {
         statusLabel.setBorder(new EmptyBorder(10, 10, 10, 10));
         add(statusLabel, BorderLayout.SOUTH);
         
-        // Load initial data
+        // The wishlist may have changed elsewhere (e.g. the wishlist page) while this view was hidden
+        addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0 && isShowing()) {
+                loadWishlist();
+            }
+        });
+        
+        // Load initial data in the background
         loadAllData();
-        displayProducts(allProducts);
     }
     
     private JPanel createFilterPanel() {
@@ -141,14 +187,9 @@ public class ProductListView extends JPanel {
         searchField = new JTextField(25);
         searchField.setFont(FontManager.getRegular(16f));
         searchField.setPreferredSize(new Dimension(searchField.getPreferredSize().width, 40));
-        searchField.addKeyListener(new KeyAdapter() {
-            @Override
-            public void keyReleased(KeyEvent e) {
-                if (e.getKeyCode() == KeyEvent.VK_ENTER) {
-                    filterProducts();
-                }
-            }
-        });
+        searchField.addActionListener(e -> filterProducts());
+        SuggestionPopup.attach(searchField, text -> suggestIndex.suggest(text, SuggestionPopup.MAX_SUGGESTIONS),
+                text -> filterProducts());
         
         JButton searchButton = ThemeManager.createStyledButton("Search");
         searchButton.setPreferredSize(new Dimension(100, 40));
@@ -170,8 +211,10 @@ public class ProductListView extends JPanel {
         categoryFilterCombo.setFont(FontManager.getRegular(14f));
         categoryFilterCombo.setPreferredSize(new Dimension(180, 35));
         categoryFilterCombo.addActionListener(e -> {
-            updateSubcategoryFilter();
-            filterProducts();
+            if (!updatingFilters) {
+                updateSubcategoryFilter();
+                filterProducts();
+            }
         });
         
         // Subcategory filter
@@ -181,7 +224,11 @@ public class ProductListView extends JPanel {
         subcategoryFilterCombo = new JComboBox<>();
         subcategoryFilterCombo.setFont(FontManager.getRegular(14f));
         subcategoryFilterCombo.setPreferredSize(new Dimension(180, 35));
-        subcategoryFilterCombo.addActionListener(e -> filterProducts());
+        subcategoryFilterCombo.addActionListener(e -> {
+            if (!updatingFilters) {
+                filterProducts();
+            }
+        });
         
         // Sort options
         JLabel sortLabel = new JLabel("Sort:");
@@ -193,7 +240,11 @@ public class ProductListView extends JPanel {
         });
         sortByCombo.setFont(FontManager.getRegular(14f));
         sortByCombo.setPreferredSize(new Dimension(180, 35));
-        sortByCombo.addActionListener(e -> filterProducts());
+        sortByCombo.addActionListener(e -> {
+            if (!updatingFilters) {
+                filterProducts();
+            }
+        });
         
         // Reset button
         JButton resetButton = ThemeManager.createStyledButton("Reset Filters");
@@ -201,8 +252,11 @@ public class ProductListView extends JPanel {
         resetButton.setPreferredSize(new Dimension(130, 35));
         resetButton.addActionListener(e -> {
             searchField.setText("");
-            categoryFilterCombo.setSelectedIndex(0);
-            sortByCombo.setSelectedIndex(0);
+            withoutFilterEvents(() -> {
+                categoryFilterCombo.setSelectedIndex(0);
+                sortByCombo.setSelectedIndex(0);
+                updateSubcategoryFilter();
+            });
             filterProducts();
         });
         
@@ -238,360 +292,379 @@ public class ProductListView extends JPanel {
     }
     
     private void loadAllData() {
-        // Load products
-        allProducts = productDAO.getAllProduct();
-        
-        // Load categories
-        allCategories = categoryDAO.getAllCategories();
-        
-        // Populate category filter
-        categoryFilterCombo.removeAllItems();
-        categoryFilterCombo.addItem("All Categories");
-        for (Category category : allCategories) {
-            Integer parentId = category.getParentId();
-            if (parentId == null || parentId == 0 || parentId == -1) {
+        productGrid.showMessage("Loading products...");
+        statusLabel.setText("Loading products...");
+        
+        // Build the search indexes now rather than at the first search or keystroke, without
+        // holding up the first page
+        AsyncLoader.run("products.indexes", () -> {
+            searchIndex.ensureBuilt();
+            suggestIndex.ensureBuilt();
+            CachingProductDAO.getInstance().getCategoryIndex().ensureBuilt();
+            CachingProductDAO.getInstance().getPriceIndex().ensureBuilt();
+        });
+        loadWishlist();
+        catalogSlot.load(() -> new CatalogData(
+                categoryDAO.getCategoryTree(),
+                saleDAO.getActiveSale()), this::applyCatalog);
+    }
+    
+    private void applyCatalog(CatalogData data) {
+        categoryTree = data.categoryTree;
+        activeSale = data.activeSale;
+        
+        // Populate category filter, keeping the selection when the catalog is reloaded
+        Object selectedCategory = categoryFilterCombo.getSelectedItem();
+        Object selectedSubcategory = subcategoryFilterCombo.getSelectedItem();
+        withoutFilterEvents(() -> {
+            categoryFilterCombo.removeAllItems();
+            categoryFilterCombo.addItem("All Categories");
+            for (Category category : categoryTree.getRoots()) {
                 categoryFilterCombo.addItem(category.getName());
             }
-        }
+            if (selectedCategory != null) {
+                categoryFilterCombo.setSelectedItem(selectedCategory);
+            }
+            updateSubcategoryFilter();
+            if (selectedSubcategory != null) {
+                subcategoryFilterCombo.setSelectedItem(selectedSubcategory);
+            }
+        });
         
-        // Get active sale
-        activeSale = saleDAO.getActiveSale();
+        if (pendingCategory != null) {
+            String category = pendingCategory;
+            pendingCategory = null;
+            setCategoryAndFilter(category);
+        } else {
+            filterProducts();
+        }
+    }
+    
+    // Reload which products are wishlisted and update the hearts on screen
+    private void loadWishlist() {
+        int userId = currentUser.getId();
+        wishlistSlot.load(() -> wishlistDAO.getWishlistProductIds(userId), productIds -> {
+            wishlistedIds = productIds;
+            productGrid.refreshWishlistButtons();
+        });
+    }
+    
+    // Everything the filters need, loaded together off the EDT; products are paged in separately
+    private static class CatalogData {
+        private final CategoryTree categoryTree;
+        private final Sale activeSale;
+        
+        CatalogData(CategoryTree categoryTree, Sale activeSale) {
+            this.categoryTree = categoryTree;
+            this.activeSale = activeSale;
+        }
     }
     
     private void filterProducts() {
-        if (allProducts == null || allProducts.isEmpty()) {
-            statusLabel.setText("No products available");
+        if (categoryTree == null) {
+            // Still loading; applyCatalog filters once the data is in
             return;
         }
         
         // Get filter values
-        String searchText = searchField.getText().toLowerCase();
-        String categoryFilter = (String) categoryFilterCombo.getSelectedItem();
-        String subcategoryFilter = (String) subcategoryFilterCombo.getSelectedItem();
+        String searchText = searchField.getText().trim();
         String sortOption = (String) sortByCombo.getSelectedItem();
         
-        // Filter by search text and category
-        List<Product> filteredProducts = allProducts.stream()
-                .filter(p -> (searchText.isEmpty() || p.getName().toLowerCase().contains(searchText)
-                        || p.getDescription().toLowerCase().contains(searchText)))
-                .filter(p -> "All Categories".equals(categoryFilter)
-                        || getCategoryNameById(p.getCategory_id()).equals(categoryFilter)
-                        || isSubcategoryOf(p.getCategory_id(), categoryFilter))
-                .filter(p -> subcategoryFilterCombo.isEnabled() ?
-                        ("All Subcategories".equals(subcategoryFilter) || getCategoryNameById(p.getCategory_id()).equals(subcategoryFilter)) : true)
-                .collect(Collectors.toList());
-        
-        // Sort the filtered products
+        ProductSort sort = searchText.isEmpty() ? ProductSort.ID : ProductSort.RELEVANCE;
         if ("Price: Low to High".equals(sortOption)) {
-            filteredProducts.sort((p1, p2) -> Double.compare(p1.getPrice(), p2.getPrice()));
+            sort = ProductSort.PRICE_ASC;
         } else if ("Price: High to Low".equals(sortOption)) {
-            filteredProducts.sort((p1, p2) -> Double.compare(p2.getPrice(), p1.getPrice()));
+            sort = ProductSort.PRICE_DESC;
         } else if ("Name: A to Z".equals(sortOption)) {
-            filteredProducts.sort((p1, p2) -> p1.getName().compareToIgnoreCase(p2.getName()));
+            sort = ProductSort.NAME_ASC;
         } else if ("Name: Z to A".equals(sortOption)) {
-            filteredProducts.sort((p1, p2) -> p2.getName().compareToIgnoreCase(p1.getName()));
+            sort = ProductSort.NAME_DESC;
         }
         
-        // Display the filtered and sorted products
-        displayProducts(filteredProducts);
+        // Start over with the first page; a page still loading for the old filter is dropped
+        currentFilter = new ProductFilter()
+                .setKeyword(searchText)
+                .setCategoryIds(selectedCategoryIds())
+                .setSort(sort);
+        nextCursor = null;
+        hasMorePages = true;
+        loadingPage = false;
+        shownCount = 0;
+        productGrid.showMessage("Loading products...");
+        scrollPane.getVerticalScrollBar().setValue(0);
+        loadNextPage();
+    }
+    
+    // Ids of the categories the category/subcategory filters let through, or null for all
+    private List<Integer> selectedCategoryIds() {
+        String categoryFilter = (String) categoryFilterCombo.getSelectedItem();
+        String subcategoryFilter = (String) subcategoryFilterCombo.getSelectedItem();
+        if (categoryFilter == null || "All Categories".equals(categoryFilter)) {
+            return null;
+        }
+        int selectedId = categoryTree.findRootByName(categoryFilter);
+        if (subcategoryFilterCombo.isEnabled() && subcategoryFilter != null
+                && !"All Subcategories".equals(subcategoryFilter)) {
+            selectedId = categoryTree.findChildByName(selectedId, subcategoryFilter);
+        }
+        // A category's products include those of all its subcategories
+        return categoryTree.getSubtreeIds(selectedId);
     }
     
     private String getCategoryNameById(int categoryId) {
-        for (Category category : allCategories) {
-            if (category.getId() == categoryId) {
-                return category.getName();
-            }
+        String name = categoryTree.getName(categoryId);
+        return name != null ? name : "Unknown";
+    }
+    
+    // Fetch the page after the last one shown, unless one is already on its way
+    private void loadNextPage() {
+        if (loadingPage || !hasMorePages || currentFilter == null) {
+            return;
+        }
+        loadingPage = true;
+        ProductFilter filter = currentFilter;
+        ProductCursor after = nextCursor;
+        if (shownCount > 0) {
+            statusLabel.setText("Showing " + shownCount + " products, loading more...");
         }
-        return "Unknown";
+        pageSlot.load(() -> productDAO.getProductPage(filter, after, PAGE_SIZE), this::appendPage);
     }
     
-    private void displayProducts(List<Product> products) {
-        productCardsPanel.removeAll();
+    private void appendPage(ProductPage page) {
+        loadingPage = false;
+        nextCursor = page.getNext();
+        hasMorePages = page.hasMore();
+        
+        if (shownCount == 0) {
+            // Replaces the loading message
+            productGrid.setProducts(page.getProducts());
+        } else {
+            productGrid.addProducts(page.getProducts());
+        }
+        shownCount += page.getProducts().size();
         
-        if (products.isEmpty()) {
+        if (shownCount == 0) {
             statusLabel.setText("No products match your criteria");
-            productCardsPanel.add(new JLabel("No products found. Try changing your filters."));
+            productGrid.showMessage("No products found. Try changing your filters.");
+        } else if (hasMorePages) {
+            statusLabel.setText("Showing " + shownCount + " products, scroll for more");
         } else {
-            statusLabel.setText("Showing " + products.size() + " products");
-            
-            for (Product product : products) {
-                JPanel productCard = createProductCard(product);
-                productCardsPanel.add(productCard);
-            }
+            statusLabel.setText("Showing " + shownCount + " products");
         }
         
-        productCardsPanel.revalidate();
-        productCardsPanel.repaint();
+        // A short page may not fill the window, in which case there's nothing to scroll yet
+        SwingUtilities.invokeLater(this::loadMoreIfNearBottom);
     }
     
-    private JPanel createProductCard(Product product) {
-        // Create a card panel with border and shadow effect
-        JPanel card = ThemeManager.createCard();
-        card.setLayout(new BorderLayout(10, 10));
-        card.setPreferredSize(new Dimension(250, 350));
-        card.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
-        
-        // Product image panel
-        JPanel imagePanel = new JPanel(new BorderLayout());
-        imagePanel.setPreferredSize(new Dimension(250, 180));
-        imagePanel.setBackground(new Color(240, 240, 240));
-        
-        // Try direct file loading for product images
-        try {
-            ImageIcon productIcon = null;
+    private void loadMoreIfNearBottom() {
+        JScrollBar bar = scrollPane.getVerticalScrollBar();
+        if (bar.getValue() + bar.getVisibleAmount() >= bar.getMaximum() - LOAD_AHEAD_PIXELS) {
+            loadNextPage();
+        }
+    }
+    
+    // A product card built once and re-bound to whichever product the grid scrolls into its place
+    private class ProductCard {
+        private final JPanel panel = ThemeManager.createCard();
+        private final JLabel imageLabel = new JLabel();
+        private final JLabel nameLabel = new JLabel();
+        private final JLabel categoryLabel = new JLabel();
+        private final JLabel priceLabel = new JLabel();
+        private final JLabel originalPriceLabel = new JLabel();
+        private final Component saleGap = Box.createHorizontalStrut(10);
+        private final JLabel saleLabel = new JLabel();
+        private final JButton wishlistBtn = new JButton();
+        private Product product;
+        
+        ProductCard() {
+            panel.setLayout(new BorderLayout(10, 10));
+            panel.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
             
-            // First check if product has an imagePath set
-            if (product.getImagePath() != null && !product.getImagePath().isEmpty()) {
-                try {
-                    productIcon = new ImageIcon(product.getImagePath());
-                    // Check if the image loaded successfully
-                    if (productIcon.getIconWidth() > 1) {
-                        // Scale the image to fit the panel
-                        Image img = productIcon.getImage().getScaledInstance(250, 180, Image.SCALE_SMOOTH);
-                        productIcon = new ImageIcon(img);
-                    }
-                } catch (Exception ex) {
-                    System.err.println("Failed to load image from path: " + product.getImagePath());
-                    productIcon = null;
-                }
-            }
+            // Product image panel
+            JPanel imagePanel = new JPanel(new BorderLayout());
+            imagePanel.setPreferredSize(new Dimension(250, 180));
+            imagePanel.setBackground(new Color(240, 240, 240));
+            imageLabel.setHorizontalAlignment(SwingConstants.CENTER);
+            // Shown as the image when even the placeholder can't be drawn
+            imageLabel.setFont(FontManager.getBold(48f));
+            imageLabel.setForeground(ThemeManager.PRIMARY_MEDIUM);
+            imagePanel.add(imageLabel, BorderLayout.CENTER);
             
-            // If no image from imagePath, try resource paths
-            if (productIcon == null || productIcon.getIconWidth() <= 1) {
-                // Check for actual resources first
-                String[] possiblePaths = {
-                    "/product_images/" + product.getId() + ".jpg",
-                    "/product_images/" + product.getId() + ".png",
-                    "/images/products/product_" + product.getId() + ".jpg",
-                    "/images/products/product_" + product.getId() + ".png",
-                    "/images/products/" + product.getId() + ".jpg",
-                    "/images/products/" + product.getId() + ".png"
-                };
-                
-                for (String path : possiblePaths) {
-                    URL url = getClass().getResource(path);
-                    if (url != null) {
-                        productIcon = new ImageIcon(url);
-                        Image img = productIcon.getImage().getScaledInstance(250, 180, Image.SCALE_SMOOTH);
-                        productIcon = new ImageIcon(img);
-                        break;
+            // Add click listener to image panel
+            imagePanel.addMouseListener(new MouseAdapter() {
+                @Override
+                public void mouseClicked(MouseEvent e) {
+                    if (product != null) {
+                        showProductDetails(product);
                     }
                 }
-            }
+            });
             
-            // If still no image found, create a placeholder
-            if (productIcon == null || productIcon.getIconWidth() <= 1) {
-                // Try with static demo data - create a sample image for the product
-                BufferedImage sampleImage = new BufferedImage(250, 180, BufferedImage.TYPE_INT_RGB);
-                Graphics2D g2d = sampleImage.createGraphics();
-                
-                // Create a gradient background
-                Color startColor, endColor;
-                int categoryId = product.getCategory_id();
-                
-                // Different colors for different categories
-                switch (categoryId % 5) {
-                    case 0:
-                        startColor = new Color(50, 50, 150);
-                        endColor = new Color(100, 100, 255);
-                        break;
-                    case 1:
-                        startColor = new Color(150, 50, 50);
-                        endColor = new Color(255, 100, 100);
-                        break;
-                    case 2:
-                        startColor = new Color(50, 150, 50);
-                        endColor = new Color(100, 255, 100);
-                        break;
-                    case 3:
-                        startColor = new Color(150, 150, 50);
-                        endColor = new Color(255, 255, 100);
-                        break;
-                    default:
-                        startColor = new Color(150, 50, 150);
-                        endColor = new Color(255, 100, 255);
-                }
-                
-                GradientPaint gradient = new GradientPaint(0, 0, startColor, 250, 180, endColor);
-                g2d.setPaint(gradient);
-                g2d.fillRect(0, 0, 250, 180);
-                
-                // Draw product initial and name
-                g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
-                g2d.setColor(Color.WHITE);
-                g2d.setFont(FontManager.getBold(80f));
-                
-                String initial = product.getName().substring(0, 1).toUpperCase();
-                FontMetrics fm = g2d.getFontMetrics();
-                int x = (250 - fm.stringWidth(initial)) / 2;
-                int y = 180/2 + fm.getAscent()/2;
-                g2d.drawString(initial, x, y);
-                
-                // Draw product name in smaller font
-                g2d.setFont(FontManager.getRegular(14f));
-                fm = g2d.getFontMetrics();
-                String nameShort = product.getName();
-                if (nameShort.length() > 25) {
-                    nameShort = nameShort.substring(0, 22) + "...";
-                }
-                x = (250 - fm.stringWidth(nameShort)) / 2;
-                y = 180 - 20;
-                g2d.drawString(nameShort, x, y);
-                
-                g2d.dispose();
-                
-                productIcon = new ImageIcon(sampleImage);
-            }
+            // Product info panel
+            JPanel infoPanel = new JPanel();
+            infoPanel.setLayout(new BoxLayout(infoPanel, BoxLayout.Y_AXIS));
+            infoPanel.setBackground(ThemeManager.CARD_COLOR);
+            infoPanel.setBorder(BorderFactory.createEmptyBorder(5, 10, 10, 10));
             
-            // Add to panel
-            JLabel imageLabel = new JLabel(productIcon);
-            imageLabel.setHorizontalAlignment(SwingConstants.CENTER);
-            imagePanel.add(imageLabel, BorderLayout.CENTER);
+            // Product name
+            nameLabel.setFont(FontManager.getBold(16f));
+            nameLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
             
-        } catch (Exception e) {
-            // Fallback to placeholder with initial
-            JLabel placeholderLabel = new JLabel(product.getName().substring(0, 1).toUpperCase());
-            placeholderLabel.setFont(FontManager.getBold(48f));
-            placeholderLabel.setForeground(ThemeManager.PRIMARY_MEDIUM);
-            placeholderLabel.setHorizontalAlignment(SwingConstants.CENTER);
-            imagePanel.add(placeholderLabel, BorderLayout.CENTER);
-        }
-        
-        // Add click listener to image panel
-        imagePanel.addMouseListener(new MouseAdapter() {
-            @Override
-            public void mouseClicked(MouseEvent e) {
-                showProductDetails(product);
-            }
-        });
-        
-        // Product info panel
-        JPanel infoPanel = new JPanel();
-        infoPanel.setLayout(new BoxLayout(infoPanel, BoxLayout.Y_AXIS));
-        infoPanel.setBackground(ThemeManager.CARD_COLOR);
-        infoPanel.setBorder(BorderFactory.createEmptyBorder(5, 10, 10, 10));
-        
-        // Product name
-        JLabel nameLabel = new JLabel(product.getName());
-        nameLabel.setFont(FontManager.getBold(16f));
-        nameLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
-        
-        // Category
-        JLabel categoryLabel = new JLabel(getCategoryNameById(product.getCategory_id()));
-        categoryLabel.setFont(FontManager.getItalic(14f));
-        categoryLabel.setForeground(ThemeManager.SECONDARY_TEXT_COLOR);
-        categoryLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
-        
-        // Price
-        JPanel pricePanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
-        pricePanel.setBackground(ThemeManager.CARD_COLOR);
-        pricePanel.setAlignmentX(Component.LEFT_ALIGNMENT);
-        
-        double displayPrice = product.getPrice();
-        boolean isOnSale = false;
-        
-        // Check if product is on sale
-        if (activeSale != null) {
-            isOnSale = true;
-            displayPrice = product.getPrice() * (1 - (activeSale.getDiscountPercent() / 100.0));
-        }
-        
-        JLabel priceLabel = new JLabel("Rs. " + String.format("%.2f", displayPrice));
-        priceLabel.setFont(new Font("Arial", Font.BOLD, 18));
-        priceLabel.setForeground(ThemeManager.ACCENT_RED);
-        
-        pricePanel.add(priceLabel);
-        
-        // Original price if on sale
-        if (isOnSale) {
-            JLabel originalPriceLabel = new JLabel(" Rs. " + String.format("%.2f", product.getPrice()));
-            originalPriceLabel.setFont(new Font("Arial", Font.PLAIN, 14));
-            originalPriceLabel.setForeground(ThemeManager.SECONDARY_TEXT_COLOR);
+            // Category
+            categoryLabel.setFont(FontManager.getItalic(14f));
+            categoryLabel.setForeground(ThemeManager.SECONDARY_TEXT_COLOR);
+            categoryLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
             
-            // Add strikethrough to original price
-            originalPriceLabel.setText("<html><strike>" + originalPriceLabel.getText() + "</strike></html>");
+            // Price, with the original price and a sale badge while a sale is on
+            JPanel pricePanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
+            pricePanel.setBackground(ThemeManager.CARD_COLOR);
+            pricePanel.setAlignmentX(Component.LEFT_ALIGNMENT);
             
-            pricePanel.add(originalPriceLabel);
+            priceLabel.setFont(new Font("Arial", Font.BOLD, 18));
+            priceLabel.setForeground(ThemeManager.ACCENT_RED);
+            
+            originalPriceLabel.setFont(new Font("Arial", Font.PLAIN, 14));
+            originalPriceLabel.setForeground(ThemeManager.SECONDARY_TEXT_COLOR);
             
-            // Sale badge
-            JLabel saleLabel = new JLabel(activeSale.getDiscountPercent() + "% OFF");
             saleLabel.setFont(new Font("Arial", Font.BOLD, 12));
             saleLabel.setForeground(Color.WHITE);
             saleLabel.setBackground(ThemeManager.ACCENT_RED);
             saleLabel.setOpaque(true);
             saleLabel.setBorder(BorderFactory.createEmptyBorder(2, 5, 2, 5));
-            pricePanel.add(Box.createHorizontalStrut(10));
+            
+            pricePanel.add(priceLabel);
+            pricePanel.add(originalPriceLabel);
+            pricePanel.add(saleGap);
             pricePanel.add(saleLabel);
+            
+            // Action buttons panel
+            JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+            buttonPanel.setBackground(ThemeManager.CARD_COLOR);
+            buttonPanel.setAlignmentX(Component.LEFT_ALIGNMENT);
+            
+            // Add to cart button
+            JButton addToCartBtn = new JButton("Add to Cart");
+            addToCartBtn.setFont(FontManager.getBold(14f));
+            addToCartBtn.setBackground(ThemeManager.ACCENT_ORANGE);
+            addToCartBtn.setForeground(Color.WHITE);
+            addToCartBtn.setBorderPainted(false);
+            addToCartBtn.setFocusPainted(false);
+            addToCartBtn.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+            addToCartBtn.addActionListener(e -> {
+                if (product != null) {
+                    addToCart(product);
+                }
+            });
+            
+            // Wishlist button
+            wishlistBtn.setToolTipText("Add to Wishlist");
+            wishlistBtn.setBackground(ThemeManager.CARD_COLOR);
+            wishlistBtn.setBorderPainted(false);
+            wishlistBtn.setFocusPainted(false);
+            wishlistBtn.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+            wishlistBtn.addActionListener(e -> {
+                if (product != null) {
+                    toggleWishlist(product);
+                }
+            });
+            
+            buttonPanel.add(addToCartBtn);
+            buttonPanel.add(wishlistBtn);
+            
+            // Add components to info panel
+            infoPanel.add(nameLabel);
+            infoPanel.add(Box.createVerticalStrut(5));
+            infoPanel.add(categoryLabel);
+            infoPanel.add(Box.createVerticalStrut(10));
+            infoPanel.add(pricePanel);
+            infoPanel.add(Box.createVerticalStrut(10));
+            infoPanel.add(buttonPanel);
+            
+            // Add panels to card
+            panel.add(imagePanel, BorderLayout.NORTH);
+            panel.add(infoPanel, BorderLayout.CENTER);
+            
+            // Add hover effect
+            panel.addMouseListener(new MouseAdapter() {
+                @Override
+                public void mouseEntered(MouseEvent e) {
+                    panel.setBorder(ThemeManager.HOVER_BORDER);
+                    panel.setBackground(new Color(250, 250, 255)); // Slightly different background color on hover
+                    panel.repaint(); // Force repaint to show changes
+                }
+                
+                @Override
+                public void mouseExited(MouseEvent e) {
+                    panel.setBorder(ThemeManager.DEFAULT_BORDER);
+                    panel.setBackground(ThemeManager.CARD_COLOR); // Reset to default color
+                    panel.repaint(); // Force repaint to show changes
+                }
+                
+                @Override
+                public void mouseClicked(MouseEvent e) {
+                    if (product != null) {
+                        showProductDetails(product);
+                    }
+                }
+            });
         }
         
-        // Action buttons panel
-        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
-        buttonPanel.setBackground(ThemeManager.CARD_COLOR);
-        buttonPanel.setAlignmentX(Component.LEFT_ALIGNMENT);
-        
-        // Add to cart button
-        JButton addToCartBtn = new JButton("Add to Cart");
-        addToCartBtn.setFont(FontManager.getBold(14f));
-        addToCartBtn.setBackground(ThemeManager.ACCENT_ORANGE);
-        addToCartBtn.setForeground(Color.WHITE);
-        addToCartBtn.setBorderPainted(false);
-        addToCartBtn.setFocusPainted(false);
-        addToCartBtn.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
-        addToCartBtn.addActionListener(e -> addToCart(product));
-        
-        // Wishlist button
-        JButton wishlistBtn = new JButton();
-        wishlistBtn.setToolTipText("Add to Wishlist");
-        wishlistBtn.setBackground(ThemeManager.CARD_COLOR);
-        wishlistBtn.setBorderPainted(false);
-        wishlistBtn.setFocusPainted(false);
-        wishlistBtn.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
-        
-        // Check if product is in wishlist
-        boolean inWishlist = wishlistDAO.isInWishlist(currentUser.getId(), product.getId());
-        updateWishlistButton(wishlistBtn, inWishlist);
-        
-        wishlistBtn.addActionListener(e -> toggleWishlist(product, wishlistBtn));
-        
-        buttonPanel.add(addToCartBtn);
-        buttonPanel.add(wishlistBtn);
-        
-        // Add components to info panel
-        infoPanel.add(nameLabel);
-        infoPanel.add(Box.createVerticalStrut(5));
-        infoPanel.add(categoryLabel);
-        infoPanel.add(Box.createVerticalStrut(10));
-        infoPanel.add(pricePanel);
-        infoPanel.add(Box.createVerticalStrut(10));
-        infoPanel.add(buttonPanel);
-        
-        // Add panels to card
-        card.add(imagePanel, BorderLayout.NORTH);
-        card.add(infoPanel, BorderLayout.CENTER);
-        
-        // Add hover effect
-        card.addMouseListener(new MouseAdapter() {
-            @Override
-            public void mouseEntered(MouseEvent e) {
-                card.setBorder(ThemeManager.HOVER_BORDER);
-                card.setBackground(new Color(250, 250, 255)); // Slightly different background color on hover
-                card.repaint(); // Force repaint to show changes
+        void bind(Product product) {
+            this.product = product;
+            nameLabel.setText(product.getName());
+            categoryLabel.setText(getCategoryNameById(product.getCategory_id()));
+            
+            // Check if product is on sale
+            boolean isOnSale = activeSale != null;
+            double displayPrice = isOnSale
+                    ? product.getPrice() * (1 - (activeSale.getDiscountPercent() / 100.0))
+                    : product.getPrice();
+            priceLabel.setText("Rs. " + String.format("%.2f", displayPrice));
+            if (isOnSale) {
+                originalPriceLabel.setText("<html><strike> Rs. " + String.format("%.2f", product.getPrice()) + "</strike></html>");
+                saleLabel.setText(activeSale.getDiscountPercent() + "% OFF");
             }
+            originalPriceLabel.setVisible(isOnSale);
+            saleGap.setVisible(isOnSale);
+            saleLabel.setVisible(isOnSale);
             
-            @Override
-            public void mouseExited(MouseEvent e) {
-                card.setBorder(ThemeManager.DEFAULT_BORDER);
-                card.setBackground(ThemeManager.CARD_COLOR); // Reset to default color
-                card.repaint(); // Force repaint to show changes
+            updateWishlistButton(wishlistBtn, wishlistedIds.contains(product.getId()));
+            
+            // Thumbnails come from the shared image cache; a miss shows the placeholder until the
+            // image has been decoded in the background, unless the card has moved on by then
+            try {
+                String[] imageSources = productImageSources(product);
+                ImageIcon productIcon = ImageCache.getInstance().getIfCached(250, 180, imageSources);
+                imageLabel.setText("");
+                imageLabel.setIcon(productIcon != null ? productIcon : createPlaceholderIcon(product));
+                if (productIcon == null) {
+                    ImageCache.getInstance().loadAsync(250, 180, icon -> {
+                        if (icon != null && this.product == product) {
+                            imageLabel.setIcon(icon);
+                        }
+                    }, imageSources);
+                }
+            } catch (Exception e) {
+                // Fallback to placeholder with initial
+                imageLabel.setIcon(null);
+                imageLabel.setText(product.getName().substring(0, 1).toUpperCase());
             }
             
-            @Override
-            public void mouseClicked(MouseEvent e) {
-                showProductDetails(product);
+            panel.setVisible(true);
+        }
+        
+        void refreshWishlistButton() {
+            if (product != null) {
+                updateWishlistButton(wishlistBtn, wishlistedIds.contains(product.getId()));
             }
-        });
+        }
         
-        return card;
+        void unbind() {
+            product = null;
+            panel.setVisible(false);
+            panel.setBorder(ThemeManager.DEFAULT_BORDER);
+            panel.setBackground(ThemeManager.CARD_COLOR);
+        }
     }
     
     private void updateWishlistButton(JButton button, boolean inWishlist) {
@@ -608,31 +681,37 @@ public class ProductListView extends JPanel {
         button.setFocusPainted(false);
     }
     
-    private void toggleWishlist(Product product, JButton wishlistButton) {
-        boolean isInWishlist = wishlistDAO.isInWishlist(currentUser.getId(), product.getId());
-        
-        if (isInWishlist) {
-            // Remove from wishlist
-            boolean success = wishlistDAO.removeFromWishlist(currentUser.getId(), product.getId());
-            if (success) {
-                updateWishlistButton(wishlistButton, false);
-                JOptionPane.showMessageDialog(this, 
-                        product.getName() + " removed from your wishlist.", 
-                        "Removed from Wishlist", 
-                        JOptionPane.INFORMATION_MESSAGE);
+    // Saved in the background; the hearts change once the database has the change, on
+    // whichever card shows the product by then
+    private void toggleWishlist(Product product) {
+        int userId = currentUser.getId();
+        int productId = product.getId();
+        if (!wishlistSaving.add(productId)) {
+            return;
+        }
+        boolean isInWishlist = wishlistedIds.contains(productId);
+        
+        AsyncLoader.load("products.toggleWishlist", () -> isInWishlist
+                ? wishlistDAO.removeFromWishlist(userId, productId)
+                : wishlistDAO.addToWishlist(new Wishlist(userId, productId)), success -> {
+            wishlistSaving.remove(productId);
+            if (!success) {
+                return;
             }
-        } else {
-            // Add to wishlist
-            Wishlist wishlistItem = new Wishlist(currentUser.getId(), product.getId());
-            boolean success = wishlistDAO.addToWishlist(wishlistItem);
-            if (success) {
-                updateWishlistButton(wishlistButton, true);
-                JOptionPane.showMessageDialog(this, 
-                        product.getName() + " added to your wishlist.", 
-                        "Added to Wishlist", 
-                        JOptionPane.INFORMATION_MESSAGE);
+            if (isInWishlist) {
+                wishlistedIds.remove(productId);
+            } else {
+                wishlistedIds.add(productId);
             }
-        }
+            productGrid.refreshWishlistButtons();
+            JOptionPane.showMessageDialog(this, 
+                    product.getName() + (isInWishlist ? " removed from your wishlist." : " added to your wishlist."), 
+                    isInWishlist ? "Removed from Wishlist" : "Added to Wishlist", 
+                    JOptionPane.INFORMATION_MESSAGE);
+        }, error -> {
+            wishlistSaving.remove(productId);
+            System.err.println("Error updating wishlist: " + error.getMessage());
+        });
     }
     
     private void addToCart(Product product) {
@@ -655,22 +734,14 @@ public class ProductListView extends JPanel {
         int option = JOptionPane.showConfirmDialog(this, message, "Add to Cart", JOptionPane.OK_CANCEL_OPTION);
         if (option == JOptionPane.OK_OPTION) {
             int quantity = (int) quantitySpinner.getValue();
+            int userId = currentUser.getId();
             
-            // Create cart item and add to cart
-            CartItem cartItem = new CartItem(currentUser.getId(), product.getId(), quantity);
-            boolean success = cartItemDAO.addCartItem(cartItem);
-            
-            if (success) {
-                JOptionPane.showMessageDialog(this, 
-                        product.getName() + " added to your cart.", 
-                        "Added to Cart", 
-                        JOptionPane.INFORMATION_MESSAGE);
-            } else {
-                JOptionPane.showMessageDialog(this, 
-                        "Failed to add item to cart. Please try again.", 
-                        "Error", 
-                        JOptionPane.ERROR_MESSAGE);
-            }
+            // Off the EDT in case the cart hasn't been read yet; saved to the database later
+            AsyncLoader.run("cart.add", () -> CartService.getInstance().add(userId, product.getId(), quantity));
+            JOptionPane.showMessageDialog(this, 
+                    product.getName() + " added to your cart.", 
+                    "Added to Cart", 
+                    JOptionPane.INFORMATION_MESSAGE);
         }
     }
     
@@ -689,6 +760,8 @@ public class ProductListView extends JPanel {
                     currentUser,
                     product);
             detailsView.setVisible(true);
+            // The dialog is modal and can add or remove the product from the wishlist
+            loadWishlist();
         } catch (Exception e) {
             System.err.println("Error showing product details: " + e.getMessage());
             e.printStackTrace();
@@ -716,7 +789,6 @@ public class ProductListView extends JPanel {
             
             // Refresh product display after cart actions
             loadAllData();
-            filterProducts();
         } else if (parent != null) {
             // Try to find methods to switch to cart
             java.lang.reflect.Method method = null;
@@ -735,79 +807,148 @@ public class ProductListView extends JPanel {
                 
                 // Refresh product display after cart actions
                 loadAllData();
-                filterProducts();
             }
         }
     }
     
-    // FlowLayout subclass that fully justifies the layout
-    private static class WrapLayout extends FlowLayout {
-        public WrapLayout(int align, int hgap, int vgap) {
-            super(align, hgap, vgap);
+    /**
+     * Scrollable grid that only has cards for the rows in view, plus a buffer row either side.
+     * Cards scrolled out of range are re-bound to the products scrolled in, so the number of
+     * Swing components depends on the window size rather than the number of products, and
+     * replacing the products costs no more than re-binding the visible cards.
+     */
+    private class ProductGrid extends JPanel implements Scrollable {
+        private final List<Product> products = new ArrayList<>();
+        // Cards currently showing a product, by the product's index
+        private final Map<Integer, ProductCard> boundCards = new HashMap<>();
+        private final List<ProductCard> spareCards = new ArrayList<>();
+        private final JLabel messageLabel = AsyncLoader.placeholder("");
+        
+        ProductGrid() {
+            super(null);
+            setBackground(ThemeManager.BACKGROUND_COLOR);
+            add(messageLabel);
+        }
+        
+        void setProducts(List<Product> newProducts) {
+            products.clear();
+            products.addAll(newProducts);
+            releaseCards();
+            messageLabel.setText("");
+            revalidate();
+            repaint();
+        }
+        
+        void addProducts(List<Product> moreProducts) {
+            products.addAll(moreProducts);
+            revalidate();
+            repaint();
+        }
+        
+        /**
+         * Show a message (e.g. loading or no results) instead of products
+         */
+        void showMessage(String message) {
+            setProducts(new ArrayList<>());
+            messageLabel.setText(message);
+        }
+        
+        private int columns(int width) {
+            return Math.max(1, (width - CARD_GAP) / (CARD_WIDTH + CARD_GAP));
         }
         
         @Override
-        public Dimension preferredLayoutSize(Container target) {
-            return layoutSize(target, true);
+        public Dimension getPreferredSize() {
+            int width = getParent() != null ? getParent().getWidth() : CARD_WIDTH + 2 * CARD_GAP;
+            int columns = columns(width);
+            int rows = (products.size() + columns - 1) / columns;
+            return new Dimension(width, Math.max(CARD_GAP * 3, CARD_GAP + rows * (CARD_HEIGHT + CARD_GAP)));
         }
         
         @Override
-        public Dimension minimumLayoutSize(Container target) {
-            Dimension minimum = layoutSize(target, false);
-            minimum.width -= (getHgap() + 1);
-            return minimum;
+        public void doLayout() {
+            bindVisibleCards();
         }
         
-        private Dimension layoutSize(Container target, boolean preferred) {
-            synchronized (target.getTreeLock()) {
-                int targetWidth = target.getSize().width;
-                
-                if (targetWidth == 0)
-                    targetWidth = Integer.MAX_VALUE;
-                
-                int hgap = getHgap();
-                int vgap = getVgap();
-                Insets insets = target.getInsets();
-                int horizontalInsetsAndGap = insets.left + insets.right + (hgap * 2);
-                int maxWidth = targetWidth - horizontalInsetsAndGap;
-                
-                Dimension dim = new Dimension(0, 0);
-                int rowWidth = 0;
-                int rowHeight = 0;
-                
-                int nmembers = target.getComponentCount();
-                
-                for (int i = 0; i < nmembers; i++) {
-                    Component m = target.getComponent(i);
-                    
-                    if (m.isVisible()) {
-                        Dimension d = preferred ? m.getPreferredSize() : m.getMinimumSize();
-                        
-                        if (rowWidth + d.width > maxWidth) {
-                            dim.width = Math.max(dim.width, rowWidth);
-                            dim.height += rowHeight + vgap;
-                            rowWidth = 0;
-                            rowHeight = 0;
-                        }
-                        
-                        if (rowWidth != 0) {
-                            rowWidth += hgap;
-                        }
-                        
-                        rowWidth += d.width;
-                        rowHeight = Math.max(rowHeight, d.height);
+        // Bind cards to the products in (or near) the viewport and position them
+        void bindVisibleCards() {
+            messageLabel.setBounds(CARD_GAP, CARD_GAP, Math.max(0, getWidth() - 2 * CARD_GAP), CARD_GAP);
+            
+            int columns = columns(getWidth());
+            int rowHeight = CARD_HEIGHT + CARD_GAP;
+            Rectangle visible = getVisibleRect();
+            int firstRow = Math.max(0, visible.y / rowHeight - BUFFER_ROWS);
+            int lastRow = (visible.y + visible.height) / rowHeight + BUFFER_ROWS;
+            int first = firstRow * columns;
+            int end = Math.min(products.size(), (lastRow + 1) * columns);
+            
+            Iterator<Map.Entry<Integer, ProductCard>> bound = boundCards.entrySet().iterator();
+            while (bound.hasNext()) {
+                Map.Entry<Integer, ProductCard> entry = bound.next();
+                if (entry.getKey() < first || entry.getKey() >= end) {
+                    entry.getValue().unbind();
+                    spareCards.add(entry.getValue());
+                    bound.remove();
+                }
+            }
+            for (int i = first; i < end; i++) {
+                ProductCard card = boundCards.get(i);
+                if (card == null) {
+                    if (spareCards.isEmpty()) {
+                        card = new ProductCard();
+                        add(card.panel);
+                    } else {
+                        card = spareCards.remove(spareCards.size() - 1);
                     }
+                    card.bind(products.get(i));
+                    boundCards.put(i, card);
                 }
-                
-                dim.width = Math.max(dim.width, rowWidth);
-                dim.height += rowHeight + vgap;
-                
-                dim.width += horizontalInsetsAndGap;
-                dim.height += insets.top + insets.bottom + vgap * 2;
-                
-                return dim;
+                int column = i % columns;
+                int row = i / columns;
+                card.panel.setBounds(CARD_GAP + column * (CARD_WIDTH + CARD_GAP), CARD_GAP + row * rowHeight,
+                        CARD_WIDTH, CARD_HEIGHT);
+                card.panel.validate();
+            }
+        }
+        
+        void refreshWishlistButtons() {
+            for (ProductCard card : boundCards.values()) {
+                card.refreshWishlistButton();
             }
         }
+        
+        private void releaseCards() {
+            for (ProductCard card : boundCards.values()) {
+                card.unbind();
+                spareCards.add(card);
+            }
+            boundCards.clear();
+        }
+        
+        @Override
+        public Dimension getPreferredScrollableViewportSize() {
+            return getPreferredSize();
+        }
+        
+        @Override
+        public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+            return 16;
+        }
+        
+        @Override
+        public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+            return orientation == SwingConstants.VERTICAL ? visibleRect.height : visibleRect.width;
+        }
+        
+        @Override
+        public boolean getScrollableTracksViewportWidth() {
+            return true;
+        }
+        
+        @Override
+        public boolean getScrollableTracksViewportHeight() {
+            return false;
+        }
     }
     
     // Add this method to allow HomePage to set the search text and filter products
@@ -818,121 +959,147 @@ public class ProductListView extends JPanel {
         }
     }
 
-    // Helper method to safely get scaled icons
+    // Where a product's image may be: its own image path first, then the bundled resources
+    private static String[] productImageSources(Product product) {
+        return new String[] {
+            product.getImagePath(),
+            "/product_images/" + product.getId() + ".jpg",
+            "/product_images/" + product.getId() + ".png",
+            "/images/products/product_" + product.getId() + ".jpg",
+            "/images/products/product_" + product.getId() + ".png",
+            "/images/products/" + product.getId() + ".jpg",
+            "/images/products/" + product.getId() + ".png"
+        };
+    }
+    
+    // Gradient card with the product's initial and name, for products without an image
+    private ImageIcon createPlaceholderIcon(Product product) {
+        BufferedImage sampleImage = new BufferedImage(250, 180, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = sampleImage.createGraphics();
+        
+        // Create a gradient background
+        Color startColor, endColor;
+        int categoryId = product.getCategory_id();
+        
+        // Different colors for different categories
+        switch (categoryId % 5) {
+            case 0:
+                startColor = new Color(50, 50, 150);
+                endColor = new Color(100, 100, 255);
+                break;
+            case 1:
+                startColor = new Color(150, 50, 50);
+                endColor = new Color(255, 100, 100);
+                break;
+            case 2:
+                startColor = new Color(50, 150, 50);
+                endColor = new Color(100, 255, 100);
+                break;
+            case 3:
+                startColor = new Color(150, 150, 50);
+                endColor = new Color(255, 255, 100);
+                break;
+            default:
+                startColor = new Color(150, 50, 150);
+                endColor = new Color(255, 100, 255);
+        }
+        
+        GradientPaint gradient = new GradientPaint(0, 0, startColor, 250, 180, endColor);
+        g2d.setPaint(gradient);
+        g2d.fillRect(0, 0, 250, 180);
+        
+        // Draw product initial and name
+        g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g2d.setColor(Color.WHITE);
+        g2d.setFont(FontManager.getBold(80f));
+        
+        String initial = product.getName().substring(0, 1).toUpperCase();
+        FontMetrics fm = g2d.getFontMetrics();
+        int x = (250 - fm.stringWidth(initial)) / 2;
+        int y = 180/2 + fm.getAscent()/2;
+        g2d.drawString(initial, x, y);
+        
+        // Draw product name in smaller font
+        g2d.setFont(FontManager.getRegular(14f));
+        fm = g2d.getFontMetrics();
+        String nameShort = product.getName();
+        if (nameShort.length() > 25) {
+            nameShort = nameShort.substring(0, 22) + "...";
+        }
+        x = (250 - fm.stringWidth(nameShort)) / 2;
+        y = 180 - 20;
+        g2d.drawString(nameShort, x, y);
+        
+        g2d.dispose();
+        
+        return new ImageIcon(sampleImage);
+    }
+    
+    // Helper method to safely get scaled icons. Lookups, including misses, go through the
+    // shared image cache, so calling this for every card only decodes each icon once.
     private ImageIcon getScaledIcon(String path, int width, int height) {
         try {
-            URL url = getClass().getResource(path);
+            boolean wishlistIcon = path.contains("heart") || path.contains("wishlist");
+            boolean productImage = !wishlistIcon && (path.contains("product_images") || path.contains("products"));
+            List<String> sources = new ArrayList<>();
+            sources.add(path);
             
-            // If the resource isn't found in the classpath
-            if (url == null) {
-                System.out.println("Resource not found at: " + path + ", trying alternative paths");
-                
-                // For wishlist icons, check specific paths
-                if (path.contains("heart") || path.contains("wishlist")) {
-                    // Try multiple alternative paths for wishlist icons
-                    String[] altPaths = {
+            if (wishlistIcon) {
+                // Try multiple alternative paths for wishlist icons
+                if (path.contains("filled") || path.contains("fill")) {
+                    sources.addAll(Arrays.asList(
+                        "/icons/wishlist_filled.png",
+                        "/icons/heart_filled.png",
+                        "/icons/heart-filled.png",
+                        "/icons/favorite_filled.png",
+                        "/icons/like_filled.png"));
+                } else {
+                    sources.addAll(Arrays.asList(
                         "/icons/wishlist_empty.png",
                         "/icons/heart_empty.png",
                         "/icons/heart-empty.png",
                         "/icons/favorite_empty.png",
-                        "/icons/like_empty.png"
-                    };
-                    
-                    if (path.contains("filled") || path.contains("fill")) {
-                        altPaths = new String[] {
-                            "/icons/wishlist_filled.png",
-                            "/icons/heart_filled.png",
-                            "/icons/heart-filled.png",
-                            "/icons/favorite_filled.png",
-                            "/icons/like_filled.png"
-                        };
-                    }
-                    
-                    // Try each alternative path
-                    for (String altPath : altPaths) {
-                        url = getClass().getResource(altPath);
-                        if (url != null) {
-                            System.out.println("Found alternative icon at: " + altPath);
-                            break;
-                        }
-                    }
-                    
-                    // If still null, fall back to default color icon
-                    if (url == null) {
-                        System.out.println("No wishlist icon found, creating colored icon");
-                        return createColoredWishlistIcon(width, height, 
-                            path.contains("empty") ? new Color(220, 220, 220) : ThemeManager.ACCENT_RED);
-                    }
-                } else if (path.contains("product_images") || path.contains("products")) {
-                    // For product images, try multiple paths
-                    String productId = "";
-                    
-                    // Extract product ID from path
-                    if (path.contains("/")) {
-                        productId = path.substring(path.lastIndexOf("/") + 1, path.lastIndexOf("."));
-                    }
-                    
-                    // Try alternative image locations with different naming patterns
-                    String[] altPaths = {
-                        "/images/products/product_" + productId + ".jpg",
-                        "/images/products/product_" + productId + ".png",
-                        "/images/product_" + productId + ".jpg",
-                        "/images/product_" + productId + ".png",
-                        "/product_images/" + productId + ".jpg",
-                        "/product_images/" + productId + ".png",
-                        "/images/products/product" + productId + ".jpg",
-                        "/images/products/product" + productId + ".png"
-                    };
-                    
-                    // Try each alternative path
-                    for (String altPath : altPaths) {
-                        url = getClass().getResource(altPath);
-                        if (url != null) {
-                            System.out.println("Found product image at: " + altPath);
-                            break;
-                        }
-                    }
-                    
-                    // If still null, try a generic product placeholder
-                    if (url == null) {
-                        String[] placeholderPaths = {
-                            "/images/product_placeholder.jpg",
-                            "/images/product_placeholder.png",
-                            "/images/placeholder.jpg",
-                            "/images/placeholder.png",
-                            "/product_images/placeholder.jpg",
-                            "/product_images/placeholder.png"
-                        };
-                        
-                        for (String placeholderPath : placeholderPaths) {
-                            url = getClass().getResource(placeholderPath);
-                            if (url != null) {
-                                System.out.println("Using placeholder image: " + placeholderPath);
-                                break;
-                            }
-                        }
-                    }
-                    
-                    // If still null, create a colored rectangle with product initial
-                    if (url == null) {
-                        System.out.println("No product image or placeholder found, creating letter-based placeholder");
-                        return null; // Return null to let calling code create a placeholder with the product initial
-                    }
-                } else {
-                    // For other icons, create a colored rectangle icon
-                    System.out.println("Resource not found at: " + path + ", creating colored icon");
-                    return createColorIcon(width, height, new Color(240, 240, 240));
+                        "/icons/like_empty.png"));
                 }
+            } else if (productImage) {
+                // Extract product ID from path
+                String productId = "";
+                if (path.contains("/")) {
+                    productId = path.substring(path.lastIndexOf("/") + 1, path.lastIndexOf("."));
+                }
+                
+                // Alternative image locations with different naming patterns, then generic placeholders
+                sources.addAll(Arrays.asList(
+                    "/images/products/product_" + productId + ".jpg",
+                    "/images/products/product_" + productId + ".png",
+                    "/images/product_" + productId + ".jpg",
+                    "/images/product_" + productId + ".png",
+                    "/product_images/" + productId + ".jpg",
+                    "/product_images/" + productId + ".png",
+                    "/images/products/product" + productId + ".jpg",
+                    "/images/products/product" + productId + ".png",
+                    "/images/product_placeholder.jpg",
+                    "/images/product_placeholder.png",
+                    "/images/placeholder.jpg",
+                    "/images/placeholder.png",
+                    "/product_images/placeholder.jpg",
+                    "/product_images/placeholder.png"));
             }
             
-            // Create and return the scaled icon
-            if (url != null) {
-                ImageIcon icon = new ImageIcon(url);
-                Image img = icon.getImage().getScaledInstance(width, height, Image.SCALE_SMOOTH);
-                return new ImageIcon(img);
-            } else {
-                return createColorIcon(width, height, new Color(240, 240, 240));
+            ImageIcon icon = ImageCache.getInstance().getIcon(width, height, sources.toArray(new String[0]));
+            if (icon != null) {
+                return icon;
             }
+            
+            if (wishlistIcon) {
+                // Fall back to default color icon
+                return createColoredWishlistIcon(width, height, 
+                    path.contains("empty") ? new Color(220, 220, 220) : ThemeManager.ACCENT_RED);
+            } else if (productImage) {
+                return null; // Return null to let calling code create a placeholder with the product initial
+            }
+            // For other icons, create a colored rectangle icon
+            return createColorIcon(width, height, new Color(240, 240, 240));
         } catch (Exception e) {
             System.err.println("Error loading icon: " + path + " - " + e.getMessage());
             // If any error occurs, return a fallback colored icon
@@ -968,10 +1135,18 @@ public class ProductListView extends JPanel {
 
     // Allow setting category from homepage
     public void setCategoryAndFilter(String categoryName) {
+        if (categoryTree == null) {
+            pendingCategory = categoryName;
+            return;
+        }
         if (categoryFilterCombo != null) {
             for (int i = 0; i < categoryFilterCombo.getItemCount(); i++) {
                 if (categoryFilterCombo.getItemAt(i).equals(categoryName)) {
-                    categoryFilterCombo.setSelectedIndex(i);
+                    int index = i;
+                    withoutFilterEvents(() -> {
+                        categoryFilterCombo.setSelectedIndex(index);
+                        updateSubcategoryFilter();
+                    });
                     filterProducts();
                     break;
                 }
@@ -979,51 +1154,38 @@ public class ProductListView extends JPanel {
         }
     }
 
+    // Runs a change to the filter combos as one; the caller filters once it is done
+    private void withoutFilterEvents(Runnable change) {
+        boolean wasUpdating = updatingFilters;
+        updatingFilters = true;
+        try {
+            change.run();
+        } finally {
+            updatingFilters = wasUpdating;
+        }
+    }
+
+    // Refill the subcategories for the selected category; selecting the first one doesn't filter
     private void updateSubcategoryFilter() {
+        withoutFilterEvents(this::fillSubcategoryFilter);
+    }
+
+    private void fillSubcategoryFilter() {
         subcategoryFilterCombo.removeAllItems();
-        allSubcategories = null;
         String selectedCategory = (String) categoryFilterCombo.getSelectedItem();
-        if (selectedCategory == null || selectedCategory.equals("All Categories")) {
-            subcategoryFilterCombo.setEnabled(false);
-            return;
-        }
-        // Find the selected category id
-        int parentId = -1;
-        for (Category cat : allCategories) {
-            if (cat.getName().equals(selectedCategory)) {
-                parentId = cat.getId();
-                break;
-            }
-        }
-        if (parentId == -1) {
+        if (selectedCategory == null || selectedCategory.equals("All Categories") || categoryTree == null) {
             subcategoryFilterCombo.setEnabled(false);
             return;
         }
-        // Find subcategories (use regular loop to avoid final requirement)
-        allSubcategories = new java.util.ArrayList<>();
-        for (Category cat : allCategories) {
-            Integer catParentId = cat.getParentId();
-            if (catParentId != null && catParentId == parentId) {
-                allSubcategories.add(cat);
-            }
-        }
-        if (allSubcategories.isEmpty()) {
+        List<Category> subcategories = categoryTree.getChildren(categoryTree.findRootByName(selectedCategory));
+        if (subcategories.isEmpty()) {
             subcategoryFilterCombo.setEnabled(false);
             return;
         }
         subcategoryFilterCombo.setEnabled(true);
         subcategoryFilterCombo.addItem("All Subcategories");
-        for (Category sub : allSubcategories) {
+        for (Category sub : subcategories) {
             subcategoryFilterCombo.addItem(sub.getName());
         }
     }
-
-    private boolean isSubcategoryOf(int categoryId, String parentCategoryName) {
-        Category cat = allCategories.stream().filter(c -> c.getId() == categoryId).findFirst().orElse(null);
-        if (cat == null) return false;
-        Integer catParentId = cat.getParentId();
-        if (catParentId == null || catParentId == 0 || catParentId == -1) return false;
-        Category parent = allCategories.stream().filter(c -> c.getId() == catParentId).findFirst().orElse(null);
-        return parent != null && parent.getName().equals(parentCategoryName);
-    }
 } 
\ No newline at end of file
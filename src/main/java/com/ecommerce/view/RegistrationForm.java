@@ -303,12 +303,14 @@ public class RegistrationForm extends JFrame {
                             + "Best regards,\n"
                             + "The Zorojuro Team";
                 
-                boolean emailSent = emailSender.sendEmail(email, subject, body, null);
-                if (emailSent) {
-                    System.out.println("Welcome email sent successfully to: " + email);
-                } else {
-                    System.out.println("Failed to send welcome email to: " + email);
-                }
+                // Sent in the background so registration never waits on the mail server
+                emailSender.sendEmailAsync(email, subject, body, null).thenAccept(emailSent -> {
+                    if (emailSent) {
+                        System.out.println("Welcome email sent successfully to: " + email);
+                    } else {
+                        System.out.println("Failed to send welcome email to: " + email);
+                    }
+                });
             } catch (Exception ex) {
                 System.err.println("Error sending welcome email: " + ex.getMessage());
                 // Continue with registration even if email sending fails
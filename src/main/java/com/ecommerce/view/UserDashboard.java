@@ -9,6 +9,7 @@ import java.util.List;
 import com.ecommerce.model.*;
 import com.ecommerce.dao.*;
 import com.ecommerce.service.*;
+import com.ecommerce.util.AsyncLoader;
 
 public class UserDashboard extends JFrame {
     private User currentUser;
@@ -72,6 +73,8 @@ public class UserDashboard extends JFrame {
                     "Confirm Logout", 
                     JOptionPane.YES_NO_OPTION);
             if (confirm == JOptionPane.YES_OPTION) {
+                int userId = currentUser.getId();
+                AsyncLoader.run("cart.close", () -> CartService.getInstance().close(userId));
                 dispose();
                 new LoginForm().setVisible(true);
             }
@@ -21,19 +21,17 @@ import javax.swing.SwingConstants;
 import javax.swing.border.EmptyBorder;
 import javax.swing.table.DefaultTableModel;
 
-import com.ecommerce.dao.CartItemDAO;
-import com.ecommerce.dao.CartItemDAOImpl;
 import com.ecommerce.dao.WishlistDAO;
 import com.ecommerce.dao.WishlistDAOImpl;
-import com.ecommerce.model.CartItem;
 import com.ecommerce.model.Product;
 import com.ecommerce.model.User;
+import com.ecommerce.service.CartService;
+import com.ecommerce.util.AsyncLoader;
 import com.ecommerce.util.ThemeManager;
 
 public class WishlistView extends JPanel {
     private final User currentUser;
     private final WishlistDAO wishlistDAO;
-    private final CartItemDAO cartItemDAO;
     
     private JTable wishlistTable;
     private DefaultTableModel wishlistTableModel;
@@ -45,7 +43,6 @@ public class WishlistView extends JPanel {
     public WishlistView(User currentUser) {
         this.currentUser = currentUser;
         this.wishlistDAO = new WishlistDAOImpl();
-        this.cartItemDAO = new CartItemDAOImpl();
         
         setLayout(new BorderLayout());
         setBorder(new EmptyBorder(20, 20, 20, 20));
@@ -162,31 +159,26 @@ public class WishlistView extends JPanel {
     }
     
     public void moveToCart(int productId) {
-        // Create a new cart item
-        CartItem cartItem = new CartItem(currentUser.getId(), productId, 1);
-        boolean addedToCart = cartItemDAO.addCartItem(cartItem);
-        
-        if (addedToCart) {
-            // Remove from wishlist
-            boolean removedFromWishlist = wishlistDAO.removeFromWishlist(currentUser.getId(), productId);
-            
-            if (removedFromWishlist) {
-                JOptionPane.showMessageDialog(this, 
-                        "Item moved to cart successfully!", 
-                        "Item Moved", 
-                        JOptionPane.INFORMATION_MESSAGE);
-                loadWishlistItems();
-            } else {
-                JOptionPane.showMessageDialog(this, 
-                        "Item added to cart but could not be removed from wishlist", 
-                        "Partial Success", 
-                        JOptionPane.WARNING_MESSAGE);
-            }
+        int userId = currentUser.getId();
+        // Off the EDT: the cart may not have been read yet, and the wishlist is a database write
+        AsyncLoader.load("wishlist.moveToCart", () -> {
+            CartService.getInstance().add(userId, productId, 1);
+            return wishlistDAO.removeFromWishlist(userId, productId);
+        }, this::movedToCart);
+    }
+    
+    private void movedToCart(boolean removedFromWishlist) {
+        if (removedFromWishlist) {
+            JOptionPane.showMessageDialog(this, 
+                    "Item moved to cart successfully!", 
+                    "Item Moved", 
+                    JOptionPane.INFORMATION_MESSAGE);
+            loadWishlistItems();
         } else {
             JOptionPane.showMessageDialog(this, 
-                    "Failed to add item to cart", 
-                    "Error", 
-                    JOptionPane.ERROR_MESSAGE);
+                    "Item added to cart but could not be removed from wishlist", 
+                    "Partial Success", 
+                    JOptionPane.WARNING_MESSAGE);
         }
     }
     
@@ -0,0 +1,68 @@
+package com.ecommerce.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import com.ecommerce.model.Product;
+
+class CachingProductDAOTest
+{
+    @Test
+    void pricePageSkipsProductsThatLeftTheRangeSinceIndexed()
+    {
+        List<Product> products = new ArrayList<>();
+        for (int id = 1; id <= 10; id++) {
+            products.add(FakeCatalog.product(id, "Product " + id, "", id, null));
+        }
+        CachingProductDAO dao = new CachingProductDAO(FakeCatalog.products(products), 100, 10, 60_000);
+        dao.getPriceIndex().ensureBuilt();
+        // Repriced behind the index's back, e.g. by another application instance
+        products.get(2).setPrice(100);
+        products.get(3).setPrice(100);
+        ProductFilter filter = new ProductFilter().setPriceRange(0.0, 20.0).setSort(ProductSort.PRICE_ASC);
+
+        ProductPage first = dao.getProductPage(filter, null, 3);
+        assertEquals(List.of(1, 2, 5), ids(first));
+        assertNotNull(first.getNext());
+
+        ProductPage second = dao.getProductPage(filter, first.getNext(), 3);
+        assertEquals(List.of(6, 7, 8), ids(second));
+        assertNotNull(second.getNext());
+
+        ProductPage third = dao.getProductPage(filter, second.getNext(), 3);
+        assertEquals(List.of(9, 10), ids(third));
+        assertNull(third.getNext());
+    }
+
+    @Test
+    void lastFullPageHasNoNextWhenTheRestFailsTheFilter()
+    {
+        List<Product> products = new ArrayList<>();
+        for (int id = 1; id <= 6; id++) {
+            products.add(FakeCatalog.product(id, "Product " + id, "", id, null));
+        }
+        CachingProductDAO dao = new CachingProductDAO(FakeCatalog.products(products), 100, 10, 60_000);
+        dao.getPriceIndex().ensureBuilt();
+        products.get(3).setPrice(100);
+        products.get(4).setPrice(100);
+        products.get(5).setPrice(100);
+        ProductFilter filter = new ProductFilter().setPriceRange(0.0, 20.0).setSort(ProductSort.PRICE_DESC);
+
+        ProductPage page = dao.getProductPage(filter, null, 3);
+
+        assertEquals(List.of(3, 2, 1), ids(page));
+        assertNull(page.getNext());
+    }
+
+    private static List<Integer> ids(ProductPage page)
+    {
+        return page.getProducts().stream().map(Product::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,68 @@
+package com.ecommerce.dao;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.ecommerce.model.Category;
+import com.ecommerce.model.Product;
+
+/**
+ * In-memory stand-ins for the catalog DAOs, for indexes that only read the whole catalog
+ */
+final class FakeCatalog
+{
+    private FakeCatalog()
+    {
+    }
+
+    /**
+     * A ProductDAO answering getAllProduct and getProductsByIds from the given products, as
+     * they are when called; anything else throws
+     */
+    static ProductDAO products(List<Product> products)
+    {
+        return (ProductDAO) Proxy.newProxyInstance(ProductDAO.class.getClassLoader(),
+                new Class<?>[] {ProductDAO.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("getAllProduct")) {
+                        return new ArrayList<>(products);
+                    }
+                    if (method.getName().equals("getProductsByIds") && args.length == 1) {
+                        Map<Integer, Product> found = new HashMap<>();
+                        for (Object id : (Collection<?>) args[0]) {
+                            for (Product product : products) {
+                                if (id.equals(product.getId())) {
+                                    found.put(product.getId(), product);
+                                }
+                            }
+                        }
+                        return found;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    /**
+     * A CategoryDAO whose getAllCategories returns the given categories; anything else throws
+     */
+    static CategoryDAO categories(List<Category> categories)
+    {
+        return (CategoryDAO) Proxy.newProxyInstance(CategoryDAO.class.getClassLoader(),
+                new Class<?>[] {CategoryDAO.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("getAllCategories")) {
+                        return new ArrayList<>(categories);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    static Product product(int id, String name, String description, double price, Integer categoryId)
+    {
+        Product product = new Product(name, description, price, 10, categoryId, null);
+        product.setId(id);
+        return product;
+    }
+}
@@ -0,0 +1,109 @@
+package com.ecommerce.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class ProductDAOImplTest
+{
+    // Stock per product, standing in for the products table
+    private final Map<Integer, Integer> stock = new HashMap<>();
+    private Map<Integer, Integer> atSavepoint;
+
+    @Test
+    void reserveStockRetriesLineByLineWhenTheDriverGivesNoCounts() throws Exception
+    {
+        stock.put(1, 5);
+        stock.put(2, 1);
+        stock.put(3, 4);
+        Map<Integer, Integer> order = new LinkedHashMap<>();
+        order.put(1, 2);
+        order.put(2, 3);
+        order.put(3, 4);
+
+        Map<Integer, Boolean> reserved = new ProductDAOImpl().reserveStock(connection(), order);
+
+        assertEquals(Map.of(1, true, 2, false, 3, true), reserved);
+        // Each line applied once: the batch was undone before the retry
+        assertEquals(Map.of(1, 3, 2, 1, 3, 0), stock);
+    }
+
+    private int reserve(int productId, int quantity)
+    {
+        int available = stock.getOrDefault(productId, 0);
+        if (available < quantity) {
+            return 0;
+        }
+        stock.put(productId, available - quantity);
+        return 1;
+    }
+
+    // A connection in a transaction whose driver rewrites batches, as with rewriteBatchedStatements=true
+    private Connection connection()
+    {
+        Savepoint savepoint = (Savepoint) Proxy.newProxyInstance(Savepoint.class.getClassLoader(),
+                new Class<?>[] {Savepoint.class}, (proxy, method, args) -> {
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getAutoCommit":
+                            return false;
+                        case "setSavepoint":
+                            atSavepoint = new HashMap<>(stock);
+                            return savepoint;
+                        case "rollback":
+                            stock.clear();
+                            stock.putAll(atSavepoint);
+                            return null;
+                        case "prepareStatement":
+                            return statement();
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private PreparedStatement statement()
+    {
+        int[] parameters = new int[4];
+        List<int[]> batch = new ArrayList<>();
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[] {PreparedStatement.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "setInt":
+                            parameters[(int) args[0]] = (int) args[1];
+                            return null;
+                        case "addBatch":
+                            batch.add(parameters.clone());
+                            return null;
+                        case "executeBatch":
+                            int[] counts = new int[batch.size()];
+                            for (int i = 0; i < batch.size(); i++) {
+                                reserve(batch.get(i)[2], batch.get(i)[1]);
+                                counts[i] = Statement.SUCCESS_NO_INFO;
+                            }
+                            batch.clear();
+                            return counts;
+                        case "executeUpdate":
+                            return reserve(parameters[2], parameters[1]);
+                        case "close":
+                            return null;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
@@ -0,0 +1,68 @@
+package com.ecommerce.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.ecommerce.model.Product;
+
+class ProductSearchIndexTest
+{
+    // More distinct words share the prefix "item" than any small cap on prefix expansion
+    private static final int PRODUCTS = 300;
+    private static final int SPECIAL = 12;
+
+    @Test
+    void shortPrefixMatchesEveryWordStartingWithIt()
+    {
+        ProductSearchIndex index = index();
+
+        assertEquals(allIds(0, PRODUCTS), new HashSet<>(index.search("ite", 10_000)));
+        assertEquals(allIds(0, PRODUCTS), new HashSet<>(index.search("i", 10_000)));
+    }
+
+    @Test
+    void prefixWithManyTermsStillNarrowsRarerWords()
+    {
+        ProductSearchIndex index = index();
+
+        // "special" is rarer, so "ite" is checked against its candidates rather than unioned
+        assertEquals(allIds(0, SPECIAL), new HashSet<>(index.search("special ite", 10_000)));
+        assertEquals(allIds(0, SPECIAL), new HashSet<>(index.search("ite spec", 10_000)));
+    }
+
+    @Test
+    void exactWordRanksAbovePrefixMatch()
+    {
+        List<Product> products = new ArrayList<>();
+        products.add(FakeCatalog.product(1, "Laptop Stand", "", 10, null));
+        products.add(FakeCatalog.product(2, "Lap Desk", "", 10, null));
+        ProductSearchIndex index = new ProductSearchIndex(FakeCatalog.products(products), FakeCatalog.categories(List.of()));
+
+        assertEquals(List.of(2, 1), index.search("lap", 10));
+    }
+
+    private static ProductSearchIndex index()
+    {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            String name = "Widget item" + i + (i < SPECIAL ? " special" : "");
+            products.add(FakeCatalog.product(i, name, "", 10 + i, null));
+        }
+        return new ProductSearchIndex(FakeCatalog.products(products), FakeCatalog.categories(List.of()));
+    }
+
+    private static Set<Integer> allIds(int from, int to)
+    {
+        Set<Integer> ids = new HashSet<>();
+        for (int i = from; i < to; i++) {
+            ids.add(i);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,127 @@
+package com.ecommerce.dao;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.ecommerce.model.Category;
+import com.ecommerce.model.Product;
+
+/**
+ * Types queries into a suggest index over a synthetic 500k-product catalog one keystroke at a
+ * time, the way the search box calls it, and checks how long a keystroke takes. Misspelled
+ * queries are included, since corrections are the expensive path.
+ *
+ * Tagged as a benchmark, so it only runs with {@code mvn test -Pbench}.
+ */
+@Tag("benchmark")
+class ProductSuggestIndexBenchmarkTest
+{
+    private static final int PRODUCTS = 500_000;
+    private static final int CATEGORIES = 40;
+    private static final int SUGGESTIONS = 8;
+    private static final long MAX_P99_NANOS = 1_000_000;
+
+    private static final String[] BRANDS = {
+        "Acme", "Northwind", "Contoso", "Globex", "Initech", "Umbrella", "Soylent", "Hooli", "Vandelay",
+        "Stark", "Wayne", "Tyrell", "Cyberdyne", "Aperture", "Wonka", "Gringotts", "Oscorp", "Pied Piper"
+    };
+    private static final String[] ADJECTIVES = {
+        "wireless", "portable", "compact", "ergonomic", "premium", "classic", "smart", "digital", "waterproof",
+        "rechargeable", "adjustable", "foldable", "lightweight", "heavy duty", "stainless", "vintage", "organic",
+        "bluetooth", "mechanical", "magnetic", "insulated", "ceramic", "leather", "cotton", "bamboo"
+    };
+    private static final String[] NOUNS = {
+        "mouse", "keyboard", "headphones", "speaker", "charger", "monitor", "laptop stand", "backpack", "kettle",
+        "blender", "toaster", "water bottle", "desk lamp", "notebook", "pen set", "yoga mat", "dumbbell",
+        "running shoes", "jacket", "t-shirt", "wallet", "sunglasses", "watch", "camera", "tripod", "router",
+        "phone case", "tablet", "microphone", "webcam", "coffee grinder", "frying pan", "knife set", "pillow",
+        "blanket", "toothbrush", "hair dryer", "scissors", "stapler", "drill"
+    };
+    private static final String[] CATEGORY_NAMES = {
+        "electronics", "computers", "audio", "kitchen", "home", "office", "sports", "fitness", "clothing",
+        "accessories", "outdoors", "travel", "beauty", "tools", "garden", "toys", "books", "music", "gaming", "pets"
+    };
+    private static final String[] QUERIES = {
+        "wireless mouse", "acme keyboard", "bluetooth speaker", "stainless water bottle", "ergonomic desk lamp",
+        "coffee grinder", "running shoes", "electronics", "northwind", "portable charger",
+        // Misspelled
+        "wirless mouse", "keybaord", "headphnoes", "stainles kettle", "bluetoth speaker", "rechargable drill",
+        "microphnoe", "sunglases", "ergnomic chair", "webcma"
+    };
+
+    @Test
+    void keystrokeStaysUnderOneMillisecondAt500kProducts()
+    {
+        ProductSuggestIndex index = new ProductSuggestIndex(FakeCatalog.products(catalog()),
+                FakeCatalog.categories(categories()));
+        index.ensureBuilt();
+
+        // Warm up so the JIT has compiled the lookup before it is timed
+        for (int round = 0; round < 20; round++) {
+            typeAll(index, null);
+        }
+        List<Long> nanos = new ArrayList<>();
+        for (int round = 0; round < 10; round++) {
+            typeAll(index, nanos);
+        }
+
+        long[] sorted = nanos.stream().mapToLong(Long::longValue).sorted().toArray();
+        long p50 = sorted[sorted.length / 2];
+        long p99 = sorted[(int) (sorted.length * 0.99)];
+        long max = sorted[sorted.length - 1];
+        System.out.printf("ProductSuggestIndex over %,d products: %,d keystrokes, p50 %,d ns, p99 %,d ns, max %,d ns%n",
+                PRODUCTS, sorted.length, p50, p99, max);
+        assertTrue(p99 < MAX_P99_NANOS, "p99 keystroke took " + p99 + " ns");
+        assertFalse(index.suggest("wirless mou", SUGGESTIONS).isEmpty());
+    }
+
+    private static void typeAll(ProductSuggestIndex index, List<Long> nanos)
+    {
+        for (String query : QUERIES) {
+            for (int length = 1; length <= query.length(); length++) {
+                String typed = query.substring(0, length);
+                long start = System.nanoTime();
+                index.suggest(typed, SUGGESTIONS);
+                long elapsed = System.nanoTime() - start;
+                if (nanos != null) {
+                    nanos.add(elapsed);
+                }
+            }
+        }
+    }
+
+    // Brand, adjective and noun with a model number, so most names occur only a few times
+    private static List<Product> catalog()
+    {
+        Random random = new Random(42);
+        List<Product> products = new ArrayList<>(PRODUCTS);
+        for (int id = 1; id <= PRODUCTS; id++) {
+            String name = BRANDS[random.nextInt(BRANDS.length)] + " "
+                    + ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " "
+                    + NOUNS[random.nextInt(NOUNS.length)] + " "
+                    + (char) ('A' + random.nextInt(26)) + random.nextInt(1_000);
+            products.add(FakeCatalog.product(id, name, "", 5 + random.nextInt(500), 1 + random.nextInt(CATEGORIES)));
+        }
+        return products;
+    }
+
+    private static List<Category> categories()
+    {
+        List<Category> categories = new ArrayList<>(CATEGORIES);
+        for (int id = 1; id <= CATEGORIES; id++) {
+            Category category = new Category();
+            category.setId(id);
+            category.setName(CATEGORY_NAMES[(id - 1) % CATEGORY_NAMES.length]
+                    + (id > CATEGORY_NAMES.length ? " deals" : ""));
+            categories.add(category);
+        }
+        return categories;
+    }
+}
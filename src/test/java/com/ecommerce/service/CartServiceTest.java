@@ -0,0 +1,75 @@
+package com.ecommerce.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.ecommerce.dao.CartItemDAO;
+import com.ecommerce.model.CartItem;
+
+class CartServiceTest
+{
+    private static final int USER_ID = 7;
+    // Long enough that nothing is written behind the test's back
+    private static final long WRITE_DELAY_MS = 60_000;
+
+    private final AtomicInteger reads = new AtomicInteger();
+    private final List<Map<Integer, Integer>> saved = new ArrayList<>();
+
+    @Test
+    void loadReadsTheCartOnceAndLaterChangesUseMemory()
+    {
+        CartService carts = new CartService(cartItemDAO(new CartItem(USER_ID, 1, 2), new CartItem(USER_ID, 1, 1)), WRITE_DELAY_MS);
+
+        carts.load(USER_ID);
+        carts.load(USER_ID);
+        carts.add(USER_ID, 1, 1);
+        carts.add(USER_ID, 2, 4);
+
+        assertEquals(1, reads.get());
+        // The two rows for product 1 are merged
+        assertEquals(4, carts.getQuantity(USER_ID, 1));
+        assertEquals(4, carts.getQuantity(USER_ID, 2));
+    }
+
+    @Test
+    void flushWritesTheLatestQuantityPerProductInOneBatch()
+    {
+        CartService carts = new CartService(cartItemDAO(), WRITE_DELAY_MS);
+
+        carts.add(USER_ID, 1, 1);
+        carts.add(USER_ID, 1, 1);
+        carts.add(USER_ID, 2, 3);
+        carts.remove(USER_ID, 2);
+
+        assertTrue(carts.flush(USER_ID));
+        assertEquals(List.of(Map.of(1, 2, 2, 0)), saved);
+    }
+
+    private CartItemDAO cartItemDAO(CartItem... rows)
+    {
+        return (CartItemDAO) Proxy.newProxyInstance(CartItemDAO.class.getClassLoader(),
+                new Class<?>[] {CartItemDAO.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getCartItemsByUserId":
+                            reads.incrementAndGet();
+                            return new ArrayList<>(List.of(rows));
+                        case "saveQuantities":
+                            @SuppressWarnings("unchecked")
+                            Map<Integer, Integer> batch = (Map<Integer, Integer>) args[1];
+                            saved.add(new LinkedHashMap<>(batch));
+                            return true;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
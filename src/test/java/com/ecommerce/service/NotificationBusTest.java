@@ -0,0 +1,101 @@
+package com.ecommerce.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.sql.Timestamp;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.ecommerce.dao.NotificationDAO;
+import com.ecommerce.model.Notification;
+
+class NotificationBusTest
+{
+    private static final int USER_ID = 7;
+
+    private final BlockingQueue<Integer> delivered = new LinkedBlockingQueue<>();
+
+    @Test
+    void changesPublishedWhileTheCountIsReadAreReplayedOntoIt() throws InterruptedException
+    {
+        CountDownLatch counting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // The initial read answers at once; the reconcile's read is held until the test has published
+        int[] reads = new int[1];
+        NotificationBus bus = new NotificationBus(notificationDAO(() -> {
+            if (reads[0]++ > 0) {
+                counting.countDown();
+                await(release);
+            }
+            return 3;
+        }), 0);
+        bus.subscribe(USER_ID, delivered::add);
+        assertEquals(3, next());
+
+        bus.reconcile(USER_ID);
+        assertTrue(counting.await(5, TimeUnit.SECONDS));
+        // Committed after the COUNT ran, so the query's 3 doesn't include it
+        bus.published(new Notification(USER_ID, "Order shipped", new Timestamp(0)));
+        assertEquals(4, next());
+        release.countDown();
+
+        assertEquals(4, next());
+    }
+
+    @Test
+    void changesPublishedWhileTheInitialCountIsReadAreNotLost() throws InterruptedException
+    {
+        CountDownLatch counting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        NotificationBus bus = new NotificationBus(notificationDAO(() -> {
+            counting.countDown();
+            await(release);
+            return 5;
+        }), 0);
+        bus.subscribe(USER_ID, delivered::add);
+        assertTrue(counting.await(5, TimeUnit.SECONDS));
+
+        bus.markedRead(USER_ID, 2);
+        release.countDown();
+
+        assertEquals(3, next());
+    }
+
+    private int next() throws InterruptedException
+    {
+        Integer unread = delivered.poll(5, TimeUnit.SECONDS);
+        assertTrue(unread != null, "No unread count delivered");
+        return unread;
+    }
+
+    private static void await(CountDownLatch latch)
+    {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private interface Count
+    {
+        int unread();
+    }
+
+    private static NotificationDAO notificationDAO(Count count)
+    {
+        return (NotificationDAO) Proxy.newProxyInstance(NotificationDAO.class.getClassLoader(),
+                new Class<?>[] {NotificationDAO.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("countUnreadNotifications")) {
+                        return count.unread();
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,109 @@
+package com.ecommerce.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+class SparseCountMatrixTest
+{
+    @Test
+    void addAccumulatesAndRemovesCellsThatDropToZero()
+    {
+        SparseCountMatrix matrix = new SparseCountMatrix(16);
+
+        matrix.add(1, 2, 3);
+        matrix.add(1, 2, 2);
+        matrix.add(1, 3, 1);
+        matrix.add(1, 3, -1);
+        // Nothing to subtract from, so this doesn't create a row
+        matrix.add(4, 5, -1);
+
+        assertEquals(5, matrix.get(1, 2));
+        assertEquals(0, matrix.get(1, 3));
+        assertEquals(1, matrix.rowSize(1));
+        assertEquals(0, matrix.rowSize(4));
+        assertArrayEquals(new int[] {1}, matrix.rowKeys());
+    }
+
+    @Test
+    void removeKeepsTheRestOfTheRowReachable()
+    {
+        SparseCountMatrix matrix = new SparseCountMatrix(1000);
+        for (int column = 0; column < 500; column++) {
+            matrix.add(1, column, column + 1);
+        }
+
+        for (int column = 0; column < 500; column += 2) {
+            matrix.add(1, column, -(column + 1));
+        }
+
+        assertEquals(250, matrix.rowSize(1));
+        for (int column = 0; column < 500; column++) {
+            assertEquals(column % 2 == 0 ? 0 : column + 1, matrix.get(1, column));
+        }
+    }
+
+    @Test
+    void topOrdersByCountThenColumn()
+    {
+        SparseCountMatrix matrix = new SparseCountMatrix(16);
+        matrix.add(1, 10, 2);
+        matrix.add(1, 11, 5);
+        matrix.add(1, 12, 2);
+        matrix.add(1, 13, 1);
+        int[] columns = new int[3];
+        int[] counts = new int[3];
+
+        int found = matrix.top(1, 3, columns, counts);
+
+        assertEquals(3, found);
+        assertArrayEquals(new int[] {11, 10, 12}, columns);
+        assertArrayEquals(new int[] {5, 2, 2}, counts);
+        assertEquals(0, matrix.top(2, 3, columns, counts));
+    }
+
+    @Test
+    void overflowKeepsTheHighestCounts()
+    {
+        SparseCountMatrix matrix = new SparseCountMatrix(8);
+        for (int column = 1; column <= 8; column++) {
+            matrix.add(1, column, column);
+        }
+
+        matrix.add(1, 9, 1);
+
+        // Six (three quarters of eight) survive the prune, then the new cell goes in
+        assertEquals(7, matrix.rowSize(1));
+        for (int column = 3; column <= 8; column++) {
+            assertEquals(column, matrix.get(1, column));
+        }
+        assertEquals(0, matrix.get(1, 1));
+        assertEquals(0, matrix.get(1, 2));
+        assertEquals(1, matrix.get(1, 9));
+    }
+
+    @Test
+    void overflowOfARowWhereEveryCountTiesKeepsThreeQuarters()
+    {
+        SparseCountMatrix matrix = new SparseCountMatrix(200);
+        for (int column = 1; column <= 200; column++) {
+            matrix.add(1, column, 1);
+        }
+
+        matrix.add(1, 201, 1);
+
+        assertEquals(151, matrix.rowSize(1));
+        int[] columns = new int[200];
+        int[] counts = new int[200];
+        int found = matrix.top(1, 200, columns, counts);
+        assertEquals(151, found);
+        // Ties are cut by column, so the lowest columns stay
+        int[] expected = new int[150];
+        Arrays.setAll(expected, i -> i + 1);
+        assertArrayEquals(expected, Arrays.copyOf(columns, 150));
+        assertEquals(201, columns[150]);
+    }
+}
@@ -0,0 +1,90 @@
+package com.ecommerce.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ThumbnailStoreTest
+{
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void indexIsWrittenOnFlushAndReadByTheNextStore() throws IOException
+    {
+        File directory = tempDir.resolve("thumbs").toFile();
+        URL source = source("a.bin", "first");
+        ThumbnailStore store = new ThumbnailStore(directory);
+
+        store.save(source, 4, 4, image());
+
+        assertFalse(new File(directory, "index.properties").exists());
+        store.flush();
+        assertTrue(new File(directory, "index.properties").isFile());
+        assertNotNull(new ThumbnailStore(directory).load(source, 4, 4));
+    }
+
+    @Test
+    void thumbnailsOfAChangedSourceAreDeleted() throws IOException
+    {
+        File directory = tempDir.resolve("thumbs").toFile();
+        URL source = source("a.bin", "first");
+        ThumbnailStore store = new ThumbnailStore(directory);
+        store.save(source, 4, 4, image());
+        store.save(source, 8, 8, image());
+        assertEquals(2, thumbnailCount(directory));
+
+        source("a.bin", "second version");
+
+        assertNull(store.load(source, 4, 4));
+        assertEquals(0, thumbnailCount(directory));
+    }
+
+    @Test
+    void sharedContentKeepsItsThumbnailsWhenOneSourceChanges() throws IOException
+    {
+        File directory = tempDir.resolve("thumbs").toFile();
+        URL first = source("a.bin", "same");
+        URL second = source("b.bin", "same");
+        ThumbnailStore store = new ThumbnailStore(directory);
+        store.save(first, 4, 4, image());
+        assertNotNull(store.load(second, 4, 4));
+
+        source("a.bin", "changed");
+        store.load(first, 4, 4);
+
+        assertNotNull(store.load(second, 4, 4));
+    }
+
+    private URL source(String name, String content) throws IOException
+    {
+        Path file = tempDir.resolve(name);
+        Files.writeString(file, content);
+        return file.toUri().toURL();
+    }
+
+    private static BufferedImage image()
+    {
+        return new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+    }
+
+    private static int thumbnailCount(File directory) throws IOException
+    {
+        try (Stream<Path> files = Files.walk(directory.toPath())) {
+            return (int) files.filter(path -> path.toString().endsWith(".png")).count();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.ecommerce.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.mail.MessagingException;
+import javax.mail.Transport;
+import javax.mail.internet.MimeMessage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.ecommerce.config.AppConfig;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+
+/**
+ * Runs the dispatcher against GreenMail, an SMTP server started in-process on the port
+ * configured in the test application.properties.
+ */
+class EmailDispatcherTest
+{
+    @RegisterExtension
+    static final GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @TempDir
+    Path tempDir;
+
+    private EmailDispatcher dispatcher;
+
+    @BeforeEach
+    void setUpUser()
+    {
+        greenMail.setUser(AppConfig.getEmailUsername(), AppConfig.getEmailUsername(), AppConfig.getEmailPassword());
+    }
+
+    @AfterEach
+    void shutDownDispatcher()
+    {
+        if (dispatcher != null) {
+            dispatcher.shutdown(5_000);
+        }
+    }
+
+    @Test
+    void deliversQueuedEmail() throws Exception
+    {
+        dispatcher = new EmailDispatcher(new CountingSender(0), 10, 1, 3, 50, deadLetterFile());
+
+        CompletableFuture<Boolean> sent = dispatcher.submit("customer@example.com", "Order Confirmation", "Thanks!", null);
+
+        assertTrue(sent.get(10, TimeUnit.SECONDS));
+        assertTrue(greenMail.waitForIncomingEmail(5_000, 1));
+        MimeMessage received = greenMail.getReceivedMessages()[0];
+        assertEquals("Order Confirmation", received.getSubject());
+        assertEquals("customer@example.com", received.getAllRecipients()[0].toString());
+    }
+
+    @Test
+    void reusesOneConnectionForConsecutiveEmails() throws Exception
+    {
+        CountingSender sender = new CountingSender(0);
+        dispatcher = new EmailDispatcher(sender, 10, 1, 3, 50, deadLetterFile());
+
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            futures.add(dispatcher.submit("customer" + i + "@example.com", "Message " + i, "Body " + i, null));
+        }
+        for (CompletableFuture<Boolean> future : futures) {
+            assertTrue(future.get(10, TimeUnit.SECONDS));
+        }
+
+        assertTrue(greenMail.waitForIncomingEmail(5_000, 5));
+        assertEquals(1, sender.connects.get());
+    }
+
+    @Test
+    void retriesWithGrowingDelayUntilSent() throws Exception
+    {
+        // The first two connection attempts fail, the third gets through
+        CountingSender sender = new CountingSender(2);
+        long retryDelayMs = 100;
+        dispatcher = new EmailDispatcher(sender, 10, 1, 3, retryDelayMs, deadLetterFile());
+
+        CompletableFuture<Boolean> sent = dispatcher.submit("customer@example.com", "Retried", "Body", null);
+
+        assertTrue(sent.get(10, TimeUnit.SECONDS));
+        assertTrue(greenMail.waitForIncomingEmail(5_000, 1));
+        assertEquals(3, sender.connects.get());
+        // Delay before attempt n is retryDelayMs * 2^(n-1), with jitter of at most -50%
+        List<Long> attempts = sender.attemptTimesMs;
+        assertTrue(attempts.get(1) - attempts.get(0) >= retryDelayMs / 2,
+                "first retry came after " + (attempts.get(1) - attempts.get(0)) + " ms");
+        assertTrue(attempts.get(2) - attempts.get(1) >= retryDelayMs,
+                "second retry came after " + (attempts.get(2) - attempts.get(1)) + " ms");
+        assertTrue(dispatcher.getRecentDeadLetters().isEmpty());
+    }
+
+    @Test
+    void deadLettersEmailThatRunsOutOfAttempts() throws Exception
+    {
+        CountingSender sender = new CountingSender(Integer.MAX_VALUE);
+        String deadLetterFile = deadLetterFile();
+        dispatcher = new EmailDispatcher(sender, 10, 1, 2, 20, deadLetterFile);
+
+        CompletableFuture<Boolean> sent = dispatcher.submit("customer@example.com", "Never Sent", "Body", null);
+
+        assertFalse(sent.get(10, TimeUnit.SECONDS));
+        assertEquals(2, sender.connects.get());
+        assertEquals(0, greenMail.getReceivedMessages().length);
+
+        List<EmailDispatcher.DeadLetter> deadLetters = dispatcher.getRecentDeadLetters();
+        assertEquals(1, deadLetters.size());
+        assertEquals("customer@example.com", deadLetters.get(0).getToEmail());
+        assertEquals(2, deadLetters.get(0).getAttempts());
+
+        List<String> lines = Files.readAllLines(Path.of(deadLetterFile));
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).contains("customer@example.com\tNever Sent\t2\t"), lines.get(0));
+    }
+
+    @Test
+    void deadLettersEmailSubmittedAfterShutdown() throws Exception
+    {
+        dispatcher = new EmailDispatcher(new CountingSender(0), 1, 1, 3, 50, deadLetterFile());
+        dispatcher.shutdown(5_000);
+
+        CompletableFuture<Boolean> sent = dispatcher.submit("customer@example.com", "Too Late", "Body", null);
+
+        assertFalse(sent.get(10, TimeUnit.SECONDS));
+        assertEquals("Email dispatcher is shut down", dispatcher.getRecentDeadLetters().get(0).getReason());
+    }
+
+    private String deadLetterFile()
+    {
+        return tempDir.resolve("dead-letters.log").toString();
+    }
+
+    // Counts connections, and can refuse the first few as if the server were unreachable
+    private static final class CountingSender extends EmailSender
+    {
+        private final AtomicInteger connects = new AtomicInteger();
+        private final List<Long> attemptTimesMs = Collections.synchronizedList(new ArrayList<>());
+        private final int failures;
+
+        CountingSender(int failures)
+        {
+            this.failures = failures;
+        }
+
+        @Override
+        Transport connect() throws MessagingException
+        {
+            attemptTimesMs.add(System.nanoTime() / 1_000_000);
+            if (connects.incrementAndGet() <= failures) {
+                throw new MessagingException("Simulated connection failure");
+            }
+            return super.connect();
+        }
+    }
+}